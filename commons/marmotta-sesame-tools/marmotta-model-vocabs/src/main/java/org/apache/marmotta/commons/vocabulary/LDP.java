@@ -197,6 +197,19 @@ public class LDP {
      */
     public static final URI NonRDFSource;
 
+    /**
+     * Page
+     * <p>
+     * {@code http://www.w3.org/ns/ldp#Page}.
+     * <p>
+     * URI signifying that the resource is an in-sequence page resource, as
+     * defined by LDP Paging. Typically used on Link rel='type' response
+     * headers.
+     *
+     * @see <a href="http://www.w3.org/ns/ldp#Page">Page</a>
+     */
+    public static final URI Page;
+
     /**
      * PreferContainment
      * <p>
@@ -236,6 +249,21 @@ public class LDP {
      */
     public static final URI PreferMembership;
 
+    /**
+     * PreferMinimalContainer
+     * <p>
+     * {@code http://www.w3.org/ns/ldp#PreferMinimalContainer}.
+     * <p>
+     * URI identifying the subset of a LDPC's triples present in an empty
+     * LDPC, for example to allow clients to express interest in receiving
+     * them. Currently this excludes containment and membership triples, but
+     * in the future other exclusions might be added. This definition is
+     * written to automatically exclude those new classes of triples.
+     *
+     * @see <a href="http://www.w3.org/ns/ldp#PreferMinimalContainer">PreferMinimalContainer</a>
+     */
+    public static final URI PreferMinimalContainer;
+
     /**
      * RDFSource
      * <p>
@@ -275,9 +303,11 @@ public class LDP {
         membershipResource = factory.createURI(LDP.NAMESPACE, "membershipResource");
         MemberSubject = factory.createURI(LDP.NAMESPACE, "MemberSubject");
         NonRDFSource = factory.createURI(LDP.NAMESPACE, "NonRDFSource");
+        Page = factory.createURI(LDP.NAMESPACE, "Page");
         PreferContainment = factory.createURI(LDP.NAMESPACE, "PreferContainment");
         PreferEmptyContainer = factory.createURI(LDP.NAMESPACE, "PreferEmptyContainer");
         PreferMembership = factory.createURI(LDP.NAMESPACE, "PreferMembership");
+        PreferMinimalContainer = factory.createURI(LDP.NAMESPACE, "PreferMinimalContainer");
         RDFSource = factory.createURI(LDP.NAMESPACE, "RDFSource");
         Resource = factory.createURI(LDP.NAMESPACE, "Resource");
     }
@@ -17,10 +17,12 @@
  */
 package org.apache.marmotta.commons.sesame.transactions.model;
 
+import org.apache.marmotta.commons.sesame.tripletable.TripleSetFactory;
 import org.apache.marmotta.commons.sesame.tripletable.TripleTable;
 import org.openrdf.model.Statement;
 
 import java.util.Date;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -36,12 +38,12 @@ public class TransactionData {
     /*
     * Triples that have been added to the triple store
     */
-    protected TripleTable<Statement> addedTriples;
+    protected Set<Statement> addedTriples;
 
     /**
      * Triples that have been removed from the triple store
      */
-    protected TripleTable<Statement> removedTriples;
+    protected Set<Statement> removedTriples;
 
     /**
      * Set by transaction service to indicate the time when this transaction is committed. Used e.g. to ensure
@@ -58,6 +60,18 @@ public class TransactionData {
         addedTriples   = new TripleTable<Statement>();
     }
 
+    /**
+     * Create transaction data collecting the added and removed triples in sets created by the factory, e.g. a
+     * compact representation provided by the underlying triple store.
+     *
+     * @param factory the factory creating the sets of added and removed triples
+     */
+    public TransactionData(TripleSetFactory factory) {
+        transactionId  = "TX-" + UUID.randomUUID().toString();
+        removedTriples = factory.createTripleSet();
+        addedTriples   = factory.createTripleSet();
+    }
+
 
     public void addTriple(Statement triple) {
         addedTriples.add(triple);
@@ -77,11 +91,11 @@ public class TransactionData {
         this.commitTime = commitTime;
     }
 
-    public TripleTable<Statement> getAddedTriples() {
+    public Set<Statement> getAddedTriples() {
         return addedTriples;
     }
 
-    public TripleTable<Statement> getRemovedTriples() {
+    public Set<Statement> getRemovedTriples() {
         return removedTriples;
     }
 
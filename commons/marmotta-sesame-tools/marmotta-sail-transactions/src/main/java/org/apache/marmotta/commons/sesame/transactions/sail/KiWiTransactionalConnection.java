@@ -20,6 +20,7 @@ package org.apache.marmotta.commons.sesame.transactions.sail;
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionListener;
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionalSailConnection;
 import org.apache.marmotta.commons.sesame.transactions.model.TransactionData;
+import org.apache.marmotta.commons.sesame.tripletable.TripleSetFactory;
 import org.openrdf.model.Statement;
 import org.openrdf.sail.NotifyingSailConnection;
 import org.openrdf.sail.SailConnectionListener;
@@ -46,11 +47,19 @@ public class KiWiTransactionalConnection extends NotifyingSailConnectionWrapper
 
     private TransactionData data;
 
+    // creates the sets of added and removed triples, null for the generic triple table
+    private TripleSetFactory tripleSetFactory;
+
     public KiWiTransactionalConnection(NotifyingSailConnection wrapped, Collection<TransactionListener> listeners) throws SailException {
+        this(wrapped, listeners, null);
+    }
+
+    public KiWiTransactionalConnection(NotifyingSailConnection wrapped, Collection<TransactionListener> listeners, TripleSetFactory tripleSetFactory) throws SailException {
         super(wrapped);
         wrapped.addConnectionListener(this);
 
         this.listeners = listeners;
+        this.tripleSetFactory = tripleSetFactory;
     }
 
     /**
@@ -105,7 +114,7 @@ public class KiWiTransactionalConnection extends NotifyingSailConnectionWrapper
         super.begin();
 
         // start new transaction
-        data = new TransactionData();
+        data = createTransactionData();
 
     }
 
@@ -136,7 +145,7 @@ public class KiWiTransactionalConnection extends NotifyingSailConnectionWrapper
         }
 
         // empty transaction data
-        data = new TransactionData();
+        data = createTransactionData();
     }
 
     /**
@@ -154,14 +163,18 @@ public class KiWiTransactionalConnection extends NotifyingSailConnectionWrapper
         }
 
         // empty transaction data
-        data = new TransactionData();
+        data = createTransactionData();
     }
 
 
     private void ensureTransactionStarted() {
         if(data == null) {
             log.warn("transaction was not properly started, autostarting; please consider using connection.begin() explicitly!");
-            data = new TransactionData();
+            data = createTransactionData();
         }
     }
+
+    private TransactionData createTransactionData() {
+        return tripleSetFactory != null ? new TransactionData(tripleSetFactory) : new TransactionData();
+    }
 }
@@ -19,9 +19,12 @@ package org.apache.marmotta.commons.sesame.transactions.sail;
 
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionListener;
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionalSail;
+import org.apache.marmotta.commons.sesame.tripletable.TripleSetFactory;
 import org.openrdf.sail.NotifyingSail;
 import org.openrdf.sail.NotifyingSailConnection;
+import org.openrdf.sail.Sail;
 import org.openrdf.sail.SailException;
+import org.openrdf.sail.StackableSail;
 import org.openrdf.sail.helpers.NotifyingSailWrapper;
 
 import java.util.ArrayList;
@@ -97,8 +100,21 @@ public class KiWiTransactionalSail extends NotifyingSailWrapper implements Trans
     @Override
     public NotifyingSailConnection getConnection() throws SailException {
         if(transactionsEnabled)
-            return new KiWiTransactionalConnection(super.getConnection(),listeners);
+            return new KiWiTransactionalConnection(super.getConnection(),listeners,getTripleSetFactory());
         else
             return super.getConnection();
     }
+
+    /**
+     * Return the first sail in the stack below this sail that provides its own sets for the transaction data, or
+     * null if the generic triple table should be used.
+     */
+    private TripleSetFactory getTripleSetFactory() {
+        for(Sail sail = getBaseSail(); sail != null; sail = sail instanceof StackableSail ? ((StackableSail) sail).getBaseSail() : null) {
+            if(sail instanceof TripleSetFactory) {
+                return (TripleSetFactory) sail;
+            }
+        }
+        return null;
+    }
 }
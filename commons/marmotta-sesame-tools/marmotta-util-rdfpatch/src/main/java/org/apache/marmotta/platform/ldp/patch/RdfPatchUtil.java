@@ -17,7 +17,6 @@
  */
 package org.apache.marmotta.platform.ldp.patch;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.marmotta.platform.ldp.patch.model.PatchLine;
 import org.apache.marmotta.platform.ldp.patch.model.WildcardStatement;
 import org.apache.marmotta.platform.ldp.patch.parser.ParseException;
@@ -27,10 +26,10 @@ import org.openrdf.model.*;
 import org.openrdf.repository.Repository;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
-import org.openrdf.repository.RepositoryResult;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.*;
 
 /**
@@ -40,6 +39,11 @@ import java.util.*;
  */
 public class RdfPatchUtil {
 
+    /**
+     * Maximum number of statements passed to the connection in a single bulk add or remove
+     */
+    public static final int BATCH_SIZE = 1000;
+
     /**
      * Apply the provided patch to the repository
      * @param repository the {@link org.openrdf.repository.Repository} to patch
@@ -49,7 +53,17 @@ public class RdfPatchUtil {
      * @throws InvalidPatchDocumentException if the patch is invalid
      */
     public static void applyPatch(Repository repository, String patch, Resource... contexts) throws RepositoryException, ParseException, InvalidPatchDocumentException {
-        applyPatch(repository, getPatch(repository.getValueFactory(), patch), contexts);
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            applyPatch(con, patch, contexts);
+            con.commit();
+        } catch (final Throwable t) {
+            con.rollback();
+            throw t;
+        } finally {
+            con.close();
+        }
     }
 
     /**
@@ -61,7 +75,17 @@ public class RdfPatchUtil {
      * @throws InvalidPatchDocumentException if the patch is invalid
      */
     public static void applyPatch(Repository repository, InputStream patchSource, Resource... contexts) throws RepositoryException, ParseException, InvalidPatchDocumentException {
-        applyPatch(repository, getPatch(repository.getValueFactory(), patchSource), contexts);
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            applyPatch(con, patchSource, contexts);
+            con.commit();
+        } catch (final Throwable t) {
+            con.rollback();
+            throw t;
+        } finally {
+            con.close();
+        }
     }
 
     /**
@@ -73,11 +97,14 @@ public class RdfPatchUtil {
      * @throws InvalidPatchDocumentException if the patch is invalid
      */
     public static void applyPatch(RepositoryConnection connection, String patch, Resource... contexts) throws RepositoryException, ParseException, InvalidPatchDocumentException {
-        applyPatch(connection, getPatch(connection.getValueFactory(), patch), contexts);
+        RdfPatchParser parser = new RdfPatchParserImpl(new StringReader(patch));
+        parser.setValueFactory(connection.getValueFactory());
+        applyPatch(connection, parser, contexts);
     }
 
     /**
-     * Apply the provided patch to the repository
+     * Apply the provided patch to the repository. The patch is parsed and applied incrementally, see
+     * {@link #applyPatch(org.openrdf.repository.RepositoryConnection, org.apache.marmotta.platform.ldp.patch.parser.RdfPatchParser, org.openrdf.model.Resource...)}.
      * @param connection the {@link org.openrdf.repository.RepositoryConnection} to patch
      * @param patchSource the patch to apply
      * @param contexts restrict changes to these contexts (leave empty to apply to <em>all</em> contexts)
@@ -85,7 +112,34 @@ public class RdfPatchUtil {
      * @throws InvalidPatchDocumentException if the patch is invalid
      */
     public static void applyPatch(RepositoryConnection connection, InputStream patchSource, Resource... contexts) throws RepositoryException, ParseException, InvalidPatchDocumentException {
-        applyPatch(connection, getPatch(connection.getValueFactory(), patchSource), contexts);
+        RdfPatchParser parser = new RdfPatchParserImpl(patchSource);
+        parser.setValueFactory(connection.getValueFactory());
+        applyPatch(connection, parser, contexts);
+    }
+
+    /**
+     * Apply the patch read from the provided parser to the repository.
+     * <p>
+     * The patch lines are parsed one by one, so the patch is never held in memory as a whole. Consecutive lines with
+     * the same operation are passed to the connection as a single bulk add or remove of up to {@link #BATCH_SIZE}
+     * statements, keeping the order of interleaved additions and removals. Like for the other variants, the patch is
+     * applied within the transaction of the connection; if parsing or applying fails half-way, the caller has to roll
+     * back the transaction.
+     *
+     * @param connection the {@link org.openrdf.repository.RepositoryConnection} to patch
+     * @param parser the parser to read the patch from; its value factory should be the one of the connection
+     * @param contexts restrict changes to these contexts (leave empty to apply to <em>all</em> contexts)
+     * @return the number of patch lines applied
+     * @throws ParseException if the patch could not be parsed
+     * @throws InvalidPatchDocumentException if the patch is invalid
+     */
+    public static long applyPatch(RepositoryConnection connection, RdfPatchParser parser, Resource... contexts) throws RepositoryException, ParseException, InvalidPatchDocumentException {
+        final PatchApplier applier = new PatchApplier(connection, contexts);
+        for (PatchLine patchLine = parser.parsePatchLine(); patchLine != null; patchLine = parser.parsePatchLine()) {
+            applier.apply(patchLine);
+        }
+        applier.flush();
+        return applier.lines;
     }
 
     /**
@@ -117,11 +171,38 @@ public class RdfPatchUtil {
      * @throws InvalidPatchDocumentException if the patch is invalid
      */
     public static void applyPatch(RepositoryConnection connection, List<PatchLine> patch, Resource... contexts) throws RepositoryException, InvalidPatchDocumentException {
-        Resource subject = null;
-        URI predicate = null;
-        Value object = null;
-
+        final PatchApplier applier = new PatchApplier(connection, contexts);
         for (PatchLine patchLine : patch) {
+            applier.apply(patchLine);
+        }
+        applier.flush();
+    }
+
+    /**
+     * Resolves the {@code R}epeat placeholders of patch lines and applies runs of lines with the same operation to the
+     * connection in bulk operations of up to {@link #BATCH_SIZE} statements.
+     */
+    private static class PatchApplier {
+
+        private final RepositoryConnection connection;
+        private final Resource[] contexts;
+        private final ValueFactory valueFactory;
+
+        private final List<Statement> statements = new ArrayList<>(BATCH_SIZE);
+        private PatchLine.Operator operator = null;
+        private long lines = 0;
+
+        private Resource subject = null;
+        private URI predicate = null;
+        private Value object = null;
+
+        private PatchApplier(RepositoryConnection connection, Resource... contexts) {
+            this.connection = connection;
+            this.contexts = contexts;
+            this.valueFactory = connection.getValueFactory();
+        }
+
+        private void apply(PatchLine patchLine) throws RepositoryException, InvalidPatchDocumentException {
             final Statement statement = patchLine.getStatement();
             subject = statement.getSubject()!=null? statement.getSubject():subject;
             predicate = statement.getPredicate()!=null?statement.getPredicate():predicate;
@@ -139,32 +220,31 @@ public class RdfPatchUtil {
                 }
             }
 
-            switch (patchLine.getOperator()) {
+            if (patchLine.getOperator() != operator || statements.size() >= BATCH_SIZE) {
+                flush();
+                operator = patchLine.getOperator();
+            }
+            statements.add(valueFactory.createStatement(subject, predicate, object));
+            lines++;
+        }
+
+        private void flush() throws RepositoryException {
+            if (statements.isEmpty()) {
+                return;
+            }
+
+            switch (operator) {
                 case ADD:
-                    connection.add(subject, predicate, object, contexts);
+                    connection.add(statements, contexts);
                     break;
                 case DELETE:
-                    connection.remove(subject, predicate, object, contexts);
+                    // statements without context are removed from all (given) contexts
+                    connection.remove(statements, contexts);
                     break;
                 default:
-                    throw new IllegalArgumentException("Unknown patch operation: " + patchLine.getOperator());
+                    throw new IllegalArgumentException("Unknown patch operation: " + operator);
             }
-        }
-    }
-
-    private static List<PatchLine> getPatch(ValueFactory valueFactory, InputStream is) throws ParseException {
-        RdfPatchParser parser = new RdfPatchParserImpl(is);
-        parser.setValueFactory(valueFactory);
-        return parser.parsePatch();
-    }
-
-    private static List<PatchLine> getPatch(ValueFactory valueFactory, String patch) throws ParseException {
-        try (InputStream is = IOUtils.toInputStream(patch)) {
-            return getPatch(valueFactory, is);
-        } catch (IOException e) {
-            // You can always close an InputStream on a String
-            assert(false);
-            return null;
+            statements.clear();
         }
     }
 
@@ -193,100 +273,123 @@ public class RdfPatchUtil {
 
     /**
      * Create an RDF-Patch that applies the changes from {@code c1} to {@code c2}.
+     * The patch contains first all removals, then all additions, each in the canonical statement order; the
+     * {@code optimize} flag is kept for compatibility, the patch is always free of duplicate operations.
      * @param c1 the 'from' RepositoryConnection
      * @param c2 the 'to' RepositoryConnection
      * @param optimize optimize the patch, i.e. remove duplicate or idempotent operations.
      * @param contexts restrict analysis to these contexts (leave empty to use <em>all</em> contexts)
      * @return List of PatchLines
+     * @see #diff(org.openrdf.repository.RepositoryConnection, org.openrdf.repository.RepositoryConnection, PatchLineHandler, org.openrdf.model.Resource...)
      */
     public static List<PatchLine> diff(RepositoryConnection c1, RepositoryConnection c2, boolean optimize, Resource... contexts) throws RepositoryException {
-        Set<Statement> additions = new HashSet<>(),
-                removals = new HashSet<>();
-
-        final RepositoryResult<Statement> st1 = c1.getStatements(null, null, null, false, contexts);
+        final List<Statement> removals = new ArrayList<>(), additions = new ArrayList<>();
         try {
-            while (st1.hasNext()) {
-                final Statement st = st1.next();
-                if (!c2.hasStatement(st, false, contexts)) {
-                    removals.add(st);
+            merge(c1, c2, new PatchLineHandler() {
+                @Override
+                public void handlePatchLine(PatchLine patchLine) {
+                    if (patchLine.getOperator() == PatchLine.Operator.DELETE) {
+                        removals.add(patchLine.getStatement());
+                    } else {
+                        additions.add(patchLine.getStatement());
+                    }
                 }
-            }
-        } finally {
-            st1.close();
+            }, contexts);
+        } catch (IOException e) {
+            throw new RepositoryException("could not sort the statements to compare", e);
         }
 
-        final RepositoryResult<Statement> st2 = c2.getStatements(null, null, null, false, contexts);
+        final ArrayList<PatchLine> patch = new ArrayList<>(removals.size()+additions.size());
+        final RepeatingPatchLineHandler handler = new RepeatingPatchLineHandler(new PatchLineHandler() {
+            @Override
+            public void handlePatchLine(PatchLine patchLine) {
+                patch.add(patchLine);
+            }
+        });
         try {
-            while (st2.hasNext()) {
-                final Statement st = st2.next();
-                if (!c1.hasStatement(st, false, contexts)) {
-                    additions.add(st);
-                }
+            for (Statement s : removals) {
+                handler.handlePatchLine(new PatchLine(PatchLine.Operator.DELETE, s));
             }
-        } finally {
-            st2.close();
+            for (Statement s : additions) {
+                handler.handlePatchLine(new PatchLine(PatchLine.Operator.ADD, s));
+            }
+        } catch (IOException e) {
+            // adding to a list does not throw
+            assert(false);
         }
 
-        if (optimize) {
-            final TreeSet<Statement> delList = new TreeSet<>(new StatementComparator());
-            delList.addAll(removals);
-            final TreeSet<Statement> addList = new TreeSet<>(new StatementComparator());
-            addList.addAll(additions);
+        return patch;
+    }
 
-            additions = addList;
-            removals = delList;
+    /**
+     * Create an RDF-Patch that applies the changes from {@code c1} to {@code c2} and stream it to the given handler.
+     * <p>
+     * Both graphs are read once in the canonical statement order (sorting them externally in chunks of bounded size
+     * if necessary) and compared in a single merge pass, so no per-statement lookups are sent to the repositories and
+     * the memory used does not depend on the size of the graphs. Removals and additions are emitted interleaved in
+     * canonical order; repeated terms are replaced by {@code R}.
+     *
+     * @param c1 the 'from' RepositoryConnection
+     * @param c2 the 'to' RepositoryConnection
+     * @param handler the handler receiving the lines of the patch
+     * @param contexts restrict analysis to these contexts (leave empty to use <em>all</em> contexts)
+     * @throws IOException if sorting the statements failed or the handler threw an exception
+     */
+    public static void diff(RepositoryConnection c1, RepositoryConnection c2, PatchLineHandler handler, Resource... contexts) throws RepositoryException, IOException {
+        merge(c1, c2, new RepeatingPatchLineHandler(handler), contexts);
+    }
+
+    /**
+     * Merge the sorted statements of both connections, passing full (non-repeating) patch lines to the handler.
+     */
+    private static void merge(RepositoryConnection c1, RepositoryConnection c2, PatchLineHandler handler, Resource... contexts) throws RepositoryException, IOException {
+        try (SortedStatements st1 = new SortedStatements(c1, SortedStatements.DEFAULT_CHUNK_SIZE, contexts);
+             SortedStatements st2 = new SortedStatements(c2, SortedStatements.DEFAULT_CHUNK_SIZE, contexts)) {
+            Statement s1 = st1.next(), s2 = st2.next();
+            while (s1 != null || s2 != null) {
+                final int cmp = s1 == null ? 1 : s2 == null ? -1 : StatementComparator.INSTANCE.compare(s1, s2);
+                if (cmp < 0) {
+                    handler.handlePatchLine(new PatchLine(PatchLine.Operator.DELETE, s1));
+                    s1 = st1.next();
+                } else if (cmp > 0) {
+                    handler.handlePatchLine(new PatchLine(PatchLine.Operator.ADD, s2));
+                    s2 = st2.next();
+                } else {
+                    s1 = st1.next();
+                    s2 = st2.next();
+                }
+            }
         }
+    }
 
-        Resource pS = null;
-        URI pP = null;
-        Value pO = null;
-        ArrayList<PatchLine> patch = new ArrayList<>(removals.size()+additions.size());
-        for (Statement s : removals) {
-            final WildcardStatement ws = new WildcardStatement(
-                    s.getSubject().equals(pS) ? null : s.getSubject(),
-                    s.getPredicate().equals(pP) ? null : s.getPredicate(),
-                    s.getObject().equals(pO) ? null : s.getObject()
-            );
-            patch.add(new PatchLine(PatchLine.Operator.DELETE, ws));
-            pS = s.getSubject();
-            pP = s.getPredicate();
-            pO = s.getObject();
+    /**
+     * Replaces terms that are equal to the respective term of the previous line by {@code R}.
+     */
+    private static class RepeatingPatchLineHandler implements PatchLineHandler {
+
+        private final PatchLineHandler delegate;
+
+        private Resource pS = null;
+        private URI pP = null;
+        private Value pO = null;
+
+        private RepeatingPatchLineHandler(PatchLineHandler delegate) {
+            this.delegate = delegate;
         }
-        for (Statement s : additions) {
+
+        @Override
+        public void handlePatchLine(PatchLine patchLine) throws IOException {
+            final Statement s = patchLine.getStatement();
             final WildcardStatement ws = new WildcardStatement(
                     s.getSubject().equals(pS) ? null : s.getSubject(),
                     s.getPredicate().equals(pP) ? null : s.getPredicate(),
                     s.getObject().equals(pO) ? null : s.getObject()
             );
-            patch.add(new PatchLine(PatchLine.Operator.ADD, ws));
+            delegate.handlePatchLine(new PatchLine(patchLine.getOperator(), ws));
             pS = s.getSubject();
             pP = s.getPredicate();
             pO = s.getObject();
         }
-
-        return patch;
-    }
-
-    private static class StatementComparator implements Comparator<Statement> {
-        @Override
-        public int compare(Statement s1, Statement s2) {
-            final int si = compare(s1.getSubject(), s2.getSubject());
-            if (si != 0) {
-                return si;
-            } else {
-                final int pi = compare(s1.getPredicate(), s2.getPredicate());
-                if (pi != 0) {
-                    return pi;
-                }
-                else {
-                    return compare(s1.getObject(), s2.getObject());
-                }
-            }
-        }
-
-        private int compare(Value v1, Value v2) {
-            return v1.toString().compareTo(v2.toString());
-        }
     }
 
     private RdfPatchUtil() {
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldp.patch;
+
+import org.openrdf.model.*;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The statements of a {@link RepositoryConnection} in the canonical order of the {@link StatementComparator}, with
+ * duplicates (e.g. the same triple in several contexts) removed. The statements are sorted externally: they are read
+ * in chunks of bounded size, each chunk is sorted in memory and written to a temporary file, and the chunk files are
+ * merged while reading. Graphs that fit into a single chunk are sorted in memory only.
+ */
+class SortedStatements implements Closeable {
+
+    static final int DEFAULT_CHUNK_SIZE = 100000;
+
+    private static final byte TYPE_URI = 'U', TYPE_BNODE = 'B', TYPE_LITERAL = 'L', TYPE_LANG_LITERAL = 'G', TYPE_TYPED_LITERAL = 'T';
+
+    private final List<File> chunkFiles = new ArrayList<>();
+
+    private final PriorityQueue<ChunkReader> readers = new PriorityQueue<>();
+
+    private Iterator<Statement> memory;
+
+    private Statement last;
+
+    SortedStatements(RepositoryConnection connection, int chunkSize, Resource... contexts) throws RepositoryException, IOException {
+        final List<Statement> buffer = new ArrayList<>();
+        try {
+            final RepositoryResult<Statement> result = connection.getStatements(null, null, null, false, contexts);
+            try {
+                while (result.hasNext()) {
+                    buffer.add(result.next());
+                    if (buffer.size() >= chunkSize) {
+                        spill(buffer);
+                        buffer.clear();
+                    }
+                }
+            } finally {
+                result.close();
+            }
+
+            if (chunkFiles.isEmpty()) {
+                Collections.sort(buffer, StatementComparator.INSTANCE);
+                memory = buffer.iterator();
+            } else {
+                if (!buffer.isEmpty()) {
+                    spill(buffer);
+                    buffer.clear();
+                }
+                for (File file : chunkFiles) {
+                    final ChunkReader reader = new ChunkReader(file);
+                    if (reader.advance()) {
+                        readers.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+            }
+        } catch (final Throwable t) {
+            close();
+            throw t;
+        }
+    }
+
+    /**
+     * Return the next statement in canonical order, or {@code null} if all statements have been read.
+     */
+    Statement next() throws IOException {
+        Statement next;
+        do {
+            next = nextWithDuplicates();
+        } while (next != null && last != null && StatementComparator.INSTANCE.compare(last, next) == 0);
+        last = next;
+        return next;
+    }
+
+    private Statement nextWithDuplicates() throws IOException {
+        if (memory != null) {
+            return memory.hasNext() ? memory.next() : null;
+        }
+
+        final ChunkReader reader = readers.poll();
+        if (reader == null) {
+            return null;
+        }
+        final Statement next = reader.current;
+        if (reader.advance()) {
+            readers.add(reader);
+        } else {
+            reader.close();
+        }
+        return next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ChunkReader reader : readers) {
+            reader.close();
+        }
+        readers.clear();
+        for (File file : chunkFiles) {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+        chunkFiles.clear();
+        memory = null;
+    }
+
+    private void spill(List<Statement> buffer) throws IOException {
+        Collections.sort(buffer, StatementComparator.INSTANCE);
+
+        final File file = File.createTempFile("rdfpatch-diff", ".chunk");
+        chunkFiles.add(file);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(buffer.size());
+            for (Statement statement : buffer) {
+                writeValue(out, statement.getSubject());
+                writeValue(out, statement.getPredicate());
+                writeValue(out, statement.getObject());
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Value value) throws IOException {
+        if (value instanceof URI) {
+            out.writeByte(TYPE_URI);
+            writeString(out, value.stringValue());
+        } else if (value instanceof BNode) {
+            out.writeByte(TYPE_BNODE);
+            writeString(out, ((BNode) value).getID());
+        } else {
+            final Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                out.writeByte(TYPE_LANG_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getLanguage());
+            } else if (literal.getDatatype() != null) {
+                out.writeByte(TYPE_TYPED_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getDatatype().stringValue());
+            } else {
+                out.writeByte(TYPE_LITERAL);
+                writeString(out, literal.getLabel());
+            }
+        }
+    }
+
+    private static Value readValue(DataInputStream in, ValueFactory valueFactory) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case TYPE_URI:
+                return valueFactory.createURI(readString(in));
+            case TYPE_BNODE:
+                return valueFactory.createBNode(readString(in));
+            case TYPE_LANG_LITERAL:
+                return valueFactory.createLiteral(readString(in), readString(in));
+            case TYPE_TYPED_LITERAL:
+                return valueFactory.createLiteral(readString(in), valueFactory.createURI(readString(in)));
+            case TYPE_LITERAL:
+                return valueFactory.createLiteral(readString(in));
+            default:
+                throw new IOException("corrupt chunk file, unknown value type " + type);
+        }
+    }
+
+    // DataOutput.writeUTF is limited to 64k, literals might be longer
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the statements of a sorted chunk file one by one; readers are ordered by their current statement.
+     */
+    private static class ChunkReader implements Comparable<ChunkReader>, Closeable {
+
+        private final ValueFactory valueFactory = ValueFactoryImpl.getInstance();
+
+        private final DataInputStream in;
+
+        private int remaining;
+
+        private Statement current;
+
+        private ChunkReader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            remaining = in.readInt();
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining <= 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            final Resource subject = (Resource) readValue(in, valueFactory);
+            final URI predicate = (URI) readValue(in, valueFactory);
+            final Value object = readValue(in, valueFactory);
+            current = valueFactory.createStatement(subject, predicate, object);
+            return true;
+        }
+
+        @Override
+        public int compareTo(ChunkReader other) {
+            return StatementComparator.INSTANCE.compare(current, other.current);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldp.patch;
+
+import org.openrdf.model.*;
+
+import java.util.Comparator;
+
+/**
+ * Canonical total order of statements by subject, predicate and object (the context is ignored). Values are ordered
+ * by their kind (bnodes, URIs, literals), then by their string value, and literals finally by language and datatype,
+ * so two statements compare equal if and only if they are the same triple.
+ */
+class StatementComparator implements Comparator<Statement> {
+
+    static final StatementComparator INSTANCE = new StatementComparator();
+
+    @Override
+    public int compare(Statement s1, Statement s2) {
+        final int si = compare(s1.getSubject(), s2.getSubject());
+        if (si != 0) {
+            return si;
+        } else {
+            final int pi = compare(s1.getPredicate(), s2.getPredicate());
+            if (pi != 0) {
+                return pi;
+            }
+            else {
+                return compare(s1.getObject(), s2.getObject());
+            }
+        }
+    }
+
+    private int compare(Value v1, Value v2) {
+        final int ti = rank(v1) - rank(v2);
+        if (ti != 0) {
+            return ti;
+        }
+        final int vi = v1.stringValue().compareTo(v2.stringValue());
+        if (vi != 0 || !(v1 instanceof Literal)) {
+            return vi;
+        }
+
+        final Literal l1 = (Literal) v1, l2 = (Literal) v2;
+        final int li = compare(l1.getLanguage(), l2.getLanguage());
+        if (li != 0) {
+            return li;
+        }
+        return compare(l1.getDatatype() != null ? l1.getDatatype().stringValue() : null,
+                l2.getDatatype() != null ? l2.getDatatype().stringValue() : null);
+    }
+
+    private int compare(String s1, String s2) {
+        if (s1 == null) {
+            return s2 == null ? 0 : -1;
+        } else if (s2 == null) {
+            return 1;
+        } else {
+            return s1.compareTo(s2);
+        }
+    }
+
+    private int rank(Value v) {
+        if (v instanceof BNode) {
+            return 0;
+        } else if (v instanceof URI) {
+            return 1;
+        } else {
+            return 2;
+        }
+    }
+}
@@ -49,4 +49,12 @@ public interface RdfPatchParser {
      * @throws ParseException if the patch could not be parsed.
      */
     public List<PatchLine> parsePatch() throws ParseException;
+
+    /**
+     * Parse the next line of the rdf-patch, so large patches can be processed without holding them in memory.
+     * Prefix declarations preceding the line are processed as well.
+     * @return the next {@link org.apache.marmotta.platform.ldp.patch.model.PatchLine}, or {@code null} at the end of the patch
+     * @throws ParseException if the patch could not be parsed.
+     */
+    public PatchLine parsePatchLine() throws ParseException;
 }
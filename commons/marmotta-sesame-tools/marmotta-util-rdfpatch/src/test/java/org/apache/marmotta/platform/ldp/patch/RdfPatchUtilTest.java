@@ -17,24 +17,32 @@
  */
 package org.apache.marmotta.platform.ldp.patch;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.marmotta.platform.ldp.patch.model.PatchLine;
 import org.apache.marmotta.platform.ldp.patch.model.WildcardStatement;
 import org.apache.marmotta.platform.ldp.patch.parser.ParseException;
+import org.apache.marmotta.platform.ldp.patch.parser.RdfPatchParserImpl;
 import org.hamcrest.collection.IsIterableContainingInOrder;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.FOAF;
 import org.openrdf.repository.Repository;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
 import org.openrdf.repository.sail.SailRepository;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.sail.memory.MemoryStore;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -103,6 +111,65 @@ public class RdfPatchUtilTest {
         }
     }
 
+    @Test
+    public void testApplyPatchIncrementally() throws Exception {
+        // the order of consecutive add and delete operations must be retained
+        final String patch = "A <http://example/alice> <http://xmlns.com/foaf/0.1/knows> <http://example/bob> .\n" +
+                "A R R <http://example/charlie> .\n" +
+                "D R R <http://example/bob> .\n" +
+                "A R R R .\n" +
+                "D <http://example/bob> <http://xmlns.com/foaf/0.1/knows> <http://example/charlie> .\n";
+
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+
+            final RdfPatchParserImpl parser = new RdfPatchParserImpl(IOUtils.toInputStream(patch));
+            parser.setValueFactory(con.getValueFactory());
+            Assert.assertEquals(5, RdfPatchUtil.applyPatch(con, parser));
+
+            Assert.assertTrue(con.hasStatement(alice, FOAF.KNOWS, bob, false));
+            Assert.assertTrue(con.hasStatement(alice, FOAF.KNOWS, charlie, false));
+            Assert.assertFalse(con.hasStatement(bob, FOAF.KNOWS, charlie, false));
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    public void testApplyPatchInBatches() throws Exception {
+        final int size = 2 * RdfPatchUtil.BATCH_SIZE + 5;
+        final StringBuilder patch = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            patch.append("A <http://example/item").append(i).append("> <http://xmlns.com/foaf/0.1/name> \"").append(i).append("\" .\n");
+        }
+        patch.append("D <http://example/item0> <http://xmlns.com/foaf/0.1/name> \"0\" .\n");
+        patch.append("D <http://example/item1> R \"1\" .\n");
+
+        final CountingConnection con = new CountingConnection(repository.getConnection());
+        try {
+            con.begin();
+
+            final RdfPatchParserImpl parser = new RdfPatchParserImpl(IOUtils.toInputStream(patch.toString()));
+            parser.setValueFactory(con.getValueFactory());
+            Assert.assertEquals(size + 2, RdfPatchUtil.applyPatch(con, parser));
+
+            // one bulk operation per full batch and per change of the operation
+            Assert.assertEquals(3, con.bulkAdds);
+            Assert.assertEquals(1, con.bulkRemoves);
+
+            Assert.assertEquals(size - 2, con.getStatements(null, FOAF.NAME, null, false).asList().size());
+            Assert.assertFalse(con.hasStatement(con.getValueFactory().createURI("http://example/item1"), FOAF.NAME, null, false));
+            Assert.assertTrue(con.hasStatement(con.getValueFactory().createURI("http://example/item2"), FOAF.NAME, null, false));
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
     @Test(expected = InvalidPatchDocumentException.class)
     public void testInvalidPatchDocumentException() throws RepositoryException, ParseException, InvalidPatchDocumentException {
         RepositoryConnection con = repository.getConnection();
@@ -155,4 +222,107 @@ public class RdfPatchUtilTest {
                 new PatchLine(PatchLine.Operator.ADD, new WildcardStatement(charlie, FOAF.MBOX, mbox))
                 ));
     }
+
+    @Test
+    public void testStreamingDiff() throws Exception {
+        final Repository orig = new SailRepository(new MemoryStore());
+        orig.initialize();
+        final URI mbox = orig.getValueFactory().createURI("mailto:charlie@example.com");
+        final RepositoryConnection con = orig.getConnection();
+        try {
+            con.begin();
+            con.add(this.getClass().getResourceAsStream("/illustrative.in.ttl"), BASE_URI, RDFFormat.TURTLE);
+            con.remove(bob, FOAF.KNOWS, charlie);
+            con.add(bob, FOAF.KNOWS, alice);
+            con.add(charlie, FOAF.MBOX, mbox);
+            con.commit();
+        } finally {
+            con.close();
+        }
+
+        final List<PatchLine> diff = new ArrayList<>();
+        final RepositoryConnection c1 = repository.getConnection(), c2 = orig.getConnection();
+        try {
+            c1.begin();
+            c2.begin();
+            RdfPatchUtil.diff(c1, c2, new PatchLineHandler() {
+                @Override
+                public void handlePatchLine(PatchLine patchLine) {
+                    diff.add(patchLine);
+                }
+            });
+            c1.commit();
+            c2.commit();
+        } finally {
+            c1.close();
+            c2.close();
+        }
+
+        // removals and additions are merged in canonical order
+        Assert.assertThat("Wrong patch", diff, IsIterableContainingInOrder.contains(
+                new PatchLine(PatchLine.Operator.ADD, new WildcardStatement(bob, FOAF.KNOWS, alice)),
+                new PatchLine(PatchLine.Operator.DELETE, new WildcardStatement(null, null, charlie)),
+                new PatchLine(PatchLine.Operator.ADD, new WildcardStatement(charlie, FOAF.MBOX, mbox))
+        ));
+    }
+
+    @Test
+    public void testSortedStatements() throws Exception {
+        final RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            // the same triple in another context must only be returned once
+            con.add(bob, FOAF.NAME, lcBob, alice);
+
+            final List<Statement> expected = new ArrayList<>();
+            final RepositoryResult<Statement> result = con.getStatements(null, null, null, false);
+            try {
+                while (result.hasNext()) {
+                    final Statement st = result.next();
+                    if (st.getContext() == null) {
+                        expected.add(st);
+                    }
+                }
+            } finally {
+                result.close();
+            }
+            Collections.sort(expected, StatementComparator.INSTANCE);
+
+            // force sorting in several chunk files
+            try (SortedStatements sorted = new SortedStatements(con, 2)) {
+                for (Statement st : expected) {
+                    Assert.assertEquals(new WildcardStatement(st.getSubject(), st.getPredicate(), st.getObject()), sorted.next());
+                }
+                Assert.assertNull(sorted.next());
+            }
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * A connection counting the bulk add and remove operations
+     */
+    private static class CountingConnection extends RepositoryConnectionWrapper {
+
+        private int bulkAdds = 0, bulkRemoves = 0;
+
+        private CountingConnection(RepositoryConnection delegate) {
+            super(delegate.getRepository(), delegate);
+        }
+
+        @Override
+        public void add(Iterable<? extends Statement> statements, Resource... contexts) throws RepositoryException {
+            bulkAdds++;
+            super.add(statements, contexts);
+        }
+
+        @Override
+        public void remove(Iterable<? extends Statement> statements, Resource... contexts) throws RepositoryException {
+            bulkRemoves++;
+            super.remove(statements, contexts);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.commons.sesame.tripletable;
+
+import org.openrdf.model.Statement;
+
+import java.util.Set;
+
+/**
+ * Creates the sets used for collecting the triples added or removed in a transaction. Triple stores can implement
+ * this interface to provide a set that represents their own statements more compactly than the generic
+ * {@link TripleTable}, e.g. by the database ids of their nodes.
+ */
+public interface TripleSetFactory {
+
+    /**
+     * Create a new, empty set of triples. The set must accept any statement, and treat two statements as equal if
+     * their subject, predicate, object and context are equal.
+     */
+    Set<Statement> createTripleSet();
+
+}
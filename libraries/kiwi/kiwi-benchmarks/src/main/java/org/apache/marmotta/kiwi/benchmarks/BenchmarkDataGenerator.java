@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Reproducible generator for synthetic RDF data used by the benchmarks. The same seed and size always produce the
+ * same dataset: resources are numbered, predicates are taken from a small fixed vocabulary and objects are a mix of
+ * resource links, string literals (partly language-tagged) and integer literals.
+ */
+public class BenchmarkDataGenerator {
+
+    public static final String NS_RESOURCE  = "http://localhost/benchmark/resource/";
+    public static final String NS_PREDICATE = "http://localhost/benchmark/property/";
+    public static final String CONTEXT      = "http://localhost/benchmark/context";
+
+    public static final long DEFAULT_SEED = 20140801L;
+
+    private static final String[] WORDS = {
+            "linked", "data", "platform", "triple", "store", "resource", "literal", "context", "query", "cache",
+            "marmotta", "kiwi", "sparql", "ldpath", "version", "reasoner", "graph", "node", "index", "benchmark"
+    };
+
+    private final Random random;
+
+    private final int resources;
+    private final int predicates;
+
+    /**
+     * @param seed       seed of the random generator; use the same seed for comparable runs
+     * @param resources  number of distinct subject/object resources
+     * @param predicates number of distinct predicates
+     */
+    public BenchmarkDataGenerator(long seed, int resources, int predicates) {
+        this.random     = new Random(seed);
+        this.resources  = resources;
+        this.predicates = predicates;
+    }
+
+    public BenchmarkDataGenerator(int resources) {
+        this(DEFAULT_SEED, resources, 20);
+    }
+
+    public URI resource(ValueFactory vf, int i) {
+        return vf.createURI(NS_RESOURCE + i);
+    }
+
+    public URI predicate(ValueFactory vf, int i) {
+        return vf.createURI(NS_PREDICATE + "p" + i);
+    }
+
+    public URI randomResource(ValueFactory vf) {
+        return resource(vf, random.nextInt(resources));
+    }
+
+    public URI randomPredicate(ValueFactory vf) {
+        return predicate(vf, random.nextInt(predicates));
+    }
+
+    public String randomText(int words) {
+        StringBuilder b = new StringBuilder();
+        for(int i=0; i<words; i++) {
+            if(i > 0) {
+                b.append(' ');
+            }
+            b.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return b.toString();
+    }
+
+    public Value randomObject(ValueFactory vf) {
+        int kind = random.nextInt(10);
+        if(kind < 5) {
+            return randomResource(vf);
+        } else if(kind < 7) {
+            return vf.createLiteral(randomText(1 + random.nextInt(8)));
+        } else if(kind < 8) {
+            return vf.createLiteral(randomText(1 + random.nextInt(8)), random.nextBoolean() ? Locale.ENGLISH.getLanguage() : Locale.GERMAN.getLanguage());
+        } else {
+            return vf.createLiteral(random.nextInt(100000));
+        }
+    }
+
+    public Statement randomStatement(ValueFactory vf, Resource context) {
+        return vf.createStatement(randomResource(vf), randomPredicate(vf), randomObject(vf), context);
+    }
+
+    public List<Statement> randomStatements(ValueFactory vf, Resource context, int count) {
+        List<Statement> result = new ArrayList<>(count);
+        for(int i=0; i<count; i++) {
+            result.add(randomStatement(vf, context));
+        }
+        return result;
+    }
+
+    /**
+     * Load the given number of random statements into the repository, committing in batches.
+     */
+    public void load(RepositoryConnection con, int count) throws RepositoryException {
+        ValueFactory vf = con.getValueFactory();
+        URI context = vf.createURI(CONTEXT);
+
+        int batch = 10000;
+        for(int i=0; i<count; i += batch) {
+            con.begin();
+            con.add(randomStatements(vf, context, Math.min(batch, count - i)));
+            con.commit();
+        }
+    }
+
+    public int getResources() {
+        return resources;
+    }
+
+    public int getPredicates() {
+        return predicates;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
+import org.apache.marmotta.kiwi.persistence.pgsql.PostgreSQLDialect;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.apache.marmotta.kiwi.sparql.sail.KiWiSparqlSail;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+
+import java.sql.SQLException;
+
+/**
+ * Creates and destroys the benchmark database. Supported databases are "h2" (embedded, in-memory) and
+ * "postgresql"; the PostgreSQL instance is configured with the same system properties as the KiWi unit tests
+ * (postgresql.url, postgresql.user, postgresql.pass). All data is removed when the database is shut down.
+ */
+public class BenchmarkDatabase {
+
+    private static int counter = 0;
+
+    private KiWiStore store;
+
+    private Repository repository;
+
+    public BenchmarkDatabase(String database, CachingBackends cachingBackend) throws RepositoryException {
+        KiWiConfiguration config;
+        if("h2".equalsIgnoreCase(database)) {
+            config = new KiWiConfiguration("benchmark-h2",
+                    "jdbc:h2:mem:kiwibench" + (++counter) + ";MVCC=true;DB_CLOSE_ON_EXIT=TRUE;DB_CLOSE_DELAY=-1",
+                    "kiwi", "kiwi", new H2Dialect());
+        } else if("postgresql".equalsIgnoreCase(database)) {
+            if(System.getProperty("postgresql.url") == null) {
+                throw new IllegalStateException("PostgreSQL benchmarks require the system property postgresql.url");
+            }
+            config = new KiWiConfiguration("benchmark-postgresql",
+                    System.getProperty("postgresql.url"),
+                    System.getProperty("postgresql.user", "kiwi"),
+                    System.getProperty("postgresql.pass", "kiwi"),
+                    new PostgreSQLDialect());
+        } else {
+            throw new IllegalArgumentException("unsupported benchmark database: " + database);
+        }
+        config.setDefaultContext("http://localhost/context/default");
+        config.setInferredContext("http://localhost/context/inferred");
+        config.setCachingBackend(cachingBackend);
+
+        store = new KiWiStore(config);
+        repository = new SailRepository(new KiWiSparqlSail(store));
+        repository.initialize();
+    }
+
+    public KiWiStore getStore() {
+        return store;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Drop all benchmark data and shut down the repository.
+     */
+    public void shutdown() throws RepositoryException, SQLException {
+        store.getPersistence().dropDatabase();
+        repository.shutDown();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.caching.CacheManager;
+import org.apache.marmotta.kiwi.caching.CacheManagerFactory;
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the node and URI caches of the different cache manager implementations side by side. The clustered
+ * backends run as a single local cluster member. Run with "-t N" to measure contention with N threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CacheManagerBenchmark {
+
+    @Param({"GUAVA", "EHCACHE", "HAZELCAST", "INFINISPAN_CLUSTERED"})
+    public CachingBackends backend;
+
+    @Param({"10000"})
+    public int entries;
+
+    private CacheManager cacheManager;
+
+    private Map<Long, KiWiNode> nodeCache;
+
+    private Map<String, KiWiUriResource> uriCache;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Random random = new Random(BenchmarkDataGenerator.DEFAULT_SEED);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        KiWiConfiguration config = new KiWiConfiguration("benchmark-cache", "jdbc:h2:mem:kiwicache", "kiwi", "kiwi", new H2Dialect());
+        config.setCachingBackend(backend);
+        config.setClusterName("kiwi-benchmark");
+
+        cacheManager = ((CacheManagerFactory) Class.forName(backend.getFactoryClass()).newInstance()).createCacheManager(config);
+        nodeCache    = cacheManager.getNodeCache();
+        uriCache     = cacheManager.getUriCache();
+
+        for(long i=0; i<entries; i++) {
+            KiWiUriResource r = new KiWiUriResource(BenchmarkDataGenerator.NS_RESOURCE + i);
+            r.setId(i);
+            nodeCache.put(i, r);
+            uriCache.put(r.stringValue(), r);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public KiWiNode nodeCacheHit(ThreadState state) {
+        return nodeCache.get((long) state.random.nextInt(entries));
+    }
+
+    @Benchmark
+    public KiWiNode nodeCacheMiss(ThreadState state) {
+        return nodeCache.get((long) (entries + state.random.nextInt(entries)));
+    }
+
+    @Benchmark
+    public KiWiUriResource uriCacheHit(ThreadState state) {
+        return uriCache.get(BenchmarkDataGenerator.NS_RESOURCE + state.random.nextInt(entries));
+    }
+
+    @Benchmark
+    public void nodeCachePut(ThreadState state) {
+        long id = state.random.nextInt(entries);
+        KiWiUriResource r = new KiWiUriResource(BenchmarkDataGenerator.NS_RESOURCE + id);
+        r.setId(id);
+        nodeCache.put(id, r);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.apache.marmotta.kiwi.ldpath.KiWiLDPath;
+import org.apache.marmotta.kiwi.ldpath.backend.KiWiConnectionBackend;
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.sesame.SesameConnectionBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of evaluating the transitive closure of a property with LDPath on a generated deep hierarchy. The
+ * hierarchy has the given number of levels with "width" nodes each; every node has two broader nodes on the level
+ * above, so the closure of the broader property of a leaf reaches most nodes of the hierarchy on many different
+ * paths. The closure is evaluated node by node through the Sesame API, with path tracking, and with the KiWi LDPath
+ * backend, which expands each level of the recursion with a single SQL query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LDPathRecursionBenchmark {
+
+    private static final String NS_HIERARCHY = "http://localhost/benchmark/hierarchy/";
+
+    private static final String BROADER = "http://www.w3.org/2004/02/skos/core#broader";
+
+    private static final String PATH = "(<" + BROADER + ">)+";
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"100", "1000"})
+    public int depth;
+
+    @Param({"5"})
+    public int width;
+
+    private BenchmarkDatabase db;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db = new BenchmarkDatabase(database, CachingBackends.GUAVA);
+
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            ValueFactory vf = con.getValueFactory();
+            URI broader = vf.createURI(BROADER);
+
+            for(int level = 1; level < depth; level++) {
+                con.begin();
+                for(int i = 0; i < width; i++) {
+                    con.add(node(vf, level, i), broader, node(vf, level - 1, i));
+                    con.add(node(vf, level, i), broader, node(vf, level - 1, (i + 1) % width));
+                }
+                con.commit();
+            }
+        } finally {
+            con.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void closureSesame(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            con.begin();
+            LDPath<Value> ldpath = new LDPath<>(SesameConnectionBackend.withConnection(con));
+            bh.consume(ldpath.pathQuery(leaf(con.getValueFactory()), PATH, null));
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void closureSesameWithPaths(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            con.begin();
+            LDPath<Value> ldpath = new LDPath<>(SesameConnectionBackend.withConnection(con));
+            Map<Value, List<Value>> paths = new HashMap<>();
+            bh.consume(ldpath.pathQuery(leaf(con.getValueFactory()), PATH, null, paths));
+            bh.consume(paths);
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void closureKiWi(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            con.begin();
+            KiWiLDPath ldpath = new KiWiLDPath(KiWiConnectionBackend.withConnection(con));
+            bh.consume(ldpath.pathQuery(leaf(con.getValueFactory()), PATH, null));
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    private URI leaf(ValueFactory vf) {
+        return node(vf, depth - 1, 0);
+    }
+
+    private static URI node(ValueFactory vf, int level, int i) {
+        return vf.createURI(NS_HIERARCHY + level + "/" + i);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrdf.model.Statement;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of listing triples by subject, predicate and object pattern through the repository API (which is
+ * answered by KiWiConnection.listTriples). All results are consumed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListTriplesBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"100000"})
+    public int triples;
+
+    private BenchmarkDatabase db;
+
+    private BenchmarkDataGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db        = new BenchmarkDatabase(database, CachingBackends.GUAVA);
+        generator = new BenchmarkDataGenerator(triples / 10);
+
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            generator.load(con, triples);
+        } finally {
+            con.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void listBySubject(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            consume(con.getStatements(generator.randomResource(con.getValueFactory()), null, null, true), bh);
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void listByObject(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            consume(con.getStatements(null, null, generator.randomResource(con.getValueFactory()), true), bh);
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void listBySubjectPredicate(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            ValueFactory vf = con.getValueFactory();
+            consume(con.getStatements(generator.randomResource(vf), generator.randomPredicate(vf), null, true), bh);
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void listByPredicate(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            consume(con.getStatements(null, generator.randomPredicate(con.getValueFactory()), null, true), bh);
+        } finally {
+            con.close();
+        }
+    }
+
+    private static void consume(RepositoryResult<Statement> result, Blackhole bh) throws RepositoryException {
+        try {
+            while (result.hasNext()) {
+                bh.consume(result.next());
+            }
+        } finally {
+            result.close();
+        }
+    }
+}
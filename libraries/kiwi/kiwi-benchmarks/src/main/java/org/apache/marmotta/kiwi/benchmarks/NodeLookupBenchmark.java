@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import info.aduna.iteration.CloseableIteration;
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of KiWiConnection.loadNodesByIds for batches of random node IDs, either with a cold node cache (cleared
+ * before each invocation, so every node is loaded from the database) or with a warm cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeLookupBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"cold", "warm"})
+    public String cache;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private BenchmarkDatabase db;
+
+    private long[] nodeIds;
+
+    private long[] batch;
+
+    private Random random;
+
+    private KiWiConnection connection;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db = new BenchmarkDatabase(database, CachingBackends.GUAVA);
+
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            new BenchmarkDataGenerator(10000).load(con, 100000);
+        } finally {
+            con.close();
+        }
+
+        connection = db.getStore().getPersistence().getConnection();
+
+        int count = 0;
+        nodeIds = new long[10000];
+        CloseableIteration<KiWiNode, SQLException> nodes = connection.listNodes();
+        try {
+            while (nodes.hasNext() && count < nodeIds.length) {
+                nodeIds[count++] = nodes.next().getId();
+            }
+        } finally {
+            nodes.close();
+        }
+        if(count < nodeIds.length) {
+            long[] ids = new long[count];
+            System.arraycopy(nodeIds, 0, ids, 0, count);
+            nodeIds = ids;
+        }
+
+        batch  = new long[batchSize];
+        random = new Random(BenchmarkDataGenerator.DEFAULT_SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        connection.close();
+        db.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        for(int i=0; i<batch.length; i++) {
+            batch[i] = nodeIds[random.nextInt(nodeIds.length)];
+        }
+        if("cold".equals(cache)) {
+            db.getStore().getPersistence().clearCache();
+        }
+    }
+
+    @Benchmark
+    public KiWiNode[] loadNodesByIds() throws Exception {
+        return connection.loadNodesByIds(batch);
+    }
+}
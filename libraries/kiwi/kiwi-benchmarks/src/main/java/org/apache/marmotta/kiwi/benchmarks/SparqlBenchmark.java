@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.marmotta.kiwi.benchmarks.BenchmarkDataGenerator.NS_PREDICATE;
+
+/**
+ * Latency of SPARQL queries that are translated to SQL by the KiWi SPARQL optimizer (joins, filters, ordering
+ * and aggregation). All results are consumed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SparqlBenchmark {
+
+    private static final Map<String,String> QUERIES = new HashMap<>();
+    static {
+        QUERIES.put("join",      "SELECT ?s ?o WHERE { ?s <" + NS_PREDICATE + "p0> ?x . ?x <" + NS_PREDICATE + "p1> ?o } LIMIT 100");
+        QUERIES.put("filter",    "SELECT ?s ?l WHERE { ?s <" + NS_PREDICATE + "p2> ?l . FILTER(isLiteral(?l) && regex(str(?l), \"marmotta\")) } LIMIT 100");
+        QUERIES.put("order",     "SELECT ?s ?o WHERE { ?s <" + NS_PREDICATE + "p3> ?o } ORDER BY ?o LIMIT 10");
+        QUERIES.put("aggregate", "SELECT ?p (COUNT(?s) AS ?c) WHERE { ?s ?p ?o } GROUP BY ?p");
+    }
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"join", "filter", "order", "aggregate"})
+    public String query;
+
+    @Param({"100000"})
+    public int triples;
+
+    private BenchmarkDatabase db;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db = new BenchmarkDatabase(database, CachingBackends.GUAVA);
+
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            new BenchmarkDataGenerator(triples / 10).load(con, triples);
+        } finally {
+            con.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole bh) throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            con.begin();
+            TupleQueryResult result = con.prepareTupleQuery(QueryLanguage.SPARQL, QUERIES.get(query)).evaluate();
+            try {
+                while (result.hasNext()) {
+                    bh.consume(result.next());
+                }
+            } finally {
+                result.close();
+            }
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+}
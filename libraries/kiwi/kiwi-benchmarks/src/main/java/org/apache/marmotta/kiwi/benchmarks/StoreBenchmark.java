@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.benchmarks;
+
+import org.apache.marmotta.kiwi.config.CachingBackends;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of storing new nodes (directly through KiWiConnection.storeNode) and new statements (through the
+ * Sesame repository API, including value creation and the triple batch). One operation is one committed batch
+ * of batchSize nodes or statements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private BenchmarkDatabase db;
+
+    private BenchmarkDataGenerator generator;
+
+    private AtomicLong counter;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db        = new BenchmarkDatabase(database, CachingBackends.GUAVA);
+        generator = new BenchmarkDataGenerator(100000);
+        counter   = new AtomicLong();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        db.shutdown();
+    }
+
+    @Benchmark
+    public void storeNodes() throws Exception {
+        KiWiConnection con = db.getStore().getPersistence().getConnection();
+        try {
+            for(int i=0; i<batchSize; i++) {
+                con.storeNode(new KiWiUriResource(BenchmarkDataGenerator.NS_RESOURCE + "node/" + counter.incrementAndGet()));
+            }
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Benchmark
+    public void addStatements() throws Exception {
+        RepositoryConnection con = db.getRepository().getConnection();
+        try {
+            ValueFactory vf = con.getValueFactory();
+            URI context = vf.createURI(BenchmarkDataGenerator.CONTEXT);
+
+            con.begin();
+            con.add(generator.randomStatements(vf, context, batchSize));
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -23,7 +23,8 @@ import com.hazelcast.config.MaxSizeConfig;
 import com.hazelcast.config.SerializerConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
-import org.apache.marmotta.kiwi.caching.CacheManager;
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+import org.apache.marmotta.kiwi.caching.ClusteredCacheManager;
 import org.apache.marmotta.kiwi.config.CacheMode;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
 import org.apache.marmotta.kiwi.hazelcast.serializer.*;
@@ -39,7 +40,7 @@ import java.util.Map;
  *
  * @author Sebastian Schaffert (sschaffert@apache.org)
  */
-public class HazelcastCacheManager implements CacheManager {
+public class HazelcastCacheManager implements ClusteredCacheManager {
 
     private static Logger log = LoggerFactory.getLogger(HazelcastCacheManager.class);
 
@@ -59,6 +60,8 @@ public class HazelcastCacheManager implements CacheManager {
 
     private Map<Long,Long> registryCache;
 
+    private HazelcastInvalidationChannel invalidationChannel;
+
     public HazelcastCacheManager(KiWiConfiguration configuration) {
         this.configuration = configuration;
 
@@ -274,6 +277,23 @@ public class HazelcastCacheManager implements CacheManager {
     }
 
 
+    /**
+     * Return the channel for sending near cache invalidation messages to the other cluster members, or null in case
+     * the cache manager is not clustered.
+     *
+     * @return
+     */
+    @Override
+    public synchronized CacheInvalidationChannel getInvalidationChannel() {
+        if(!configuration.isClustered()) {
+            return null;
+        }
+        if(invalidationChannel == null) {
+            invalidationChannel = new HazelcastInvalidationChannel(hazelcast);
+        }
+        return invalidationChannel;
+    }
+
     /**
      * Return the backend instance for further access to the cluster (in case modules need it)
      * @return
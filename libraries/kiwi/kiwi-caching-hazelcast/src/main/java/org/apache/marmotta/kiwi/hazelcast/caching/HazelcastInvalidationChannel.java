@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.hazelcast.caching;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import org.apache.marmotta.kiwi.caching.CacheInvalidation;
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+
+/**
+ * A cache invalidation channel sending the invalidation messages over a Hazelcast topic to all cluster members.
+ * Messages published by the local member are ignored.
+ */
+public class HazelcastInvalidationChannel implements CacheInvalidationChannel, MessageListener<CacheInvalidation> {
+
+    public static final String INVALIDATION_TOPIC = "near-cache-invalidation";
+
+    private ITopic<CacheInvalidation> topic;
+
+    private String registration;
+
+    private volatile Listener listener;
+
+    public HazelcastInvalidationChannel(HazelcastInstance hazelcast) {
+        topic = hazelcast.getTopic(INVALIDATION_TOPIC);
+        registration = topic.addMessageListener(this);
+    }
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        topic.publish(new CacheInvalidation(cacheName, key));
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onMessage(Message<CacheInvalidation> message) {
+        if(listener != null && !message.getPublishingMember().localMember()) {
+            listener.invalidate(message.getMessageObject().getCacheName(), message.getMessageObject().getKey());
+        }
+    }
+
+    @Override
+    public void close() {
+        topic.removeMessageListener(registration);
+    }
+}
@@ -18,7 +18,9 @@
 package org.apache.marmotta.kiwi.infinispan.embedded;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.marmotta.kiwi.caching.CacheManager;
+import org.apache.marmotta.kiwi.caching.CacheInvalidation;
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+import org.apache.marmotta.kiwi.caching.ClusteredCacheManager;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
 import org.apache.marmotta.kiwi.infinispan.externalizer.*;
 import org.apache.marmotta.kiwi.infinispan.util.AsyncMap;
@@ -50,7 +52,7 @@ import java.util.concurrent.TimeUnit;
  * <p/>
  * Author: Sebastian Schaffert
  */
-public class InfinispanEmbeddedCacheManager implements CacheManager {
+public class InfinispanEmbeddedCacheManager implements ClusteredCacheManager {
 
     private static Logger log = LoggerFactory.getLogger(InfinispanEmbeddedCacheManager.class);
 
@@ -63,6 +65,8 @@ public class InfinispanEmbeddedCacheManager implements CacheManager {
 
     private Map nodeCache, tripleCache, uriCache, literalCache, bnodeCache, nsPrefixCache, nsUriCache, registryCache;
 
+    private InfinispanInvalidationChannel invalidationChannel;
+
 
     /**
      * Create a new cache manager with its own automatically created Infinispan instance.
@@ -454,6 +458,40 @@ public class InfinispanEmbeddedCacheManager implements CacheManager {
         return registryCache;
     }
 
+    /**
+     * Return the channel for sending near cache invalidation messages to the other cluster members, or null in case
+     * the cache manager is running in local mode. The messages are sent through a small asynchronously replicated
+     * cache with a short lifespan.
+     *
+     * @return
+     */
+    @Override
+    public synchronized CacheInvalidationChannel getInvalidationChannel() {
+        if(!isClustered()) {
+            return null;
+        }
+        if(invalidationChannel == null) {
+            Configuration invalidationConfiguration = new ConfigurationBuilder()
+                    .clustering()
+                        .cacheMode(CacheMode.REPL_ASYNC)
+                        .async()
+                            .asyncMarshalling()
+                        .stateTransfer()
+                            .fetchInMemoryState(false)
+                        .timeout(config.getClusterTimeout())
+                    .eviction()
+                        .strategy(EvictionStrategy.LIRS)
+                        .maxEntries(100000)
+                    .expiration()
+                        .lifespan(1, TimeUnit.MINUTES)
+                    .build();
+            cacheManager.defineConfiguration(InfinispanInvalidationChannel.INVALIDATION_CACHE, invalidationConfiguration);
+
+            invalidationChannel = new InfinispanInvalidationChannel(cacheManager.<CacheInvalidation,Long>getCache(InfinispanInvalidationChannel.INVALIDATION_CACHE).getAdvancedCache());
+        }
+        return invalidationChannel;
+    }
+
     /**
      * Get the cache with the given name from the cache manager. Can be used to request additional
      * caches from the cache manager that are not covered by explicit methods.
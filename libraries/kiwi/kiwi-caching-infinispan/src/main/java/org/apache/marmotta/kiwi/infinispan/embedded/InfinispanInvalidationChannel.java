@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.infinispan.embedded;
+
+import org.apache.marmotta.kiwi.caching.CacheInvalidation;
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+import org.infinispan.AdvancedCache;
+import org.infinispan.context.Flag;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+
+/**
+ * A cache invalidation channel sending the invalidation messages through an asynchronously replicated Infinispan
+ * cache. Cache listeners are only notified about entries stored on the local cluster member, so in distributed mode
+ * they cannot be used on the shared caches directly; since every member holds a copy of a replicated cache, writing
+ * the invalidation message to it notifies all members. The entries are short-lived and only serve for the
+ * notification.
+ */
+@Listener(sync = false)
+public class InfinispanInvalidationChannel implements CacheInvalidationChannel {
+
+    public static final String INVALIDATION_CACHE = "near-cache-invalidation";
+
+    private AdvancedCache<CacheInvalidation,Long> cache;
+
+    private volatile CacheInvalidationChannel.Listener listener;
+
+    public InfinispanInvalidationChannel(AdvancedCache<CacheInvalidation,Long> cache) {
+        this.cache = cache.withFlags(Flag.SKIP_LOCKING, Flag.IGNORE_RETURN_VALUES);
+        this.cache.addListener(this);
+    }
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        cache.put(new CacheInvalidation(cacheName, key), System.currentTimeMillis());
+    }
+
+    @Override
+    public void setListener(CacheInvalidationChannel.Listener listener) {
+        this.listener = listener;
+    }
+
+    @CacheEntryModified
+    public void onInvalidation(CacheEntryModifiedEvent<CacheInvalidation,Long> event) {
+        if(listener != null && !event.isPre() && !event.isOriginLocal()) {
+            listener.invalidate(event.getKey().getCacheName(), event.getKey().getKey());
+        }
+    }
+
+    @Override
+    public void close() {
+        cache.removeListener(this);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath;
+
+import org.apache.marmotta.kiwi.ldpath.backend.KiWiConnectionBackend;
+import org.apache.marmotta.kiwi.ldpath.sql.SelectorCompiler;
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.api.tests.NodeTest;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.apache.marmotta.ldpath.model.fields.FieldMapping;
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.apache.marmotta.ldpath.model.selectors.SelfSelector;
+import org.apache.marmotta.ldpath.model.selectors.TestingSelector;
+import org.apache.marmotta.ldpath.parser.Configuration;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.model.Value;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LDPath evaluation for KiWi triple stores. Path expressions and the fields of path programs are compiled with the
+ * {@link SelectorCompiler}, so that selectors that can be expressed in SQL are evaluated with a single database query
+ * instead of navigating the graph node by node. Selectors that cannot be translated (e.g. functions) are evaluated
+ * as usual.
+ */
+public class KiWiLDPath extends LDPath<Value> {
+
+    private final KiWiConnectionBackend backend;
+
+    public KiWiLDPath(KiWiConnectionBackend backend) {
+        super(backend);
+        this.backend = backend;
+    }
+
+    public KiWiLDPath(KiWiConnectionBackend backend, Configuration<Value> config) {
+        super(backend, config);
+        this.backend = backend;
+    }
+
+    @Override
+    public Collection<Value> pathQuery(Value context, String path, Map<String, String> namespaces) throws LDPathParseException {
+        try {
+            return SelectorCompiler.compile(createParser(new StringReader(path)).parseSelector(namespaces)).select(backend, context, null, null);
+        } catch (ParseException e) {
+            throw new LDPathParseException("error while parsing path expression",e);
+        }
+    }
+
+    @Override
+    public <T> Collection<T> pathTransform(Value context, String path, Map<String, String> namespaces) throws LDPathParseException {
+        try {
+            FieldMapping<T,Value> mapping = createParser(new StringReader(path)).parseRule(namespaces);
+            mapping.setSelector(SelectorCompiler.compile(mapping.getSelector()));
+
+            return mapping.getValues(backend, context);
+        } catch (ParseException e) {
+            throw new LDPathParseException("error while parsing path expression",e);
+        }
+    }
+
+    /**
+     * Evaluate a path program on the context node passed as argument. If the program has a filter that does not
+     * accept the context node, the result is empty.
+     */
+    @Override
+    public Map<String, Collection<?>> programQuery(Value context, Reader program) throws LDPathParseException {
+        Program<Value> p = parseProgram(program);
+
+        Map<String,Collection<?>> result = new HashMap<String, Collection<?>>();
+        if(p.getFilter() != null && !accepts(p.getFilter(), context)) {
+            return result;
+        }
+        for(FieldMapping<?,Value> mapping : p.getFields()) {
+            result.put(mapping.getFieldName(),mapping.getValues(backend,context));
+        }
+        return result;
+    }
+
+    /**
+     * Parse a program passed as argument and return it for further use; the selectors of all fields are compiled
+     * for evaluation on the KiWi triple store.
+     *
+     * @param program a reader containing the program in LDPath syntax
+     * @return the parsed program
+     * @throws LDPathParseException
+     */
+    @Override
+    public Program<Value> parseProgram(Reader program) throws LDPathParseException {
+        Program<Value> p = super.parseProgram(program);
+        for(FieldMapping<?,Value> mapping : p.getFields()) {
+            mapping.setSelector(SelectorCompiler.compile(mapping.getSelector()));
+        }
+        if(p.getBooster() != null) {
+            p.getBooster().setSelector(SelectorCompiler.compile(p.getBooster().getSelector()));
+        }
+        return p;
+    }
+
+    /**
+     * Check whether the filter accepts the context node. The filter is evaluated as a test on the context node itself,
+     * which is compiled into SQL if the test can be translated.
+     */
+    private boolean accepts(NodeTest<Value> filter, Value context) {
+        NodeSelector<Value> selector = SelectorCompiler.compile(new TestingSelector<Value>(new SelfSelector<Value>(), filter));
+        return !selector.select(backend, context, null, null).isEmpty();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.backend;
+
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiResource;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.sail.KiWiSailConnection;
+import org.apache.marmotta.kiwi.sail.KiWiValueFactory;
+import org.apache.marmotta.ldpath.api.backend.BatchRDFBackend;
+import org.apache.marmotta.ldpath.backend.sesame.SesameConnectionBackend;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
+import org.openrdf.repository.sail.SailRepositoryConnection;
+import org.openrdf.sail.SailConnection;
+import org.openrdf.sail.helpers.SailConnectionWrapper;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * An LDPath backend for repositories using a KiWi triple store. In addition to the functionality of the
+ * {@link SesameConnectionBackend}, it implements the {@link BatchRDFBackend} API by looking up the neighbours of
+ * many nodes with a single SQL query, so that each step of a path is evaluated for all nodes reached by the previous
+ * step at once. Like the {@link SesameConnectionBackend}, this backend ignores context information.
+ */
+public class KiWiConnectionBackend extends SesameConnectionBackend implements BatchRDFBackend<Value> {
+
+    private final KiWiSailConnection sailConnection;
+
+    private final boolean includeInferred;
+
+    protected KiWiConnectionBackend(RepositoryConnection connection, KiWiSailConnection sailConnection, boolean includeInferred) {
+        super(connection, includeInferred);
+        this.sailConnection  = sailConnection;
+        this.includeInferred = includeInferred;
+    }
+
+    /**
+     * Return the KiWi sail connection underlying this backend.
+     */
+    public KiWiSailConnection getSailConnection() {
+        return sailConnection;
+    }
+
+    /**
+     * Return true if the results of this backend include inferred triples.
+     */
+    public boolean isIncludeInferred() {
+        return includeInferred;
+    }
+
+    @Override
+    public Map<Value, Collection<Value>> listObjectsBatch(Collection<Value> subjects, Value property) {
+        if(property == null) {
+            // wildcard properties are not supported by the database lookup
+            Map<Value, Collection<Value>> result = new HashMap<>();
+            for(Value subject : subjects) {
+                Collection<Value> objects = listObjects(subject, property);
+                if(!objects.isEmpty()) {
+                    result.put(subject, objects);
+                }
+            }
+            return result;
+        }
+
+        try {
+            Map<KiWiNode, Value> nodes = convert(subjects);
+            List<KiWiResource> resources = new ArrayList<>(nodes.size());
+            for(KiWiNode node : nodes.keySet()) {
+                resources.add((KiWiResource) node);
+            }
+            return restore(nodes, sailConnection.getDatabaseConnection().listObjects(resources, convert((URI) property), includeInferred));
+        } catch (SQLException e) {
+            throw new RuntimeException("error while querying KiWi triple store!", e);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Subjects need to be URIs or blank nodes, property a URI node (property type: %s)",
+                    debugType(property)), e);
+        }
+    }
+
+    @Override
+    public Map<Value, Collection<Value>> listSubjectsBatch(Value property, Collection<Value> objects) {
+        if(property == null) {
+            Map<Value, Collection<Value>> result = new HashMap<>();
+            for(Value object : objects) {
+                Collection<Value> subjects = listSubjects(property, object);
+                if(!subjects.isEmpty()) {
+                    result.put(object, subjects);
+                }
+            }
+            return result;
+        }
+
+        try {
+            Map<KiWiNode, Value> nodes = convert(objects);
+            return restore(nodes, sailConnection.getDatabaseConnection().listSubjects(convert((URI) property), nodes.keySet(), includeInferred));
+        } catch (SQLException e) {
+            throw new RuntimeException("error while querying KiWi triple store!", e);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property needs to be a URI node (property type: %s)",
+                    debugType(property)), e);
+        }
+    }
+
+    private KiWiUriResource convert(URI property) {
+        return sailConnection.getValueFactory().convert(property);
+    }
+
+    /**
+     * Convert the values into KiWi nodes, remembering the original value for each node
+     */
+    private Map<KiWiNode, Value> convert(Collection<Value> values) {
+        KiWiValueFactory valueFactory = sailConnection.getValueFactory();
+
+        Map<KiWiNode, Value> nodes = new HashMap<>();
+        for(Value value : values) {
+            nodes.put(valueFactory.convert(value), value);
+        }
+        return nodes;
+    }
+
+    /**
+     * Replace the KiWi nodes used as keys in a database result by the values originally passed by the caller
+     */
+    private static Map<Value, Collection<Value>> restore(Map<KiWiNode, Value> nodes, Map<KiWiNode, Set<KiWiNode>> neighbours) {
+        Map<Value, Collection<Value>> result = new HashMap<>();
+        for(Map.Entry<KiWiNode, Set<KiWiNode>> entry : neighbours.entrySet()) {
+            result.put(nodes.get(entry.getKey()), new HashSet<Value>(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Return the KiWi sail connection underlying the repository connection given as argument, or null in case the
+     * repository is not backed by a KiWi triple store. Repository and sail connection wrappers are unwrapped.
+     */
+    public static KiWiSailConnection getKiWiSailConnection(RepositoryConnection connection) {
+        while(connection instanceof RepositoryConnectionWrapper) {
+            connection = ((RepositoryConnectionWrapper) connection).getDelegate();
+        }
+        if(connection instanceof SailRepositoryConnection) {
+            SailConnection sailConnection = ((SailRepositoryConnection) connection).getSailConnection();
+            while(sailConnection instanceof SailConnectionWrapper) {
+                sailConnection = ((SailConnectionWrapper) sailConnection).getWrappedConnection();
+            }
+            if(sailConnection instanceof KiWiSailConnection) {
+                return (KiWiSailConnection) sailConnection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create a new {@link KiWiConnectionBackend} for a repository connection backed by a KiWi triple store.
+     *
+     * @param connection the {@link RepositoryConnection} to use.
+     * @throws IllegalArgumentException in case the repository is not backed by a KiWi triple store
+     */
+    public static KiWiConnectionBackend withConnection(RepositoryConnection connection) {
+        return withConnection(connection, true);
+    }
+
+    public static KiWiConnectionBackend withConnection(RepositoryConnection connection, boolean includeInferred) {
+        KiWiSailConnection sailConnection = getKiWiSailConnection(connection);
+        if(sailConnection == null) {
+            throw new IllegalArgumentException("the repository connection is not backed by a KiWi triple store");
+        }
+        return new KiWiConnectionBackend(connection, sailConnection, includeInferred);
+    }
+
+}
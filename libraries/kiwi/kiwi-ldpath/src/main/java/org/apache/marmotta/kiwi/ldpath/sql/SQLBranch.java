@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.sql;
+
+import com.google.common.base.Joiner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One conjunctive branch of the SQL translation of an LDPath selector: the tables joined, the join and filter
+ * conditions and the column holding the id of the selected node. A union of several branches is the translation of a
+ * selector. Query parameters only occur in the conditions and are kept in the order of their occurrence.
+ */
+class SQLBranch {
+
+    private final List<String> from;
+
+    private final List<String> where;
+
+    private final List<Object> parameters;
+
+    private String output;
+
+    SQLBranch(String output) {
+        this.from       = new ArrayList<>();
+        this.where      = new ArrayList<>();
+        this.parameters = new ArrayList<>();
+        this.output     = output;
+    }
+
+    private SQLBranch(SQLBranch other) {
+        this.from       = new ArrayList<>(other.from);
+        this.where      = new ArrayList<>(other.where);
+        this.parameters = new ArrayList<>(other.parameters);
+        this.output     = other.output;
+    }
+
+    SQLBranch copy() {
+        return new SQLBranch(this);
+    }
+
+    void addTable(String table) {
+        from.add(table);
+    }
+
+    void addCondition(String condition, Object... parameters) {
+        addCondition(condition, Arrays.asList(parameters));
+    }
+
+    void addCondition(String condition, List<Object> parameters) {
+        where.add(condition);
+        this.parameters.addAll(parameters);
+    }
+
+    /**
+     * The SQL expression holding the node id selected by this branch
+     */
+    String getOutput() {
+        return output;
+    }
+
+    void setOutput(String output) {
+        this.output = output;
+    }
+
+    List<String> getFrom() {
+        return Collections.unmodifiableList(from);
+    }
+
+    List<String> getWhere() {
+        return Collections.unmodifiableList(where);
+    }
+
+    List<Object> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Render the branch as an SQL condition that holds if the branch has a match, appending the query parameters of
+     * the condition to the list given as argument.
+     */
+    String toCondition(List<Object> parameters) {
+        parameters.addAll(this.parameters);
+        if(from.isEmpty()) {
+            return where.isEmpty() ? "1 = 1" : "(" + Joiner.on(" AND ").join(where) + ")";
+        } else {
+            return "EXISTS (SELECT 1 FROM " + Joiner.on(", ").join(from) + (where.isEmpty() ? "" : " WHERE " + Joiner.on(" AND ").join(where)) + ")";
+        }
+    }
+}
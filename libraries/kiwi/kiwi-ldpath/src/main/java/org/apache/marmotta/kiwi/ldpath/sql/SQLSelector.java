@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.sql;
+
+import com.google.common.primitives.Longs;
+import org.apache.marmotta.kiwi.ldpath.backend.KiWiConnectionBackend;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.apache.marmotta.kiwi.sail.KiWiValueFactory;
+import org.apache.marmotta.ldpath.api.backend.NodeBackend;
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.openrdf.model.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * A selector evaluating an LDPath selector tree with a single SQL query when used with a
+ * {@link KiWiConnectionBackend}. With other backends, or when the paths to the results are tracked, the selection is
+ * delegated to the original selector. SQL selectors are created by the {@link SelectorCompiler}.
+ */
+public class SQLSelector implements BatchNodeSelector<Value> {
+
+    private static Logger log = LoggerFactory.getLogger(SQLSelector.class);
+
+    /**
+     * Maximum number of context nodes looked up with the same query in batch selection
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final NodeSelector<Value> delegate;
+
+    // the translations including and excluding inferred triples, created on first use
+    private volatile List<SQLBranch> branches, explicitBranches;
+
+    SQLSelector(NodeSelector<Value> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Return the selector evaluated by this SQL selector.
+     */
+    public NodeSelector<Value> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Collection<Value> select(RDFBackend<Value> backend, Value context, List<Value> path, Map<Value, List<Value>> resultPaths) {
+        if(backend instanceof KiWiConnectionBackend && (path == null || resultPaths == null)) {
+            Collection<Value> result = select(backend, Collections.singleton(context)).get(context);
+            return result != null ? result : Collections.<Value>emptySet();
+        } else {
+            return delegate.select(backend, context, path, resultPaths);
+        }
+    }
+
+    @Override
+    public Map<Value, Collection<Value>> select(RDFBackend<Value> backend, Collection<Value> contexts) {
+        if(!(backend instanceof KiWiConnectionBackend)) {
+            Map<Value, Collection<Value>> result = new HashMap<>();
+            for(Value context : contexts) {
+                Collection<Value> selected = delegate.select(backend, context, null, null);
+                if(!selected.isEmpty()) {
+                    result.put(context, selected);
+                }
+            }
+            return result;
+        }
+
+        KiWiConnectionBackend kiwiBackend = (KiWiConnectionBackend) backend;
+        KiWiValueFactory valueFactory = kiwiBackend.getSailConnection().getValueFactory();
+        KiWiConnection connection = kiwiBackend.getSailConnection().getDatabaseConnection();
+
+        // contexts not stored in the database cannot select anything
+        Map<Long, Value> contextsById = new HashMap<>();
+        for(Value context : contexts) {
+            KiWiNode node = valueFactory.convert(context);
+            if(node.getId() >= 0) {
+                contextsById.put(node.getId(), context);
+            }
+        }
+
+        try {
+            // triples added in the current transaction need to be in the database
+            if(connection.isBatchCommit()) {
+                connection.flushBatch();
+            }
+
+            List<SQLBranch> translation = getBranches(kiwiBackend.isIncludeInferred());
+
+            List<Long> contextIds = new ArrayList<>(contextsById.keySet());
+            List<Long> keys = new ArrayList<>(), values = new ArrayList<>();
+            for(int position = 0; position < contextIds.size(); position += BATCH_SIZE) {
+                List<Long> batch = contextIds.subList(position, Math.min(position + BATCH_SIZE, contextIds.size()));
+
+                List<Object> parameters = new ArrayList<>();
+                String sql = buildQuery(translation, batch, parameters);
+
+                PreparedStatement query = connection.getPreparedStatementForQuery(sql);
+                synchronized (query) {
+                    for(int i=0; i<parameters.size(); i++) {
+                        Object parameter = parameters.get(i);
+                        if(parameter instanceof Long) {
+                            query.setLong(i+1, (Long) parameter);
+                        } else if(parameter instanceof Value) {
+                            query.setLong(i+1, valueFactory.convert((Value) parameter).getId());
+                        } else {
+                            query.setString(i+1, parameter.toString());
+                        }
+                    }
+
+                    ResultSet rows = query.executeQuery();
+                    try {
+                        while(rows.next()) {
+                            keys.add(rows.getLong(1));
+                            values.add(rows.getLong(2));
+                        }
+                    } finally {
+                        rows.close();
+                    }
+                }
+            }
+
+            long[] nodeIds = Longs.toArray(new LinkedHashSet<>(values));
+            KiWiNode[] nodes = connection.loadNodesByIds(nodeIds);
+            Map<Long, KiWiNode> nodesById = new HashMap<>();
+            for(int i=0; i<nodes.length; i++) {
+                nodesById.put(nodeIds[i], nodes[i]);
+            }
+
+            Map<Value, Collection<Value>> result = new HashMap<>();
+            for(int i=0; i<keys.size(); i++) {
+                Value context = contextsById.get(keys.get(i));
+                Collection<Value> selected = result.get(context);
+                if(selected == null) {
+                    selected = new HashSet<>();
+                    result.put(context, selected);
+                }
+                selected.add(nodesById.get(values.get(i)));
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("error while querying KiWi triple store!", e);
+        }
+    }
+
+    private List<SQLBranch> getBranches(boolean includeInferred) {
+        List<SQLBranch> result = includeInferred ? branches : explicitBranches;
+        if(result == null) {
+            try {
+                result = new SelectorCompiler(includeInferred).translate(delegate);
+            } catch (UnsupportedSelectorException e) {
+                // SQL selectors are only created for translatable selectors
+                throw new IllegalStateException(e);
+            }
+            if(includeInferred) {
+                branches = result;
+            } else {
+                explicitBranches = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Build the SQL query selecting pairs of context node id and selected node id for the given context nodes,
+     * appending the query parameters to the list passed as argument.
+     */
+    private static String buildQuery(List<SQLBranch> translation, List<Long> contextIds, List<Object> parameters) {
+        StringBuilder contextCondition = new StringBuilder(SelectorCompiler.CONTEXT_COLUMN);
+        if(contextIds.size() == 1) {
+            contextCondition.append(" = ?");
+        } else {
+            contextCondition.append(" IN(");
+            for(int i=0; i<contextIds.size(); i++) {
+                contextCondition.append(i > 0 ? ",?" : "?");
+            }
+            contextCondition.append(")");
+        }
+
+        StringBuilder sql = new StringBuilder();
+        for(SQLBranch branch : translation) {
+            if(sql.length() > 0) {
+                sql.append(" UNION ");
+            }
+            sql.append(translation.size() == 1 ? "SELECT DISTINCT " : "SELECT ");
+            sql.append(SelectorCompiler.CONTEXT_COLUMN).append(", ").append(branch.getOutput());
+            sql.append(" FROM nodes C");
+            for(String table : branch.getFrom()) {
+                sql.append(", ").append(table);
+            }
+            sql.append(" WHERE ").append(contextCondition);
+            parameters.addAll(contextIds);
+            for(String condition : branch.getWhere()) {
+                sql.append(" AND ").append(condition);
+            }
+            parameters.addAll(branch.getParameters());
+        }
+
+        log.debug("LDPath SQL query: {}", sql);
+        return sql.toString();
+    }
+
+    @Override
+    public String getPathExpression(NodeBackend<Value> backend) {
+        return delegate.getPathExpression(backend);
+    }
+
+    @Override
+    public String getName(NodeBackend<Value> backend) {
+        return delegate.getName(backend);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SQLSelector that = (SQLSelector) o;
+
+        return delegate.equals(that.delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+}
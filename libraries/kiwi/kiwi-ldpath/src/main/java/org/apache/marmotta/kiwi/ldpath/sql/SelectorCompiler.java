@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.sql;
+
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.api.tests.NodeTest;
+import org.apache.marmotta.ldpath.model.selectors.*;
+import org.apache.marmotta.ldpath.model.tests.*;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translate LDPath selectors into SQL queries over the KiWi triples and nodes tables. Property and reverse property
+ * steps become joins over the triples table, paths chain these joins, unions become SQL unions, and intersections
+ * and tests (path, path equality, type, language, and their boolean combinations) become correlated EXISTS
+ * conditions. Functions, recursive paths and string constants cannot be translated; selector trees containing them
+ * are only translated in parts, and the remaining selectors are evaluated as usual.
+ * <p/>
+ * The translation of a selector is a list of conjunctive branches starting at the column {@link #CONTEXT_COLUMN},
+ * which is the id of the context node in the nodes table with alias "C" (see {@link SQLSelector}).
+ */
+public class SelectorCompiler {
+
+    /**
+     * The column holding the id of the context node where the selection starts
+     */
+    static final String CONTEXT_COLUMN = "C.id";
+
+    /**
+     * The maximum number of union branches of a translated selector; more complex selectors are not translated
+     */
+    static final int MAX_BRANCHES = 32;
+
+    private final boolean includeInferred;
+
+    private int aliases = 0;
+
+    SelectorCompiler(boolean includeInferred) {
+        this.includeInferred = includeInferred;
+    }
+
+    /**
+     * Compile the selector passed as argument for evaluation on a KiWi triple store. If the whole selector can be
+     * translated into SQL, an {@link SQLSelector} evaluating it with a single query is returned. Otherwise the
+     * translatable parts of path, union, intersection, grouped, testing and recursive path selectors are replaced,
+     * and all other selectors are returned unchanged.
+     *
+     * @param selector the selector to compile
+     * @return a selector selecting the same nodes as the selector passed as argument
+     */
+    public static NodeSelector<Value> compile(NodeSelector<Value> selector) {
+        if(selector instanceof SQLSelector || selector instanceof SelfSelector) {
+            return selector;
+        } else if(isTranslatable(selector)) {
+            return new SQLSelector(selector);
+        } else if(selector instanceof PathSelector) {
+            return new PathSelector<>(compile(((PathSelector<Value>) selector).getLeft()), compile(((PathSelector<Value>) selector).getRight()));
+        } else if(selector instanceof UnionSelector) {
+            return new UnionSelector<>(compile(((UnionSelector<Value>) selector).getLeft()), compile(((UnionSelector<Value>) selector).getRight()));
+        } else if(selector instanceof IntersectionSelector) {
+            return new IntersectionSelector<>(compile(((IntersectionSelector<Value>) selector).getLeft()), compile(((IntersectionSelector<Value>) selector).getRight()));
+        } else if(selector instanceof GroupedSelector) {
+            return new GroupedSelector<>(compile(((GroupedSelector<Value>) selector).getContent()));
+        } else if(selector instanceof TestingSelector) {
+            return new TestingSelector<>(compile(((TestingSelector<Value>) selector).getDelegate()), ((TestingSelector<Value>) selector).getTest());
+        } else if(selector instanceof RecursivePathSelector) {
+            // the recursion is evaluated level by level, each level with a single query for the compiled delegate
+            RecursivePathSelector<Value> recursive = (RecursivePathSelector<Value>) selector;
+            return new RecursivePathSelector<>(compile(recursive.getDelegate()), recursive.getMinRecursions(), recursive.getMaxRecursions());
+        } else {
+            return selector;
+        }
+    }
+
+    /**
+     * Check whether the selector passed as argument can be translated into SQL as a whole.
+     */
+    public static boolean isTranslatable(NodeSelector<Value> selector) {
+        try {
+            new SelectorCompiler(true).translate(selector);
+            return true;
+        } catch (UnsupportedSelectorException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Translate the selector into a list of SQL branches starting at the context node.
+     */
+    List<SQLBranch> translate(NodeSelector<Value> selector) throws UnsupportedSelectorException {
+        return translate(selector, new SQLBranch(CONTEXT_COLUMN));
+    }
+
+    private List<SQLBranch> translate(NodeSelector<Value> selector, SQLBranch input) throws UnsupportedSelectorException {
+        List<SQLBranch> result = new ArrayList<>();
+        if(selector instanceof SQLSelector) {
+            result.addAll(translate(((SQLSelector) selector).getDelegate(), input));
+        } else if(selector instanceof PropertySelector) {
+            // also covers the wildcard selector, which has no property
+            result.add(translateStep(input, ((PropertySelector<Value>) selector).getProperty(), false));
+        } else if(selector instanceof ReversePropertySelector) {
+            result.add(translateStep(input, ((ReversePropertySelector<Value>) selector).getProperty(), true));
+        } else if(selector instanceof SelfSelector) {
+            result.add(input);
+        } else if(selector instanceof GroupedSelector) {
+            result.addAll(translate(((GroupedSelector<Value>) selector).getContent(), input));
+        } else if(selector instanceof PathSelector) {
+            for(SQLBranch left : translate(((PathSelector<Value>) selector).getLeft(), input)) {
+                result.addAll(translate(((PathSelector<Value>) selector).getRight(), left));
+            }
+        } else if(selector instanceof UnionSelector) {
+            result.addAll(translate(((UnionSelector<Value>) selector).getLeft(), input));
+            result.addAll(translate(((UnionSelector<Value>) selector).getRight(), input));
+        } else if(selector instanceof IntersectionSelector) {
+            // nodes selected by the left selector that are also reachable from the input by the right selector
+            List<SQLBranch> right = translate(((IntersectionSelector<Value>) selector).getRight(), new SQLBranch(input.getOutput()));
+            for(SQLBranch left : translate(((IntersectionSelector<Value>) selector).getLeft(), input)) {
+                List<Object> parameters = new ArrayList<>();
+                List<String> conditions = new ArrayList<>();
+                for(SQLBranch r : right) {
+                    SQLBranch match = r.copy();
+                    match.addCondition(r.getOutput() + " = " + left.getOutput());
+                    conditions.add(match.toCondition(parameters));
+                }
+                left.addCondition(or(conditions), parameters);
+                result.add(left);
+            }
+        } else if(selector instanceof TestingSelector) {
+            NodeTest<Value> test = ((TestingSelector<Value>) selector).getTest();
+            for(SQLBranch branch : translate(((TestingSelector<Value>) selector).getDelegate(), input)) {
+                List<Object> parameters = new ArrayList<>();
+                String condition = translateTest(test, branch.getOutput(), parameters);
+                branch.addCondition(condition, parameters);
+                result.add(branch);
+            }
+        } else {
+            throw new UnsupportedSelectorException("selector cannot be translated into SQL: " + selector.getClass().getSimpleName());
+        }
+
+        if(result.size() > MAX_BRANCHES) {
+            throw new UnsupportedSelectorException("selector has too many alternatives to be translated into SQL");
+        }
+        return result;
+    }
+
+    /**
+     * Join the triples table to navigate from the output of the input branch over the property
+     */
+    private SQLBranch translateStep(SQLBranch input, Value property, boolean reverse) {
+        String t = "T" + (++aliases);
+
+        SQLBranch branch = input.copy();
+        branch.addTable("triples " + t);
+        branch.addCondition(t + (reverse ? ".object = " : ".subject = ") + input.getOutput());
+        if(property != null) {
+            branch.addCondition(t + ".predicate = ?", property);
+        }
+        branch.addCondition(t + ".deleted = false");
+        if(!includeInferred) {
+            branch.addCondition(t + ".inferred = false");
+        }
+        branch.setOutput(t + (reverse ? ".subject" : ".object"));
+        return branch;
+    }
+
+    /**
+     * Translate a node test into an SQL condition on the node with the given id column, appending the parameters of
+     * the condition to the list passed as argument.
+     */
+    private String translateTest(NodeTest<Value> test, String node, List<Object> parameters) throws UnsupportedSelectorException {
+        if(test instanceof PathEqualityTest) {
+            // also covers rdf:type tests (IsATest)
+            List<String> conditions = new ArrayList<>();
+            for(SQLBranch branch : translate(((PathEqualityTest<Value>) test).getPath(), new SQLBranch(node))) {
+                branch.addCondition(branch.getOutput() + " = ?", ((PathEqualityTest<Value>) test).getNode());
+                conditions.add(branch.toCondition(parameters));
+            }
+            return or(conditions);
+        } else if(test instanceof PathTest) {
+            List<String> conditions = new ArrayList<>();
+            for(SQLBranch branch : translate(((PathTest<Value>) test).getPath(), new SQLBranch(node))) {
+                conditions.add(branch.toCondition(parameters));
+            }
+            return or(conditions);
+        } else if(test instanceof LiteralLanguageTest) {
+            String lang = ((LiteralLanguageTest<Value>) test).getLang();
+            SQLBranch literal = literal(node);
+            if(lang == null || lang.equalsIgnoreCase("none")) {
+                literal.addCondition(literal.getOutput() + ".lang IS NULL");
+            } else if(lang.matches("[a-zA-Z]+")) {
+                // only simple language tags are compared in the same way as by the test
+                literal.addCondition("LOWER(" + literal.getOutput() + ".lang) = ?", lang.toLowerCase());
+            } else {
+                throw new UnsupportedSelectorException("language test cannot be translated into SQL: " + lang);
+            }
+            return literal.toCondition(parameters);
+        } else if(test instanceof LiteralTypeTest && ((LiteralTypeTest<Value>) test).getTypeUri() != null) {
+            SQLBranch literal = literal(node);
+            literal.addCondition(literal.getOutput() + ".ltype = ?", new URIImpl(((LiteralTypeTest<Value>) test).getTypeUri().toString()));
+            return literal.toCondition(parameters);
+        } else if(test instanceof AndTest) {
+            String left  = translateTest(((AndTest<Value>) test).getLeft(), node, parameters);
+            String right = translateTest(((AndTest<Value>) test).getRight(), node, parameters);
+            return "(" + left + " AND " + right + ")";
+        } else if(test instanceof OrTest) {
+            String left  = translateTest(((OrTest<Value>) test).getLeft(), node, parameters);
+            String right = translateTest(((OrTest<Value>) test).getRight(), node, parameters);
+            return "(" + left + " OR " + right + ")";
+        } else if(test instanceof NotTest) {
+            return "NOT (" + translateTest(((NotTest<Value>) test).getDelegate(), node, parameters) + ")";
+        } else {
+            throw new UnsupportedSelectorException("test cannot be translated into SQL: " + test.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * A branch selecting the literal node with the given id column; the output of the branch is the alias of the
+     * joined nodes table.
+     */
+    private SQLBranch literal(String node) {
+        String n = "N" + (++aliases);
+
+        SQLBranch branch = new SQLBranch(n);
+        branch.addTable("nodes " + n);
+        branch.addCondition(n + ".id = " + node);
+        branch.addCondition(n + ".ntype NOT IN ('uri','bnode')");
+        return branch;
+    }
+
+    private static String or(List<String> conditions) {
+        if(conditions.isEmpty()) {
+            return "1 = 0";
+        } else if(conditions.size() == 1) {
+            return conditions.get(0);
+        } else {
+            StringBuilder builder = new StringBuilder("(");
+            for(int i=0; i<conditions.size(); i++) {
+                if(i > 0) {
+                    builder.append(" OR ");
+                }
+                builder.append(conditions.get(i));
+            }
+            return builder.append(")").toString();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.test;
+
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.ldpath.backend.KiWiConnectionBackend;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.apache.marmotta.kiwi.test.junit.KiWiDatabaseRunner;
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.sesame.SesameConnectionBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Test the batch lookups of the KiWi LDPath backend.
+ */
+@RunWith(KiWiDatabaseRunner.class)
+public class KiWiConnectionBackendTest {
+
+    private static final String NS = "http://localhost:8080/LMF/resource/";
+
+    private KiWiStore store;
+
+    private Repository repository;
+
+    private final KiWiConfiguration dbConfig;
+
+    public KiWiConnectionBackendTest(KiWiConfiguration dbConfig) {
+        this.dbConfig = dbConfig;
+    }
+
+    @Before
+    public void initDatabase() throws RepositoryException, IOException, RDFParseException {
+        store = new KiWiStore(dbConfig);
+        repository = new SailRepository(store);
+        repository.initialize();
+
+        // load demo data
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+
+            con.add(this.getClass().getResourceAsStream("demo-data.foaf"), "http://localhost/test/", RDFFormat.RDFXML);
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @After
+    public void dropDatabase() throws RepositoryException, SQLException {
+        store.getPersistence().dropDatabase();
+        repository.shutDown();
+    }
+
+    @Test
+    public void testListObjectsBatch() throws RepositoryException {
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            KiWiConnectionBackend backend = KiWiConnectionBackend.withConnection(con);
+
+            URI hans = backend.createURI(NS + "hans_meier");
+            URI sepp = backend.createURI(NS + "sepp_huber");
+            URI anna = backend.createURI(NS + "anna_schmidt");
+            URI knows = backend.createURI("http://xmlns.com/foaf/0.1/knows");
+
+            Map<Value, Collection<Value>> result = backend.listObjectsBatch(Arrays.<Value>asList(hans, sepp, anna), knows);
+            Assert.assertEquals(3, result.size());
+            for(Value subject : Arrays.<Value>asList(hans, sepp, anna)) {
+                Assert.assertEquals(new HashSet<>(backend.listObjects(subject, knows)), new HashSet<>(result.get(subject)));
+            }
+
+            Map<Value, Collection<Value>> reverse = backend.listSubjectsBatch(knows, Arrays.<Value>asList(sepp));
+            Assert.assertThat(reverse.get(sepp), Matchers.<Value>containsInAnyOrder(hans, anna));
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    public void testPathQuery() throws RepositoryException, LDPathParseException {
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            KiWiConnectionBackend backend = KiWiConnectionBackend.withConnection(con);
+            SesameConnectionBackend reference = SesameConnectionBackend.withConnection(con);
+
+            URI hans = backend.createURI(NS + "hans_meier");
+            String path = "<http://xmlns.com/foaf/0.1/knows> / <http://xmlns.com/foaf/0.1/knows> / <http://xmlns.com/foaf/0.1/name>";
+
+            Collection<Value> result   = new LDPath<>(backend).pathQuery(hans, path, null);
+            Collection<Value> expected = new LDPath<>(reference).pathQuery(hans, path, null);
+
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(new HashSet<>(expected), new HashSet<>(result));
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+}
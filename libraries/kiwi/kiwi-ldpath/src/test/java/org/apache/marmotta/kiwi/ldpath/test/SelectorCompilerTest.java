@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.ldpath.test;
+
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.ldpath.KiWiLDPath;
+import org.apache.marmotta.kiwi.ldpath.backend.KiWiConnectionBackend;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.apache.marmotta.kiwi.test.junit.KiWiDatabaseRunner;
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.sesame.SesameConnectionBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Test that path expressions compiled into SQL return the same results as the node-by-node evaluation.
+ */
+@RunWith(KiWiDatabaseRunner.class)
+public class SelectorCompilerTest {
+
+    private static final String NS = "http://localhost:8080/LMF/resource/";
+
+    private static final String[] PATHS = new String[] {
+            "foaf:name",
+            "foaf:knows / foaf:name",
+            "foaf:knows / foaf:knows / foaf:name",
+            "(foaf:knows | ^foaf:knows) / foaf:name",
+            "foaf:knows & ^foaf:knows",
+            "foaf:knows[rdf:type is foaf:Person] / foaf:name",
+            "foaf:knows[foaf:name] / foaf:name",
+            "foaf:knows[not(foaf:depiction)] / foaf:name",
+            "foaf:knows[foaf:interest & foaf:name] / foaf:name",
+            "foaf:knows / foaf:name[@en]",
+            "foaf:knows / foaf:name[@none]",
+            "foaf:knows / foaf:name[^^xsd:string]",
+            "foaf:knows / *",
+            "foaf:knows / fn:first(foaf:name, foaf:knows)"
+    };
+
+    private KiWiStore store;
+
+    private Repository repository;
+
+    private final KiWiConfiguration dbConfig;
+
+    public SelectorCompilerTest(KiWiConfiguration dbConfig) {
+        this.dbConfig = dbConfig;
+    }
+
+    @Before
+    public void initDatabase() throws RepositoryException, IOException, RDFParseException {
+        store = new KiWiStore(dbConfig);
+        repository = new SailRepository(store);
+        repository.initialize();
+
+        // load demo data
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+
+            con.add(this.getClass().getResourceAsStream("demo-data.foaf"), "http://localhost/test/", RDFFormat.RDFXML);
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @After
+    public void dropDatabase() throws RepositoryException, SQLException {
+        store.getPersistence().dropDatabase();
+        repository.shutDown();
+    }
+
+    @Test
+    public void testCompiledPaths() throws RepositoryException, LDPathParseException {
+        Map<String,String> namespaces = new HashMap<>();
+        namespaces.put("foaf", "http://xmlns.com/foaf/0.1/");
+        namespaces.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+        namespaces.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            KiWiConnectionBackend backend = KiWiConnectionBackend.withConnection(con);
+            SesameConnectionBackend reference = SesameConnectionBackend.withConnection(con);
+
+            KiWiLDPath compiled = new KiWiLDPath(backend);
+            LDPath<Value> plain = new LDPath<>(reference);
+
+            for(String resource : new String[] { "hans_meier", "sepp_huber", "anna_schmidt" }) {
+                URI context = backend.createURI(NS + resource);
+                for(String path : PATHS) {
+                    Collection<Value> expected = plain.pathQuery(context, path, namespaces);
+                    Collection<Value> result   = compiled.pathQuery(context, path, namespaces);
+
+                    Assert.assertEquals("results differ for path " + path + " on " + resource, new HashSet<>(expected), new HashSet<>(result));
+                }
+            }
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    public void testProgramFilter() throws RepositoryException, LDPathParseException {
+        String program = "@prefix foaf: <http://xmlns.com/foaf/0.1/> ;\n" +
+                "@filter foaf:knows is <" + NS + "sepp_huber> ;\n" +
+                "name = foaf:name :: xsd:string ;";
+
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            KiWiConnectionBackend backend = KiWiConnectionBackend.withConnection(con);
+            KiWiLDPath ldpath = new KiWiLDPath(backend);
+
+            Map<String, Collection<?>> accepted = ldpath.programQuery(backend.createURI(NS + "hans_meier"), new StringReader(program));
+            Assert.assertEquals(Collections.singleton("Hans Meier"), new HashSet<>(accepted.get("name")));
+
+            Map<String, Collection<?>> rejected = ldpath.programQuery(backend.createURI(NS + "sepp_huber"), new StringReader(program));
+            Assert.assertTrue(rejected.isEmpty());
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    public void testUncommittedData() throws RepositoryException, LDPathParseException {
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            KiWiConnectionBackend backend = KiWiConnectionBackend.withConnection(con);
+
+            URI hans = backend.createURI(NS + "hans_meier");
+            URI knows = backend.createURI("http://xmlns.com/foaf/0.1/knows");
+            URI fritz = backend.createURI(NS + "fritz_gruber");
+            con.add(hans, knows, fritz);
+
+            Collection<Value> result = new KiWiLDPath(backend).pathQuery(hans, "<http://xmlns.com/foaf/0.1/knows>", null);
+            Assert.assertTrue(result.contains(fritz));
+
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.loader.dump;
+
+import org.apache.marmotta.kiwi.io.KiWiDumpHandler;
+import org.apache.marmotta.kiwi.io.KiWiDumpReader;
+import org.apache.marmotta.kiwi.io.KiWiTripleBlock;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Restore a native KiWi binary dump (see {@link org.apache.marmotta.kiwi.io.KiWiDumpWriter}) into a KiWi database.
+ * Nodes and triples keep the database IDs they had in the source database, so a dump can only be restored into
+ * an empty database. Each chunk of the dump is committed separately; if the import fails, the database is left
+ * partially restored and needs to be cleared before trying again.
+ */
+public class KiWiDumpImporter implements KiWiDumpHandler {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiDumpImporter.class);
+
+    private KiWiStore store;
+
+    private KiWiConnection connection;
+
+    private long nodes = 0;
+    private long triples = 0;
+
+    private long start;
+
+    public KiWiDumpImporter(KiWiStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Read the dump from the input stream given as argument and restore it into the database.
+     */
+    public void importDump(InputStream in) throws IOException {
+        try {
+            new KiWiDumpReader(in).parse(this);
+        } catch (IOException ex) {
+            if(connection != null) {
+                try {
+                    connection.rollback();
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("could not roll back database connection after failed dump import", e);
+                }
+                connection = null;
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void startDump(long created) throws IOException {
+        log.info("KiWiLoader: restoring dump created at {}", new Timestamp(created));
+
+        start = System.currentTimeMillis();
+        try {
+            connection = store.getPersistence().getConnection();
+            if(connection.getSize() > 0) {
+                throw new IOException("a KiWi dump can only be restored into an empty database");
+            }
+        } catch (SQLException e) {
+            throw new IOException("database error while starting dump import", e);
+        }
+    }
+
+    @Override
+    public void handleNamespaces(List<KiWiNamespace> namespaces) throws IOException {
+        try {
+            for(KiWiNamespace ns : namespaces) {
+                if(connection.loadNamespaceByPrefix(ns.getPrefix()) == null) {
+                    ns.setId(-1L);
+                    connection.storeNamespace(ns);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("database error while restoring namespaces", e);
+        }
+    }
+
+    @Override
+    public void handleNodes(List<KiWiNode> nodeList) throws IOException {
+        try {
+            for(KiWiNode node : nodeList) {
+                connection.storeNode(node);
+            }
+            connection.commit();
+
+            nodes += nodeList.size();
+        } catch (SQLException e) {
+            throw new IOException("database error while restoring nodes", e);
+        }
+    }
+
+    @Override
+    public void handleTriples(KiWiTripleBlock block) throws IOException {
+        try {
+            PreparedStatement insertTriple = connection.getPreparedStatement("dump.store_triple");
+            insertTriple.clearBatch();
+
+            for(int i=0; i<block.size(); i++) {
+                insertTriple.setLong(1, block.getId(i));
+                insertTriple.setLong(2, block.getSubject(i));
+                insertTriple.setLong(3, block.getPredicate(i));
+                insertTriple.setLong(4, block.getObject(i));
+                if(block.getContext(i) != 0) {
+                    insertTriple.setLong(5, block.getContext(i));
+                } else {
+                    insertTriple.setNull(5, Types.BIGINT);
+                }
+                if(block.getCreator(i) != 0) {
+                    insertTriple.setLong(6, block.getCreator(i));
+                } else {
+                    insertTriple.setNull(6, Types.BIGINT);
+                }
+                insertTriple.setBoolean(7, block.isInferred(i));
+                insertTriple.setTimestamp(8, new Timestamp(block.getCreated(i)));
+                insertTriple.addBatch();
+            }
+            insertTriple.executeBatch();
+            connection.commit();
+
+            triples += block.size();
+
+            log.debug("KiWiLoader: restored {} triples ({} triples/sec)", triples, triples * 1000 / Math.max(1, System.currentTimeMillis() - start));
+        } catch (SQLException e) {
+            throw new IOException("database error while restoring triples", e);
+        }
+    }
+
+    @Override
+    public void endDump() throws IOException {
+        try {
+            connection.commit();
+            connection.close();
+            connection = null;
+        } catch (SQLException e) {
+            throw new IOException("database error while finishing dump import", e);
+        }
+
+        log.info("KiWiLoader: restored dump with {} nodes and {} triples in {} ms", nodes, triples, System.currentTimeMillis() - start);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTriples() {
+        return triples;
+    }
+}
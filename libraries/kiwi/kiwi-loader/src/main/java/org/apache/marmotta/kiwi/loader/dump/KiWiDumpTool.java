@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.loader.dump;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.io.KiWiDumpExporter;
+import org.apache.marmotta.kiwi.persistence.KiWiDialect;
+import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
+import org.apache.marmotta.kiwi.persistence.mysql.MySQLDialect;
+import org.apache.marmotta.kiwi.persistence.pgsql.PostgreSQLDialect;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.openrdf.repository.sail.SailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+
+/**
+ * Command line tool for creating and restoring native KiWi binary dumps. Usage:
+ * <pre>
+ * KiWiDumpTool export|import &lt;jdbc-url&gt; &lt;user&gt; &lt;password&gt; &lt;file&gt;
+ * </pre>
+ */
+public class KiWiDumpTool {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiDumpTool.class);
+
+    public static void main(String[] args) throws Exception {
+        if(args.length != 5 || !("export".equals(args[0]) || "import".equals(args[0]))) {
+            System.err.println("usage: KiWiDumpTool export|import <jdbc-url> <user> <password> <file>");
+            System.exit(1);
+        }
+
+        KiWiConfiguration kiwi = new KiWiConfiguration("kiwiDump", args[1], args[2], args[3], getDialect(args[1]).newInstance());
+
+        KiWiStore store = new KiWiStore(kiwi);
+        SailRepository repository = new SailRepository(store);
+        repository.initialize();
+
+        try {
+            if("export".equals(args[0])) {
+                log.info("exporting KiWi database {} to {}", args[1], args[4]);
+                new KiWiDumpExporter(store.getPersistence()).export(new FileOutputStream(args[4]));
+            } else {
+                log.info("importing KiWi dump {} into database {}", args[4], args[1]);
+                try(InputStream in = new FileInputStream(args[4])) {
+                    new KiWiDumpImporter(store).importDump(in);
+                }
+            }
+        } finally {
+            repository.shutDown();
+        }
+    }
+
+    private static Class<? extends KiWiDialect> getDialect(String jdbcUrl) {
+        String[] components = jdbcUrl.split(":");
+        if(StringUtils.equalsIgnoreCase("postgresql", components[1])) {
+            return PostgreSQLDialect.class;
+        } else if(StringUtils.equalsIgnoreCase("mysql", components[1])) {
+            return MySQLDialect.class;
+        } else if(StringUtils.equalsIgnoreCase("h2", components[1])) {
+            return H2Dialect.class;
+        } else {
+            throw new IllegalArgumentException("database dialect "+components[1]+" not supported by KiWi");
+        }
+    }
+}
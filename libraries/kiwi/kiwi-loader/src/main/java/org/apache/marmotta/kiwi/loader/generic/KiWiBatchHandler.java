@@ -136,6 +136,9 @@ public abstract class KiWiBatchHandler extends KiWiHandler implements RDFHandler
      */
     @Override
     public void endRDF() throws RDFHandlerException {
+        // import the remaining buffered statements into the backlog before flushing it
+        flushStatements();
+
         try {
             flushBacklog();
         } catch (SQLException e) {
@@ -232,6 +235,12 @@ public abstract class KiWiBatchHandler extends KiWiHandler implements RDFHandler
     private synchronized void flushBacklog() throws SQLException {
         flushBacklogInternal();
 
+        // the flushed nodes now exist in the database; the remaining statements of the current buffer must not
+        // create them again
+        resolvedUris.putAll(uriBacklogLookup);
+        resolvedBNodes.putAll(bnodeBacklogLookup);
+        resolvedLiterals.putAll(literalBacklogLookup);
+
         nodeBacklog.clear();
         tripleBacklog.clear();
 
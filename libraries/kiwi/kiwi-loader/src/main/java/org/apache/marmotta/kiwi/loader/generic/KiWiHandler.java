@@ -35,9 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
-import java.util.Date;
-import java.util.IllformedLocaleException;
-import java.util.Locale;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -77,6 +75,18 @@ public class KiWiHandler implements RDFHandler {
 
     protected boolean initialised = false;
 
+    // statements waiting for the batch resolution of their values
+    protected List<Statement> statementBuffer = new ArrayList<>();
+
+    // values of the buffered statements that have been resolved in the database with a batch lookup
+    protected Map<String,KiWiUriResource> resolvedUris = new HashMap<>();
+    protected Map<String,KiWiAnonResource> resolvedBNodes = new HashMap<>();
+    protected Map<Literal,KiWiLiteral> resolvedLiterals = new HashMap<>();
+
+    // URIs and anonymous IDs of the buffered statements that are known not to exist in the database
+    protected Set<String> unresolvedUris = new HashSet<>();
+    protected Set<String> unresolvedBNodes = new HashSet<>();
+
     public KiWiHandler(KiWiStore store, KiWiLoaderConfiguration config) {
         this.config     = config;
         this.store      = store;
@@ -146,6 +156,7 @@ public class KiWiHandler implements RDFHandler {
      */
     @Override
     public void endRDF() throws RDFHandlerException {
+        flushStatements();
 
         if(registry != null) {
             registry.releaseTransaction(connection.getTransactionId());
@@ -220,6 +231,78 @@ public class KiWiHandler implements RDFHandler {
      */
     @Override
     public void handleStatement(Statement st) throws RDFHandlerException {
+        statementBuffer.add(st);
+
+        if(statementBuffer.size() >= config.getStatementBatchSize()) {
+            flushStatements();
+        }
+    }
+
+    /**
+     * Import all buffered statements. The values of the statements are first looked up in the database with one
+     * batch query per node type, so that importing the statements does not need a database lookup per value.
+     *
+     * @throws org.openrdf.rio.RDFHandlerException
+     *          If the RDF handler has encountered an unrecoverable error.
+     */
+    protected void flushStatements() throws RDFHandlerException {
+        if(statementBuffer.isEmpty()) {
+            return;
+        }
+
+        Set<String> uris = new HashSet<>();
+        Set<String> bnodes = new HashSet<>();
+        Set<Literal> literals = new HashSet<>();
+        for(Statement st : statementBuffer) {
+            collectValue(st.getSubject(), uris, bnodes, literals);
+            collectValue(st.getPredicate(), uris, bnodes, literals);
+            collectValue(st.getObject(), uris, bnodes, literals);
+            if(overrideContext == null) {
+                collectValue(st.getContext(), uris, bnodes, literals);
+            }
+        }
+
+        try {
+            resolvedUris = connection.loadUriResources(uris);
+            resolvedBNodes = connection.loadAnonResources(bnodes);
+            resolvedLiterals = connection.loadLiterals(literals);
+
+            unresolvedUris = new HashSet<>(uris);
+            unresolvedUris.removeAll(resolvedUris.keySet());
+            unresolvedBNodes = new HashSet<>(bnodes);
+            unresolvedBNodes.removeAll(resolvedBNodes.keySet());
+        } catch (SQLException e) {
+            throw new RDFHandlerException(e);
+        }
+
+        for(Statement st : statementBuffer) {
+            importStatement(st);
+        }
+        statementBuffer.clear();
+
+        resolvedUris.clear();
+        resolvedBNodes.clear();
+        resolvedLiterals.clear();
+        unresolvedUris.clear();
+        unresolvedBNodes.clear();
+    }
+
+    private static void collectValue(Value value, Set<String> uris, Set<String> bnodes, Set<Literal> literals) {
+        if(value == null || value instanceof KiWiNode) {
+            return;
+        } else if(value instanceof URI) {
+            uris.add(value.stringValue());
+        } else if(value instanceof BNode) {
+            bnodes.add(value.stringValue());
+        } else if(value instanceof Literal) {
+            literals.add((Literal) value);
+            if(((Literal) value).getDatatype() != null) {
+                uris.add(((Literal) value).getDatatype().stringValue());
+            }
+        }
+    }
+
+    private void importStatement(Statement st) throws RDFHandlerException {
         try {
             KiWiResource subject = (KiWiResource)convertNode(st.getSubject());
             KiWiUriResource predicate = (KiWiUriResource)convertNode(st.getPredicate());
@@ -286,6 +369,12 @@ public class KiWiHandler implements RDFHandler {
     }
 
     protected KiWiLiteral createLiteral(Literal l) throws ExecutionException {
+        KiWiLiteral resolved = resolvedLiterals.get(l);
+        if(resolved != null) {
+            nodesLoaded++;
+            return resolved;
+        }
+
         String value = l.getLabel();
         String lang  = l.getLanguage() != null ? l.getLanguage().intern() : null;
         URI    type  = l.getDatatype();
@@ -400,13 +489,19 @@ public class KiWiHandler implements RDFHandler {
         try {
             // first look in the registry for newly created resources if the resource has already been created and
             // is still volatile
-            KiWiUriResource result = connection.loadUriResource(uri);
+            KiWiUriResource result = resolvedUris.get(uri);
+            if(result == null && !unresolvedUris.remove(uri)) {
+                result = connection.loadUriResource(uri);
+            }
 
             if(result == null) {
                 result = new KiWiUriResource(uri, importDate);
 
                 storeNode(result);
 
+                // further statements of the same buffer reuse the new node
+                resolvedUris.put(uri, result);
+
             } else {
                 nodesLoaded++;
             }
@@ -425,11 +520,17 @@ public class KiWiHandler implements RDFHandler {
         try {
             // first look in the registry for newly created resources if the resource has already been created and
             // is still volatile
-            KiWiAnonResource result = connection.loadAnonResource(nodeID);
+            KiWiAnonResource result = resolvedBNodes.get(nodeID);
+            if(result == null && !unresolvedBNodes.remove(nodeID)) {
+                result = connection.loadAnonResource(nodeID);
+            }
 
             if(result == null) {
                 result = new KiWiAnonResource(nodeID, importDate);
                 storeNode(result);
+
+                // further statements of the same buffer reuse the new node
+                resolvedBNodes.put(nodeID, result);
             } else {
                 nodesLoaded++;
             }
@@ -33,6 +33,7 @@ import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
 import org.apache.marmotta.kiwi.model.rdf.KiWiStringLiteral;
 import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
 import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.util.NodeFingerprint;
 import org.openrdf.model.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +73,7 @@ public class MySQLLoadUtil {
             new Optional(new NodeIDProcessor()),      // ltype
             new Optional(new LanguageProcessor()),    // lang
             new SQLTimestampProcessor(),              // createdAt
+            new NotNull(),                            // fingerprint
     };
 
 
@@ -140,7 +142,7 @@ public class MySQLLoadUtil {
         CsvListWriter writer = new CsvListWriter(out, nodesPreference);
 
         // reuse the same array to avoid unnecessary object allocation
-        Object[] rowArray = new Object[10];
+        Object[] rowArray = new Object[11];
         List<Object> row = Arrays.asList(rowArray);
 
         for(KiWiNode n : nodeBacklog) {
@@ -178,7 +180,9 @@ public class MySQLLoadUtil {
                 createNodeList(rowArray, l.getId(), l.getClass(), l.getContent(), dbl_value, lng_value, null, null, l.getDatatype(), l.getLocale(), l.getCreated());
             } else {
                 log.warn("unknown node type, cannot flush to import stream: {}", n.getClass());
+                continue;
             }
+            rowArray[10] = NodeFingerprint.of(n);
 
             writer.write(row, nodeProcessors);
         }
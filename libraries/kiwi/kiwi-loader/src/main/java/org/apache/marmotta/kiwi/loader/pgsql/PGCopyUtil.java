@@ -19,6 +19,7 @@ package org.apache.marmotta.kiwi.loader.pgsql;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.marmotta.kiwi.loader.csv.*;
 import org.apache.marmotta.kiwi.model.rdf.*;
+import org.apache.marmotta.kiwi.persistence.util.NodeFingerprint;
 import org.openrdf.model.URI;
 import org.postgresql.PGConnection;
 import org.slf4j.Logger;
@@ -62,6 +63,7 @@ public class PGCopyUtil {
             new Optional(new NodeIDProcessor()),      // ltype
             new Optional(new LanguageProcessor()),    // lang
             new SQLTimestampProcessor(),              // createdAt
+            new NotNull(),                            // fingerprint
     };
 
 
@@ -139,7 +141,7 @@ public class PGCopyUtil {
         CsvListWriter writer = new CsvListWriter(new OutputStreamWriter(out), nodesPreference);
 
         // reuse the same array to avoid unnecessary object allocation
-        Object[] rowArray = new Object[10];
+        Object[] rowArray = new Object[11];
         List<Object> row = Arrays.asList(rowArray);
 
         for(KiWiNode n : nodeBacklog) {
@@ -177,7 +179,9 @@ public class PGCopyUtil {
                 createNodeList(rowArray, l.getId(), l.getClass(), l.getContent(), dbl_value, lng_value, null, null, l.getDatatype(), l.getLocale(), l.getCreated());
             } else {
                 log.warn("unknown node type, cannot flush to import stream: {}", n.getClass());
+                continue;
             }
+            rowArray[10] = NodeFingerprint.of(n);
 
             writer.write(row, nodeProcessors);
         }
@@ -17,9 +17,13 @@
 package org.apache.marmotta.kiwi.loader;
 
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.loader.generic.KiWiBatchHandler;
 import org.apache.marmotta.kiwi.loader.generic.KiWiHandler;
 import org.apache.marmotta.kiwi.loader.mysql.KiWiMySQLHandler;
 import org.apache.marmotta.kiwi.loader.pgsql.KiWiPostgresHandler;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
 import org.apache.marmotta.kiwi.persistence.mysql.MySQLDialect;
 import org.apache.marmotta.kiwi.persistence.pgsql.PostgreSQLDialect;
 import org.apache.marmotta.kiwi.sail.KiWiStore;
@@ -28,6 +32,10 @@ import org.junit.*;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 import org.junit.runner.RunWith;
+import org.openrdf.model.BNode;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.repository.Repository;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
@@ -38,6 +46,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -100,15 +110,98 @@ public class KiWiHandlerTest {
     }
 
 
-    private void testImport(KiWiLoaderConfiguration c) throws RDFParseException, IOException, RDFHandlerException {
-        KiWiHandler handler;
+    /**
+     * Statements of the same buffer that share a new URI or anonymous node must not create it twice
+     */
+    @Test
+    public void testDuplicatesInBuffer() throws Exception {
+        KiWiLoaderConfiguration cfg = new KiWiLoaderConfiguration();
+        cfg.setStatementBatchSize(100);
+
+        testDuplicates(createHandler(cfg), 20);
+    }
+
+    /**
+     * Statements that refer to a node from the backlog of a batch handler must not create it again after the backlog
+     * has been flushed in the middle of a statement buffer
+     */
+    @Test
+    public void testDuplicatesAcrossBacklogFlush() throws Exception {
+        KiWiLoaderConfiguration cfg = new KiWiLoaderConfiguration();
+        cfg.setStatementBatchSize(4);
+        cfg.setCommitBatchSize(3);
+
+        testDuplicates(new GenericBatchHandler(store, cfg), 20);
+    }
+
+    private void testDuplicates(KiWiHandler handler, int count) throws Exception {
+        ValueFactory vf = new ValueFactoryImpl();
+        URI subject   = vf.createURI("http://localhost/duplicates/subject");
+        URI predicate = vf.createURI("http://localhost/duplicates/predicate");
+        BNode bnode   = vf.createBNode("duplicates");
+
+        try {
+            handler.startRDF();
+            for(int i=0; i<count; i++) {
+                handler.handleStatement(vf.createStatement(subject, predicate, vf.createLiteral("value " + i)));
+                handler.handleStatement(vf.createStatement(bnode, predicate, vf.createLiteral("value " + i)));
+            }
+            handler.endRDF();
+        } finally {
+            handler.shutdown();
+        }
+
+        Assert.assertEquals(1, countNodes(subject.stringValue()));
+        Assert.assertEquals(1, countNodes(predicate.stringValue()));
+        Assert.assertEquals(1, countNodes(bnode.stringValue()));
+        for(int i=0; i<count; i++) {
+            Assert.assertEquals(1, countNodes("value " + i));
+        }
+
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            Assert.assertEquals(count, con.getStatements(subject, predicate, null, true).asList().size());
+            Assert.assertEquals(2 * count, con.size());
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    private long countNodes(String svalue) throws SQLException {
+        KiWiConnection connection = store.getPersistence().getConnection();
+        try {
+            PreparedStatement stmt = connection.getJDBCConnection().prepareStatement("SELECT count(*) FROM nodes WHERE svalue = ?");
+            try {
+                stmt.setString(1, svalue);
+                ResultSet result = stmt.executeQuery();
+                try {
+                    result.next();
+                    return result.getLong(1);
+                } finally {
+                    result.close();
+                }
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private KiWiHandler createHandler(KiWiLoaderConfiguration c) {
         if(store.getPersistence().getDialect() instanceof PostgreSQLDialect) {
-            handler = new KiWiPostgresHandler(store, c);
+            return new KiWiPostgresHandler(store, c);
         } else if(store.getPersistence().getDialect() instanceof MySQLDialect) {
-            handler = new KiWiMySQLHandler(store, c);
+            return new KiWiMySQLHandler(store, c);
         } else {
-            handler = new KiWiHandler(store, c);
+            return new KiWiHandler(store, c);
         }
+    }
+
+    private void testImport(KiWiLoaderConfiguration c) throws RDFParseException, IOException, RDFHandlerException {
+        KiWiHandler handler = createHandler(c);
 
         try {
             // bulk import
@@ -142,4 +235,33 @@ public class KiWiHandlerTest {
 
     }
 
+
+    /**
+     * A batch handler that writes its backlog with the generic connection methods, so that the backlog handling can be
+     * tested on all databases
+     */
+    private static class GenericBatchHandler extends KiWiBatchHandler {
+
+        private GenericBatchHandler(KiWiStore store, KiWiLoaderConfiguration config) {
+            super("generic", store, config);
+        }
+
+        @Override
+        protected void flushBacklogInternal() throws SQLException {
+            for(KiWiNode node : nodeBacklog) {
+                connection.storeNode(node);
+            }
+            for(KiWiTriple triple : tripleBacklog) {
+                connection.storeTriple(triple);
+            }
+        }
+
+        @Override
+        protected void dropIndexes() throws SQLException {
+        }
+
+        @Override
+        protected void createIndexes() throws SQLException {
+        }
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.loader.dump;
+
+import info.aduna.iteration.Iterations;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.io.KiWiDumpExporter;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.apache.marmotta.kiwi.test.junit.KiWiDatabaseRunner;
+import org.junit.*;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.junit.runner.RunWith;
+import org.openrdf.model.Namespace;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test exporting a database into a KiWi dump and restoring the dump into an empty database with the
+ * KiWiDumpImporter.
+ */
+@RunWith(KiWiDatabaseRunner.class)
+public class KiWiDumpImporterTest {
+
+    private KiWiStore store;
+    private Repository repository;
+
+    private final KiWiConfiguration dbConfig;
+
+    public KiWiDumpImporterTest(KiWiConfiguration dbConfig) {
+        this.dbConfig = dbConfig;
+    }
+
+    @Before
+    public void initDatabase() throws Exception {
+        store = new KiWiStore(dbConfig);
+        store.setDropTablesOnShutdown(true);
+        repository = new SailRepository(store);
+        repository.initialize();
+
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            con.add(this.getClass().getResourceAsStream("/org/apache/marmotta/kiwi/loader/demo-data.foaf"), "http://localhost/", RDFFormat.RDFXML);
+
+            ValueFactory f = con.getValueFactory();
+            URI subject = f.createURI("http://localhost/resource/dump");
+            URI context = f.createURI("http://localhost/context/dump");
+            con.add(subject, f.createURI("http://localhost/property/int"), f.createLiteral(42), context);
+            con.add(subject, f.createURI("http://localhost/property/double"), f.createLiteral(3.14), context);
+            con.add(subject, f.createURI("http://localhost/property/date"), f.createLiteral(new Date()), context);
+            con.add(subject, f.createURI("http://localhost/property/lang"), f.createLiteral("Hallo Welt", "de"), context);
+            con.add(subject, f.createURI("http://localhost/property/long"), f.createLiteral(StringUtils.repeat("a long literal that will be compressed in the dump; ", 50)), context);
+            con.add(subject, f.createURI("http://localhost/property/bnode"), f.createBNode(), context);
+            con.setNamespace("dump", "http://localhost/property/");
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @After
+    public void dropDatabase() throws Exception {
+        repository.shutDown();
+    }
+
+    final Logger logger =
+            LoggerFactory.getLogger(this.getClass());
+
+    @Rule
+    public TestWatcher watchman = new TestWatcher() {
+        /**
+         * Invoked when a test is about to start
+         */
+        @Override
+        protected void starting(Description description) {
+            logger.info("{}: {} being run...", dbConfig.getDialect(), description.getMethodName());
+        }
+    };
+
+    /**
+     * Export the database, restore it into a new empty database and check that all statements and namespaces survived
+     * the round trip and that the restored database can be updated.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        Set<String> statements = listStatements();
+        Set<String> namespaces = listNamespaces();
+        Assert.assertFalse(statements.isEmpty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new KiWiDumpExporter(store.getPersistence()).export(out);
+
+        // drop the database and start over with an empty one
+        repository.shutDown();
+
+        store = new KiWiStore(dbConfig);
+        store.setDropTablesOnShutdown(true);
+        repository = new SailRepository(store);
+        repository.initialize();
+
+        Assert.assertTrue(listStatements().isEmpty());
+
+        KiWiDumpImporter importer = new KiWiDumpImporter(store);
+        importer.importDump(new ByteArrayInputStream(out.toByteArray()));
+
+        Assert.assertEquals(statements.size(), importer.getTriples());
+        Assert.assertEquals(statements, listStatements());
+        Assert.assertEquals(namespaces, listNamespaces());
+
+        // new data must not collide with the restored database IDs
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            ValueFactory f = con.getValueFactory();
+            con.add(f.createURI("http://localhost/resource/dump"), f.createURI("http://localhost/property/restored"), f.createLiteral(true));
+            con.commit();
+        } finally {
+            con.close();
+        }
+        Assert.assertEquals(statements.size() + 1, listStatements().size());
+    }
+
+    @Test
+    public void testRestoreIntoNonEmptyDatabase() throws Exception {
+        Set<String> statements = listStatements();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new KiWiDumpExporter(store.getPersistence()).export(out);
+
+        try {
+            new KiWiDumpImporter(store).importDump(new ByteArrayInputStream(out.toByteArray()));
+            Assert.fail("dump has been restored into a non-empty database");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        Assert.assertEquals(statements, listStatements());
+    }
+
+    private Set<String> listStatements() throws RepositoryException {
+        Set<String> result = new HashSet<>();
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            for(Statement stmt : Iterations.asList(con.getStatements(null, null, null, true))) {
+                result.add(stmt.toString());
+            }
+            con.commit();
+        } finally {
+            con.close();
+        }
+        return result;
+    }
+
+    private Set<String> listNamespaces() throws RepositoryException {
+        Set<String> result = new HashSet<>();
+        RepositoryConnection con = repository.getConnection();
+        try {
+            con.begin();
+            for(Namespace ns : Iterations.asList(con.getNamespaces())) {
+                result.add(ns.getPrefix() + "=" + ns.getName());
+            }
+            con.commit();
+        } finally {
+            con.close();
+        }
+        return result;
+    }
+}
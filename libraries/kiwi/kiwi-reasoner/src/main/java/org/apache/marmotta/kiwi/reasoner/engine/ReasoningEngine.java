@@ -28,7 +28,6 @@ import org.apache.marmotta.commons.sesame.model.StatementCommons;
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionListener;
 import org.apache.marmotta.commons.sesame.transactions.api.TransactionalSail;
 import org.apache.marmotta.commons.sesame.transactions.model.TransactionData;
-import org.apache.marmotta.commons.sesame.tripletable.TripleTable;
 import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
 import org.apache.marmotta.kiwi.model.rdf.KiWiResource;
 import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
@@ -493,7 +492,7 @@ public class ReasoningEngine implements TransactionListener {
      *
      * @param removedTriples
      */
-    private void cleanupJustifications(KiWiReasoningConnection connection, TripleTable<Statement> removedTriples) throws SQLException {
+    private void cleanupJustifications(KiWiReasoningConnection connection, Set<Statement> removedTriples) throws SQLException {
         updateTaskStatus("cleaning up justifications for " + removedTriples.size() + " removed triples");
         for(Statement stmt : removedTriples) {
             KiWiTriple t = (KiWiTriple)stmt;
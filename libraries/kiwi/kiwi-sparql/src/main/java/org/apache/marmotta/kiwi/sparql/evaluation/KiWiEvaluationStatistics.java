@@ -17,19 +17,31 @@
 
 package org.apache.marmotta.kiwi.sparql.evaluation;
 
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.openrdf.model.Value;
 import org.openrdf.query.algebra.StatementPattern;
 import org.openrdf.query.algebra.Var;
 import org.openrdf.query.algebra.evaluation.impl.EvaluationStatistics;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
- * Add file description here!
+ * Evaluation statistics taking into account the indexes on the triples table, so the join optimizer prefers patterns
+ * that are backed by an index (see {@link TripleIndex#getCardinalityPenalty(java.util.Set, boolean, boolean, boolean, boolean)}).
  *
  * @author Sebastian Schaffert (sschaffert@apache.org)
  */
 public class KiWiEvaluationStatistics extends EvaluationStatistics {
 
+    private final Set<TripleIndex> indexes;
+
     public KiWiEvaluationStatistics() {
+        this(Collections.<TripleIndex>emptySet());
+    }
+
+    public KiWiEvaluationStatistics(Set<TripleIndex> indexes) {
+        this.indexes = indexes;
     }
 
     @Override
@@ -41,7 +53,12 @@ public class KiWiEvaluationStatistics extends EvaluationStatistics {
 
         @Override
         protected double getCardinality(StatementPattern sp) {
-            return super.getCardinality(sp);
+            boolean s = getConstantValue(sp.getSubjectVar()) != null;
+            boolean p = getConstantValue(sp.getPredicateVar()) != null;
+            boolean o = getConstantValue(sp.getObjectVar()) != null;
+            boolean c = getConstantValue(sp.getContextVar()) != null;
+
+            return super.getCardinality(sp) * TripleIndex.getCardinalityPenalty(indexes, s, p, o, c);
         }
 
         protected Value getConstantValue(Var var) {
@@ -91,6 +91,7 @@ public class KiWiEvaluationStrategyImpl extends EvaluationStrategyImpl{
                 throw new QueryInterruptedException(e.getMessage());
             }
         } else {
+            recordFallback(join);
             return super.evaluate(join, bindings);
         }
     }
@@ -115,6 +116,7 @@ public class KiWiEvaluationStrategyImpl extends EvaluationStrategyImpl{
                 throw new QueryInterruptedException(e);
             }
         } else {
+            recordFallback(join);
             return super.evaluate(join, bindings);
         }
     }
@@ -139,6 +141,7 @@ public class KiWiEvaluationStrategyImpl extends EvaluationStrategyImpl{
                 throw new QueryInterruptedException(e);
             }
         } else {
+            recordFallback(slice);
             return super.evaluate(slice, bindings);
         }
     }
@@ -163,6 +166,7 @@ public class KiWiEvaluationStrategyImpl extends EvaluationStrategyImpl{
                 throw new QueryInterruptedException(e);
             }
         } else {
+            recordFallback(reduced);
             return super.evaluate(reduced, bindings);
         }
     }
@@ -187,11 +191,22 @@ public class KiWiEvaluationStrategyImpl extends EvaluationStrategyImpl{
                 throw new QueryInterruptedException(e);
             }
         } else {
+            recordFallback(distinct);
             return super.evaluate(distinct, bindings);
         }
     }
 
 
+    /**
+     * Record in the query profile of the current thread (if any) that the given construct is evaluated in memory.
+     */
+    private static void recordFallback(TupleExpr expr) {
+        KiWiQueryProfile profile = KiWiQueryProfile.current();
+        if(profile != null) {
+            profile.addFallback(expr.getClass().getSimpleName());
+        }
+    }
+
     /**
      * Test if a tuple expression is supported nby the optimized evaluation; in this case we can apply a specific optimization.
      * @param expr
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.sparql.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects information about how a single SPARQL query was evaluated by the KiWi evaluation strategy: which parts
+ * of the query were translated into SQL (together with the generated SQL, the time spent executing it in the
+ * database, the time spent loading the result nodes and the number of rows), and which query constructs had to
+ * fall back to the in-memory evaluation.
+ * <p/>
+ * Profiling is opt-in and bound to the calling thread: a caller that wants to profile a query calls {@link #start()}
+ * before evaluating it in the same thread and {@link #stop()} afterwards. When no profile is active, the evaluation
+ * strategy does not collect anything.
+ */
+public class KiWiQueryProfile {
+
+    /**
+     * Maximum number of SQL statements kept per query; further statements are still counted and timed
+     */
+    public static final int MAX_SQL_STATEMENTS = 10;
+
+    private static final ThreadLocal<KiWiQueryProfile> current = new ThreadLocal<>();
+
+    private final List<String> sqlStatements = new ArrayList<>();
+
+    private final Set<String> fallbacks = new LinkedHashSet<>();
+
+    private int pushdowns = 0;
+
+    private int fallbackCount = 0;
+
+    private long sqlNanos = 0;
+
+    private long materializationNanos = 0;
+
+    private long sqlRows = 0;
+
+    /**
+     * Start profiling the SPARQL evaluation in the current thread.
+     *
+     * @return the new profile
+     */
+    public static KiWiQueryProfile start() {
+        KiWiQueryProfile profile = new KiWiQueryProfile();
+        current.set(profile);
+        return profile;
+    }
+
+    /**
+     * Return the profile active in the current thread, or null if the current evaluation is not profiled.
+     */
+    public static KiWiQueryProfile current() {
+        return current.get();
+    }
+
+    /**
+     * Stop profiling in the current thread.
+     */
+    public static void stop() {
+        current.remove();
+    }
+
+    /**
+     * Record the execution of a SQL query generated from (part of) the SPARQL query.
+     *
+     * @param sql                  the SQL query string
+     * @param sqlNanos             time spent waiting for the database to execute the query
+     * @param materializationNanos time spent iterating over the result and loading the nodes
+     * @param rows                 number of rows returned by the database
+     */
+    public synchronized void addSqlQuery(String sql, long sqlNanos, long materializationNanos, long rows) {
+        if(sqlStatements.size() < MAX_SQL_STATEMENTS) {
+            sqlStatements.add(sql);
+        }
+        this.pushdowns++;
+        this.sqlNanos += sqlNanos;
+        this.materializationNanos += materializationNanos;
+        this.sqlRows += rows;
+    }
+
+    /**
+     * Record that a query construct could not be translated into SQL and is evaluated in memory.
+     *
+     * @param construct the name of the construct (e.g. "Join")
+     */
+    public synchronized void addFallback(String construct) {
+        fallbacks.add(construct);
+        fallbackCount++;
+    }
+
+    /**
+     * Return true if the query was evaluated completely by the database, i.e. at least one part was translated into
+     * SQL and nothing fell back to the in-memory evaluation.
+     */
+    public synchronized boolean isFullyPushedDown() {
+        return pushdowns > 0 && fallbackCount == 0;
+    }
+
+    public synchronized List<String> getSqlStatements() {
+        return Collections.unmodifiableList(new ArrayList<>(sqlStatements));
+    }
+
+    public synchronized Set<String> getFallbacks() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(fallbacks));
+    }
+
+    public synchronized int getPushdowns() {
+        return pushdowns;
+    }
+
+    public synchronized int getFallbackCount() {
+        return fallbackCount;
+    }
+
+    public synchronized long getSqlNanos() {
+        return sqlNanos;
+    }
+
+    public synchronized long getMaterializationNanos() {
+        return materializationNanos;
+    }
+
+    public synchronized long getSqlRows() {
+        return sqlRows;
+    }
+}
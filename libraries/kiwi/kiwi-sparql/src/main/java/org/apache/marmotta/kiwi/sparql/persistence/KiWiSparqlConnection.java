@@ -23,17 +23,17 @@ import info.aduna.iteration.CloseableIteratorIteration;
 import info.aduna.iteration.EmptyIteration;
 import info.aduna.iteration.Iterations;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.marmotta.commons.util.DateUtils;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
 import org.apache.marmotta.kiwi.persistence.KiWiConnection;
 import org.apache.marmotta.kiwi.persistence.KiWiDialect;
 import org.apache.marmotta.kiwi.persistence.util.ResultSetIteration;
 import org.apache.marmotta.kiwi.persistence.util.ResultTransformerFunction;
 import org.apache.marmotta.kiwi.sail.KiWiValueFactory;
+import org.apache.marmotta.kiwi.sparql.evaluation.KiWiQueryProfile;
 import org.openrdf.model.*;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.model.vocabulary.FN;
-import org.openrdf.model.vocabulary.SESAME;
 import org.openrdf.model.vocabulary.XMLSchema;
 import org.openrdf.query.Binding;
 import org.openrdf.query.BindingSet;
@@ -43,6 +43,7 @@ import org.openrdf.query.impl.MapBindingSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -69,11 +70,18 @@ public class KiWiSparqlConnection {
     private KiWiConnection parent;
     private KiWiValueFactory valueFactory;
 
+    private SQLTemplateCache templateCache;
+
     private ExecutorService executorService;
 
     public KiWiSparqlConnection(KiWiConnection parent, KiWiValueFactory valueFactory) throws SQLException {
+        this(parent, valueFactory, new SQLTemplateCache());
+    }
+
+    public KiWiSparqlConnection(KiWiConnection parent, KiWiValueFactory valueFactory, SQLTemplateCache templateCache) throws SQLException {
         this.parent = parent;
         this.valueFactory = valueFactory;
+        this.templateCache = templateCache;
 
         // interruptible queries run in a separate thread
         this.executorService = Executors.newCachedThreadPool();
@@ -82,6 +90,11 @@ public class KiWiSparqlConnection {
     /**
      * Evaluate a statement pattern join or filter on the database by translating it into an appropriate SQL statement.
      * Copied and adapted from KiWiReasoningConnection.query()
+     * <p/>
+     * The SQL query is parameterized: node IDs, limit and offset as well as literal values compared in filters are
+     * passed as query parameters. The translation is cached by the normalized shape of the expression in the template
+     * cache and the prepared statement is reused by the database connection, so repeated queries that only differ in
+     * their constants skip both the translation and the query planning in the database.
      *
      * @param join
      * @param dataset
@@ -90,16 +103,118 @@ public class KiWiSparqlConnection {
     public CloseableIteration<BindingSet, SQLException> evaluateJoin(TupleExpr join, final BindingSet bindings, final Dataset dataset) throws SQLException, InterruptedException {
         Preconditions.checkArgument(join instanceof Join || join instanceof Filter || join instanceof StatementPattern || join instanceof Distinct || join instanceof Slice || join instanceof Reduced);
 
+        QueryShape shape = new QueryShape(join, bindings, dataset, valueFactory);
+        if(shape.isEmpty()) {
+            return new EmptyIteration<BindingSet, SQLException>();
+        }
+
+        SQLTemplate template = templateCache.get(shape.getKey());
+        if(template == null) {
+            template = buildTemplate(join, shape);
+            templateCache.put(shape.getKey(), template);
+
+            log.debug("original SPARQL syntax tree:\n {}", join);
+            log.debug("constructed SQL query string:\n {}", template);
+        }
+        log.debug("SQL query parameters: {}", shape.getParameters());
+
+        final String queryString = template.getSql();
+        final List<Var> selectVariables = shape.getVariables();
+
+        final PreparedStatement queryStatement = parent.getPreparedStatementForQuery(queryString);
+        template.bind(queryStatement, shape);
+
+        Future<ResultSet> queryFuture =
+                executorService.submit(new Callable<ResultSet>() {
+                    @Override
+                    public ResultSet call() throws Exception {
+                        try {
+                            return queryStatement.executeQuery();
+                        } catch (SQLException ex) {
+                            if(Thread.interrupted()) {
+                                log.info("SQL query execution cancelled; not returning result (Thread={})", Thread.currentThread());
+                                throw new InterruptedException("SPARQL query execution cancelled");
+                            } else {
+                                throw ex;
+                            }
+                        }
+                    }
+                }
+                );
+
+        final KiWiQueryProfile profile = KiWiQueryProfile.current();
+        final long sqlStart = System.nanoTime();
+        try {
+            ResultSet result = queryFuture.get();
+            final long materializationStart = System.nanoTime();
+
+            // the statement is owned by the statement cache of the connection, so only the result set is closed
+            ResultSetIteration<BindingSet> it = new ResultSetIteration<BindingSet>(result, new ResultTransformerFunction<BindingSet>() {
+                @Override
+                public BindingSet apply(ResultSet row) throws SQLException {
+                    MapBindingSet resultRow = new MapBindingSet();
+
+                    long[] nodeIds = new long[selectVariables.size()];
+                    for(int i=0; i<selectVariables.size(); i++) {
+                        nodeIds[i] = row.getLong(i+1);
+                    }
+                    KiWiNode[] nodes = parent.loadNodesByIds(nodeIds);
+
+                    for(int i=0; i<selectVariables.size(); i++) {
+                        Var v = selectVariables.get(i);
+                        resultRow.addBinding(v.getName(), nodes[i]);
+                    }
+
+
+                    if(bindings != null) {
+                        for(Binding binding : bindings) {
+                            resultRow.addBinding(binding);
+                        }
+                    }
+                    return resultRow;
+                }
+            });
+
+            // materialize result to avoid having more than one result set open at the same time
+            List<BindingSet> rows = Iterations.asList(it);
+
+            if(profile != null) {
+                profile.addSqlQuery(queryString, materializationStart - sqlStart, System.nanoTime() - materializationStart, rows.size());
+            }
+
+            return new CloseableIteratorIteration<BindingSet, SQLException>(rows.iterator());
+        } catch (InterruptedException | CancellationException e) {
+            log.info("SPARQL query execution cancelled");
+            queryFuture.cancel(true);
+            queryStatement.cancel();
+            queryStatement.close();
+
+            throw new InterruptedException("SPARQL query execution cancelled");
+        } catch (ExecutionException e) {
+            log.error("error executing SPARQL query",e.getCause());
+            if(e.getCause() instanceof SQLException) {
+                throw (SQLException)e.getCause();
+            } else if(e.getCause() instanceof InterruptedException) {
+                throw (InterruptedException)e.getCause();
+            } else {
+                throw new SQLException("error executing SPARQL query",e);
+            }
+        }
+    }
+
+    /**
+     * Translate a tuple expression with the given shape into a parameterized SQL query. Each "?" in the resulting
+     * query refers to a parameter of the shape.
+     */
+    private SQLTemplate buildTemplate(TupleExpr join, QueryShape shape) {
         // some definitions
         String[] positions = new String[] {"subject","predicate","object","context"};
 
         // collect all patterns in a list, using depth-first search over the join
-        List<StatementPattern> patterns = new PatternCollector(join).patterns;
+        List<StatementPattern> patterns = shape.getPatterns();
 
-        long offset = new LimitFinder(join).offset;
-        long limit  = new LimitFinder(join).limit;
-
-        boolean distinct = new DistinctFinder(join).distinct;
+        // the indexes of the shape parameters in the order they are used in the query string
+        List<Integer> parameters = new ArrayList<>();
 
         // associate a name with each pattern; the names are used in the database query to refer to the triple
         // that matched this pattern and in the construction of variable names for the HQL query
@@ -111,9 +226,8 @@ public class KiWiSparqlConnection {
 
         // find all variables occurring in the patterns and create a map to map them to
         // field names in the database query; each variable will have one or several field names,
-        // one for each pattern it occurs in; field names are constructed automatically by a counter
-        // and the pattern name to ensure the name is a valid HQL identifier
-        int variableCount = 0;
+        // one for each pattern it occurs in; field names are constructed from the position of
+        // the variable in the shape and the pattern name to ensure the name is a valid HQL identifier
 
         // a map for the variable names; will look like { ?x -> "V1", ?y -> "V2", ... }
         final Map<Var,String> variableNames = new HashMap<>();
@@ -121,61 +235,16 @@ public class KiWiSparqlConnection {
         // a map for mapping variables to field names; each variable might have one or more field names,
         // depending on the number of patterns it occurs in; will look like
         // { ?x -> ["P1_V1", "P2_V1"], ?y -> ["P2_V2"], ... }
-        Map<Var,List<String>> queryVariables = new HashMap<>();
-        Map<Var,List<String>> queryVariableIds = new HashMap<>();
+        Map<Var,List<String>> queryVariables = new LinkedHashMap<>();
+        Map<Var,List<String>> queryVariableIds = new LinkedHashMap<>();
 
-        // a map for defining alternative context values for each variable used in the context part of a pattern
-        Map<StatementPattern,List<Resource>> variableContexts = new HashMap<>();
+        for(Var v : shape.getVariables()) {
+            variableNames.put(v,"V"+ (variableNames.size() + 1));
+            queryVariables.put(v,new LinkedList<String>());
+            queryVariableIds.put(v, new LinkedList<String>());
+        }
 
         for(StatementPattern p : patterns) {
-            // check graph restrictions in datasets (MARMOTTA-340)
-            Resource[] contexts;
-            Value contextValue = p.getContextVar() != null ? p.getContextVar().getValue() : null;
-
-            Set<URI> graphs = null;
-            boolean emptyGraph = false;
-
-            if (dataset != null) {
-                if (p.getScope() == StatementPattern.Scope.DEFAULT_CONTEXTS) {
-                    graphs = dataset.getDefaultGraphs();
-                    emptyGraph = graphs.isEmpty() && !dataset.getNamedGraphs().isEmpty();
-                }
-                else {
-                    graphs = dataset.getNamedGraphs();
-                    emptyGraph = graphs.isEmpty() && !dataset.getDefaultGraphs().isEmpty();
-                }
-            }
-
-            if (emptyGraph) {
-                // Search zero contexts
-                return new EmptyIteration<BindingSet, SQLException>();
-            } else if (graphs == null || graphs.isEmpty()) {
-                if (contextValue != null) {
-                    contexts = new Resource[] { (Resource)contextValue };
-                } else {
-                    contexts = new Resource[0];
-                }
-            } else if (contextValue != null) {
-                if (graphs.contains(contextValue)) {
-                    contexts = new Resource[] { (Resource)contextValue };
-                } else {
-                    // Statement pattern specifies a context that is not part of
-                    // the dataset
-                    return new EmptyIteration<BindingSet, SQLException>();
-                }
-            } else {
-                contexts = new Resource[graphs.size()];
-                int i = 0;
-                for (URI graph : graphs) {
-                    URI context = null;
-                    if (!SESAME.NIL.equals(graph)) {
-                        context = graph;
-                    }
-                    contexts[i++] = context;
-                }
-            }
-
-
             // build pattern
             Var[] fields = new Var[] {
                     p.getSubjectVar(),
@@ -186,11 +255,6 @@ public class KiWiSparqlConnection {
             for(int i = 0; i<fields.length; i++) {
                 if(fields[i] != null && !fields[i].hasValue()) {
                     Var v = fields[i];
-                    if(variableNames.get(v) == null) {
-                        variableNames.put(v,"V"+ (++variableCount));
-                        queryVariables.put(v,new LinkedList<String>());
-                        queryVariableIds.put(v, new LinkedList<String>());
-                    }
                     String pName = patternNames.get(p);
                     String vName = variableNames.get(v);
                     if(hasNodeCondition(fields[i], join)) {
@@ -199,21 +263,16 @@ public class KiWiSparqlConnection {
                     queryVariableIds.get(v).add(pName + "." + positions[i]);
                 }
             }
-
-            // build an OR query for the value of the context variable
-            if(contexts.length > 0) {
-                variableContexts.put(p, Arrays.asList(contexts));
-            }
         }
 
-        // build the select clause by projecting for each query variable the first name
+        // build the select clause by projecting for each query variable the first name; the order of the
+        // columns is the order of the variables in the shape
         StringBuilder selectClause = new StringBuilder();
 
-        if(distinct) {
+        if(shape.isDistinct()) {
             selectClause.append("DISTINCT ");
         }
 
-        final List<Var> selectVariables = new LinkedList<Var>();
         for(Iterator<Var> it = queryVariableIds.keySet().iterator(); it.hasNext(); ) {
             Var v = it.next();
             String projectedName = variableNames.get(v);
@@ -224,10 +283,9 @@ public class KiWiSparqlConnection {
             if(it.hasNext()) {
                 selectClause.append(", ");
             }
-            selectVariables.add(v);
         }
         // hot fix for MARMOTTA-512
-        if(selectVariables.size() == 0) {
+        if(queryVariableIds.size() == 0) {
             selectClause.append("1 as foo");
         }
 
@@ -281,31 +339,14 @@ public class KiWiSparqlConnection {
 
         // 1. iterate over all patterns and for each resource and literal field in subject,
         //    property, object, or context, and set a query condition according to the
-        //    nodes given in the pattern
+        //    nodes given in the pattern; the node ID is passed as query parameter
         for(StatementPattern p : patterns) {
             String pName = patternNames.get(p);
-            Var[] fields = new Var[] {
-                    p.getSubjectVar(),
-                    p.getPredicateVar(),
-                    p.getObjectVar(),
-                    p.getContextVar()
-            };
-            for(int i = 0; i<fields.length; i++) {
-                // find node id of the resource or literal field and use it in the where clause
-                // in this way we can avoid setting too many query parameters
-                long nodeId = -1;
-                if(fields[i] != null && fields[i].hasValue()) {
-                    Value v = valueFactory.convert(fields[i].getValue());
-                    if(v instanceof KiWiNode) {
-                        nodeId = ((KiWiNode) v).getId();
-                    } else {
-                        throw new IllegalArgumentException("the values in this query have not been created by the KiWi value factory");
-                    }
-
-                    if(nodeId >= 0) {
-                        String condition = pName+"."+positions[i]+" = " + nodeId;
-                        whereConditions.add(condition);
-                    }
+            for(int i = 0; i<positions.length; i++) {
+                int parameter = shape.getPatternParameter(p, i);
+                if(parameter >= 0) {
+                    whereConditions.add(pName+"."+positions[i]+" = ?");
+                    parameters.add(parameter);
                 }
             }
         }
@@ -322,21 +363,11 @@ public class KiWiSparqlConnection {
 
         // 3. for each variable in the initialBindings, add a condition to the where clause setting it
         //    to the node given as binding
-        if(bindings != null) {
-            for(String v : bindings.getBindingNames()) {
-                for(Map.Entry<Var,List<String>> entry : queryVariableIds.entrySet()) {
-                    if(entry.getKey().getName() != null && entry.getKey().getName().equals(v) &&
-                            entry.getValue() != null && entry.getValue().size() > 0) {
-                        List<String> vNames = entry.getValue();
-                        String vName = vNames.get(0);
-                        Value binding = valueFactory.convert(bindings.getValue(v));
-                        if(binding instanceof KiWiNode) {
-                            whereConditions.add(vName+" = "+((KiWiNode)binding).getId());
-                        } else {
-                            throw new IllegalArgumentException("the values in this binding have not been created by the KiWi value factory");
-                        }
-                    }
-                }
+        for(Map.Entry<Var,List<String>> entry : queryVariableIds.entrySet()) {
+            int parameter = shape.getBindingParameter(entry.getKey());
+            if(parameter >= 0 && entry.getValue().size() > 0) {
+                whereConditions.add(entry.getValue().get(0)+" = ?");
+                parameters.add(parameter);
             }
         }
 
@@ -348,37 +379,33 @@ public class KiWiSparqlConnection {
 
 
         // 5. for each filter condition, add a statement to the where clause
-        List<ValueExpr> filters = new FilterCollector(join).filters;
-        for(ValueExpr expr : filters) {
-            whereConditions.add(evaluateExpression(expr,queryVariables, null));
+        for(ValueExpr expr : shape.getFilters()) {
+            whereConditions.add(evaluateExpression(expr,queryVariables, null, shape, parameters));
         }
 
 
-        // 6. for each context variable with a restricted list of contexts, we add a condition to the where clause
-        //    of the form (V.id = R1.id OR V.id = R2.id ...)
-        for(Map.Entry<StatementPattern,List<Resource>> vctx : variableContexts.entrySet()) {
+        // 6. for each pattern with a restricted list of contexts, we add a condition to the where clause
+        //    of the form (P.context = ? OR P.context = ? ...)
+        for(StatementPattern p : patterns) {
+            List<Integer> contexts = shape.getContextParameters(p);
+            if(contexts == null) {
+                continue;
+            }
+
             // the variable
-            String varName = patternNames.get(vctx.getKey());
+            String varName = patternNames.get(p);
 
             // the string we are building
             StringBuilder cCond = new StringBuilder();
             cCond.append("(");
-            for(Iterator<Resource> it = vctx.getValue().iterator(); it.hasNext(); ) {
-                Value v = valueFactory.convert(it.next());
-                if(v instanceof KiWiNode) {
-                    long nodeId = ((KiWiNode) v).getId();
-
-                    cCond.append(varName);
-                    cCond.append(".context = ");
-                    cCond.append(nodeId);
+            for(Iterator<Integer> it = contexts.iterator(); it.hasNext(); ) {
+                cCond.append(varName);
+                cCond.append(".context = ?");
+                parameters.add(it.next());
 
-                    if(it.hasNext()) {
-                        cCond.append(" OR ");
-                    }
-                } else {
-                    throw new IllegalArgumentException("the values in this query have not been created by the KiWi value factory");
+                if(it.hasNext()) {
+                    cCond.append(" OR ");
                 }
-
             }
             cCond.append(")");
             whereConditions.add(cCond.toString());
@@ -396,15 +423,13 @@ public class KiWiSparqlConnection {
 
         // construct limit and offset
         StringBuilder limitClause = new StringBuilder();
-        if(limit > 0) {
-            limitClause.append("LIMIT ");
-            limitClause.append(limit);
-            limitClause.append(" ");
+        if(shape.getLimitParameter() >= 0) {
+            limitClause.append("LIMIT ? ");
+            parameters.add(shape.getLimitParameter());
         }
-        if(offset >= 0) {
-            limitClause.append("OFFSET ");
-            limitClause.append(offset);
-            limitClause.append(" ");
+        if(shape.getOffsetParameter() >= 0) {
+            limitClause.append("OFFSET ? ");
+            parameters.add(shape.getOffsetParameter());
         }
 
 
@@ -415,101 +440,29 @@ public class KiWiSparqlConnection {
                         "WHERE " + whereClause + "\n " +
                         limitClause;
 
-        log.debug("original SPARQL syntax tree:\n {}", join);
-        log.debug("constructed SQL query string:\n {}",queryString);
         log.debug("SPARQL -> SQL node variable mappings:\n {}", queryVariables);
         log.debug("SPARQL -> SQL ID variable mappings:\n {}", queryVariableIds);
 
-        final PreparedStatement queryStatement = parent.getJDBCConnection().prepareStatement(queryString);
-        if(parent.getDialect().isCursorSupported()) {
-            queryStatement.setFetchSize(parent.getConfiguration().getCursorSize());
-        }
-
-        Future<ResultSet> queryFuture =
-                executorService.submit(new Callable<ResultSet>() {
-                    @Override
-                    public ResultSet call() throws Exception {
-                        try {
-                            return queryStatement.executeQuery();
-                        } catch (SQLException ex) {
-                            if(Thread.interrupted()) {
-                                log.info("SQL query execution cancelled; not returning result (Thread={})", Thread.currentThread());
-                                throw new InterruptedException("SPARQL query execution cancelled");
-                            } else {
-                                throw ex;
-                            }
-                        }
-                    }
-                }
-                );
-
-        try {
-            ResultSet result = queryFuture.get();
-
-            ResultSetIteration<BindingSet> it = new ResultSetIteration<BindingSet>(result, true, new ResultTransformerFunction<BindingSet>() {
-                @Override
-                public BindingSet apply(ResultSet row) throws SQLException {
-                    MapBindingSet resultRow = new MapBindingSet();
-
-                    long[] nodeIds = new long[selectVariables.size()];
-                    for(int i=0; i<selectVariables.size(); i++) {
-                        nodeIds[i] = row.getLong(variableNames.get(selectVariables.get(i)));
-                    }
-                    KiWiNode[] nodes = parent.loadNodesByIds(nodeIds);
-
-                    for(int i=0; i<selectVariables.size(); i++) {
-                        Var v = selectVariables.get(i);
-                        resultRow.addBinding(v.getName(), nodes[i]);
-                    }
-
-
-                    if(bindings != null) {
-                        for(Binding binding : bindings) {
-                            resultRow.addBinding(binding);
-                        }
-                    }
-                    return resultRow;
-                }
-            });
-
-            // materialize result to avoid having more than one result set open at the same time
-            return new CloseableIteratorIteration<BindingSet, SQLException>(Iterations.asList(it).iterator());
-        } catch (InterruptedException | CancellationException e) {
-            log.info("SPARQL query execution cancelled");
-            queryFuture.cancel(true);
-            queryStatement.cancel();
-            queryStatement.close();
-
-            throw new InterruptedException("SPARQL query execution cancelled");
-        } catch (ExecutionException e) {
-            log.error("error executing SPARQL query",e.getCause());
-            if(e.getCause() instanceof SQLException) {
-                throw (SQLException)e.getCause();
-            } else if(e.getCause() instanceof InterruptedException) {
-                throw (InterruptedException)e.getCause();
-            } else {
-                throw new SQLException("error executing SPARQL query",e);
-            }
-        }
+        return new SQLTemplate(queryString, parameters);
     }
 
-    private String evaluateExpression(ValueExpr expr, Map<Var, List<String>> queryVariables, OPTypes optype) {
+    private String evaluateExpression(ValueExpr expr, Map<Var, List<String>> queryVariables, OPTypes optype, QueryShape shape, List<Integer> parameters) {
         if(expr instanceof And) {
-            return "(" + evaluateExpression(((And) expr).getLeftArg(), queryVariables, optype) + " AND " + evaluateExpression(((And) expr).getRightArg(),queryVariables, optype) + ")";
+            return "(" + evaluateExpression(((And) expr).getLeftArg(), queryVariables, optype, shape, parameters) + " AND " + evaluateExpression(((And) expr).getRightArg(),queryVariables, optype, shape, parameters) + ")";
         } else if(expr instanceof Or) {
-            return "(" + evaluateExpression(((Or) expr).getLeftArg(), queryVariables, optype) + " OR " + evaluateExpression(((Or) expr).getRightArg(),queryVariables, optype) + ")";
+            return "(" + evaluateExpression(((Or) expr).getLeftArg(), queryVariables, optype, shape, parameters) + " OR " + evaluateExpression(((Or) expr).getRightArg(),queryVariables, optype, shape, parameters) + ")";
         } else if(expr instanceof Not) {
-            return "NOT (" + evaluateExpression(((Not) expr).getArg(), queryVariables, optype)  + ")";
+            return "NOT (" + evaluateExpression(((Not) expr).getArg(), queryVariables, optype, shape, parameters)  + ")";
         } else if(expr instanceof Str) {
             Str str = (Str)expr;
 
             // get value of argument and express it as string
-            return evaluateExpression(str.getArg(), queryVariables, OPTypes.STRING);
+            return evaluateExpression(str.getArg(), queryVariables, OPTypes.STRING, shape, parameters);
         } else if(expr instanceof Label) {
             Label str = (Label)expr;
 
             // get value of argument and express it as string
-            return evaluateExpression(str.getArg(), queryVariables, OPTypes.STRING);
+            return evaluateExpression(str.getArg(), queryVariables, OPTypes.STRING, shape, parameters);
         } else if(expr instanceof Lang) {
             Lang lang = (Lang)expr;
 
@@ -521,7 +474,7 @@ public class KiWiSparqlConnection {
 
             OPTypes ot = new OPTypeFinder(cmp).coerce();
 
-            return evaluateExpression(cmp.getLeftArg(),queryVariables, ot) + getSQLOperator(cmp.getOperator()) + evaluateExpression(cmp.getRightArg(),queryVariables, ot);
+            return evaluateExpression(cmp.getLeftArg(),queryVariables, ot, shape, parameters) + getSQLOperator(cmp.getOperator()) + evaluateExpression(cmp.getRightArg(),queryVariables, ot, shape, parameters);
         } else if(expr instanceof MathExpr) {
             MathExpr cmp = (MathExpr)expr;
 
@@ -529,20 +482,20 @@ public class KiWiSparqlConnection {
 
             if(ot == OPTypes.STRING) {
                 if(cmp.getOperator() == MathExpr.MathOp.PLUS) {
-                    return parent.getDialect().getConcat(evaluateExpression(cmp.getLeftArg(),queryVariables, ot), evaluateExpression(cmp.getRightArg(),queryVariables, ot));
+                    return parent.getDialect().getConcat(evaluateExpression(cmp.getLeftArg(),queryVariables, ot, shape, parameters), evaluateExpression(cmp.getRightArg(),queryVariables, ot, shape, parameters));
                 } else {
                     throw new IllegalArgumentException("operation "+cmp.getOperator()+" is not supported on strings");
                 }
             } else {
-                return evaluateExpression(cmp.getLeftArg(),queryVariables, ot) + getSQLOperator(cmp.getOperator()) + evaluateExpression(cmp.getRightArg(),queryVariables, ot);
+                return evaluateExpression(cmp.getLeftArg(),queryVariables, ot, shape, parameters) + getSQLOperator(cmp.getOperator()) + evaluateExpression(cmp.getRightArg(),queryVariables, ot, shape, parameters);
             }
         } else if(expr instanceof Regex) {
             Regex re = (Regex)expr;
 
-            return optimizeRegexp(evaluateExpression(re.getArg(),queryVariables, optype), evaluateExpression(re.getPatternArg(), queryVariables, OPTypes.STRING), re.getFlagsArg());
+            return optimizeRegexp(evaluateExpression(re.getArg(),queryVariables, optype, shape, parameters), evaluateExpression(re.getPatternArg(), queryVariables, OPTypes.STRING, shape, parameters), re.getFlagsArg());
         } else if(expr instanceof LangMatches) {
             LangMatches lm = (LangMatches)expr;
-            String value = evaluateExpression(lm.getLeftArg(), queryVariables, optype);
+            String value = evaluateExpression(lm.getLeftArg(), queryVariables, optype, shape, parameters);
             ValueConstant pattern = (ValueConstant) lm.getRightArg();
 
             if(pattern.getValue().stringValue().equals("*")) {
@@ -611,16 +564,32 @@ public class KiWiSparqlConnection {
                 }
             }
         } else if(expr instanceof ValueConstant) {
+            int parameter = shape.getConstantParameter((ValueConstant) expr);
+            if(parameter >= 0) {
+                parameters.add(parameter);
+                return "?";
+            }
+
             String val = ((ValueConstant) expr).getValue().stringValue();
 
-            if(optype == null) {
+            if(optype == null || optype == OPTypes.STRING) {
                 return "'" + val + "'";
             } else {
+                // values that are not valid for the type never match, like a type error in SPARQL
+                Object value = QueryShape.convertConstant(val, optype);
                 switch (optype) {
-                    case STRING: return "'" + val + "'";
-                    case INT:    return ""  + Integer.parseInt(val);
-                    case DOUBLE: return ""  + Double.parseDouble(val);
-                    case DATE:   return "'" + sqlDateFormat.format(DateUtils.parseDate(val)) + "'";
+                    case INT:
+                        if(value instanceof BigDecimal) {
+                            return ((BigDecimal) value).toPlainString();
+                        }
+                        return value != null ? value.toString() : "NULL";
+                    case DOUBLE:
+                        if(value == null || ((Double) value).isNaN() || ((Double) value).isInfinite()) {
+                            return "NULL";
+                        }
+                        return value.toString();
+                    case DATE:
+                        return value != null ? "'" + sqlDateFormat.format((Date) value) + "'" : "NULL";
                     default: throw new IllegalArgumentException("unsupported value type: " + optype);
                 }
             }
@@ -630,13 +599,13 @@ public class KiWiSparqlConnection {
             // special optimizations for frequent cases with variables
             if((XMLSchema.DOUBLE.toString().equals(fc.getURI()) || XMLSchema.FLOAT.toString().equals(fc.getURI()) ) &&
                fc.getArgs().size() == 1) {
-                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.DOUBLE);
+                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.DOUBLE, shape, parameters);
             } else if(XMLSchema.INTEGER.toString().equals(fc.getURI()) && fc.getArgs().size() == 1) {
-                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.INT);
+                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.INT, shape, parameters);
             } else if(XMLSchema.BOOLEAN.toString().equals(fc.getURI()) && fc.getArgs().size() == 1) {
-                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.BOOL);
+                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.BOOL, shape, parameters);
             } else if(XMLSchema.DATE.toString().equals(fc.getURI()) && fc.getArgs().size() == 1) {
-                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.DATE);
+                return evaluateExpression(fc.getArgs().get(0), queryVariables, OPTypes.DATE, shape, parameters);
             }
 
             URI fnUri = new URIImpl(fc.getURI());
@@ -649,7 +618,7 @@ public class KiWiSparqlConnection {
             }
 
             for(int i=0; i<args.length;i++) {
-                args[i] = evaluateExpression(fc.getArgs().get(i),queryVariables,fOpType);
+                args[i] = evaluateExpression(fc.getArgs().get(i),queryVariables,fOpType, shape, parameters);
             }
 
             if(optype != null && optype != functionReturnTypes.get(fnUri)) {
@@ -823,6 +792,13 @@ public class KiWiSparqlConnection {
     }
 
 
+    /**
+     * The additional indexes on the triples table configured for the database (see {@link TripleIndex}).
+     */
+    public Set<TripleIndex> getTripleIndexes() {
+        return parent.getConfiguration().getTripleIndexes();
+    }
+
     public KiWiDialect getDialect() {
         return parent.getDialect();
     }
@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.sparql.persistence;
+
+import org.apache.marmotta.commons.util.DateUtils;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.sail.KiWiValueFactory;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.SESAME;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.algebra.*;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * The normalized shape of a tuple expression that is evaluated on the database, together with the constants
+ * occurring in it. Two expressions with the same shape are translated into the same SQL query string and differ only
+ * in the values of the query parameters, so the shape key can be used for caching the translation (see
+ * {@link SQLTemplate}).
+ * <p/>
+ * Constants that end up as query parameters are node IDs in statement patterns, context restrictions and initial
+ * bindings, LIMIT and OFFSET values, and literal values compared with a variable in a filter. All other constants
+ * (e.g. regular expression patterns, which are rewritten into LIKE conditions depending on their value) are part of
+ * the key.
+ */
+class QueryShape {
+
+    private final List<StatementPattern> patterns;
+
+    private final List<ValueExpr> filters;
+
+    private final long limit, offset;
+
+    private final boolean distinct;
+
+    // all unbound variables of the patterns in order of their first occurrence
+    private final List<Var> variables = new ArrayList<>();
+
+    // the query parameters in order of their occurrence in the shape
+    private final List<Object> parameters = new ArrayList<>();
+
+    // parameter index of each pattern field with a value (-1 if the field does not restrict the query)
+    private final Map<StatementPattern,int[]> patternParameters = new HashMap<>();
+
+    // parameter indexes of the alternative contexts of each pattern
+    private final Map<StatementPattern,List<Integer>> contextParameters = new HashMap<>();
+
+    // parameter index of each variable with an initial binding
+    private final Map<Var,Integer> bindingParameters = new HashMap<>();
+
+    // parameter index of each filter constant translated into a query parameter
+    private final Map<ValueConstant,Integer> constantParameters = new IdentityHashMap<>();
+
+    private int limitParameter = -1, offsetParameter = -1;
+
+    private boolean empty = false;
+
+    private final StringBuilder key = new StringBuilder();
+
+    QueryShape(TupleExpr join, BindingSet bindings, Dataset dataset, KiWiValueFactory valueFactory) {
+        patterns = new PatternCollector(join).patterns;
+        filters  = new FilterCollector(join).filters;
+
+        LimitFinder limitFinder = new LimitFinder(join);
+        limit    = limitFinder.limit;
+        offset   = limitFinder.offset;
+        distinct = new DistinctFinder(join).distinct;
+
+        if(distinct) {
+            key.append("DISTINCT ");
+        }
+
+        for(StatementPattern p : patterns) {
+            Resource[] contexts = getContexts(p, dataset);
+            if(contexts == null) {
+                // the pattern cannot match anything in the dataset
+                empty = true;
+                return;
+            }
+
+            Var[] fields = new Var[] {
+                    p.getSubjectVar(),
+                    p.getPredicateVar(),
+                    p.getObjectVar(),
+                    p.getContextVar()
+            };
+            int[] fieldParameters = new int[fields.length];
+            key.append("P(");
+            for(int i = 0; i<fields.length; i++) {
+                fieldParameters[i] = -1;
+                if(fields[i] == null) {
+                    key.append("_ ");
+                } else if(fields[i].hasValue()) {
+                    long nodeId = getNodeId(valueFactory.convert(fields[i].getValue()), "the values in this query have not been created by the KiWi value factory");
+                    if(nodeId >= 0) {
+                        fieldParameters[i] = addParameter(nodeId);
+                        key.append("? ");
+                    } else {
+                        key.append("- ");
+                    }
+                } else {
+                    if(!variables.contains(fields[i])) {
+                        variables.add(fields[i]);
+                    }
+                    key.append("v").append(variables.indexOf(fields[i])).append(" ");
+                }
+            }
+            patternParameters.put(p, fieldParameters);
+
+            if(contexts.length > 0) {
+                List<Integer> cParameters = new ArrayList<>(contexts.length);
+                for(Resource context : contexts) {
+                    cParameters.add(addParameter(getNodeId(valueFactory.convert(context), "the values in this query have not been created by the KiWi value factory")));
+                }
+                contextParameters.put(p, cParameters);
+                key.append("C").append(contexts.length);
+            }
+            key.append(")");
+        }
+
+        if(bindings != null) {
+            for(int i=0; i<variables.size(); i++) {
+                Var v = variables.get(i);
+                if(v.getName() != null && bindings.hasBinding(v.getName())) {
+                    bindingParameters.put(v, addParameter(getNodeId(valueFactory.convert(bindings.getValue(v.getName())), "the values in this binding have not been created by the KiWi value factory")));
+                    key.append(" B").append(i);
+                }
+            }
+        }
+
+        for(ValueExpr filter : filters) {
+            key.append(" F");
+            filter.visit(new FilterShapeBuilder());
+        }
+
+        if(limit > 0) {
+            limitParameter = addParameter(limit);
+            key.append(" LIMIT");
+        }
+        if(offset >= 0) {
+            offsetParameter = addParameter(offset);
+            key.append(" OFFSET");
+        }
+    }
+
+    /**
+     * Determine the contexts a pattern is restricted to (MARMOTTA-340); an empty array means no restriction, null
+     * means the pattern cannot match anything in the dataset.
+     */
+    private static Resource[] getContexts(StatementPattern p, Dataset dataset) {
+        Value contextValue = p.getContextVar() != null ? p.getContextVar().getValue() : null;
+
+        Set<URI> graphs = null;
+        boolean emptyGraph = false;
+
+        if (dataset != null) {
+            if (p.getScope() == StatementPattern.Scope.DEFAULT_CONTEXTS) {
+                graphs = dataset.getDefaultGraphs();
+                emptyGraph = graphs.isEmpty() && !dataset.getNamedGraphs().isEmpty();
+            }
+            else {
+                graphs = dataset.getNamedGraphs();
+                emptyGraph = graphs.isEmpty() && !dataset.getDefaultGraphs().isEmpty();
+            }
+        }
+
+        if (emptyGraph) {
+            // Search zero contexts
+            return null;
+        } else if (graphs == null || graphs.isEmpty()) {
+            if (contextValue != null) {
+                return new Resource[] { (Resource)contextValue };
+            } else {
+                return new Resource[0];
+            }
+        } else if (contextValue != null) {
+            if (graphs.contains(contextValue)) {
+                return new Resource[] { (Resource)contextValue };
+            } else {
+                // Statement pattern specifies a context that is not part of
+                // the dataset
+                return null;
+            }
+        } else {
+            Resource[] contexts = new Resource[graphs.size()];
+            int i = 0;
+            for (URI graph : graphs) {
+                URI context = null;
+                if (!SESAME.NIL.equals(graph)) {
+                    context = graph;
+                }
+                contexts[i++] = context;
+            }
+            return contexts;
+        }
+    }
+
+    private static long getNodeId(Value v, String message) {
+        if(v instanceof KiWiNode) {
+            return ((KiWiNode) v).getId();
+        } else {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private int addParameter(Object value) {
+        parameters.add(value);
+        return parameters.size() - 1;
+    }
+
+    /**
+     * Convert a constant compared in a filter into a query parameter of the given operand type; returns null in case
+     * the constant cannot be passed as parameter and needs to be inlined in the query.
+     */
+    private static Object toParameter(ValueConstant constant, OPTypes type) {
+        switch (type) {
+            case STRING: return constant.getValue().stringValue();
+            case INT:
+            case DOUBLE:
+            case DATE:   return convertConstant(constant.getValue().stringValue(), type);
+            default:     return null;
+        }
+    }
+
+    /**
+     * Convert the lexical value of a constant into the representation used for the given numeric or date operand
+     * type (Long or BigDecimal for INT, Double for DOUBLE, Timestamp for DATE). Returns null in case the value is not
+     * valid for the type; comparing with such a value is a type error in SPARQL and cannot match anything.
+     */
+    static Object convertConstant(String val, OPTypes type) {
+        try {
+            switch (type) {
+                case INT:
+                    try {
+                        return Long.parseLong(val);
+                    } catch (NumberFormatException ex) {
+                        // out of the range of a long or not in canonical form (e.g. "+1.0")
+                        return new BigDecimal(val);
+                    }
+                case DOUBLE:
+                    return Double.parseDouble(val);
+                case DATE:
+                    Date date = DateUtils.parseDate(val);
+                    return date != null ? new Timestamp(date.getTime()) : null;
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * True in case the expression cannot return any results (e.g. because it accesses a graph that is not part of
+     * the dataset); in this case the shape is incomplete.
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    String getKey() {
+        return key.toString();
+    }
+
+    List<StatementPattern> getPatterns() {
+        return patterns;
+    }
+
+    List<ValueExpr> getFilters() {
+        return filters;
+    }
+
+    List<Var> getVariables() {
+        return variables;
+    }
+
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    boolean isDistinct() {
+        return distinct;
+    }
+
+    /**
+     * Return the parameter index of the field at the given position (subject, predicate, object, context) of a
+     * pattern, or -1 in case the field is not restricted.
+     */
+    int getPatternParameter(StatementPattern p, int position) {
+        return patternParameters.get(p)[position];
+    }
+
+    List<Integer> getContextParameters(StatementPattern p) {
+        return contextParameters.get(p);
+    }
+
+    /**
+     * Return the parameter index of the initial binding of the given variable, or -1 if it is not bound.
+     */
+    int getBindingParameter(Var v) {
+        Integer idx = bindingParameters.get(v);
+        return idx != null ? idx : -1;
+    }
+
+    /**
+     * Return the parameter index of the given filter constant, or -1 in case it is inlined in the query.
+     */
+    int getConstantParameter(ValueConstant constant) {
+        Integer idx = constantParameters.get(constant);
+        return idx != null ? idx : -1;
+    }
+
+    int getLimitParameter() {
+        return limitParameter;
+    }
+
+    int getOffsetParameter() {
+        return offsetParameter;
+    }
+
+    /**
+     * Serialize a filter condition into the shape key, replacing variables by their index and compared constants by
+     * parameters.
+     */
+    private class FilterShapeBuilder extends QueryModelVisitorBase<RuntimeException> {
+
+        @Override
+        protected void meetNode(QueryModelNode node) throws RuntimeException {
+            key.append("(").append(node.getClass().getSimpleName());
+            super.meetNode(node);
+            key.append(")");
+        }
+
+        @Override
+        public void meet(Compare node) throws RuntimeException {
+            OPTypes ot = new OPTypeFinder(node).coerce();
+
+            key.append("(Compare ").append(node.getOperator()).append(" ").append(ot);
+            for(ValueExpr arg : new ValueExpr[] { node.getLeftArg(), node.getRightArg() }) {
+                Object value = null;
+                if(arg instanceof ValueConstant) {
+                    value = toParameter((ValueConstant) arg, ot);
+                }
+                if(value != null) {
+                    constantParameters.put((ValueConstant) arg, addParameter(value));
+                    key.append("(?)");
+                } else {
+                    arg.visit(this);
+                }
+            }
+            key.append(")");
+        }
+
+        @Override
+        public void meet(MathExpr node) throws RuntimeException {
+            key.append("(MathExpr ").append(node.getOperator());
+            super.meetNode(node);
+            key.append(")");
+        }
+
+        @Override
+        public void meet(FunctionCall node) throws RuntimeException {
+            key.append("(FunctionCall ").append(node.getURI());
+            super.meetNode(node);
+            key.append(")");
+        }
+
+        @Override
+        public void meet(Var node) throws RuntimeException {
+            if(node.hasValue()) {
+                key.append("(Var ").append(node.getValue()).append(")");
+            } else if(variables.contains(node)) {
+                key.append("(v").append(variables.indexOf(node)).append(")");
+            } else {
+                // variable not bound by any pattern; the name is the only thing distinguishing it
+                key.append("(u ").append(node.getName()).append(")");
+            }
+        }
+
+        @Override
+        public void meet(ValueConstant node) throws RuntimeException {
+            key.append("(ValueConstant ").append(node.getValue()).append(")");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.sparql.persistence;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * A parameterized SQL query translated from a {@link QueryShape}. The template stores for each "?" in the query
+ * string the index of the corresponding parameter in the shape, so it can be bound to the constants of any
+ * tuple expression with the same shape. The result columns are named V1 ... Vn after the variables of the shape.
+ */
+class SQLTemplate {
+
+    private final String sql;
+
+    private final int[] parameterIndexes;
+
+    SQLTemplate(String sql, List<Integer> parameterIndexes) {
+        this.sql = sql;
+        this.parameterIndexes = new int[parameterIndexes.size()];
+        for(int i=0; i<this.parameterIndexes.length; i++) {
+            this.parameterIndexes[i] = parameterIndexes.get(i);
+        }
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Bind the parameters of the given shape to the statement prepared for this template.
+     */
+    void bind(PreparedStatement statement, QueryShape shape) throws SQLException {
+        List<Object> parameters = shape.getParameters();
+        for(int i=0; i<parameterIndexes.length; i++) {
+            Object value = parameters.get(parameterIndexes[i]);
+            if(value instanceof Long) {
+                statement.setLong(i+1, (Long) value);
+            } else if(value instanceof Integer) {
+                statement.setInt(i+1, (Integer) value);
+            } else if(value instanceof Double) {
+                statement.setDouble(i+1, (Double) value);
+            } else if(value instanceof BigDecimal) {
+                statement.setBigDecimal(i+1, (BigDecimal) value);
+            } else if(value instanceof Timestamp) {
+                statement.setTimestamp(i+1, (Timestamp) value);
+            } else {
+                statement.setString(i+1, value.toString());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
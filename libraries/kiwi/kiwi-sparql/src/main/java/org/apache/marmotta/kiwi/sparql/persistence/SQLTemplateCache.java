@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.sparql.persistence;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A cache for the SQL translations of SPARQL query fragments, keyed by the normalized shape of the fragment. The
+ * cache is shared by all connections of a KiWi SPARQL sail, so repeated queries that only differ in their constants
+ * (e.g. the resource they are asked for) skip the translation into SQL.
+ */
+public class SQLTemplateCache {
+
+    public static final int DEFAULT_SIZE = 1000;
+
+    private final Cache<String,SQLTemplate> templates;
+
+    public SQLTemplateCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    public SQLTemplateCache(int maximumSize) {
+        templates = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    SQLTemplate get(String key) {
+        return templates.getIfPresent(key);
+    }
+
+    void put(String key, SQLTemplate template) {
+        templates.put(key, template);
+    }
+
+    /**
+     * Number of templates currently cached
+     */
+    public long size() {
+        return templates.size();
+    }
+
+    /**
+     * Hit and miss statistics of the cache
+     */
+    public CacheStats getStats() {
+        return templates.stats();
+    }
+
+    /**
+     * Remove all templates from the cache
+     */
+    public void clear() {
+        templates.invalidateAll();
+    }
+}
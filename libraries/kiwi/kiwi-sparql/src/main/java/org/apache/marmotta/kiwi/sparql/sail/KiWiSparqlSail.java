@@ -25,6 +25,7 @@ import org.apache.marmotta.kiwi.persistence.util.ScriptRunner;
 import org.apache.marmotta.kiwi.sail.KiWiSailConnection;
 import org.apache.marmotta.kiwi.sail.KiWiStore;
 import org.apache.marmotta.kiwi.sparql.persistence.KiWiSparqlConnection;
+import org.apache.marmotta.kiwi.sparql.persistence.SQLTemplateCache;
 import org.openrdf.sail.*;
 import org.openrdf.sail.helpers.NotifyingSailWrapper;
 import org.openrdf.sail.helpers.SailConnectionWrapper;
@@ -50,6 +51,11 @@ public class KiWiSparqlSail extends NotifyingSailWrapper {
 
     private KiWiStore parent;
 
+    /**
+     * SQL translations of SPARQL query fragments, shared by all connections of this sail
+     */
+    private SQLTemplateCache templateCache = new SQLTemplateCache();
+
     public KiWiSparqlSail(NotifyingSail baseSail) {
         super(baseSail);
 
@@ -70,6 +76,13 @@ public class KiWiSparqlSail extends NotifyingSailWrapper {
         indexer.start();
     }
 
+    /**
+     * Return the cache of SQL translations of SPARQL query fragments used by this sail.
+     */
+    public SQLTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
     /**
      * Get the root sail in the wrapped sail stack
      * @param sail
@@ -202,7 +215,7 @@ public class KiWiSparqlSail extends NotifyingSailWrapper {
         KiWiSailConnection root   = getRootConnection(connection);
 
         try {
-            return new KiWiSparqlSailConnection(connection, new KiWiSparqlConnection(root.getDatabaseConnection(), root.getValueFactory()), root.getValueFactory());
+            return new KiWiSparqlSailConnection(connection, new KiWiSparqlConnection(root.getDatabaseConnection(), root.getValueFactory(), templateCache), root.getValueFactory());
         } catch (SQLException e) {
             throw new SailException(e);
         }
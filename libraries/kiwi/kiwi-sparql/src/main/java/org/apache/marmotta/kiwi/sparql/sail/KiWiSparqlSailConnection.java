@@ -78,7 +78,7 @@ public class KiWiSparqlSailConnection extends NotifyingSailConnectionWrapper {
             new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, bindings);
             new SameTermFilterOptimizer().optimize(tupleExpr, dataset, bindings);
             new QueryModelNormalizer().optimize(tupleExpr, dataset, bindings);
-            new QueryJoinOptimizer(new KiWiEvaluationStatistics()).optimize(tupleExpr, dataset, bindings);
+            new QueryJoinOptimizer(new KiWiEvaluationStatistics(connection.getTripleIndexes())).optimize(tupleExpr, dataset, bindings);
             new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
             new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
             new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
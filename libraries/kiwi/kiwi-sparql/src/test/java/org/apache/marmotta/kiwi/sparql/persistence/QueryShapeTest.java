@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.sparql.persistence;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openrdf.query.algebra.TupleExpr;
+import org.openrdf.query.parser.sparql.SPARQLParser;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * Test the shape keys and parameter conversions of the QueryShape used for caching SQL translations.
+ */
+public class QueryShapeTest {
+
+    @Test
+    public void testSameShape() throws Exception {
+        Assert.assertEquals(
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?o > 10) }"),
+                key("SELECT * WHERE { ?x ?y ?z . FILTER(?z > 20) }"));
+    }
+
+    @Test
+    public void testDifferentVariables() throws Exception {
+        Assert.assertNotEquals(
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?s = ?o) }"),
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?s = ?p) }"));
+    }
+
+    /**
+     * Variables that are not bound by any pattern must not collapse into the same key
+     */
+    @Test
+    public void testUnboundFilterVariables() throws Exception {
+        Assert.assertNotEquals(
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?a = ?b) }"),
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?a = ?o) }"));
+        Assert.assertNotEquals(
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?a = ?b) }"),
+                key("SELECT * WHERE { ?s ?p ?o . FILTER(?a = ?a) }"));
+    }
+
+    @Test
+    public void testConvertInteger() {
+        Assert.assertEquals(42L, QueryShape.convertConstant("42", OPTypes.INT));
+        Assert.assertEquals(3000000000L, QueryShape.convertConstant("3000000000", OPTypes.INT));
+        Assert.assertEquals(new BigDecimal("123456789012345678901234567890"), QueryShape.convertConstant("123456789012345678901234567890", OPTypes.INT));
+        Assert.assertNull(QueryShape.convertConstant("forty-two", OPTypes.INT));
+    }
+
+    @Test
+    public void testConvertDouble() {
+        Assert.assertEquals(2.5, QueryShape.convertConstant("2.5", OPTypes.DOUBLE));
+        Assert.assertNull(QueryShape.convertConstant("two and a half", OPTypes.DOUBLE));
+    }
+
+    @Test
+    public void testConvertDate() {
+        Assert.assertTrue(QueryShape.convertConstant("2014-02-20T10:00:00Z", OPTypes.DATE) instanceof Timestamp);
+        Assert.assertNull(QueryShape.convertConstant("yesterday", OPTypes.DATE));
+    }
+
+    private static String key(String query) throws Exception {
+        TupleExpr expr = new SPARQLParser().parseQuery(query, "http://localhost/").getTupleExpr();
+        return new QueryShape(expr, null, null, null).getKey();
+    }
+}
@@ -331,9 +331,82 @@ public class KiWiSparqlJoinTest {
     }
 
 
+    // repeated queries that only differ in their constants reuse the same SQL translation
+    @Test
+    public void testParameterizedQueries() throws Exception {
+        String filterQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?p1 ?fn ?age WHERE { ?p1 foaf:name ?fn . ?p1 foaf:age ?age . FILTER( ?age > %d ) }";
+        String resourceQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?fn ?age WHERE { <http://localhost:8080/LMF/resource/%s> foaf:name ?fn . <http://localhost:8080/LMF/resource/%<s> foaf:age ?age }";
+
+        testQueryString(String.format(filterQuery, 30));
+        testQueryString(String.format(resourceQuery, "hans_meier"));
+
+        long templates = ssail.getTemplateCache().size();
+        Assert.assertTrue(templates > 0);
+
+        testQueryString(String.format(filterQuery, 20));
+        testQueryString(String.format(filterQuery, 25));
+        testQueryString(String.format(resourceQuery, "sepp_huber"));
+
+        Assert.assertEquals(templates, ssail.getTemplateCache().size());
+    }
+
+    // queries with different shapes and constants are interleaved on the same connection, so cached templates and
+    // prepared statements are reused with new parameters; results must still match the reference repository
+    @Test
+    public void testParameterizedQueryResults() throws Exception {
+        String filterQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?p1 ?age WHERE { ?p1 foaf:age ?age . FILTER( ?age > %s ) }";
+        String rangeQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?p1 ?fn WHERE { ?p1 foaf:name ?fn . ?p1 foaf:age ?age . FILTER( ?age >= %s && ?age < %s ) }";
+        String resourceQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?fn WHERE { <http://localhost:8080/LMF/resource/%s> foaf:name ?fn }";
+        String limitQuery = "PREFIX foaf: <http://xmlns.com/foaf/0.1/> SELECT ?p1 ?fn WHERE { ?p1 foaf:name ?fn } ORDER BY ?fn LIMIT %d";
+
+        RepositoryConnection con1 = repository.getConnection();
+        RepositoryConnection con2 = reference.getConnection();
+        try {
+            for(int round = 0; round < 2; round++) {
+                compareQueryString(con1, con2, String.format(filterQuery, "30"));
+                compareQueryString(con1, con2, String.format(resourceQuery, "hans_meier"));
+                compareQueryString(con1, con2, String.format(rangeQuery, "20", "30"));
+                compareQueryString(con1, con2, String.format(filterQuery, "0"));
+                compareQueryString(con1, con2, String.format(limitQuery, 1));
+                compareQueryString(con1, con2, String.format(resourceQuery, "sepp_huber"));
+                compareQueryString(con1, con2, String.format(filterQuery, "100"));
+                compareQueryString(con1, con2, String.format(rangeQuery, "30", "100"));
+                compareQueryString(con1, con2, String.format(limitQuery, 3));
+                compareQueryString(con1, con2, String.format(resourceQuery, "anna_schmidt"));
+                compareQueryString(con1, con2, String.format(resourceQuery, "nobody"));
+                // constants outside of the range of an int or a long
+                compareQueryString(con1, con2, String.format(filterQuery, "3000000000"));
+                compareQueryString(con1, con2, String.format(filterQuery, "-123456789012345678901234567890"));
+                compareQueryString(con1, con2, String.format(rangeQuery, "-3000000000", "123456789012345678901234567890"));
+            }
+        } finally {
+            con1.close();
+            con2.close();
+        }
+    }
+
+    // compare the results of a query on both repositories, including empty results
+    private void compareQueryString(RepositoryConnection con1, RepositoryConnection con2, String queryString) throws Exception {
+        con2.begin();
+        List<BindingSet> result2 = Iterations.asList(con2.prepareTupleQuery(QueryLanguage.SPARQL, queryString).evaluate());
+        con2.commit();
+
+        con1.begin();
+        List<BindingSet> result1 = Iterations.asList(con1.prepareTupleQuery(QueryLanguage.SPARQL, queryString).evaluate());
+        con1.commit();
+
+        Assert.assertEquals(queryString, result2.size(), result1.size());
+        Assert.assertTrue(queryString, CollectionUtils.isEqualCollection(
+                Lists.transform(result1, new BindingSetPairFunction()),
+                Lists.transform(result2, new BindingSetPairFunction())));
+    }
+
+
     private void testQuery(String filename) throws Exception {
-        String queryString = IOUtils.toString(this.getClass().getResourceAsStream(filename), "UTF-8");
+        testQueryString(IOUtils.toString(this.getClass().getResourceAsStream(filename), "UTF-8"));
+    }
 
+    private void testQueryString(String queryString) throws Exception {
         RepositoryConnection con1 = repository.getConnection();
         RepositoryConnection con2 = reference.getConnection();
         try {
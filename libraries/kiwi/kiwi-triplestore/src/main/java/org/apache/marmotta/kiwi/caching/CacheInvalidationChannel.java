@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.caching;
+
+/**
+ * A channel for sending cache invalidation messages to the other members of a cache cluster. Used by the
+ * {@link NearCacheManager} to keep the local caches of the cluster members consistent with the shared cache.
+ * Messages are only delivered to the other members, never to the member sending them.
+ */
+public interface CacheInvalidationChannel {
+
+    /**
+     * Notify the other cluster members that the entry with the given key in the cache with the given name has been
+     * changed or removed. A null key means that the whole cache has been cleared.
+     *
+     * @param cacheName name of the cache (see {@link CacheManager})
+     * @param key       key of the changed entry, or null for all entries
+     */
+    public void publish(String cacheName, Object key);
+
+    /**
+     * Register the listener that is notified about invalidation messages sent by other cluster members.
+     */
+    public void setListener(Listener listener);
+
+    /**
+     * Stop receiving invalidation messages and release the resources of the channel.
+     */
+    public void close();
+
+
+    public static interface Listener {
+
+        /**
+         * Called when another cluster member changed or removed the entry with the given key in the cache with the
+         * given name. A null key means that the whole cache has been cleared.
+         */
+        public void invalidate(String cacheName, Object key);
+    }
+}
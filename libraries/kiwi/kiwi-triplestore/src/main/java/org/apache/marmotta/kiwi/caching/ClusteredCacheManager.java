@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.caching;
+
+/**
+ * A cache manager for a caching backend that shares its caches among the members of a cluster. Such backends can
+ * be combined with local near caches (see {@link NearCacheManager}) and provide the channel used for invalidating
+ * them.
+ */
+public interface ClusteredCacheManager extends CacheManager {
+
+    /**
+     * Return the channel for sending invalidation messages to the other cluster members, or null in case the
+     * caches are not shared with other members (e.g. because the backend runs in local mode).
+     *
+     * @return
+     */
+    public CacheInvalidationChannel getInvalidationChannel();
+
+}
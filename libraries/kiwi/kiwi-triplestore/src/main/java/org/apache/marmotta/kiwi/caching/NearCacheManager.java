@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.caching;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.model.rdf.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache manager adding a bounded local near cache in front of the caches of a clustered caching backend (e.g.
+ * Hazelcast or Infinispan in distributed mode). With a distributed cache, most lookups are a network call that
+ * needs to deserialize the cached object; the near cache serves frequently used entries from the local heap, while
+ * the clustered backend keeps the view shared by all cluster members.
+ * <p/>
+ * Changes and removals are announced to the other cluster members using the invalidation channel of the backend,
+ * which then drop their local copies. The size of the near cache is configured per cache name (see
+ * {@link KiWiConfiguration#setNearCacheSize(String, int)}); caches without a configured size and the registry cache,
+ * which requires synchronous cluster-wide semantics, are passed through unchanged.
+ */
+public class NearCacheManager implements CacheManager, CacheInvalidationChannel.Listener {
+
+    private static Logger log = LoggerFactory.getLogger(NearCacheManager.class);
+
+    // caches whose values never change once written for a key, so only removals need to be announced
+    private static final Set<String> IMMUTABLE_CACHES = ImmutableSet.of(NODE_CACHE, URI_CACHE, BNODE_CACHE, LITERAL_CACHE);
+
+    private final CacheManager delegate;
+
+    private final CacheInvalidationChannel channel;
+
+    private final KiWiConfiguration configuration;
+
+    // all near caches created so far, for dispatching invalidation messages
+    private final ConcurrentMap<String,NearCacheMap<?,?>> nearCaches;
+
+    private Map<Long,KiWiNode> nodeCache;
+    private Map<Long,KiWiTriple> tripleCache;
+    private Map<String,KiWiUriResource> uriCache;
+    private Map<String,KiWiAnonResource> bnodeCache;
+    private Map<String,KiWiLiteral> literalCache;
+    private Map<String,KiWiNamespace> nsUriCache, nsPrefixCache;
+
+    private final Map<String,Map<Object,Object>> dynamicCaches;
+
+
+    public NearCacheManager(CacheManager delegate, CacheInvalidationChannel channel, KiWiConfiguration configuration) {
+        this.delegate      = delegate;
+        this.channel       = channel;
+        this.configuration = configuration;
+        this.nearCaches    = new ConcurrentHashMap<>();
+        this.dynamicCaches = new HashMap<>();
+
+        channel.setListener(this);
+
+        log.info("initialised near caches for clustered caching backend {}", configuration.getCachingBackend());
+    }
+
+    /**
+     * Wrap the shared cache with the given name in a near cache, in case a near cache size is configured for it.
+     */
+    private <K,V> Map<K,V> createNearCache(String name, Map<K,V> shared) {
+        int size = configuration.getNearCacheSize(name);
+        if(size <= 0 || REGISTRY_CACHE.equals(name)) {
+            return shared;
+        }
+
+        NearCacheMap<K,V> nearCache = new NearCacheMap<>(name, shared, size, configuration.getNearCacheExpiry(), !IMMUTABLE_CACHES.contains(name), channel);
+        nearCaches.put(name, nearCache);
+
+        log.debug("near cache for {} initialised (size: {})", name, size);
+
+        return nearCache;
+    }
+
+    /**
+     * Called by the invalidation channel when another cluster member changed or removed an entry of a shared cache.
+     */
+    @Override
+    public void invalidate(String cacheName, Object key) {
+        NearCacheMap<?,?> nearCache = nearCaches.get(cacheName);
+        if(nearCache != null) {
+            nearCache.invalidateLocal(key);
+        }
+    }
+
+    /**
+     * Return the hit and miss statistics of the near cache with the given name, or null in case the cache has no
+     * near cache.
+     */
+    public CacheStats getNearCacheStats(String cacheName) {
+        NearCacheMap<?,?> nearCache = nearCaches.get(cacheName);
+        return nearCache != null ? nearCache.getLocalStats() : null;
+    }
+
+    /**
+     * Return the cache manager of the clustered caching backend
+     */
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Return the node id -> node cache from the cache manager. This cache is heavily used to lookup
+     * nodes when querying or loading triples and should therefore have a decent size (default 500.000 elements).
+     *
+     * @return an EHCache Cache instance containing the node id -> node mappings
+     */
+    @Override
+    public synchronized Map<Long, KiWiNode> getNodeCache() {
+        if(nodeCache == null) {
+            nodeCache = createNearCache(NODE_CACHE, delegate.getNodeCache());
+        }
+        return nodeCache;
+    }
+
+    /**
+     * Return the triple id -> triple cache from the cache manager. This cache is used for speeding up the
+     * construction of query results.
+     *
+     * @return
+     */
+    @Override
+    public synchronized Map<Long, KiWiTriple> getTripleCache() {
+        if(tripleCache == null) {
+            tripleCache = createNearCache(TRIPLE_CACHE, delegate.getTripleCache());
+        }
+        return tripleCache;
+    }
+
+    /**
+     * Return the uri -> KiWiUriResource cache from the cache manager. This cache is used when constructing new
+     * KiWiUriResources to avoid a database lookup.
+     *
+     * @return
+     */
+    @Override
+    public synchronized Map<String, KiWiUriResource> getUriCache() {
+        if(uriCache == null) {
+            uriCache = createNearCache(URI_CACHE, delegate.getUriCache());
+        }
+        return uriCache;
+    }
+
+    /**
+     * Return the anonId -> KiWiAnonResource cache from the cache manager. This cache is used when constructing new
+     * KiWiAnonResources to avoid a database lookup.
+     *
+     * @return
+     */
+    @Override
+    public synchronized Map<String, KiWiAnonResource> getBNodeCache() {
+        if(bnodeCache == null) {
+            bnodeCache = createNearCache(BNODE_CACHE, delegate.getBNodeCache());
+        }
+        return bnodeCache;
+    }
+
+    /**
+     * Return the literal cache key -> KiWiLiteral cache from the cache manager. This cache is used when constructing new
+     * KiWiLiterals to avoid a database lookup.
+     *
+     * @return
+     * @see org.apache.marmotta.commons.sesame.model.LiteralCommons#createCacheKey(String, java.util.Locale, String)
+     */
+    @Override
+    public synchronized Map<String, KiWiLiteral> getLiteralCache() {
+        if(literalCache == null) {
+            literalCache = createNearCache(LITERAL_CACHE, delegate.getLiteralCache());
+        }
+        return literalCache;
+    }
+
+    /**
+     * Return the URI -> namespace cache from the cache manager. Used for looking up namespaces
+     *
+     * @return
+     */
+    @Override
+    public synchronized Map<String, KiWiNamespace> getNamespaceUriCache() {
+        if(nsUriCache == null) {
+            nsUriCache = createNearCache(NS_URI_CACHE, delegate.getNamespaceUriCache());
+        }
+        return nsUriCache;
+    }
+
+    /**
+     * Return the prefix -> namespace cache from the cache manager. Used for looking up namespaces
+     *
+     * @return
+     */
+    @Override
+    public synchronized Map<String, KiWiNamespace> getNamespacePrefixCache() {
+        if(nsPrefixCache == null) {
+            nsPrefixCache = createNearCache(NS_PREFIX_CACHE, delegate.getNamespacePrefixCache());
+        }
+        return nsPrefixCache;
+    }
+
+    /**
+     * Create and return the cache used by the CacheTripleRegistry. This is an unlimited synchronous replicated
+     * cache and should be used with care. It is never combined with a near cache.
+     *
+     * @return
+     */
+    @Override
+    public Map<Long, Long> getRegistryCache() {
+        return delegate.getRegistryCache();
+    }
+
+    /**
+     * Get the cache with the given name from the cache manager. Can be used to request additional
+     * caches from the cache manager that are not covered by explicit methods.
+     *
+     * @param name
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked") // the cache manager API returns untyped maps for named caches
+    public synchronized Map<Object,Object> getCacheByName(String name) {
+        Map<?,?> standard = getStandardCache(name);
+        if(standard != null) {
+            // share the near cache with the explicit accessor, so that both see the same local entries
+            return (Map<Object,Object>) standard;
+        }
+
+        Map<Object,Object> cache = dynamicCaches.get(name);
+        if(cache == null) {
+            cache = createNearCache(name, (Map<Object,Object>) delegate.getCacheByName(name));
+            dynamicCaches.put(name, cache);
+        }
+        return cache;
+    }
+
+    private Map<?,?> getStandardCache(String name) {
+        switch (name) {
+            case NODE_CACHE:      return getNodeCache();
+            case TRIPLE_CACHE:    return getTripleCache();
+            case URI_CACHE:       return getUriCache();
+            case BNODE_CACHE:     return getBNodeCache();
+            case LITERAL_CACHE:   return getLiteralCache();
+            case NS_URI_CACHE:    return getNamespaceUriCache();
+            case NS_PREFIX_CACHE: return getNamespacePrefixCache();
+            case REGISTRY_CACHE:  return getRegistryCache();
+            default:              return null;
+        }
+    }
+
+    /**
+     * Clear all caches managed by this cache manager, including the near caches of the other cluster members.
+     */
+    @Override
+    public void clear() {
+        delegate.clear();
+
+        for(Map.Entry<String,NearCacheMap<?,?>> entry : nearCaches.entrySet()) {
+            entry.getValue().invalidateLocal(null);
+            channel.publish(entry.getKey(), null);
+        }
+    }
+
+    /**
+     * Shutdown this cache manager instance. Will close the invalidation channel and shutdown the cache manager of
+     * the clustered backend.
+     */
+    @Override
+    public void shutdown() {
+        channel.close();
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.caching;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A map combining a bounded local (level 1) cache with a shared cluster (level 2) cache. Lookups are first answered
+ * from the local cache and only go to the shared cache on a miss; writes go to both caches and are announced to the
+ * other cluster members through the invalidation channel so they can drop their local copies.
+ * <p/>
+ * Caches mapping a key to a value that never changes once written (e.g. URI -> KiWiUriResource) do not need to
+ * announce puts, only removals. Local entries expire after a fixed time, which bounds the staleness in case an
+ * invalidation message overtakes an asynchronous write to the shared cache.
+ */
+class NearCacheMap<K,V> implements Map<K,V> {
+
+    private final String name;
+
+    private final Map<K,V> shared;
+
+    // keyed by Object, since lookups through the Map interface are not typed
+    private final Cache<Object,V> local;
+
+    private final CacheInvalidationChannel channel;
+
+    private final boolean invalidateOnPut;
+
+    NearCacheMap(String name, Map<K, V> shared, int size, int expiry, boolean invalidateOnPut, CacheInvalidationChannel channel) {
+        this.name = name;
+        this.shared = shared;
+        this.channel = channel;
+        this.invalidateOnPut = invalidateOnPut;
+
+        this.local = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(expiry, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Drop the local copy of the entry with the given key (or all local entries in case the key is null), called
+     * when another cluster member changed the shared cache.
+     */
+    void invalidateLocal(Object key) {
+        if(key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * Hit and miss statistics of the local cache
+     */
+    CacheStats getLocalStats() {
+        return local.stats();
+    }
+
+    @Override
+    public V get(Object key) {
+        V value = local.getIfPresent(key);
+        if(value == null) {
+            value = shared.get(key);
+            if(value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return local.getIfPresent(key) != null || shared.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V result = shared.put(key, value);
+        local.put(key, value);
+        if(invalidateOnPut) {
+            channel.publish(name, key);
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        for(Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        V result = shared.remove(key);
+        local.invalidate(key);
+        channel.publish(name, key);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        shared.clear();
+        local.invalidateAll();
+        channel.publish(name, null);
+    }
+
+    @Override
+    public int size() {
+        return shared.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return shared.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return shared.containsValue(value);
+    }
+
+    // the collection views are read-only, since changes through them could not be announced to the cluster
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(shared.keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(shared.values());
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableSet(shared.entrySet());
+    }
+}
@@ -20,7 +20,11 @@ package org.apache.marmotta.kiwi.config;
 import org.apache.marmotta.kiwi.persistence.KiWiDialect;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An object to hold a KiWi persistence configuration. The configuration consists of:
@@ -87,6 +91,12 @@ public class KiWiConfiguration {
      */
     private int cursorSize = 1000;
 
+    /**
+     * Maximum time (in milliseconds) the garbage collection of deleted triples waits for components that have
+     * suspended it (e.g. the versioning write-behind journal) before skipping the collection.
+     */
+    private long maxTripleCollectionDelay = 60000;
+
     private boolean fulltextEnabled     = false;
     private String[] fulltextLanguages;
 
@@ -109,11 +119,27 @@ public class KiWiConfiguration {
 
     private int namespaceCacheSize = 500;
 
+    /**
+     * Maximum sizes of the local near caches in front of the clustered caches, by cache name. Caches without a size
+     * do not use a near cache.
+     */
+    private Map<String,Integer> nearCacheSizes = new HashMap<>();
+
+    /**
+     * Time in seconds after which entries of the near caches expire.
+     */
+    private int nearCacheExpiry = 60;
+
     private int datacenterId = 0;
 
 
     private RegistryStrategy registryStrategy = RegistryStrategy.LOCAL;
 
+    /**
+     * Additional indexes on the triples table, created when the database is initialised.
+     */
+    private Set<TripleIndex> tripleIndexes = EnumSet.noneOf(TripleIndex.class);
+
 
     private CacheMode cacheMode = CacheMode.REPLICATED;
 
@@ -408,6 +434,57 @@ public class KiWiConfiguration {
         this.namespaceCacheSize = namespaceCacheSize;
     }
 
+    /**
+     * The maximum size of the local near cache in front of the clustered cache with the given name (see
+     * {@link org.apache.marmotta.kiwi.caching.CacheManager} for the cache names). A value of 0 (the default) means
+     * that the cache does not use a near cache.
+     * <p/>
+     * Only used in case isClustered() is true and the caching backend supports invalidation of near caches.
+     */
+    public int getNearCacheSize(String cacheName) {
+        Integer size = nearCacheSizes.get(cacheName);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * Change the maximum size of the local near cache in front of the clustered cache with the given name (see
+     * {@link org.apache.marmotta.kiwi.caching.CacheManager} for the cache names). A value of 0 turns off the near
+     * cache.
+     * <p/>
+     * Only used in case isClustered() is true and the caching backend supports invalidation of near caches.
+     */
+    public void setNearCacheSize(String cacheName, int size) {
+        if(size > 0) {
+            nearCacheSizes.put(cacheName, size);
+        } else {
+            nearCacheSizes.remove(cacheName);
+        }
+    }
+
+    /**
+     * Return true in case a near cache is configured for at least one cache.
+     */
+    public boolean isNearCacheEnabled() {
+        return !nearCacheSizes.isEmpty();
+    }
+
+    /**
+     * Time in seconds after which entries of the near caches expire, even if they have not been invalidated by
+     * another cluster member (default: 60). Bounds the time a cluster member may see outdated entries, e.g. in case
+     * an invalidation message overtakes an asynchronous update of the clustered cache.
+     */
+    public int getNearCacheExpiry() {
+        return nearCacheExpiry;
+    }
+
+    /**
+     * Time in seconds after which entries of the near caches expire, even if they have not been invalidated by
+     * another cluster member (default: 60).
+     */
+    public void setNearCacheExpiry(int nearCacheExpiry) {
+        this.nearCacheExpiry = nearCacheExpiry;
+    }
+
     /**
      * The datacenter ID of this server for generating unique database IDs. If not given, a random value will
      * be generated.
@@ -443,6 +520,25 @@ public class KiWiConfiguration {
         this.registryStrategy = registryStrategy;
     }
 
+    /**
+     * Return the additional indexes on the triples table (see {@link TripleIndex}) that are created when the database
+     * is initialised. Empty by default.
+     *
+     * @return
+     */
+    public Set<TripleIndex> getTripleIndexes() {
+        return tripleIndexes;
+    }
+
+    /**
+     * Change the additional indexes on the triples table. Indexes are created when the database is initialised;
+     * indexes that are no longer configured are not dropped automatically (see
+     * {@link org.apache.marmotta.kiwi.persistence.KiWiPersistence#dropTripleIndex(TripleIndex)}).
+     */
+    public void setTripleIndexes(Set<TripleIndex> tripleIndexes) {
+        this.tripleIndexes = tripleIndexes.isEmpty() ? EnumSet.noneOf(TripleIndex.class) : EnumSet.copyOf(tripleIndexes);
+    }
+
     /**
      * If true, support for special cluster features is enabled (e.g. replicated caches).
      *
@@ -592,4 +688,16 @@ public class KiWiConfiguration {
     public void setClusterTimeout(int clusterTimeout) {
         this.clusterTimeout = clusterTimeout;
     }
+
+    /**
+     * Maximum time (in milliseconds) the garbage collection of deleted triples waits for components that have
+     * suspended it before skipping the collection.
+     */
+    public long getMaxTripleCollectionDelay() {
+        return maxTripleCollectionDelay;
+    }
+
+    public void setMaxTripleCollectionDelay(long maxTripleCollectionDelay) {
+        this.maxTripleCollectionDelay = maxTripleCollectionDelay;
+    }
 }
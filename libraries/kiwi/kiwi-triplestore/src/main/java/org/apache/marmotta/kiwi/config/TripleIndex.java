@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Additional index layouts on the triples table that can be enabled in the {@link KiWiConfiguration}. The base
+ * schema always has indexes on (subject,predicate,object), (predicate) and (context,subject,predicate,object); the
+ * layouts here speed up patterns with a bound object but unbound subject, e.g. reverse property lookups or incoming
+ * links, at the cost of additional index maintenance when storing triples.
+ */
+public enum TripleIndex {
+
+    /**
+     * Predicate-object index, for patterns with bound predicate and object (e.g. listing the subjects having a
+     * property value).
+     */
+    POS("predicate", "object", "subject"),
+
+    /**
+     * Object-first index, for patterns where only the object is bound (e.g. listing incoming links of a resource).
+     */
+    OSP("object", "subject", "predicate");
+
+
+    /**
+     * Estimated factor by which every bound column of a triple pattern that cannot be used for an index lookup
+     * increases the cost of evaluating the pattern, see {@link #getCardinalityPenalty(java.util.Set, boolean, boolean, boolean, boolean)}
+     */
+    public static final double UNINDEXED_FACTOR = 10;
+
+    // the indexes on the triples table that are always part of the base schema
+    private static final String[][] BASE_INDEXES = {
+            { "subject", "predicate", "object" },
+            { "predicate" },
+            { "context", "subject", "predicate", "object" }
+    };
+
+
+    private final String[] columns;
+
+    TripleIndex(String... columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * The columns of the triples table covered by this index, in index order.
+     */
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * The name of the index in the database.
+     */
+    public String getIndexName() {
+        return "idx_triples_" + name().toLowerCase();
+    }
+
+    /**
+     * Return the number of bound columns of a triple pattern that can be used for an index lookup, i.e. the length
+     * of the longest index prefix (considering the base schema and the given additional indexes) consisting only of
+     * bound columns. The remaining bound columns need to be filtered from the index range or a table scan.
+     *
+     * @param indexes    the additional indexes configured for the database
+     * @param subject    true if the subject of the pattern is bound
+     * @param predicate  true if the predicate of the pattern is bound
+     * @param object     true if the object of the pattern is bound
+     * @param context    true if the context of the pattern is bound
+     */
+    public static int getIndexedColumns(Set<TripleIndex> indexes, boolean subject, boolean predicate, boolean object, boolean context) {
+        Set<String> bound = new HashSet<>();
+        if(subject)   bound.add("subject");
+        if(predicate) bound.add("predicate");
+        if(object)    bound.add("object");
+        if(context)   bound.add("context");
+
+        int best = 0;
+        for(String[] columns : BASE_INDEXES) {
+            best = Math.max(best, getBoundPrefix(columns, bound));
+        }
+        for(TripleIndex index : indexes) {
+            best = Math.max(best, getBoundPrefix(index.columns, bound));
+        }
+        return best;
+    }
+
+    /**
+     * Return the factor by which the estimated cardinality of a triple pattern is multiplied to account for bound
+     * columns that are not backed by an index: each of them has to be filtered from an index range or a table scan,
+     * so the query optimizer should prefer patterns whose bound columns are covered by an index (see
+     * {@link #getIndexedColumns(java.util.Set, boolean, boolean, boolean, boolean)}).
+     *
+     * @param indexes    the additional indexes configured for the database
+     * @param subject    true if the subject of the pattern is bound
+     * @param predicate  true if the predicate of the pattern is bound
+     * @param object     true if the object of the pattern is bound
+     * @param context    true if the context of the pattern is bound
+     * @return 1 if all bound columns can be used for an index lookup, and a factor of {@link #UNINDEXED_FACTOR} for
+     *         every bound column that cannot
+     */
+    public static double getCardinalityPenalty(Set<TripleIndex> indexes, boolean subject, boolean predicate, boolean object, boolean context) {
+        int bound = (subject ? 1 : 0) + (predicate ? 1 : 0) + (object ? 1 : 0) + (context ? 1 : 0);
+        int indexed = getIndexedColumns(indexes, subject, predicate, object, context);
+
+        return Math.pow(UNINDEXED_FACTOR, bound - indexed);
+    }
+
+    private static int getBoundPrefix(String[] columns, Set<String> bound) {
+        int prefix = 0;
+        while(prefix < columns.length && bound.contains(columns[prefix])) {
+            prefix++;
+        }
+        return prefix;
+    }
+}
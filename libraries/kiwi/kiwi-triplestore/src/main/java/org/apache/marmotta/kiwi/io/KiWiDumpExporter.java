@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.io;
+
+import info.aduna.iteration.CloseableIteration;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.apache.marmotta.kiwi.persistence.KiWiPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Export the complete content of a KiWi database (namespaces, nodes and non-deleted triples) into the native
+ * binary dump format (see {@link KiWiDumpWriter}). Triples are read directly from the database without
+ * resolving their nodes, so the export is mostly bound by the speed of the database and the output stream.
+ */
+public class KiWiDumpExporter {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiDumpExporter.class);
+
+    private KiWiPersistence persistence;
+
+    public KiWiDumpExporter(KiWiPersistence persistence) {
+        this.persistence = persistence;
+    }
+
+    /**
+     * Write a dump of the database to the output stream given as argument. The stream is closed after a
+     * successful export. In case of an error, the dump is left unterminated so it cannot be restored by accident.
+     *
+     * @param out destination of the dump
+     */
+    public void export(OutputStream out) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+
+        KiWiConnection connection = persistence.getConnection();
+        try {
+            KiWiDumpWriter writer = new KiWiDumpWriter(out);
+
+            CloseableIteration<KiWiNamespace, SQLException> namespaces = connection.listNamespaces();
+            try {
+                while (namespaces.hasNext()) {
+                    writer.writeNamespace(namespaces.next());
+                }
+            } finally {
+                namespaces.close();
+            }
+
+            CloseableIteration<KiWiNode, SQLException> nodes = connection.listNodes();
+            try {
+                while (nodes.hasNext()) {
+                    writer.writeNode(nodes.next());
+                }
+            } finally {
+                nodes.close();
+            }
+
+            // columns: id,subject,predicate,object,context,creator,inferred,createdAt
+            PreparedStatement queryTriples = connection.getPreparedStatement("dump.triples");
+            ResultSet triples = queryTriples.executeQuery();
+            try {
+                while (triples.next()) {
+                    writer.writeTriple(triples.getLong(1), triples.getLong(2), triples.getLong(3), triples.getLong(4),
+                            triples.getLong(5), triples.getLong(6), triples.getBoolean(7), triples.getTimestamp(8).getTime());
+                }
+            } finally {
+                triples.close();
+            }
+
+            writer.close();
+
+            log.info("KiWi dump of {} nodes and {} triples finished after {} ms", writer.getNodes(), writer.getTriples(), System.currentTimeMillis() - start);
+        } finally {
+            connection.rollback();
+            connection.close();
+        }
+    }
+}
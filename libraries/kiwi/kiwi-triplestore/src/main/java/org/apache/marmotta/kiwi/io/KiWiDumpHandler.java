@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.io;
+
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Callback interface for consuming the chunks of a KiWi dump read by a {@link KiWiDumpReader}. Chunks are reported
+ * in the order they occur in the dump; all nodes are reported before the first triple block referencing them.
+ */
+public interface KiWiDumpHandler {
+
+    /**
+     * Signals the start of the dump, after the header has been read successfully.
+     *
+     * @param created the time the dump has been created
+     */
+    public void startDump(long created) throws IOException;
+
+    /**
+     * Handle a chunk of namespaces.
+     */
+    public void handleNamespaces(List<KiWiNamespace> namespaces) throws IOException;
+
+    /**
+     * Handle a chunk of nodes; all nodes carry the database ID they had in the source database.
+     */
+    public void handleNodes(List<KiWiNode> nodes) throws IOException;
+
+    /**
+     * Handle a chunk of triples; the block is reused by the reader and must not be retained after the call.
+     */
+    public void handleTriples(KiWiTripleBlock triples) throws IOException;
+
+    /**
+     * Signals the end of the dump, after the trailer has been read and verified.
+     */
+    public void endDump() throws IOException;
+}
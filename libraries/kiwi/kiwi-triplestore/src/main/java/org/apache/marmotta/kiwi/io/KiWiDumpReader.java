@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.io;
+
+import org.apache.marmotta.commons.io.DataIO;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.apache.marmotta.kiwi.io.KiWiDumpWriter.*;
+
+/**
+ * Reader for the native KiWi binary dump format written by {@link KiWiDumpWriter}. The checksum of each chunk is
+ * verified before the chunk is passed to the {@link KiWiDumpHandler}, and the totals in the trailer are compared
+ * with the number of records actually read, so truncated or corrupted dumps are detected.
+ */
+public class KiWiDumpReader {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiDumpReader.class);
+
+    private DataInputStream in;
+
+    public KiWiDumpReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 65536));
+    }
+
+    /**
+     * Read the complete dump and report its content to the handler given as argument.
+     *
+     * @param handler the handler receiving the chunks of the dump
+     * @throws IOException in case the dump is not valid or the handler throws an exception
+     */
+    public void parse(KiWiDumpHandler handler) throws IOException {
+        if(in.readInt() != MAGIC) {
+            throw new IOException("input is not a KiWi dump");
+        }
+        int version = in.readInt();
+        if(version != VERSION) {
+            throw new IOException("unsupported KiWi dump version: " + version);
+        }
+        handler.startDump(in.readLong());
+
+        long namespaces = 0, nodes = 0, triples = 0;
+        int chunk = 0;
+
+        KiWiTripleBlock block = new KiWiTripleBlock(DEFAULT_CHUNK_SIZE);
+
+        try {
+            while (true) {
+                byte type = in.readByte();
+                int records = in.readInt();
+                int length = in.readInt();
+                long checksum = in.readLong();
+
+                if (type == CHUNK_END) {
+                    long expNamespaces = in.readLong(), expNodes = in.readLong(), expTriples = in.readLong();
+                    if (expNamespaces != namespaces || expNodes != nodes || expTriples != triples) {
+                        throw new IOException(String.format("dump is incomplete (expected %d namespaces, %d nodes, %d triples; got %d, %d, %d)",
+                                expNamespaces, expNodes, expTriples, namespaces, nodes, triples));
+                    }
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    throw new IOException("checksum mismatch in chunk " + chunk + " of the dump");
+                }
+
+                DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+                switch (type) {
+                    case CHUNK_NAMESPACES:
+                        List<KiWiNamespace> nsList = new ArrayList<>(records);
+                        for (int i = 0; i < records; i++) {
+                            KiWiNamespace ns = new KiWiNamespace();
+                            ns.setId(data.readLong());
+                            ns.setPrefix(DataIO.readString(data));
+                            ns.setUri(DataIO.readString(data));
+                            ns.setCreated(new Date(data.readLong()));
+                            nsList.add(ns);
+                        }
+                        handler.handleNamespaces(nsList);
+                        namespaces += records;
+                        break;
+                    case CHUNK_NODES:
+                        List<KiWiNode> nodeList = new ArrayList<>(records);
+                        for (int i = 0; i < records; i++) {
+                            nodeList.add(KiWiIO.readNode(data));
+                        }
+                        handler.handleNodes(nodeList);
+                        nodes += records;
+                        break;
+                    case CHUNK_TRIPLES:
+                        block.clear();
+                        for (int i = 0; i < records; i++) {
+                            block.add(data.readLong(), data.readLong(), data.readLong(), data.readLong(),
+                                    data.readLong(), data.readLong(), data.readBoolean(), data.readLong());
+                        }
+                        handler.handleTriples(block);
+                        triples += records;
+                        break;
+                    default:
+                        throw new IOException("unknown chunk type in dump: " + type);
+                }
+                chunk++;
+
+                log.debug("read chunk {} of KiWi dump ({} records)", chunk, records);
+            }
+        } catch (EOFException ex) {
+            throw new IOException("unexpected end of dump after " + chunk + " chunks; the dump is truncated", ex);
+        }
+
+        handler.endDump();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.io;
+
+import org.apache.marmotta.commons.io.DataIO;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * Writer for the native KiWi binary dump format. A dump consists of a header, a sequence of chunks and a trailer:
+ * <ul>
+ *     <li>header: magic number (int), format version (int), creation time (long)</li>
+ *     <li>chunk: chunk type (byte), number of records (int), payload length (int), CRC32 of the payload (long),
+ *         payload</li>
+ *     <li>trailer: a chunk of type CHUNK_END without payload, followed by the total number of namespaces, nodes and
+ *         triples (3 longs) for verification</li>
+ * </ul>
+ * Namespaces and nodes are serialized using {@link KiWiIO}, including the ZLIB compression of long literals; together
+ * the node chunks form the node dictionary of the dump. Triples are written as blocks of database IDs only, so
+ * no node needs to be resolved when reading or writing triples. Callers must write all nodes referenced by a
+ * triple (and all datatypes referenced by a literal) before the triple (literal) itself.
+ * <p/>
+ * The writer is not thread-safe.
+ */
+public class KiWiDumpWriter implements Closeable {
+
+    public static final int MAGIC   = 0x4B695744; // "KiWD"
+    public static final int VERSION = 1;
+
+    public static final byte CHUNK_END        = 0;
+    public static final byte CHUNK_NAMESPACES = 1;
+    public static final byte CHUNK_NODES      = 2;
+    public static final byte CHUNK_TRIPLES    = 3;
+
+    /**
+     * Default maximum number of records in a chunk
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    private DataOutputStream out;
+
+    private ByteArrayOutputStream chunkBuffer;
+    private DataOutputStream      chunkOut;
+    private byte                  chunkType = CHUNK_END;
+    private int                   chunkRecords = 0;
+
+    private int chunkSize;
+
+    private long namespaces = 0;
+    private long nodes      = 0;
+    private long triples    = 0;
+
+    private boolean closed = false;
+
+    public KiWiDumpWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_CHUNK_SIZE);
+    }
+
+    public KiWiDumpWriter(OutputStream out, int chunkSize) throws IOException {
+        this.out         = new DataOutputStream(new BufferedOutputStream(out, 65536));
+        this.chunkSize   = chunkSize;
+        this.chunkBuffer = new ByteArrayOutputStream(65536);
+        this.chunkOut    = new DataOutputStream(chunkBuffer);
+
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Write a namespace to the dump.
+     */
+    public void writeNamespace(KiWiNamespace namespace) throws IOException {
+        startRecord(CHUNK_NAMESPACES);
+
+        chunkOut.writeLong(namespace.getId());
+        DataIO.writeString(chunkOut, namespace.getPrefix());
+        DataIO.writeString(chunkOut, namespace.getUri());
+        chunkOut.writeLong(namespace.getCreated() != null ? namespace.getCreated().getTime() : 0);
+
+        namespaces++;
+        endRecord();
+    }
+
+    /**
+     * Write a node to the node dictionary of the dump. The node must already have a database ID.
+     */
+    public void writeNode(KiWiNode node) throws IOException {
+        if(node.getId() < 0) {
+            throw new IllegalArgumentException("only persistent nodes can be written to a dump");
+        }
+
+        startRecord(CHUNK_NODES);
+
+        KiWiIO.writeNode(chunkOut, node);
+
+        nodes++;
+        endRecord();
+    }
+
+    /**
+     * Write a triple to the dump, using only the IDs of its components.
+     */
+    public void writeTriple(KiWiTriple triple) throws IOException {
+        writeTriple(triple.getId(),
+                triple.getSubject().getId(),
+                triple.getPredicate().getId(),
+                triple.getObject().getId(),
+                triple.getContext() != null ? triple.getContext().getId() : 0,
+                triple.getCreator() != null ? triple.getCreator().getId() : 0,
+                triple.isInferred(),
+                triple.getCreated().getTime());
+    }
+
+    /**
+     * Write a triple given by the database IDs of its components to the dump. Use 0 for a missing context or creator.
+     */
+    public void writeTriple(long id, long subject, long predicate, long object, long context, long creator, boolean inferred, long created) throws IOException {
+        startRecord(CHUNK_TRIPLES);
+
+        chunkOut.writeLong(id);
+        chunkOut.writeLong(subject);
+        chunkOut.writeLong(predicate);
+        chunkOut.writeLong(object);
+        chunkOut.writeLong(context);
+        chunkOut.writeLong(creator);
+        chunkOut.writeBoolean(inferred);
+        chunkOut.writeLong(created);
+
+        triples++;
+        endRecord();
+    }
+
+    /**
+     * Write out the current chunk (if any) to the underlying stream.
+     */
+    public void flushChunk() throws IOException {
+        if(chunkRecords > 0) {
+            chunkOut.flush();
+
+            CRC32 crc = new CRC32();
+            byte[] payload = chunkBuffer.toByteArray();
+            crc.update(payload);
+
+            out.writeByte(chunkType);
+            out.writeInt(chunkRecords);
+            out.writeInt(payload.length);
+            out.writeLong(crc.getValue());
+            out.write(payload);
+
+            chunkBuffer.reset();
+            chunkRecords = 0;
+        }
+    }
+
+    private void startRecord(byte type) throws IOException {
+        if(closed) {
+            throw new IOException("dump writer has already been closed");
+        }
+        if(type != chunkType) {
+            flushChunk();
+            chunkType = type;
+        }
+    }
+
+    private void endRecord() throws IOException {
+        chunkRecords++;
+        if(chunkRecords >= chunkSize) {
+            flushChunk();
+        }
+    }
+
+    public long getNamespaces() {
+        return namespaces;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTriples() {
+        return triples;
+    }
+
+    /**
+     * Flush the last chunk, write the trailer and close the underlying stream. Only a dump that has been closed
+     * properly will be accepted by the {@link KiWiDumpReader}, so callers should not close the writer in case
+     * the export failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if(!closed) {
+            flushChunk();
+
+            out.writeByte(CHUNK_END);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(0);
+            out.writeLong(namespaces);
+            out.writeLong(nodes);
+            out.writeLong(triples);
+            out.close();
+
+            closed = true;
+        }
+    }
+}
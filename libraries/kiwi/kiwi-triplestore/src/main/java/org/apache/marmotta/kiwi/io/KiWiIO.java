@@ -79,7 +79,7 @@ public class KiWiIO {
 
     public static final int MODE_DEFAULT    = 1; // no compression
     public static final int MODE_PREFIX     = 2; // prefix compression for some known URI prefixes
-    public static final int MODE_COMPRESSED = 3; // reserved: ZLIB string compression for long literals
+    public static final int MODE_COMPRESSED = 3; // ZLIB string compression for long literals (see LITERAL_COMPRESS_LENGTH)
 
     private static final int LANG_UNKNOWN = 0;
     private static final int LANG_EN = 1;
@@ -781,7 +781,7 @@ public class KiWiIO {
      * @return
      * @throws IOException
      */
-    private static String readContent(DataInput in) throws IOException {
+    public static String readContent(DataInput in) throws IOException {
         int mode = in.readByte();
 
         if(mode == MODE_COMPRESSED) {
@@ -793,13 +793,33 @@ public class KiWiIO {
                 in.readFully(buffer);
 
                 Inflater decompressor = new Inflater(true);
-                decompressor.setInput(buffer);
-
-                byte[] data = new byte[strlen];
-                decompressor.inflate(data);
-                decompressor.end();
-
-                return new String(data,"UTF-8");
+                try {
+                    decompressor.setInput(buffer);
+
+                    byte[] data = new byte[strlen];
+                    int position = 0;
+                    boolean padded = false;
+                    while(position < strlen && !decompressor.finished()) {
+                        int count = decompressor.inflate(data, position, strlen - position);
+                        if(count == 0) {
+                            if(decompressor.needsInput() && !padded) {
+                                // in "nowrap" mode, zlib may require an additional dummy byte to finish inflating
+                                decompressor.setInput(new byte[1]);
+                                padded = true;
+                            } else {
+                                break;
+                            }
+                        }
+                        position += count;
+                    }
+                    if(position < strlen) {
+                        throw new IllegalStateException("compressed content is truncated (expected "+strlen+" bytes, got "+position+")");
+                    }
+
+                    return new String(data,"UTF-8");
+                } finally {
+                    decompressor.end();
+                }
             } catch(DataFormatException ex) {
                 throw new IllegalStateException("input data is not valid",ex);
             }
@@ -816,7 +836,7 @@ public class KiWiIO {
      * @param content  string to write
      * @throws IOException
      */
-    private static void writeContent(DataOutput out, String content) throws IOException {
+    public static void writeContent(DataOutput out, String content) throws IOException {
         if(content.length() > LITERAL_COMPRESS_LENGTH) {
             // temporary buffer of the size of bytes in the content string (assuming that the compressed data will fit into it)
             byte[] data   = content.getBytes("UTF-8");
@@ -837,7 +857,7 @@ public class KiWiIO {
                 out.writeInt(length);
                 out.write(buffer,0,length);
             } else {
-                log.warn("compressed length exceeds string buffer: {} > {}", length, buffer.length);
+                log.debug("compressed length exceeds string buffer: {} > {}", length, buffer.length);
 
                 out.writeByte(MODE_DEFAULT);
                 DataIO.writeString(out,content);
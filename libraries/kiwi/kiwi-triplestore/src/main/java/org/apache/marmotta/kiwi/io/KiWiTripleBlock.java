@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.kiwi.io;
+
+import java.util.Arrays;
+
+/**
+ * A block of triples as stored in a KiWi dump. Triples are only represented by the database IDs of their
+ * components (subject, predicate, object, context, creator), so a block can be written to and read from
+ * a dump without resolving any nodes. Nodes are stored separately in the node dictionary of the dump.
+ * <p/>
+ * A context or creator ID of 0 means that the triple has no context or creator.
+ */
+public class KiWiTripleBlock {
+
+    private long[] ids;
+    private long[] subjects;
+    private long[] predicates;
+    private long[] objects;
+    private long[] contexts;
+    private long[] creators;
+    private long[] created;
+    private boolean[] inferred;
+
+    private int size = 0;
+
+    public KiWiTripleBlock(int capacity) {
+        ids        = new long[capacity];
+        subjects   = new long[capacity];
+        predicates = new long[capacity];
+        objects    = new long[capacity];
+        contexts   = new long[capacity];
+        creators   = new long[capacity];
+        created    = new long[capacity];
+        inferred   = new boolean[capacity];
+    }
+
+    /**
+     * Append a triple to this block, growing the block if necessary.
+     */
+    public void add(long id, long subject, long predicate, long object, long context, long creator, boolean inferred, long created) {
+        if(size == ids.length) {
+            grow();
+        }
+        this.ids[size]        = id;
+        this.subjects[size]   = subject;
+        this.predicates[size] = predicate;
+        this.objects[size]    = object;
+        this.contexts[size]   = context;
+        this.creators[size]   = creator;
+        this.inferred[size]   = inferred;
+        this.created[size]    = created;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, ids.length * 2);
+        ids        = Arrays.copyOf(ids, capacity);
+        subjects   = Arrays.copyOf(subjects, capacity);
+        predicates = Arrays.copyOf(predicates, capacity);
+        objects    = Arrays.copyOf(objects, capacity);
+        contexts   = Arrays.copyOf(contexts, capacity);
+        creators   = Arrays.copyOf(creators, capacity);
+        created    = Arrays.copyOf(created, capacity);
+        inferred   = Arrays.copyOf(inferred, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    public long getSubject(int i) {
+        return subjects[i];
+    }
+
+    public long getPredicate(int i) {
+        return predicates[i];
+    }
+
+    public long getObject(int i) {
+        return objects[i];
+    }
+
+    public long getContext(int i) {
+        return contexts[i];
+    }
+
+    public long getCreator(int i) {
+        return creators[i];
+    }
+
+    public boolean isInferred(int i) {
+        return inferred[i];
+    }
+
+    public long getCreated(int i) {
+        return created[i];
+    }
+}
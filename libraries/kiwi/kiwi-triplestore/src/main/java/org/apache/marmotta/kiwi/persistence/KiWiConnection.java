@@ -25,12 +25,14 @@ import info.aduna.iteration.*;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.marmotta.commons.sesame.model.LiteralCommons;
 import org.apache.marmotta.commons.sesame.model.Namespaces;
-import org.apache.marmotta.commons.sesame.tripletable.TripleTable;
 import org.apache.marmotta.commons.util.DateUtils;
 import org.apache.marmotta.kiwi.caching.CacheManager;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.exception.ResultInterruptedException;
 import org.apache.marmotta.kiwi.model.rdf.*;
+import org.apache.marmotta.kiwi.persistence.util.KiWiTripleTable;
+import org.apache.marmotta.kiwi.persistence.util.NodeFingerprint;
 import org.apache.marmotta.kiwi.persistence.util.ResultSetIteration;
 import org.apache.marmotta.kiwi.persistence.util.ResultTransformerFunction;
 import org.openrdf.model.Literal;
@@ -66,7 +68,7 @@ public class KiWiConnection implements AutoCloseable {
 
     protected CacheManager cacheManager;
 
-    protected TripleTable<KiWiTriple> tripleBatch;
+    protected KiWiTripleTable tripleBatch;
 
     /**
      * Cache nodes by database ID
@@ -114,6 +116,17 @@ public class KiWiConnection implements AutoCloseable {
 
     private Map<String,PreparedStatement> statementCache;
 
+    /**
+     * Maximum number of prepared statements for generated queries (see getPreparedStatementForQuery) kept open
+     * per connection
+     */
+    private static final int QUERY_STATEMENT_CACHE_SIZE = 64;
+
+    /**
+     * Prepared statements for generated queries, in least-recently-used order; evicted statements are closed
+     */
+    private Map<String,PreparedStatement> queryStatementCache;
+
     private boolean autoCommit = false;
 
     private boolean batchCommit = true;
@@ -173,6 +186,20 @@ public class KiWiConnection implements AutoCloseable {
      */
     private void initStatementCache() throws SQLException {
         statementCache = new HashMap<String, PreparedStatement>();
+        queryStatementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if(size() > QUERY_STATEMENT_CACHE_SIZE) {
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException ex) {
+                        log.debug("could not close evicted prepared statement: {}", ex.getMessage());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
 
         /*
         for(String key : dialect.getStatementIdentifiers()) {
@@ -191,7 +218,7 @@ public class KiWiConnection implements AutoCloseable {
             connection.setAutoCommit(autoCommit);
         }
         if(tripleBatch == null) {
-            tripleBatch = new TripleTable<KiWiTriple>();
+            tripleBatch = new KiWiTripleTable(batchSize);
         }
     }
 
@@ -582,6 +609,7 @@ public class KiWiConnection implements AutoCloseable {
             // prepare a query; we will only iterate once, read only, and need only one result row since the id is unique
             PreparedStatement query = getPreparedStatement("load.uri_by_uri");
             query.setString(1, uri);
+            query.setLong(2, NodeFingerprint.uri(uri));
             query.setMaxRows(1);
 
             // run the database query and if it yields a result, construct a new node; the method call will take care of
@@ -630,6 +658,7 @@ public class KiWiConnection implements AutoCloseable {
             // prepare a query; we will only iterate once, read only, and need only one result row since the id is unique
             PreparedStatement query = getPreparedStatement("load.bnode_by_anonid");
             query.setString(1,id);
+            query.setLong(2, NodeFingerprint.bnode(id));
             query.setMaxRows(1);
 
             // run the database query and if it yields a result, construct a new node; the method call will take care of
@@ -686,14 +715,17 @@ public class KiWiConnection implements AutoCloseable {
             if(lang == null && ltype == null) {
                 query = getPreparedStatement("load.literal_by_v");
                 query.setString(1,value);
+                query.setLong(2, NodeFingerprint.literal(value, null, null));
             } else if(lang != null) {
                 query = getPreparedStatement("load.literal_by_vl");
                 query.setString(1,value);
                 query.setString(2, lang);
+                query.setLong(3, NodeFingerprint.literal(value, lang, null));
             } else if(ltype != null) {
                 query = getPreparedStatement("load.literal_by_vt");
                 query.setString(1,value);
                 query.setLong(2,ltype.getId());
+                query.setLong(3, NodeFingerprint.literal(value, null, ltype.getId()));
             } else {
                 // This cannot happen...
                 throw new IllegalArgumentException("Impossible combination of lang/type in loadLiteral!");
@@ -716,6 +748,241 @@ public class KiWiConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * Batch load the URI resources with the given URIs. The method will first look in the node cache for cached
+     * nodes and resolve all remaining URIs with a single database query per batch ("load.nodes_by_fingerprints"),
+     * instead of running one "load.uri_by_uri" query for each URI.
+     * <p/>
+     * When a node is loaded from the database, it will be added to the different caches to speed up
+     * subsequent requests.
+     *
+     * @param uris the URIs of the resources to load
+     * @return a map from URI to KiWiUriResource, containing only the URIs that exist in the database
+     * @throws SQLException
+     */
+    public Map<String,KiWiUriResource> loadUriResources(Collection<String> uris) throws SQLException {
+        Map<String,KiWiUriResource> result = new HashMap<>(uris.size());
+
+        // first look in the cache for any URIs that have already been loaded
+        List<NodeContent<String>> toFetch = new ArrayList<>();
+        for(String uri : uris) {
+            KiWiUriResource element = uriCache.get(uri);
+            if(element != null) {
+                result.put(uri, element);
+            } else {
+                toFetch.add(new NodeContent<>(uri, "uri", uri, null, null));
+            }
+        }
+
+        loadNodesByContent(toFetch);
+        for(NodeContent<String> content : toFetch) {
+            if(content.node != null) {
+                result.put(content.key, (KiWiUriResource) content.node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Batch load the anonymous resources with the given anonymous IDs. The method will first look in the node cache
+     * for cached nodes and resolve all remaining IDs with a single database query per batch
+     * ("load.nodes_by_fingerprints").
+     *
+     * @param ids the anonymous IDs of the resources to load
+     * @return a map from anonymous ID to KiWiAnonResource, containing only the IDs that exist in the database
+     * @throws SQLException
+     */
+    public Map<String,KiWiAnonResource> loadAnonResources(Collection<String> ids) throws SQLException {
+        Map<String,KiWiAnonResource> result = new HashMap<>(ids.size());
+
+        List<NodeContent<String>> toFetch = new ArrayList<>();
+        for(String id : ids) {
+            KiWiAnonResource element = bnodeCache.get(id);
+            if(element != null) {
+                result.put(id, element);
+            } else {
+                toFetch.add(new NodeContent<>(id, "bnode", id, null, null));
+            }
+        }
+
+        loadNodesByContent(toFetch);
+        for(NodeContent<String> content : toFetch) {
+            if(content.node != null) {
+                result.put(content.key, (KiWiAnonResource) content.node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Batch load the literals with the label, language and datatype of the literals given as argument. The method
+     * resolves literals the same way as {@link #loadLiteral(String, String, KiWiUriResource)}: it first loads the
+     * datatypes, then looks in the node cache for cached nodes and resolves all remaining literals with a single
+     * database query per batch ("load.nodes_by_fingerprints").
+     *
+     * @param literals the literals to load (e.g. created by a different value factory)
+     * @return a map from the literals passed as argument to the KiWiLiterals in the database, containing only
+     *         the literals that exist in the database
+     * @throws SQLException
+     */
+    public Map<Literal,KiWiLiteral> loadLiterals(Collection<? extends Literal> literals) throws SQLException {
+        Map<Literal,KiWiLiteral> result = new HashMap<>(literals.size());
+
+        // literals can only exist if their datatype exists
+        Set<String> types = new HashSet<>();
+        for(Literal l : literals) {
+            if(l.getDatatype() != null) {
+                types.add(l.getDatatype().stringValue());
+            }
+        }
+        Map<String,KiWiUriResource> ltypes = loadUriResources(types);
+
+        List<NodeContent<Literal>> toFetch = new ArrayList<>();
+        for(Literal l : literals) {
+            KiWiUriResource ltype = null;
+            if(l.getDatatype() != null) {
+                ltype = ltypes.get(l.getDatatype().stringValue());
+                if(ltype == null) {
+                    continue;
+                }
+            }
+
+            KiWiLiteral element = null;
+            try {
+                element = literalCache.get(LiteralCommons.createCacheKey(l.getLabel(), getLocale(l.getLanguage()), ltype));
+            } catch (IllegalArgumentException ex) {
+                // invalid language, cannot be in the cache
+            }
+            if(element != null) {
+                result.put(l, element);
+            } else {
+                toFetch.add(new NodeContent<>(l, "literal", l.getLabel(), l.getLanguage(), ltype != null ? ltype.getId() : null));
+            }
+        }
+
+        loadNodesByContent(toFetch);
+        for(NodeContent<Literal> content : toFetch) {
+            if(content.node != null) {
+                result.put(content.key, (KiWiLiteral) content.node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the node contents given as argument with one "load.nodes_by_fingerprints" query per batch and set
+     * the node field of all contents that exist in the database. Since different nodes may share a fingerprint,
+     * the rows returned by the query are compared with the content before they are assigned.
+     */
+    private void loadNodesByContent(List<? extends NodeContent<?>> contents) throws SQLException {
+        if(contents.isEmpty()) {
+            return;
+        }
+
+        requireJDBCConnection();
+
+        Map<Long,List<NodeContent<?>>> byFingerprint = new HashMap<>();
+        for(NodeContent<?> content : contents) {
+            List<NodeContent<?>> list = byFingerprint.get(content.fingerprint);
+            if(list == null) {
+                list = new ArrayList<>(1);
+                byFingerprint.put(content.fingerprint, list);
+            }
+            list.add(content);
+        }
+        List<Long> toFetch = new ArrayList<>(byFingerprint.keySet());
+
+        int position = 0;
+        int nextBatchSize;
+        PreparedStatement query;
+
+        while(position < toFetch.size()) {
+            nextBatchSize = computeBatchSize(position, toFetch.size());
+
+            query = getPreparedStatement("load.nodes_by_fingerprints", nextBatchSize);
+            synchronized (query) {
+                for(int i=0; i<nextBatchSize; i++) {
+                    query.setLong(i+1, toFetch.get(position + i));
+                }
+
+                // column order; id,ntype,svalue,ivalue,dvalue,tvalue,bvalue,lang,ltype,createdAt,fingerprint
+                ResultSet rows = query.executeQuery();
+                try {
+                    while(rows.next()) {
+                        String ntype  = rows.getString(2).trim();
+                        String svalue = rows.getString(3);
+                        String lang   = rows.getString(8);
+                        Long   ltype  = rows.getLong(9);
+                        if(rows.wasNull()) {
+                            ltype = null;
+                        }
+
+                        KiWiNode node = null;
+                        for(NodeContent<?> content : byFingerprint.get(rows.getLong(11))) {
+                            if(content.node == null && content.matches(ntype, svalue, lang, ltype)) {
+                                if(node == null) {
+                                    node = constructNodeFromDatabase(rows);
+                                }
+                                content.node = node;
+                            }
+                        }
+                    }
+                } finally {
+                    rows.close();
+                }
+
+                position += nextBatchSize;
+            }
+        }
+    }
+
+    /**
+     * The content of a node to resolve in a batch lookup, together with the key used by the caller and the node
+     * found in the database. Matching follows the conditions of the single value lookups (load.uri_by_uri,
+     * load.bnode_by_anonid and load.literal_by_v/vl/vt).
+     */
+    private static class NodeContent<K> {
+        private final K      key;
+        private final String kind;
+        private final String svalue;
+        private final String lang;
+        private final Long   ltype;
+        private final long   fingerprint;
+
+        private KiWiNode node;
+
+        private NodeContent(K key, String kind, String svalue, String lang, Long ltype) {
+            this.key    = key;
+            this.kind   = kind;
+            this.svalue = svalue;
+            this.lang   = lang;
+            this.ltype  = ltype;
+
+            if("uri".equals(kind)) {
+                this.fingerprint = NodeFingerprint.uri(svalue);
+            } else if("bnode".equals(kind)) {
+                this.fingerprint = NodeFingerprint.bnode(svalue);
+            } else {
+                this.fingerprint = NodeFingerprint.literal(svalue, lang, ltype);
+            }
+        }
+
+        private boolean matches(String ntype, String svalue, String lang, Long ltype) {
+            if(!this.svalue.equals(svalue)) {
+                return false;
+            }
+            if("uri".equals(kind) || "bnode".equals(kind)) {
+                return kind.equals(ntype);
+            } else if(this.lang != null) {
+                return this.lang.equals(lang);
+            } else if(this.ltype != null) {
+                return this.ltype.equals(ltype);
+            } else {
+                return "string".equals(ntype) && lang == null && ltype == null;
+            }
+        }
+    }
+
     /**
      * Load a literal with the date value given as argument if it exists. The method will first look in
      * the node cache for cached nodes. If no cache entry is found, it will run a database query ("load.literal_by_tv")
@@ -971,6 +1238,7 @@ public class KiWiConnection implements AutoCloseable {
             insertNode.setLong(1,node.getId());
             insertNode.setString(2,uriResource.stringValue());
             insertNode.setTimestamp(3, new Timestamp(uriResource.getCreated().getTime()));
+            insertNode.setLong(4, NodeFingerprint.of(uriResource));
 
             insertNode.executeUpdate();
 
@@ -981,6 +1249,7 @@ public class KiWiConnection implements AutoCloseable {
             insertNode.setLong(1,node.getId());
             insertNode.setString(2,anonResource.stringValue());
             insertNode.setTimestamp(3, new Timestamp(anonResource.getCreated().getTime()));
+            insertNode.setLong(4, NodeFingerprint.of(anonResource));
 
             insertNode.executeUpdate();
         } else if(node instanceof KiWiDateLiteral) {
@@ -995,6 +1264,7 @@ public class KiWiConnection implements AutoCloseable {
             else
                 throw new IllegalStateException("a date literal must have a datatype");
             insertNode.setTimestamp(5, new Timestamp(dateLiteral.getCreated().getTime()));
+            insertNode.setLong(6, NodeFingerprint.of(dateLiteral));
 
             insertNode.executeUpdate();
         } else if(node instanceof KiWiIntLiteral) {
@@ -1010,6 +1280,7 @@ public class KiWiConnection implements AutoCloseable {
             else
                 throw new IllegalStateException("an integer literal must have a datatype");
             insertNode.setTimestamp(6, new Timestamp(intLiteral.getCreated().getTime()));
+            insertNode.setLong(7, NodeFingerprint.of(intLiteral));
 
             insertNode.executeUpdate();
         } else if(node instanceof KiWiDoubleLiteral) {
@@ -1024,6 +1295,7 @@ public class KiWiConnection implements AutoCloseable {
             else
                 throw new IllegalStateException("a double literal must have a datatype");
             insertNode.setTimestamp(5, new Timestamp(doubleLiteral.getCreated().getTime()));
+            insertNode.setLong(6, NodeFingerprint.of(doubleLiteral));
 
             insertNode.executeUpdate();
         } else if(node instanceof KiWiBooleanLiteral) {
@@ -1038,6 +1310,7 @@ public class KiWiConnection implements AutoCloseable {
             else
                 throw new IllegalStateException("a boolean literal must have a datatype");
             insertNode.setTimestamp(5, new Timestamp(booleanLiteral.getCreated().getTime()));
+            insertNode.setLong(6, NodeFingerprint.of(booleanLiteral));
 
             insertNode.executeUpdate();
         } else if(node instanceof KiWiStringLiteral) {
@@ -1080,6 +1353,7 @@ public class KiWiConnection implements AutoCloseable {
                 insertNode.setObject(6, null);
             }
             insertNode.setTimestamp(7, new Timestamp(stringLiteral.getCreated().getTime()));
+            insertNode.setLong(8, NodeFingerprint.of(stringLiteral));
 
             insertNode.executeUpdate();
         } else {
@@ -1407,6 +1681,40 @@ public class KiWiConnection implements AutoCloseable {
     }
 
 
+    /**
+     * List all nodes stored in the database. URI resources are listed first, so that the datatype of a literal is
+     * always listed before the literal itself. See dump.nodes_uri and dump.nodes_other. Used for dumping the
+     * complete database.
+     *
+     * @return
+     * @throws SQLException
+     */
+    public CloseableIteration<KiWiNode, SQLException> listNodes() throws SQLException {
+        requireJDBCConnection();
+
+        final ResultTransformerFunction<KiWiNode> transformer = new ResultTransformerFunction<KiWiNode>() {
+            @Override
+            public KiWiNode apply(ResultSet row) throws SQLException {
+                return constructNodeFromDatabase(row);
+            }
+        };
+
+        PreparedStatement queryUris = getPreparedStatement("dump.nodes_uri");
+        final ResultSet uris = queryUris.executeQuery();
+
+        return new UnionIteration<KiWiNode, SQLException>(
+                new ResultSetIteration<KiWiNode>(uris, transformer),
+                new DelayedIteration<KiWiNode, SQLException>() {
+                    @Override
+                    protected Iteration<? extends KiWiNode, ? extends SQLException> createIteration() throws SQLException {
+                        PreparedStatement queryOther = getPreparedStatement("dump.nodes_other");
+                        return new ResultSetIteration<KiWiNode>(queryOther.executeQuery(), transformer);
+                    }
+                }
+        );
+    }
+
+
     public CloseableIteration<KiWiNamespace, SQLException> listNamespaces() throws SQLException {
         requireJDBCConnection();
 
@@ -1423,6 +1731,120 @@ public class KiWiConnection implements AutoCloseable {
     }
 
 
+    /**
+     * List the objects of all triples with the given predicate and one of the given subjects. The subjects are
+     * looked up in batches using a single IN query per batch instead of one query per subject, which considerably
+     * reduces the number of database roundtrips when navigating from many nodes at once (e.g. in LDPath).
+     *
+     * @param subjects   the subjects of the triples to look for
+     * @param predicate  the predicate of the triples to look for
+     * @param inferred   if true, the result will also contain the objects of inferred triples
+     * @return a map from each subject with at least one matching triple to the objects of these triples
+     * @throws SQLException
+     */
+    public Map<KiWiNode,Set<KiWiNode>> listObjects(Collection<? extends KiWiResource> subjects, KiWiUriResource predicate, boolean inferred) throws SQLException {
+        return listNeighbours(subjects, predicate, inferred, false);
+    }
+
+    /**
+     * List the subjects of all triples with the given predicate and one of the given objects. The objects are
+     * looked up in batches using a single IN query per batch instead of one query per object.
+     *
+     * @param predicate  the predicate of the triples to look for
+     * @param objects    the objects of the triples to look for
+     * @param inferred   if true, the result will also contain the subjects of inferred triples
+     * @return a map from each object with at least one matching triple to the subjects of these triples
+     * @throws SQLException
+     */
+    public Map<KiWiNode,Set<KiWiNode>> listSubjects(KiWiUriResource predicate, Collection<? extends KiWiNode> objects, boolean inferred) throws SQLException {
+        return listNeighbours(objects, predicate, inferred, true);
+    }
+
+    private Map<KiWiNode,Set<KiWiNode>> listNeighbours(Collection<? extends KiWiNode> nodes, KiWiUriResource predicate, boolean inferred, boolean reverse) throws SQLException {
+        Map<KiWiNode,Set<KiWiNode>> result = new HashMap<>();
+
+        // triples in the current batch are not yet in the database
+        if(tripleBatch != null && tripleBatch.size() > 0) {
+            for(KiWiNode node : nodes) {
+                Collection<KiWiTriple> triples = reverse
+                        ? tripleBatch.listTriples(null, predicate, node, null, true)
+                        : tripleBatch.listTriples((KiWiResource) node, predicate, null, null, true);
+                for(KiWiTriple triple : triples) {
+                    if(inferred || !triple.isInferred()) {
+                        addNeighbour(result, node, reverse ? triple.getSubject() : triple.getObject());
+                    }
+                }
+            }
+        }
+
+        // if the predicate has no database id, there will not be any database results
+        if(predicate.getId() < 0) {
+            return result;
+        }
+
+        Map<Long,KiWiNode> nodesById = new HashMap<>();
+        for(KiWiNode node : nodes) {
+            if(node.getId() >= 0) {
+                nodesById.put(node.getId(), node);
+            }
+        }
+
+        requireJDBCConnection();
+
+        String key = (reverse ? "query.subjects_by_objects" : "query.objects_by_subjects") + (inferred ? "" : "_explicit");
+
+        List<Long> toFetch = new ArrayList<>(nodesById.keySet());
+        List<Long> keys = new ArrayList<>(), values = new ArrayList<>();
+
+        int position = 0;
+        int nextBatchSize;
+        PreparedStatement query;
+        while(position < toFetch.size()) {
+            nextBatchSize = computeBatchSize(position, toFetch.size());
+
+            query = getPreparedStatement(key, nextBatchSize);
+            synchronized (query) {
+                query.setLong(1, predicate.getId());
+                for(int i=0; i<nextBatchSize; i++) {
+                    query.setLong(i+2, toFetch.get(position + i));
+                }
+
+                ResultSet rows = query.executeQuery();
+                try {
+                    while(rows.next()) {
+                        keys.add(rows.getLong(1));
+                        values.add(rows.getLong(2));
+                    }
+                } finally {
+                    rows.close();
+                }
+            }
+            position += nextBatchSize;
+        }
+
+        // load all distinct neighbour nodes with as few queries as possible
+        long[] neighbourIds = Longs.toArray(new LinkedHashSet<>(values));
+        KiWiNode[] neighbours = loadNodesByIds(neighbourIds);
+        Map<Long,KiWiNode> neighboursById = new HashMap<>();
+        for(int i=0; i<neighbours.length; i++) {
+            neighboursById.put(neighbourIds[i], neighbours[i]);
+        }
+        for(int i=0; i<keys.size(); i++) {
+            addNeighbour(result, nodesById.get(keys.get(i)), neighboursById.get(values.get(i)));
+        }
+
+        return result;
+    }
+
+    private static void addNeighbour(Map<KiWiNode,Set<KiWiNode>> result, KiWiNode node, KiWiNode neighbour) {
+        Set<KiWiNode> neighbours = result.get(node);
+        if(neighbours == null) {
+            neighbours = new HashSet<>();
+            result.put(node, neighbours);
+        }
+        neighbours.add(neighbour);
+    }
+
     /**
      * Return a Sesame RepositoryResult of statements according to the query pattern given in the arguments. Each of
      * the parameters subject, predicate, object and context may be null, indicating a wildcard query. If the boolean
@@ -1483,6 +1905,73 @@ public class KiWiConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * List a page of at most limit triples matching the pattern passed as argument in the order of their database ids.
+     * In forward direction, the page starts with the first triple with an id greater than the boundary; in reverse
+     * direction, the page contains the triples with an id less than or equal to the boundary in descending order.
+     * Passing the id of the last triple of a page as boundary retrieves the following page without counting or
+     * skipping the triples of the previous pages (keyset pagination).
+     * <p/>
+     * Null values are wildcards (also for the context). Triples of the current batch are written to the database
+     * before querying. Pages of the triples with a given context, subject and predicate (e.g. the members of an LDP
+     * container) are read with a range scan on the index idx_triples_cspid; other patterns may need to sort the
+     * matching triples.
+     *
+     * @param subject    the subject to query for, or null for a wildcard query
+     * @param predicate  the predicate to query for, or null for a wildcard query
+     * @param object     the object to query for, or null for a wildcard query
+     * @param context    the context to query for, or null for a wildcard query
+     * @param inferred   if true, the result will also contain triples inferred by the reasoner, if false not
+     * @param boundary   the triple id where the page starts (exclusive in forward direction, inclusive in reverse direction)
+     * @param limit      the maximum number of triples in the page
+     * @param reverse    if true, list the triples before the boundary in descending order of their ids
+     * @return the triples of the page
+     */
+    public List<KiWiTriple> listTriplesPage(KiWiResource subject, KiWiUriResource predicate, KiWiNode object, KiWiResource context, boolean inferred, long boundary, int limit, boolean reverse) throws SQLException {
+        // if one of the database ids is null, there will not be any database results
+        if(subject != null && subject.getId() < 0 || predicate != null && predicate.getId() < 0 ||
+                object != null && object.getId() < 0 || context != null && context.getId() < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        if(tripleBatch != null && tripleBatch.size() > 0) {
+            flushBatch();
+        }
+
+        requireJDBCConnection();
+
+        String sql = constructTripleQuery(subject,predicate,object,context,inferred, true) +
+                (reverse ? " AND id <= ? ORDER BY id DESC" : " AND id > ? ORDER BY id") +
+                " LIMIT " + limit;
+
+        PreparedStatement query = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            int position = 1;
+            if(subject != null) {
+                query.setLong(position++, subject.getId());
+            }
+            if(predicate != null) {
+                query.setLong(position++, predicate.getId());
+            }
+            if(object != null) {
+                query.setLong(position++, object.getId());
+            }
+            if(context != null) {
+                query.setLong(position++, context.getId());
+            }
+            query.setLong(position, boundary);
+
+            ResultSet result = query.executeQuery();
+            try {
+                return constructTriplesFromDatabase(result, limit);
+            } finally {
+                result.close();
+            }
+        } finally {
+            query.close();
+        }
+    }
+
     /**
      * Internal implementation for actually carrying out the query. Returns a closable iteration that can be used
      * in a repository result. The iteration is forward-only and does not allow removing result rows.
@@ -1964,6 +2453,32 @@ public class KiWiConnection implements AutoCloseable {
         return statement;
     }
 
+    /**
+     * Return a prepared statement for the given (parameterized) SQL query string; first looks in the statement cache
+     * and if it does not exist there create a new statement. This method is used for queries that are generated at
+     * runtime (e.g. translated from SPARQL), so that repeated executions of the same query can reuse the statement and
+     * the query plan of the database. Only the {@value #QUERY_STATEMENT_CACHE_SIZE} most recently used statements are
+     * kept; older statements are closed, together with any result set still open on them.
+     *
+     * @param sql the SQL query string
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement getPreparedStatementForQuery(String sql) throws SQLException {
+        requireJDBCConnection();
+
+        PreparedStatement statement = queryStatementCache.get(sql);
+        if(statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            queryStatementCache.put(sql,statement);
+        }
+        statement.clearParameters();
+        if(persistence.getDialect().isCursorSupported()) {
+            statement.setFetchSize(persistence.getConfiguration().getCursorSize());
+        }
+        return statement;
+    }
+
 
     /**
      * Get next number in a sequence; for databases without sequence support (e.g. MySQL), this method will first update a
@@ -2052,6 +2567,67 @@ public class KiWiConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * Return the (lower case) names of all indexes on the triples table.
+     *
+     * @return
+     * @throws SQLException
+     */
+    public Set<String> getTripleIndexNames() throws SQLException {
+        requireJDBCConnection();
+
+        Set<String> indexes = new HashSet<String>();
+        // depending on the database, unquoted table names are stored in upper or lower case
+        for(String table : new String[] {"triples", "TRIPLES"}) {
+            ResultSet result = connection.getMetaData().getIndexInfo(null, null, table, false, true);
+            try {
+                while(result.next()) {
+                    if(result.getString("INDEX_NAME") != null) {
+                        indexes.add(result.getString("INDEX_NAME").toLowerCase());
+                    }
+                }
+            } finally {
+                result.close();
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Create the given additional index on the triples table, using the statement of the database dialect.
+     *
+     * @param index
+     * @throws SQLException
+     */
+    public void createTripleIndex(TripleIndex index) throws SQLException {
+        executeDDL("index.create." + index.name().toLowerCase());
+    }
+
+    /**
+     * Drop the given additional index on the triples table, using the statement of the database dialect.
+     *
+     * @param index
+     * @throws SQLException
+     */
+    public void dropTripleIndex(TripleIndex index) throws SQLException {
+        executeDDL("index.drop." + index.name().toLowerCase());
+    }
+
+    private void executeDDL(String key) throws SQLException {
+        requireJDBCConnection();
+
+        if(!dialect.hasStatement(key)) {
+            throw new SQLException("the database dialect does not support the statement " + key);
+        }
+
+        java.sql.Statement statement = connection.createStatement();
+        try {
+            statement.execute(dialect.getStatement(key));
+        } finally {
+            statement.close();
+        }
+    }
+
     /**
      * Return the metadata value with the given key; can be used by KiWi modules to retrieve module-specific metadata.
      *
@@ -2349,6 +2925,11 @@ public class KiWiConnection implements AutoCloseable {
                         entry.getValue().close();
                     } catch (SQLException ex) {}
                 }
+                for(Map.Entry<String,PreparedStatement> entry : queryStatementCache.entrySet()) {
+                    try {
+                        entry.getValue().close();
+                    } catch (SQLException ex) {}
+                }
             } catch(AbstractMethodError ex) {
                 log.debug("database system does not allow closing statements");
             }
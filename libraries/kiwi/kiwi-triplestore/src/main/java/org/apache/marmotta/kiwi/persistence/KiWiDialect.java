@@ -43,7 +43,7 @@ public abstract class KiWiDialect {
 
     private static Logger log = LoggerFactory.getLogger(KiWiDialect.class);
 
-    private final static int VERSION = 2;
+    private final static int VERSION = 5;
     protected BloomFilter<URI> supportedFunctions;
 
     private Properties statements;
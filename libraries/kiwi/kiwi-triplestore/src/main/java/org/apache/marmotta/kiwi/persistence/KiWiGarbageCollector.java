@@ -24,10 +24,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -45,6 +42,14 @@ public class KiWiGarbageCollector extends Thread {
     private Set<TableDependency> tripleTableDependencies;
     private Set<TableDependency>  nodeTableDependencies;
 
+    // components currently holding triple IDs that are not yet stored in one of the dependent tables; deleted
+    // triples are not collected while this set is not empty
+    private final Set<Object> tripleCollectionHolds = new HashSet<>();
+
+    // true while the garbage collection of triples waits for the current holds to be released; new holds are
+    // delayed until the collection is finished, so that a steady stream of holds cannot suspend it forever
+    private boolean tripleCollectionWaiting = false;
+
     private long interval = TimeUnit.MILLISECONDS.convert(24L, TimeUnit.HOURS);
 
     private long round = 0;
@@ -101,27 +106,97 @@ public class KiWiGarbageCollector extends Thread {
         nodeTableDependencies.add(new TableDependency(tableName,columnName));
     }
 
+    /**
+     * Suspend the garbage collection of deleted triples until {@link #resumeTripleCollection(Object)} is called
+     * with the same holder. Used by components that keep references to triples outside the database for some time
+     * before storing them in one of the dependent tables (e.g. a write-behind journal). In case the garbage
+     * collection of triples is currently running or waiting for the existing holds to be released, the method waits
+     * until it is finished.
+     * <p/>
+     * The garbage collection waits at most {@link org.apache.marmotta.kiwi.config.KiWiConfiguration#getMaxTripleCollectionDelay()} milliseconds for
+     * the existing holds before skipping the collection of triples, so holders should release their hold as soon as
+     * the triples are stored.
+     *
+     * @param holder the component suspending the garbage collection
+     */
+    public void suspendTripleCollection(Object holder) {
+        synchronized (tripleCollectionHolds) {
+            while(tripleCollectionWaiting) {
+                try {
+                    tripleCollectionHolds.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            tripleCollectionHolds.add(holder);
+        }
+    }
+
+    /**
+     * Resume the garbage collection of deleted triples suspended by the given holder.
+     *
+     * @param holder the component that suspended the garbage collection
+     */
+    public void resumeTripleCollection(Object holder) {
+        synchronized (tripleCollectionHolds) {
+            tripleCollectionHolds.remove(holder);
+            tripleCollectionHolds.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until all current holds on the garbage collection of triples have been released, at most the configured
+     * maximum delay. Must be called while holding the lock on the holds; new holds are delayed until
+     * tripleCollectionWaiting is reset by the caller.
+     *
+     * @return true if there are no more holds, false if the maximum delay elapsed before
+     */
+    private boolean awaitTripleCollectionHolds() {
+        tripleCollectionWaiting = true;
+
+        long deadline = System.currentTimeMillis() + persistence.getConfiguration().getMaxTripleCollectionDelay();
+        try {
+            while(!tripleCollectionHolds.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    return false;
+                }
+                tripleCollectionHolds.wait(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     protected boolean checkConsistency() throws SQLException {
         boolean consistent = true;
 
-        String checkNodeDuplicatesQuery = "SELECT svalue, ntype, count(id) FROM nodes group by svalue, ntype having count(id) > 1";
-
         try(Connection con = persistence.getJDBCConnection()) {
-            PreparedStatement checkNodeDuplicatesStatement = con.prepareStatement(checkNodeDuplicatesQuery);
+            PreparedStatement checkNodeDuplicatesStatement = con.prepareStatement(persistence.getDialect().getStatement("gc.check_consistency"));
+            PreparedStatement getNodeIdsStatement = con.prepareStatement(persistence.getDialect().getStatement("gc.list_node_ids"));
 
+            // nodes with the same content have the same fingerprint, but nodes sharing a fingerprint are only
+            // duplicates if they also have the same content
             try(ResultSet result = checkNodeDuplicatesStatement.executeQuery()) {
-                if(result.next()) {
-                    log.warn("DATABASE INCONSISTENCY: duplicate node entries found, please try to fix the consistency with fixConsistency()!");
-                    do {
-                        if(result.getString("ntype").equals("uri")) {
-                            log.warn(" - inconsistent resource: {}", result.getString("svalue"));
+                while(result.next()) {
+                    for(Map.Entry<List<Object>,List<Long>> nodes : listNodesByContent(getNodeIdsStatement, result.getLong(1)).entrySet()) {
+                        if(nodes.getValue().size() > 1) {
+                            if(consistent) {
+                                log.warn("DATABASE INCONSISTENCY: duplicate node entries found, please try to fix the consistency with fixConsistency()!");
+                                consistent = false;
+                            }
+                            if(nodes.getKey().get(0).equals("uri")) {
+                                log.warn(" - inconsistent resource: {}", nodes.getKey().get(1));
+                            }
                         }
-                    } while(result.next());
-
-                    consistent = false;
+                    }
                 }
             }
-
+            getNodeIdsStatement.close();
+            checkNodeDuplicatesStatement.close();
         }
 
         if(!consistent) {
@@ -138,61 +213,84 @@ public class KiWiGarbageCollector extends Thread {
 
 
     protected void fixConsistency() throws SQLException {
-        String checkNodeDuplicatesQuery = "SELECT svalue, ntype, count(id), max(id) FROM nodes group by svalue, ntype having count(id) > 1";
-        String getNodeIdsQuery = "SELECT id FROM nodes WHERE svalue = ? AND ntype = ? AND id != ?";
-
         try(Connection con = persistence.getJDBCConnection(true)) {
             PreparedStatement checkNodeDuplicatesStatement = con.prepareStatement(persistence.getDialect().getStatement("gc.check_consistency"));
             PreparedStatement getNodeIdsStatement = con.prepareStatement(persistence.getDialect().getStatement("gc.list_node_ids"));
 
             ResultSet result = checkNodeDuplicatesStatement.executeQuery();
             while(result.next()) {
-                if(result.getString("ntype").equals("uri")) {
-                    log.warn("DATABASE INCONSISTENCY: attempting to fix references for resource {}", result.getString("svalue"));
-                } else {
-                    log.warn("DATABASE INCONSISTENCY: attempting to fix references for literal or anonymous node {}", result.getString("svalue"));
-                }
-
-                long latest_id = result.getLong(4);
-
-                // first we collect all ids of nodes that have the same svalue and ntype
-                getNodeIdsStatement.clearParameters();
-                getNodeIdsStatement.setString(1, result.getString("svalue"));
-                getNodeIdsStatement.setString(2,result.getString("ntype"));
-                getNodeIdsStatement.setLong(3, latest_id);
+                for(Map.Entry<List<Object>,List<Long>> nodes : listNodesByContent(getNodeIdsStatement, result.getLong(1)).entrySet()) {
+                    if(nodes.getValue().size() < 2) {
+                        continue;
+                    }
+                    // the nodes are listed with descending ids, so the first node is the latest version
+                    long latest_id = nodes.getValue().get(0);
+                    List<Long> ids = nodes.getValue().subList(1, nodes.getValue().size());
+
+                    if(nodes.getKey().get(0).equals("uri")) {
+                        log.warn("DATABASE INCONSISTENCY: attempting to fix references for resource {}", nodes.getKey().get(1));
+                    } else {
+                        log.warn("DATABASE INCONSISTENCY: attempting to fix references for literal or anonymous node {}", nodes.getKey().get(1));
+                    }
 
-                ArrayList<Long> ids = new ArrayList<>();
-                try(ResultSet idResult = getNodeIdsStatement.executeQuery()) {
-                    while(idResult.next()) {
-                        ids.add(idResult.getLong(1));
+                    // we "fix" the triples table by making sure that all subjects, predicates, objects and contexts point to
+                    // the latest version only; we use the nodes dependency table for this purpose
+                    for(TableDependency dep : nodeTableDependencies) {
+                        String fixNodeIdsQuery = "UPDATE " + dep.table + " SET " + dep.column + " = " + latest_id + " WHERE " + dep.column + " = ?";
+                        PreparedStatement fixNodeIdsStatement = con.prepareStatement(fixNodeIdsQuery);
+                        for(Long id : ids) {
+                            fixNodeIdsStatement.setLong(1, id);
+                            fixNodeIdsStatement.addBatch();
+                        }
+                        fixNodeIdsStatement.executeBatch();
+                        fixNodeIdsStatement.close();
                     }
-                }
-                getNodeIdsStatement.close();
 
-                // then we "fix" the triples table by making sure that all subjects, predicates, objects and contexts point to
-                // the latest version only; we use the nodes dependency table for this purpose
-                for(TableDependency dep : nodeTableDependencies) {
-                    String fixNodeIdsQuery = "UPDATE " + dep.table + " SET " + dep.column + " = " + latest_id + " WHERE " + dep.column + " = ?";
-                    PreparedStatement fixNodeIdsStatement = con.prepareStatement(fixNodeIdsQuery);
+                    // finally we clean up all now unused node ids
+                    String deleteDuplicatesQuery = "DELETE FROM nodes WHERE id = ?";
+                    PreparedStatement deleteDuplicatesStatement = con.prepareStatement(deleteDuplicatesQuery);
                     for(Long id : ids) {
-                        fixNodeIdsStatement.setLong(1, id);
-                        fixNodeIdsStatement.addBatch();
+                        deleteDuplicatesStatement.setLong(1, id);
+                        deleteDuplicatesStatement.addBatch();
                     }
-                    fixNodeIdsStatement.executeBatch();
+                    deleteDuplicatesStatement.executeBatch();
+                    deleteDuplicatesStatement.close();
                 }
+            }
+            getNodeIdsStatement.close();
+            checkNodeDuplicatesStatement.close();
+        }
+    }
+
 
-                // finally we clean up all now unused node ids
-                String deleteDuplicatesQuery = "DELETE FROM nodes WHERE id = ?";
-                PreparedStatement deleteDuplicatesStatement = con.prepareStatement(deleteDuplicatesQuery);
-                for(Long id : ids) {
-                    deleteDuplicatesStatement.setLong(1, id);
-                    deleteDuplicatesStatement.addBatch();
+    /**
+     * List the nodes with the given fingerprint, grouped by their content (ntype, svalue, lang and ltype). The ids
+     * of each group are in descending order, so the first id is the latest version of the node.
+     */
+    private Map<List<Object>,List<Long>> listNodesByContent(PreparedStatement getNodeIdsStatement, long fingerprint) throws SQLException {
+        Map<List<Object>,List<Long>> nodes = new HashMap<>();
+
+        getNodeIdsStatement.clearParameters();
+        getNodeIdsStatement.setLong(1, fingerprint);
+        try(ResultSet idResult = getNodeIdsStatement.executeQuery()) {
+            while(idResult.next()) {
+                Long ltype = idResult.getLong("ltype");
+                if(idResult.wasNull()) {
+                    ltype = null;
                 }
-                deleteDuplicatesStatement.executeBatch();
-                deleteDuplicatesStatement.close();
+                List<Object> content = Arrays.<Object>asList(
+                        idResult.getString("ntype").trim(),
+                        idResult.getString("svalue"),
+                        idResult.getString("lang"),
+                        ltype);
+
+                if(!nodes.containsKey(content)) {
+                    nodes.put(content, new ArrayList<Long>());
+                }
+                nodes.get(content).add(idResult.getLong("id"));
             }
-            checkNodeDuplicatesStatement.close();
         }
+        return nodes;
     }
 
 
@@ -205,17 +303,28 @@ public class KiWiGarbageCollector extends Thread {
         try {
             int count = 0;
 
-            // garbage collect triples
-            try {
-                String gcTripleQuery = buildGCTriplesQuery();
-                PreparedStatement stmtGcTriples = con.prepareStatement(gcTripleQuery);
-                count += stmtGcTriples.executeUpdate();
-                stmtGcTriples.close();
-                con.commit();
-            } catch (SQLException ex) {
-                con.rollback();
-
-                log.warn("SQL error while executing garbage collection on triples table: {}", ex.getMessage());
+            // garbage collect triples; holders cannot suspend the collection while the deletion is running
+            synchronized (tripleCollectionHolds) {
+                try {
+                    if(!awaitTripleCollectionHolds()) {
+                        log.warn("garbage collection of triples is still suspended by {} holder(s) after {} ms, skipping", tripleCollectionHolds.size(), persistence.getConfiguration().getMaxTripleCollectionDelay());
+                    } else {
+                        try {
+                            String gcTripleQuery = buildGCTriplesQuery();
+                            PreparedStatement stmtGcTriples = con.prepareStatement(gcTripleQuery);
+                            count += stmtGcTriples.executeUpdate();
+                            stmtGcTriples.close();
+                            con.commit();
+                        } catch (SQLException ex) {
+                            con.rollback();
+
+                            log.warn("SQL error while executing garbage collection on triples table: {}", ex.getMessage());
+                        }
+                    }
+                } finally {
+                    tripleCollectionWaiting = false;
+                    tripleCollectionHolds.notifyAll();
+                }
             }
 
             // garbage collect nodes (only every 10th garbage collection, only makes sense when we previously deleted triples ...)
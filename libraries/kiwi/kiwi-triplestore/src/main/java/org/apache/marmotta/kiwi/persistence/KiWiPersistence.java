@@ -17,10 +17,9 @@
  */
 package org.apache.marmotta.kiwi.persistence;
 
-import org.apache.marmotta.kiwi.caching.CacheManager;
-import org.apache.marmotta.kiwi.caching.CacheManagerFactory;
-import org.apache.marmotta.kiwi.caching.GuavaCacheManagerFactory;
+import org.apache.marmotta.kiwi.caching.*;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.generator.IDGenerator;
 import org.apache.marmotta.kiwi.generator.SnowflakeIDGenerator;
 import org.apache.marmotta.kiwi.persistence.util.ScriptRunner;
@@ -139,6 +138,19 @@ public class KiWiPersistence {
             CacheManagerFactory factory = new GuavaCacheManagerFactory();
             cacheManager = factory.createCacheManager(configuration);
         }
+
+        if(configuration.isClustered() && configuration.isNearCacheEnabled()) {
+            CacheInvalidationChannel channel = null;
+            if(cacheManager instanceof ClusteredCacheManager) {
+                channel = ((ClusteredCacheManager) cacheManager).getInvalidationChannel();
+            }
+
+            if(channel != null) {
+                cacheManager = new NearCacheManager(cacheManager, channel, configuration);
+            } else {
+                log.warn("near caches are not supported by caching backend {} in this configuration; using clustered caches only", configuration.getCachingBackend());
+            }
+        }
     }
 
 
@@ -209,6 +221,59 @@ public class KiWiPersistence {
 
     public void initDatabase() throws SQLException {
         initDatabase("base", new String[] {"nodes", "triples", "namespaces","metadata"});
+        createTripleIndexes();
+    }
+
+    /**
+     * Create the additional triple indexes configured in the KiWiConfiguration (see {@link TripleIndex}) in case
+     * they do not exist yet. Creating an index on an existing large database may take a while.
+     *
+     * @throws SQLException
+     */
+    public void createTripleIndexes() throws SQLException {
+        if(configuration.getTripleIndexes().isEmpty()) {
+            return;
+        }
+
+        KiWiConnection connection = getConnection();
+        try {
+            Set<String> existing = connection.getTripleIndexNames();
+            for(TripleIndex index : configuration.getTripleIndexes()) {
+                if(!existing.contains(index.getIndexName())) {
+                    log.info("creating triple index {} ...", index.getIndexName());
+                    connection.createTripleIndex(index);
+                }
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            log.error("SQL exception while creating triple indexes, rolling back");
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Drop an additional triple index, e.g. after it has been removed from the configuration.
+     *
+     * @param index the index to drop
+     * @throws SQLException
+     */
+    public void dropTripleIndex(TripleIndex index) throws SQLException {
+        KiWiConnection connection = getConnection();
+        try {
+            if(connection.getTripleIndexNames().contains(index.getIndexName())) {
+                log.info("dropping triple index {} ...", index.getIndexName());
+                connection.dropTripleIndex(index);
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.close();
+        }
     }
 
 
@@ -269,6 +334,37 @@ public class KiWiPersistence {
 
     }
 
+    /**
+     * Upgrade the tables of a module in case the given table does not exist yet, by running the upgrade scripts of the
+     * module starting with the given version. The base tables are initialised first and already carry the current
+     * schema version, so modules use this method to detect schema changes of their own tables.
+     *
+     * @param scriptName  the name of the upgrade scripts to run (e.g. "versioning")
+     * @param fromVersion the schema version before the given table was introduced
+     * @param checkTable  the table introduced by the upgrade
+     */
+    public void upgradeDatabase(String scriptName, int fromVersion, String checkTable) throws SQLException {
+        KiWiConnection connection = getConnection();
+        try {
+            if(!connection.getDatabaseTables().contains(checkTable)) {
+                log.info("upgrading {} tables of KiWi database from version {} to version {}", scriptName, fromVersion, configuration.getDialect().getVersion());
+
+                ScriptRunner runner = new ScriptRunner(connection.getJDBCConnection(), false, false);
+                runner.runScript(new StringReader(configuration.getDialect().getMigrationScript(fromVersion, scriptName)));
+            }
+            connection.getJDBCConnection().commit();
+        } catch (SQLException ex) {
+            log.error("SQL exception while upgrading database, rolling back");
+            connection.rollback();
+            throw ex;
+        } catch (IOException ex) {
+            log.error("I/O exception while upgrading database, rolling back");
+            connection.rollback();
+        } finally {
+            connection.close();
+        }
+    }
+
     /**
      * Remove all KiWi base tables from the SQL database. This method will run the drop script of the respective dialect and
      * return.
@@ -445,6 +541,26 @@ public class KiWiPersistence {
         garbageCollector.addTripleTableDependency(tableName, columnName);
     }
 
+    /**
+     * Suspend the garbage collection of deleted triples until resumeTripleCollection is called with the same
+     * holder. Components that keep references to triples outside the database before storing them in a dependent
+     * table (see addTripleTableDependency) use this to prevent the triples from being removed in the meantime.
+     *
+     * @param holder
+     */
+    public void suspendTripleCollection(Object holder) {
+        garbageCollector.suspendTripleCollection(holder);
+    }
+
+    /**
+     * Resume the garbage collection of deleted triples suspended by the given holder.
+     *
+     * @param holder
+     */
+    public void resumeTripleCollection(Object holder) {
+        garbageCollector.resumeTripleCollection(holder);
+    }
+
 
     public void shutdown() {
         log.info("shutting down KiWi persistence ...");
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.persistence.util;
+package org.apache.marmotta.kiwi.persistence.util;
+
+import com.google.common.collect.Iterators;
+import org.apache.marmotta.commons.sesame.tripletable.TripleTable;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.openrdf.model.Statement;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * A set of statements for the transaction data of a KiWi store (see
+ * {@link org.apache.marmotta.commons.sesame.tripletable.TripleSetFactory}). KiWi triples are kept in a compact
+ * {@link KiWiTripleTable} indexed by the database ids of their nodes, so a large transaction needs about 60 bytes per
+ * triple in addition to the triples themselves instead of the several index entries and keys of the generic
+ * {@link TripleTable}. Statements whose nodes have no database id are kept in a generic triple table that is only
+ * created when needed.
+ */
+public class KiWiTripleSet extends AbstractSet<Statement> {
+
+    private final KiWiTripleTable triples;
+
+    private TripleTable<Statement> others;
+
+    public KiWiTripleSet() {
+        triples = new KiWiTripleTable();
+    }
+
+    @Override
+    public int size() {
+        return triples.size() + (others != null ? others.size() : 0);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return triples.contains(o) || others != null && others.contains(o);
+    }
+
+    @Override
+    public boolean add(Statement statement) {
+        if(KiWiTripleTable.isStorable(statement)) {
+            return triples.add((KiWiTriple) statement);
+        } else {
+            if(others == null) {
+                others = new TripleTable<>();
+            }
+            return others.add(statement);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return triples.remove(o) || others != null && others.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        triples.clear();
+        others = null;
+    }
+
+    @Override
+    public Iterator<Statement> iterator() {
+        return Iterators.<Statement>concat(triples.iterator(), others != null ? others.iterator() : Collections.<Statement>emptyIterator());
+    }
+}
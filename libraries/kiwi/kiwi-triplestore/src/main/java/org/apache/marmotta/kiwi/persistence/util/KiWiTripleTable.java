@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.persistence.util;
+
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A compact in-memory table of KiWi triples, used for the triples of a transaction that have not yet been written
+ * to the database. Unlike the generic {@link org.apache.marmotta.commons.sesame.tripletable.TripleTable}, triples are
+ * identified by the database ids of their nodes: the ids are kept in primitive column arrays, and the table is indexed
+ * by sorted arrays of row numbers in SPOC, POSC, OSPC and CSPO order, so lookups by any combination of subject,
+ * predicate, object and context are answered by a binary search. This takes about 60 bytes per triple in addition to
+ * the triple objects themselves.
+ * <p/>
+ * New triples are appended to an unsorted tail that is merged into the sorted indexes once it grows beyond a fraction
+ * of the table size; removed triples are only marked as deleted and dropped when the indexes are merged or the table
+ * is compacted. The table may be read concurrently; all methods returning collections return copies.
+ * <p/>
+ * Two triples are considered equal if their subject, predicate, object and context have the same ids, i.e. the
+ * table has the same semantics as a quadruple set. All nodes of the triples must have been assigned a database id.
+ */
+public class KiWiTripleTable extends AbstractSet<KiWiTriple> {
+
+    private static final int S = 0, P = 1, O = 2, C = 3;
+
+    /**
+     * The column orders of the indexes; a lookup uses the index with the longest prefix of bound columns
+     */
+    private static final int[][] ORDERS = {
+            { S, P, O, C },
+            { P, O, S, C },
+            { O, S, P, C },
+            { C, S, P, O }
+    };
+
+    // wildcard in lookup patterns
+    private static final long ANY = Long.MIN_VALUE;
+
+    // id stored for the null context and used for nodes without database id
+    private static final long NO_ID = -1L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // lower bound for the size of the unsorted tail before it is merged into the indexes
+    private static final int MIN_TAIL = 16;
+
+    private static final int DEFAULT_EXPECTED_SIZE = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // number of unsorted rows tolerated before merging, derived from the expected size of the table
+    private final int minTail;
+
+    private long[][] columns;
+
+    private KiWiTriple[] triples;
+
+    // number of rows in use (including deleted rows)
+    private int rows;
+
+    // number of rows that have not been deleted
+    private int live;
+
+    // rows below this number are contained in the sorted indexes
+    private int merged;
+
+    // for each order, the rows below merged sorted by the columns of the order
+    private int[][] indexes;
+
+
+    public KiWiTripleTable() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Create a table for the given number of triples (e.g. the batch size of a connection). The unsorted tail is
+     * merged into the indexes once it exceeds 1/16 of this size (or 1/64 of the table, if the table grows larger),
+     * so lookups only scan a small number of rows even if the table never grows beyond the expected size.
+     *
+     * @param expectedSize the number of triples the table is expected to hold
+     */
+    public KiWiTripleTable(int expectedSize) {
+        minTail = Math.max(MIN_TAIL, expectedSize / 16);
+        init(INITIAL_CAPACITY);
+    }
+
+    private void init(int capacity) {
+        columns = new long[4][capacity];
+        triples = new KiWiTriple[capacity];
+        indexes = new int[ORDERS.length][0];
+        rows    = 0;
+        live    = 0;
+        merged  = 0;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if(!(o instanceof Statement)) {
+            return false;
+        }
+        long[] key = key((Statement) o);
+        if(key == null) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return find(key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean add(KiWiTriple triple) {
+        long[] key = key(triple);
+        if(key == null) {
+            throw new IllegalArgumentException("the nodes of the triple "+triple+" have not been assigned a database id");
+        }
+
+        lock.writeLock().lock();
+        try {
+            if(find(key) >= 0) {
+                return false;
+            }
+
+            if(rows == triples.length) {
+                grow();
+            }
+            for(int i=0; i<4; i++) {
+                columns[i][rows] = key[i];
+            }
+            triples[rows] = triple;
+            rows++;
+            live++;
+
+            if(rows - merged > Math.max(minTail, merged / 64)) {
+                mergeTail();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if(!(o instanceof Statement)) {
+            return false;
+        }
+        long[] key = key((Statement) o);
+        if(key == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int row = find(key);
+            if(row < 0) {
+                return false;
+            }
+            triples[row] = null;
+            live--;
+
+            if(live < rows / 2 && rows > minTail) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for(Object o : c) {
+            modified = remove(o) || modified;
+        }
+        return modified;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            init(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the triples in this table, in the order they have been added. Removing
+     * triples through the iterator removes them from the table.
+     */
+    @Override
+    public Iterator<KiWiTriple> iterator() {
+        final Iterator<KiWiTriple> snapshot = listTriples(null, null, null, null, true).iterator();
+        return new Iterator<KiWiTriple>() {
+            private KiWiTriple current;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public KiWiTriple next() {
+                current = snapshot.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if(current == null) {
+                    throw new IllegalStateException();
+                }
+                KiWiTripleTable.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    /**
+     * Return the triples matching the filter criteria. Arguments with null value are treated as wildcards; values
+     * that are not KiWi nodes with a database id do not match any triple.
+     *
+     * @param subject         the subject to match, or null
+     * @param property        the property to match, or null
+     * @param object          the object to match, or null
+     * @param context         the context to match, or null
+     * @param wildcardContext kept for compatibility with {@link org.apache.marmotta.commons.sesame.tripletable.TripleTable},
+     *                        a null context is always a wildcard
+     * @return a copy of the matching triples
+     */
+    public Collection<KiWiTriple> listTriples(Resource subject, URI property, Value object, Resource context, boolean wildcardContext) {
+        final long[] pattern = new long[4];
+        pattern[S] = subject  != null ? id(subject)  : ANY;
+        pattern[P] = property != null ? id(property) : ANY;
+        pattern[O] = object   != null ? id(object)   : ANY;
+        pattern[C] = context  != null ? id(context)  : ANY;
+        for(long id : pattern) {
+            if(id == NO_ID) {
+                // a node without database id cannot be part of any triple in the table
+                return Collections.emptyList();
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            List<KiWiTriple> result = new ArrayList<>();
+
+            // choose the index with the longest prefix of bound columns
+            int best = -1, bestLength = 0;
+            for(int i=0; i<ORDERS.length; i++) {
+                int length = 0;
+                while(length < 4 && pattern[ORDERS[i][length]] != ANY) {
+                    length++;
+                }
+                if(length > bestLength) {
+                    best = i;
+                    bestLength = length;
+                }
+            }
+
+            if(best < 0) {
+                for(int row = 0; row < rows; row++) {
+                    if(triples[row] != null) {
+                        result.add(triples[row]);
+                    }
+                }
+            } else {
+                final int[] order = ORDERS[best], index = indexes[best];
+                for(int pos = lowerBound(index, order, pattern, bestLength); pos < index.length && compare(index[pos], order, pattern, bestLength) == 0; pos++) {
+                    int row = index[pos];
+                    if(triples[row] != null && matches(row, pattern)) {
+                        result.add(triples[row]);
+                    }
+                }
+                for(int row = merged; row < rows; row++) {
+                    if(triples[row] != null && matches(row, pattern)) {
+                        result.add(triples[row]);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return the contexts of all triples in the table.
+     */
+    public Collection<Resource> listContextIDs() {
+        lock.readLock().lock();
+        try {
+            Set<Resource> result = new HashSet<>();
+            for(int row = 0; row < rows; row++) {
+                if(triples[row] != null) {
+                    result.add(triples[row].getContext());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the row of the triple with the given ids, or -1 if the table does not contain such a triple.
+     */
+    private int find(long[] key) {
+        final int[] order = ORDERS[0], index = indexes[0];
+        for(int pos = lowerBound(index, order, key, 4); pos < index.length && compare(index[pos], order, key, 4) == 0; pos++) {
+            if(triples[index[pos]] != null) {
+                return index[pos];
+            }
+        }
+        for(int row = merged; row < rows; row++) {
+            if(triples[row] != null && matches(row, key)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int row, long[] pattern) {
+        for(int i=0; i<4; i++) {
+            if(pattern[i] != ANY && columns[i][row] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare the first length columns of the given order of a row with the pattern.
+     */
+    private int compare(int row, int[] order, long[] pattern, int length) {
+        for(int i=0; i<length; i++) {
+            int c = Long.compare(columns[order[i]][row], pattern[order[i]]);
+            if(c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private int lowerBound(int[] index, int[] order, long[] pattern, int length) {
+        int low = 0, high = index.length;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(compare(index[mid], order, pattern, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void grow() {
+        int capacity = triples.length * 2;
+        for(int i=0; i<4; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        triples = Arrays.copyOf(triples, capacity);
+    }
+
+    /**
+     * Sort the rows added since the last merge and merge them into the indexes, dropping deleted rows.
+     */
+    private void mergeTail() {
+        for(int i=0; i<ORDERS.length; i++) {
+            final int[] order = ORDERS[i];
+            final Comparator<Integer> comparator = new Comparator<Integer>() {
+                @Override
+                public int compare(Integer r1, Integer r2) {
+                    for(int column : order) {
+                        int c = Long.compare(columns[column][r1], columns[column][r2]);
+                        if(c != 0) {
+                            return c;
+                        }
+                    }
+                    return 0;
+                }
+            };
+
+            List<Integer> tail = new ArrayList<>(rows - merged);
+            for(int row = merged; row < rows; row++) {
+                if(triples[row] != null) {
+                    tail.add(row);
+                }
+            }
+            Collections.sort(tail, comparator);
+
+            final int[] index = indexes[i];
+            final int[] result = new int[index.length + tail.size()];
+            int n = 0, pos = 0, tpos = 0;
+            while(pos < index.length || tpos < tail.size()) {
+                if(pos < index.length && triples[index[pos]] == null) {
+                    pos++;
+                } else if(tpos >= tail.size() || (pos < index.length && comparator.compare(index[pos], tail.get(tpos)) <= 0)) {
+                    result[n++] = index[pos++];
+                } else {
+                    result[n++] = tail.get(tpos++);
+                }
+            }
+            indexes[i] = n < result.length ? Arrays.copyOf(result, n) : result;
+        }
+        merged = rows;
+    }
+
+    /**
+     * Rebuild the table without the deleted rows.
+     */
+    private void compact() {
+        final long[][] oldColumns = columns;
+        final KiWiTriple[] oldTriples = triples;
+        final int oldRows = rows;
+
+        init(Math.max(INITIAL_CAPACITY, live * 2));
+        for(int row = 0; row < oldRows; row++) {
+            if(oldTriples[row] != null) {
+                for(int i=0; i<4; i++) {
+                    columns[i][rows] = oldColumns[i][row];
+                }
+                triples[rows++] = oldTriples[row];
+            }
+        }
+        live = rows;
+        mergeTail();
+    }
+
+    /**
+     * Check whether the statement can be added to a table, i.e. all its nodes are KiWi nodes with a database id.
+     */
+    static boolean isStorable(Statement triple) {
+        return triple instanceof KiWiTriple && key(triple) != null;
+    }
+
+    private static long[] key(Statement triple) {
+        long[] key = new long[4];
+        key[S] = id(triple.getSubject());
+        key[P] = id(triple.getPredicate());
+        key[O] = id(triple.getObject());
+        for(int i=0; i<3; i++) {
+            if(key[i] == NO_ID) {
+                return null;
+            }
+        }
+        key[C] = triple.getContext() != null ? id(triple.getContext()) : NO_ID;
+        if(triple.getContext() != null && key[C] == NO_ID) {
+            return null;
+        }
+        return key;
+    }
+
+    /**
+     * The database id of a node, or -1 in case it is not a KiWi node or has not been assigned an id yet.
+     */
+    private static long id(Value value) {
+        if(value instanceof KiWiNode && ((KiWiNode) value).getId() >= 0) {
+            return ((KiWiNode) value).getId();
+        } else {
+            return NO_ID;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.persistence.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.primitives.Longs;
+import org.apache.marmotta.kiwi.model.rdf.KiWiAnonResource;
+import org.apache.marmotta.kiwi.model.rdf.KiWiLiteral;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the 64 bit content fingerprint stored in the fingerprint column of the nodes table. The fingerprint
+ * consists of the first 8 bytes (big endian) of the MD5 digest of the string
+ * <code>kind|lang|ltype|svalue</code>, where kind is "uri", "bnode" or "literal" (all literal node types share the
+ * same kind, because a typed literal lookup does not know whether the value has been stored as int, double or
+ * string), lang and ltype are empty in case they are null, and ltype is the database ID of the datatype (left empty
+ * for language literals, whose datatype is implicit).
+ * <p/>
+ * The same function is implemented in SQL by the upgrade scripts that backfill existing databases, so the definition
+ * must not change without a schema migration. Lookups must still compare the svalue, because different nodes may
+ * share the same fingerprint.
+ */
+public class NodeFingerprint {
+
+    private NodeFingerprint() {
+    }
+
+    /**
+     * Compute the fingerprint of the URI resource with the given URI.
+     */
+    public static long uri(String uri) {
+        return compute("uri", uri, null, null);
+    }
+
+    /**
+     * Compute the fingerprint of the anonymous resource with the given anonymous ID.
+     */
+    public static long bnode(String anonId) {
+        return compute("bnode", anonId, null, null);
+    }
+
+    /**
+     * Compute the fingerprint of a literal with the given content, language and datatype ID.
+     *
+     * @param content the string content of the literal (svalue)
+     * @param lang    the language as stored in the database (optional)
+     * @param ltype   the database ID of the datatype (optional)
+     */
+    public static long literal(String content, String lang, Long ltype) {
+        return compute("literal", content, lang, ltype);
+    }
+
+    /**
+     * Compute the fingerprint of the node given as argument, using the values that are stored in the database
+     * for the node. The datatype of a literal must already have been persisted.
+     */
+    public static long of(KiWiNode node) {
+        if(node instanceof KiWiUriResource) {
+            return uri(node.stringValue());
+        } else if(node instanceof KiWiAnonResource) {
+            return bnode(node.stringValue());
+        } else if(node instanceof KiWiLiteral) {
+            KiWiLiteral literal = (KiWiLiteral) node;
+            return literal(
+                    literal.getContent(),
+                    literal.getLocale() != null ? literal.getLocale().getLanguage() : null,
+                    literal.getType() != null ? literal.getType().getId() : null);
+        } else {
+            throw new IllegalArgumentException("unrecognized node type: " + node.getClass().getCanonicalName());
+        }
+    }
+
+    /**
+     * Compute the fingerprint from the raw column values of a row in the nodes table. This method is also registered
+     * as SQL function by the H2 upgrade script, so it has to stay public and static.
+     *
+     * @param ntype  the value of the ntype column
+     * @param svalue the value of the svalue column
+     * @param lang   the value of the lang column (may be null)
+     * @param ltype  the value of the ltype column (may be null)
+     */
+    public static long compute(String ntype, String svalue, String lang, Long ltype) {
+        String kind = ntype.trim();
+        if(!"uri".equals(kind) && !"bnode".equals(kind)) {
+            kind = "literal";
+        }
+
+        StringBuilder key = new StringBuilder(svalue.length() + 32);
+        key.append(kind).append('|');
+        if(lang != null) {
+            key.append(lang);
+        }
+        key.append('|');
+        // the datatype of a language literal is implicit and not used when looking it up
+        if(ltype != null && lang == null) {
+            key.append(ltype.longValue());
+        }
+        key.append('|').append(svalue);
+
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            return Longs.fromByteArray(md5.digest(key.toString().getBytes(Charsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 digest not supported by the JVM", e);
+        }
+    }
+}
@@ -19,9 +19,9 @@ package org.apache.marmotta.kiwi.sail;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import info.aduna.iteration.*;
 import org.apache.marmotta.commons.sesame.repository.ResourceConnection;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.exception.ResultInterruptedException;
 import org.apache.marmotta.kiwi.model.rdf.*;
 import org.apache.marmotta.kiwi.persistence.KiWiConnection;
@@ -51,8 +51,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -148,11 +150,23 @@ public class KiWiSailConnection extends NotifyingSailConnectionBase implements I
                 contextSet.add(valueFactory.createURI(inferredContext));
             }
 
+            // resolve subject, predicate, object and all contexts with one batch lookup
+            List<Value> values = new ArrayList<Value>(contextSet.size() + 3);
+            values.add(subj);
+            values.add(pred);
+            values.add(obj);
+            values.addAll(contextSet);
+            List<KiWiNode> nodes = valueFactory.convert(values);
+
+            KiWiResource    ksubj = (KiWiResource)nodes.get(0);
+            KiWiUriResource kpred = (KiWiUriResource)nodes.get(1);
+            KiWiNode        kobj  = nodes.get(2);
+
             Set<KiWiTriple> added = new HashSet<KiWiTriple>();
-            for(Resource context : contextSet) {
-                KiWiResource kcontext = valueFactory.convert(context);
+            for(KiWiNode context : nodes.subList(3, nodes.size())) {
+                KiWiResource kcontext = (KiWiResource)context;
 
-                KiWiTriple triple = (KiWiTriple)valueFactory.createStatement(subj,pred,obj,kcontext, databaseConnection);
+                KiWiTriple triple = (KiWiTriple)valueFactory.createStatement(ksubj,kpred,kobj,kcontext, databaseConnection);
                 triple.setInferred(inferred);
 
                 databaseConnection.storeTriple(triple);
@@ -216,7 +230,7 @@ public class KiWiSailConnection extends NotifyingSailConnectionBase implements I
             new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, bindings);
             new SameTermFilterOptimizer().optimize(tupleExpr, dataset, bindings);
             new QueryModelNormalizer().optimize(tupleExpr, dataset, bindings);
-            new QueryJoinOptimizer(new KiWiEvaluationStatistics()).optimize(tupleExpr, dataset, bindings);
+            new QueryJoinOptimizer(new KiWiEvaluationStatistics(databaseConnection.getConfiguration().getTripleIndexes())).optimize(tupleExpr, dataset, bindings);
             new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
             new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
             new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
@@ -250,26 +264,29 @@ public class KiWiSailConnection extends NotifyingSailConnectionBase implements I
 
     @Override
     protected CloseableIteration<? extends Statement, SailException> getStatementsInternal(Resource subj, URI pred, Value obj, final boolean includeInferred, Resource... contexts) throws SailException {
-        final KiWiResource rsubj    = valueFactory.convert(subj);
-        final KiWiUriResource rpred = valueFactory.convert(pred);
-        final KiWiNode robj         = valueFactory.convert(obj);
+        // resolve subject, predicate, object and all contexts with one batch lookup
+        List<Value> values = new ArrayList<Value>(contexts.length + 3);
+        values.add(subj);
+        values.add(pred);
+        values.add(obj);
+        for(Resource context : contexts) {
+            if(context == null && defaultContext != null) {
+                // null value for context means statements without context; in KiWi, this means "default context"
+                values.add(valueFactory.createURI(defaultContext));
+            } else {
+                values.add(context);
+            }
+        }
+        List<KiWiNode> nodes = valueFactory.convert(values);
+
+        final KiWiResource rsubj    = (KiWiResource)nodes.get(0);
+        final KiWiUriResource rpred = (KiWiUriResource)nodes.get(1);
+        final KiWiNode robj         = nodes.get(2);
 
         Set<KiWiResource> contextSet = new HashSet<KiWiResource>();
-        contextSet.addAll(Lists.transform(Arrays.asList(contexts), new Function<Resource, KiWiResource>() {
-            @Override
-            public KiWiResource apply(Resource input) {
-                if(input == null) {
-                    if(defaultContext != null) {
-                        // null value for context means statements without context; in KiWi, this means "default context"
-                        return (KiWiUriResource)valueFactory.createURI(defaultContext);
-                    } else {
-                        return null;
-                    }
-                } else {
-                    return valueFactory.convert(input);
-                }
-            }
-        }));
+        for(KiWiNode context : nodes.subList(3, nodes.size())) {
+            contextSet.add((KiWiResource)context);
+        }
 
         Set<DelayedIteration<Statement,RepositoryException>> iterations = new HashSet<DelayedIteration<Statement, RepositoryException>>();
         if(contextSet.size() > 0) {
@@ -709,9 +726,20 @@ public class KiWiSailConnection extends NotifyingSailConnectionBase implements I
         // handled by garbage collection
     }
 
+    /**
+     * Evaluation statistics taking into account the indexes on the triples table, so the join optimizer prefers
+     * patterns that are backed by an index (see {@link TripleIndex#getCardinalityPenalty(java.util.Set, boolean, boolean, boolean, boolean)}).
+     */
     protected static class KiWiEvaluationStatistics extends EvaluationStatistics {
 
+        private final Set<TripleIndex> indexes;
+
         public KiWiEvaluationStatistics() {
+            this(Collections.<TripleIndex>emptySet());
+        }
+
+        public KiWiEvaluationStatistics(Set<TripleIndex> indexes) {
+            this.indexes = indexes;
         }
 
         @Override
@@ -723,7 +751,12 @@ public class KiWiSailConnection extends NotifyingSailConnectionBase implements I
 
             @Override
             protected double getCardinality(StatementPattern sp) {
-                return super.getCardinality(sp);
+                boolean s = getConstantValue(sp.getSubjectVar()) != null;
+                boolean p = getConstantValue(sp.getPredicateVar()) != null;
+                boolean o = getConstantValue(sp.getObjectVar()) != null;
+                boolean c = getConstantValue(sp.getContextVar()) != null;
+
+                return super.getCardinality(sp) * TripleIndex.getCardinalityPenalty(indexes, s, p, o, c);
             }
 
             protected Value getConstantValue(Var var) {
@@ -17,14 +17,18 @@
  */
 package org.apache.marmotta.kiwi.sail;
 
+import org.apache.marmotta.commons.sesame.tripletable.TripleSetFactory;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
 import org.apache.marmotta.kiwi.persistence.KiWiDialect;
 import org.apache.marmotta.kiwi.persistence.KiWiPersistence;
+import org.apache.marmotta.kiwi.persistence.util.KiWiTripleSet;
+import org.openrdf.model.Statement;
 import org.openrdf.model.ValueFactory;
 import org.openrdf.sail.SailException;
 import org.openrdf.sail.helpers.NotifyingSailBase;
 
 import java.sql.SQLException;
+import java.util.Set;
 
 /**
  * An implementation of a KiWi triple store without extended transaction support. The KiWiStore holds a reference to
@@ -36,7 +40,7 @@ import java.sql.SQLException;
  * <p/>
  * Author: Sebastian Schaffert
  */
-public class KiWiStore extends NotifyingSailBase {
+public class KiWiStore extends NotifyingSailBase implements TripleSetFactory {
 
 
     /**
@@ -232,4 +236,13 @@ public class KiWiStore extends NotifyingSailBase {
             throw new SailException("error calling consistency check",e);
         }
     }
+
+    /**
+     * Create a set for the triples added or removed in a transaction of this store that indexes the triples by the
+     * database ids of their nodes.
+     */
+    @Override
+    public Set<Statement> createTripleSet() {
+        return new KiWiTripleSet();
+    }
 }
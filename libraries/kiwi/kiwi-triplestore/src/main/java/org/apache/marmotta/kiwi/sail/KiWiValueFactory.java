@@ -34,10 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 import java.sql.SQLException;
-import java.util.Date;
-import java.util.IllformedLocaleException;
-import java.util.Locale;
-import java.util.Random;
+import java.util.*;
 
 /**
  * Add file description here!
@@ -641,6 +638,76 @@ public class KiWiValueFactory implements ValueFactory {
     }
 
 
+    /**
+     * Convert all values given as argument into KiWi nodes, creating nodes that do not exist yet. Values that
+     * already exist in the database are resolved with one batch lookup per node type (see
+     * {@link KiWiConnection#loadUriResources(java.util.Collection)} and the related methods) instead of one
+     * database query per value; all other values are converted as in {@link #convert(Value)}.
+     *
+     * @param values the values to convert; may contain null values (e.g. for the default context)
+     * @return the KiWi nodes in the same order as the values passed as argument
+     */
+    public List<KiWiNode> convert(List<? extends Value> values) {
+        Set<String>  uris     = new HashSet<>();
+        Set<String>  bnodes   = new HashSet<>();
+        List<Literal> literals = new ArrayList<>();
+        for(Value value : values) {
+            if(value == null || value instanceof KiWiNode) {
+                continue;
+            } else if(value instanceof URI) {
+                uris.add(value.stringValue());
+            } else if(value instanceof BNode) {
+                bnodes.add(value.stringValue());
+            } else if(value instanceof Literal) {
+                literals.add((Literal) value);
+            }
+        }
+
+        if(uris.isEmpty() && bnodes.isEmpty() && literals.isEmpty()) {
+            // only wildcards or values that are already KiWi nodes, no need for a database connection
+            List<KiWiNode> result = new ArrayList<>(values.size());
+            for(Value value : values) {
+                result.add((KiWiNode) value);
+            }
+            return result;
+        }
+
+        Map<String,KiWiUriResource>  uriNodes;
+        Map<String,KiWiAnonResource> bnodeNodes;
+        Map<Literal,KiWiLiteral>     literalNodes;
+
+        KiWiConnection connection = aqcuireConnection();
+        try {
+            uriNodes     = connection.loadUriResources(uris);
+            bnodeNodes   = connection.loadAnonResources(bnodes);
+            literalNodes = connection.loadLiterals(literals);
+        } catch (SQLException e) {
+            log.error("database error, could not load nodes",e);
+            throw new IllegalStateException("database error, could not load nodes",e);
+        } finally {
+            releaseConnection(connection);
+        }
+
+        List<KiWiNode> result = new ArrayList<>(values.size());
+        for(Value value : values) {
+            KiWiNode node = null;
+            if(value instanceof URI && !(value instanceof KiWiNode)) {
+                node = uriNodes.get(value.stringValue());
+            } else if(value instanceof BNode && !(value instanceof KiWiNode)) {
+                node = bnodeNodes.get(value.stringValue());
+            } else if(value instanceof Literal && !(value instanceof KiWiNode)) {
+                node = literalNodes.get(value);
+            }
+
+            if(node == null) {
+                node = convert(value);
+            }
+            result.add(node);
+        }
+        return result;
+    }
+
+
     public void close() {
 
     }
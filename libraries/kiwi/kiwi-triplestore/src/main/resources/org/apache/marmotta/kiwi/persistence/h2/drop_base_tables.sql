@@ -14,11 +14,15 @@
 -- limitations under the License.
 
 DROP INDEX IF EXISTS idx_node_content;
+DROP INDEX IF EXISTS idx_node_fingerprint;
 DROP INDEX IF EXISTS idx_literal_lang;
 
 DROP INDEX IF EXISTS idx_triples_p;
 DROP INDEX IF EXISTS idx_triples_spo;
 DROP INDEX IF EXISTS idx_triples_cspo;
+DROP INDEX IF EXISTS idx_triples_cspid;
+DROP INDEX IF EXISTS idx_triples_pos;
+DROP INDEX IF EXISTS idx_triples_osp;
 
 DROP INDEX IF EXISTS idx_namespaces_uri;
 DROP INDEX IF EXISTS idx_namespaces_prefix;
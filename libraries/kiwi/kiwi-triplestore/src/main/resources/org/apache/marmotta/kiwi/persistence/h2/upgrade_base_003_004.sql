@@ -0,0 +1,24 @@
+-- Licensed to the Apache Software Foundation (ASF) under one or more
+-- contributor license agreements.  See the NOTICE file distributed with
+-- this work for additional information regarding copyright ownership.
+-- The ASF licenses this file to You under the Apache License, Version 2.0
+-- (the "License"); you may not use this file except in compliance with
+-- the License.  You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+UPDATE METADATA SET mvalue = '4' WHERE mkey = 'version';
+
+-- add the content fingerprint of nodes (see org.apache.marmotta.kiwi.persistence.util.NodeFingerprint)
+CREATE ALIAS IF NOT EXISTS NODE_FINGERPRINT FOR "org.apache.marmotta.kiwi.persistence.util.NodeFingerprint.compute";
+ALTER TABLE nodes ADD COLUMN fingerprint bigint;
+UPDATE nodes SET fingerprint = NODE_FINGERPRINT(ntype, svalue, lang, ltype);
+ALTER TABLE nodes ALTER COLUMN fingerprint SET NOT NULL;
+CREATE INDEX idx_node_fingerprint ON nodes(fingerprint);
+DROP ALIAS IF EXISTS NODE_FINGERPRINT;
@@ -24,6 +24,7 @@ CREATE TABLE nodes (
   ltype     bigint     REFERENCES nodes(id),
   lang      varchar(5),
   createdAt timestamp  NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  fingerprint bigint   NOT NULL,
   PRIMARY KEY(id)
 ) CHARACTER SET utf8 COLLATE utf8_bin  ENGINE=MyISAM;
 
@@ -69,16 +70,20 @@ CREATE TABLE registry (
 ) ENGINE=MEMORY;
 
 -- Indexes for accessing nodes and triples efficiently
+-- node lookups use idx_node_fingerprint; the content index serves URI prefix queries and SPARQL filters on svalue
 CREATE INDEX idx_node_content ON nodes(svalue(256));
+CREATE INDEX idx_node_fingerprint ON nodes(fingerprint);
 CREATE INDEX idx_literal_lang ON nodes(lang);
 
 CREATE INDEX idx_triples_p ON triples(predicate);
 CREATE INDEX idx_triples_spo ON triples(subject,predicate,object);
 CREATE INDEX idx_triples_cspo ON triples(context,subject,predicate,object);
+-- keyset pagination of triples by id (KiWiConnection.listTriplesPage)
+CREATE INDEX idx_triples_cspid ON triples(context,subject,predicate,id);
 
 CREATE INDEX idx_namespaces_uri ON namespaces(uri);
 CREATE INDEX idx_namespaces_prefix ON namespaces(prefix);
 
 -- insert initial metadata
-INSERT INTO metadata(mkey,mvalue) VALUES ('version','3');
+INSERT INTO metadata(mkey,mvalue) VALUES ('version','5');
 INSERT INTO metadata(mkey,mvalue) VALUES ('created',DATE_FORMAT(now(),'%Y-%m-%d %H:%i:%s') );
@@ -14,11 +14,13 @@
 -- limitations under the License.
 
 DROP INDEX idx_node_content ON nodes;
+DROP INDEX idx_node_fingerprint ON nodes;
 DROP INDEX idx_literal_lang ON nodes;
 
 DROP INDEX idx_triples_p ON triples;
 DROP INDEX idx_triples_spo ON triples;
 DROP INDEX idx_triples_cspo ON triples;
+DROP INDEX idx_triples_cspid ON triples;
 
 DROP INDEX idx_namespaces_uri ON namespaces;
 DROP INDEX idx_namespaces_prefix ON namespaces;
@@ -25,6 +25,7 @@ CREATE TABLE nodes (
   ltype     bigint     REFERENCES nodes(id),
   lang      varchar(5),
   createdAt timestamp  NOT NULL DEFAULT now(),
+  fingerprint bigint   NOT NULL,
   PRIMARY KEY(id)
 );
 
@@ -71,7 +72,9 @@ CREATE INDEX idx_reg_key ON registry(tripleKey);
 CREATE INDEX idx_reg_tx ON registry(txId);
 
 -- Indexes for accessing nodes and triples efficiently
+-- node lookups use idx_node_fingerprint; the content index serves SPARQL filters comparing svalue
 CREATE INDEX idx_node_content ON nodes USING hash(svalue);
+CREATE INDEX idx_node_fingerprint ON nodes(fingerprint);
 CREATE INDEX idx_node_dcontent ON nodes(dvalue) WHERE dvalue IS NOT NULL;
 CREATE INDEX idx_node_icontent ON nodes(ivalue) WHERE ivalue IS NOT NULL;
 CREATE INDEX idx_node_tcontent ON nodes(tvalue) WHERE tvalue IS NOT NULL;
@@ -80,6 +83,8 @@ CREATE INDEX idx_literal_lang ON nodes(lang);
 CREATE INDEX idx_triples_p ON triples(predicate) WHERE deleted = false;
 CREATE INDEX idx_triples_spo ON triples(subject,predicate,object) WHERE deleted = false;
 CREATE INDEX idx_triples_cspo ON triples(context,subject,predicate,object) WHERE deleted = false;
+-- keyset pagination of triples by id (KiWiConnection.listTriplesPage)
+CREATE INDEX idx_triples_cspid ON triples(context,subject,predicate,id) WHERE deleted = false;
 
 
 CREATE INDEX idx_namespaces_uri ON namespaces(uri);
@@ -99,5 +104,5 @@ DO INSTEAD NOTHING;
 -- a function for cleaning up table rows without incoming references
 
 -- insert initial metadata
-INSERT INTO metadata(mkey,mvalue) VALUES ('version','3');
+INSERT INTO metadata(mkey,mvalue) VALUES ('version','5');
 INSERT INTO metadata(mkey,mvalue) VALUES ('created',to_char(now(),'yyyy-MM-DD HH:mm:ss TZ') );
\ No newline at end of file
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.test;
+
+import org.apache.marmotta.commons.sesame.tripletable.TripleTable;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.util.KiWiTripleSet;
+import org.apache.marmotta.kiwi.persistence.util.KiWiTripleTable;
+import org.junit.Test;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the in-memory table of KiWi triples used for batching
+ */
+public class KiWiTripleTableTest {
+
+    private long nextId = 1;
+
+    private KiWiUriResource createURI(String uri) {
+        KiWiUriResource r = new KiWiUriResource("http://localhost/" + uri);
+        r.setId(nextId++);
+        return r;
+    }
+
+    @Test
+    public void testListTriples() {
+        KiWiUriResource s1 = createURI("s1"), s2 = createURI("s2");
+        KiWiUriResource p1 = createURI("p1"), p2 = createURI("p2");
+        KiWiUriResource o1 = createURI("o1"), o2 = createURI("o2");
+        KiWiUriResource c1 = createURI("c1"), c2 = createURI("c2");
+
+        KiWiTripleTable table = new KiWiTripleTable();
+        assertTrue(table.add(new KiWiTriple(s1, p1, o1, c1)));
+        assertTrue(table.add(new KiWiTriple(s1, p1, o2, c1)));
+        assertTrue(table.add(new KiWiTriple(s1, p2, o1, c2)));
+        assertTrue(table.add(new KiWiTriple(s2, p1, o1, c2)));
+        assertTrue(table.add(new KiWiTriple(s2, p2, o2, c1)));
+
+        // the same triple in another context is a different triple, the same quadruple is not added twice
+        assertTrue(table.add(new KiWiTriple(s2, p2, o2, c2)));
+        assertFalse(table.add(new KiWiTriple(s2, p2, o2, c2)));
+
+        assertEquals(6, table.size());
+        assertTrue(table.contains(new KiWiTriple(s1, p2, o1, c2)));
+        assertFalse(table.contains(new KiWiTriple(s1, p2, o1, c1)));
+
+        assertEquals(6, table.listTriples(null, null, null, null, true).size());
+        assertEquals(3, table.listTriples(s1, null, null, null, true).size());
+        assertEquals(2, table.listTriples(s1, p1, null, null, true).size());
+        assertEquals(3, table.listTriples(null, p1, null, null, true).size());
+        assertEquals(2, table.listTriples(null, p1, o1, null, true).size());
+        assertEquals(3, table.listTriples(null, null, o1, null, true).size());
+        assertEquals(2, table.listTriples(s1, null, o1, null, true).size());
+        assertEquals(3, table.listTriples(null, null, null, c1, true).size());
+        assertEquals(2, table.listTriples(s2, p2, o2, null, true).size());
+        assertEquals(1, table.listTriples(s2, p2, o2, c1, true).size());
+        assertEquals(0, table.listTriples(s2, p1, o2, null, true).size());
+
+        // nodes without database id do not match
+        assertEquals(0, table.listTriples(new KiWiUriResource("http://localhost/s1"), null, null, null, true).size());
+
+        assertEquals(2, table.listContextIDs().size());
+
+        assertTrue(table.remove(new KiWiTriple(s1, p1, o1, c1)));
+        assertFalse(table.remove(new KiWiTriple(s1, p1, o1, c1)));
+        assertEquals(5, table.size());
+        assertEquals(2, table.listTriples(null, p1, null, null, true).size());
+        assertEquals(1, table.listTriples(s1, p1, null, null, true).size());
+    }
+
+    /**
+     * Add and remove enough triples to test merging of the indexes and compaction of the table
+     */
+    @Test
+    public void testLargeTable() {
+        List<KiWiUriResource> nodes = new ArrayList<>();
+        for(int i=0; i<100; i++) {
+            nodes.add(createURI("n"+i));
+        }
+        KiWiUriResource context = createURI("c");
+
+        KiWiTripleTable table = new KiWiTripleTable();
+        List<KiWiTriple> triples = new ArrayList<>();
+        for(int i=0; i<100; i++) {
+            for(int j=0; j<50; j++) {
+                KiWiTriple t = new KiWiTriple(nodes.get(i), nodes.get(j), nodes.get((i+j) % 100), context);
+                triples.add(t);
+                assertTrue(table.add(t));
+            }
+        }
+        assertEquals(5000, table.size());
+        assertEquals(50, table.listTriples(nodes.get(7), null, null, null, true).size());
+        assertEquals(100, table.listTriples(null, nodes.get(7), null, null, true).size());
+        assertEquals(50, table.listTriples(null, null, nodes.get(7), null, true).size());
+        assertEquals(1, table.listTriples(null, nodes.get(7), nodes.get(10), null, true).size());
+
+        // remove every second triple
+        for(int i=0; i<triples.size(); i+=2) {
+            assertTrue(table.remove(triples.get(i)));
+        }
+        assertEquals(2500, table.size());
+        assertEquals(25, table.listTriples(nodes.get(7), null, null, null, true).size());
+        for(int i=0; i<triples.size(); i++) {
+            assertEquals(i % 2 == 1, table.contains(triples.get(i)));
+        }
+
+        // removing more triples compacts the table
+        for(int i=1; i<triples.size(); i+=4) {
+            assertTrue(table.remove(triples.get(i)));
+        }
+        assertEquals(1250, table.size());
+        assertEquals(1250, table.listTriples(null, null, null, context, true).size());
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertTrue(table.isEmpty());
+    }
+
+    /**
+     * A table sized for a small batch merges its unsorted tail long before it reaches the batch size; lookups must
+     * see both merged and unmerged triples at any time
+     */
+    @Test
+    public void testBatchSizedTable() {
+        List<KiWiUriResource> nodes = new ArrayList<>();
+        for(int i=0; i<20; i++) {
+            nodes.add(createURI("b"+i));
+        }
+        KiWiUriResource context = createURI("c");
+
+        KiWiTripleTable table = new KiWiTripleTable(100);
+        int count = 0;
+        for(int i=0; i<20; i++) {
+            for(int j=0; j<5; j++) {
+                assertTrue(table.add(new KiWiTriple(nodes.get(i), nodes.get(j), nodes.get((i+j) % 20), context)));
+                count++;
+
+                assertEquals(count, table.size());
+                assertEquals(j+1, table.listTriples(nodes.get(i), null, null, null, true).size());
+                assertTrue(table.contains(new KiWiTriple(nodes.get(i), nodes.get(j), nodes.get((i+j) % 20), context)));
+            }
+        }
+        assertEquals(20, table.listTriples(null, nodes.get(3), null, null, true).size());
+        assertEquals(5, table.listTriples(null, null, nodes.get(3), null, true).size());
+        assertFalse(table.add(new KiWiTriple(nodes.get(0), nodes.get(0), nodes.get(0), context)));
+    }
+
+    /**
+     * The transaction data set keeps KiWi triples in the id-based table and all other statements in a generic table
+     */
+    @Test
+    public void testTripleSet() {
+        KiWiUriResource s1 = createURI("s1"), p1 = createURI("p1"), o1 = createURI("o1"), c1 = createURI("c1");
+        Statement other = new StatementImpl(new URIImpl("http://localhost/s1"), new URIImpl("http://localhost/p1"), new URIImpl("http://localhost/o1"));
+
+        Set<Statement> set = new KiWiTripleSet();
+        assertTrue(set.add(new KiWiTriple(s1, p1, o1, c1)));
+        assertFalse(set.add(new KiWiTriple(s1, p1, o1, c1)));
+        assertTrue(set.add(other));
+        assertFalse(set.add(other));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(new KiWiTriple(s1, p1, o1, c1)));
+        assertTrue(set.contains(other));
+
+        int count = 0;
+        for(Statement statement : set) {
+            count++;
+        }
+        assertEquals(2, count);
+
+        assertTrue(set.remove(other));
+        assertTrue(set.remove(new KiWiTriple(s1, p1, o1, c1)));
+        assertTrue(set.isEmpty());
+    }
+
+    /**
+     * Bound the memory needed by the transaction data of a large transaction: the id-based set must need less than
+     * half of the memory of the generic triple table for the same triples
+     */
+    @Test
+    public void testTripleSetMemory() {
+        List<KiWiUriResource> nodes = new ArrayList<>();
+        for(int i=0; i<1000; i++) {
+            nodes.add(createURI("m"+i));
+        }
+        KiWiUriResource context = createURI("c");
+
+        List<KiWiTriple> triples = new ArrayList<>();
+        for(int i=0; i<1000; i++) {
+            for(int j=0; j<100; j++) {
+                triples.add(new KiWiTriple(nodes.get(i), nodes.get(j), nodes.get((i+j) % 1000), context));
+            }
+        }
+
+        long before = usedMemory();
+        Set<Statement> generic = new TripleTable<>();
+        generic.addAll(triples);
+        long genericMemory = usedMemory() - before;
+        assertEquals(triples.size(), generic.size());
+        generic = null;
+
+        before = usedMemory();
+        Set<Statement> compact = new KiWiTripleSet();
+        compact.addAll(triples);
+        long compactMemory = usedMemory() - before;
+        assertEquals(triples.size(), compact.size());
+
+        assertTrue("id-based set needs " + compactMemory + " bytes, generic table " + genericMemory + " bytes",
+                compactMemory < genericMemory / 2);
+        assertTrue("id-based set needs " + compactMemory / triples.size() + " bytes per triple",
+                compactMemory < 120L * triples.size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i=0; i<3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
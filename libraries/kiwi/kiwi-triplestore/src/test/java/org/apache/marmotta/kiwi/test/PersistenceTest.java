@@ -21,28 +21,39 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.marmotta.commons.sesame.model.Namespaces;
 import org.apache.marmotta.commons.util.DateUtils;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.model.rdf.*;
 import org.apache.marmotta.kiwi.persistence.KiWiConnection;
 import org.apache.marmotta.kiwi.persistence.KiWiPersistence;
+import org.apache.marmotta.kiwi.persistence.util.NodeFingerprint;
 import org.apache.marmotta.kiwi.test.junit.KiWiDatabaseRunner;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.openrdf.model.Literal;
 import org.openrdf.model.Statement;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 import static org.apache.marmotta.commons.sesame.model.LiteralCommons.getRDFLangStringType;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
 
 /**
  * This test verifies the persistence functionality of the KiWi triple store. 
@@ -84,7 +95,7 @@ public class PersistenceTest {
         KiWiConnection connection = persistence.getConnection();
         try {
             Assert.assertThat(connection.getDatabaseTables(),hasItems("nodes","triples","namespaces"));
-            Assert.assertEquals(3, connection.getDatabaseVersion());
+            Assert.assertEquals(5, connection.getDatabaseVersion());
 
             connection.commit();
         } finally {
@@ -93,6 +104,156 @@ public class PersistenceTest {
 
     }
 
+    /**
+     * Test creating and dropping the additional triple indexes configured in the KiWiConfiguration.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testTripleIndexes() throws SQLException {
+        Set<TripleIndex> configured = kiwiConfig.getTripleIndexes();
+        try {
+            kiwiConfig.setTripleIndexes(EnumSet.allOf(TripleIndex.class));
+            persistence.createTripleIndexes();
+            // creating the indexes a second time must not fail
+            persistence.createTripleIndexes();
+
+            KiWiConnection connection = persistence.getConnection();
+            try {
+                Assert.assertThat(connection.getTripleIndexNames(), hasItems("idx_triples_pos", "idx_triples_osp"));
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+
+            persistence.dropTripleIndex(TripleIndex.OSP);
+
+            connection = persistence.getConnection();
+            try {
+                Assert.assertThat(connection.getTripleIndexNames(), hasItem("idx_triples_pos"));
+                Assert.assertThat(connection.getTripleIndexNames(), not(hasItem("idx_triples_osp")));
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+        } finally {
+            kiwiConfig.setTripleIndexes(configured);
+        }
+    }
+
+    /**
+     * Test the selection of index prefixes usable for a triple pattern.
+     */
+    @Test
+    public void testIndexedColumns() {
+        Set<TripleIndex> none = EnumSet.noneOf(TripleIndex.class);
+
+        Assert.assertEquals(3, TripleIndex.getIndexedColumns(none, true, true, true, false));
+        Assert.assertEquals(1, TripleIndex.getIndexedColumns(none, false, true, true, false));
+        Assert.assertEquals(0, TripleIndex.getIndexedColumns(none, false, false, true, false));
+
+        Assert.assertEquals(2, TripleIndex.getIndexedColumns(EnumSet.of(TripleIndex.POS), false, true, true, false));
+        Assert.assertEquals(1, TripleIndex.getIndexedColumns(EnumSet.of(TripleIndex.OSP), false, false, true, false));
+    }
+
+    /**
+     * Test that the fingerprint stored for a node is the one computed when looking up its content, also for
+     * language literals having a datatype.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testNodeFingerprint() throws SQLException {
+        KiWiConnection connection = persistence.getConnection();
+        try {
+            KiWiUriResource   stype   = new KiWiUriResource(getRDFLangStringType());
+            connection.storeNode(stype);
+
+            KiWiStringLiteral literal = new KiWiStringLiteral(RandomStringUtils.randomAlphanumeric(8), Locale.ENGLISH, stype);
+            connection.storeNode(literal);
+            connection.commit();
+
+            Assert.assertEquals(NodeFingerprint.uri(stype.stringValue()), NodeFingerprint.of(stype));
+            Assert.assertEquals(NodeFingerprint.literal(literal.getContent(), Locale.ENGLISH.getLanguage(), null), NodeFingerprint.of(literal));
+            Assert.assertNotEquals(NodeFingerprint.uri(literal.getContent()), NodeFingerprint.of(literal));
+
+            PreparedStatement checkNodeStmt = connection.getJDBCConnection().prepareStatement("SELECT id, fingerprint FROM nodes");
+            try(ResultSet result = checkNodeStmt.executeQuery()) {
+                int count = 0;
+                while(result.next()) {
+                    if(result.getLong("id") == stype.getId()) {
+                        Assert.assertEquals(NodeFingerprint.of(stype), result.getLong("fingerprint"));
+                    } else {
+                        Assert.assertEquals(literal.getId(), result.getLong("id"));
+                        Assert.assertEquals(NodeFingerprint.of(literal), result.getLong("fingerprint"));
+                    }
+                    count++;
+                }
+                Assert.assertEquals(2, count);
+            }
+            connection.commit();
+
+            // look up both nodes in the database
+            persistence.clearCache();
+            Assert.assertEquals(stype.getId(), connection.loadUriResource(stype.stringValue()).getId());
+            Assert.assertEquals(literal.getId(), connection.loadLiteral(literal.getContent(), Locale.ENGLISH.getLanguage(), null).getId());
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Test resolving URIs, anonymous IDs and literals to nodes with the batch lookup methods, with and without
+     * cached nodes.
+     *
+     * @throws SQLException
+     */
+    @Test
+    public void testLoadNodesByContent() throws SQLException {
+        KiWiConnection connection = persistence.getConnection();
+        try {
+            KiWiUriResource   uri     = new KiWiUriResource("http://localhost/"+ RandomStringUtils.randomAlphanumeric(8));
+            KiWiAnonResource  bnode   = new KiWiAnonResource(RandomStringUtils.randomAlphanumeric(8));
+            KiWiUriResource   stype   = new KiWiUriResource(Namespaces.NS_XSD+"string");
+            KiWiStringLiteral plain   = new KiWiStringLiteral(RandomStringUtils.randomAlphanumeric(8));
+            KiWiStringLiteral lang    = new KiWiStringLiteral(plain.getContent(), Locale.ENGLISH, null);
+            KiWiStringLiteral typed   = new KiWiStringLiteral(plain.getContent(), null, stype);
+            for(KiWiNode node : new KiWiNode[] { uri, bnode, stype, plain, lang, typed }) {
+                connection.storeNode(node);
+            }
+            connection.commit();
+
+            String missing = "http://localhost/"+ RandomStringUtils.randomAlphanumeric(9);
+
+            for(int i=0; i<2; i++) {
+                // first run with cached nodes, second run from the database
+                Map<String,KiWiUriResource> uris = connection.loadUriResources(Arrays.asList(uri.stringValue(), missing));
+                Assert.assertEquals(1, uris.size());
+                Assert.assertEquals(uri.getId(), uris.get(uri.stringValue()).getId());
+
+                Map<String,KiWiAnonResource> bnodes = connection.loadAnonResources(Arrays.asList(bnode.stringValue(), uri.stringValue()));
+                Assert.assertEquals(1, bnodes.size());
+                Assert.assertEquals(bnode.getId(), bnodes.get(bnode.stringValue()).getId());
+
+                Literal l1 = new LiteralImpl(plain.getContent());
+                Literal l2 = new LiteralImpl(plain.getContent(), Locale.ENGLISH.getLanguage());
+                Literal l3 = new LiteralImpl(plain.getContent(), new URIImpl(stype.stringValue()));
+                Literal l4 = new LiteralImpl(plain.getContent(), new URIImpl(missing));
+                Map<Literal,KiWiLiteral> literals = connection.loadLiterals(Arrays.asList(l1, l2, l3, l4));
+                Assert.assertEquals(3, literals.size());
+                Assert.assertEquals(plain.getId(), literals.get(l1).getId());
+                Assert.assertEquals(lang.getId(), literals.get(l2).getId());
+                Assert.assertEquals(typed.getId(), literals.get(l3).getId());
+
+                persistence.clearCache();
+            }
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
     /**
      * Test storing and loading URI nodes.
      *
@@ -1072,6 +1233,123 @@ public class PersistenceTest {
 
     }
 
+    /**
+     * Test that deleted triples are not garbage collected while the collection is suspended, and that the collection
+     * waits for the current holds to be released
+     */
+    @Test
+    public void testSuspendTripleCollection() throws Exception {
+        KiWiConnection connection = persistence.getConnection();
+        try {
+            KiWiUriResource subject = new KiWiUriResource("http://localhost/resource/"+RandomStringUtils.randomAlphanumeric(8));
+            KiWiUriResource pred    = new KiWiUriResource("http://localhost/predicate/P1");
+            KiWiUriResource object  = new KiWiUriResource("http://localhost/resource/"+RandomStringUtils.randomAlphanumeric(8));
+            KiWiUriResource context = new KiWiUriResource("http://localhost/context/"+RandomStringUtils.randomAlphanumeric(8));
+            connection.storeNode(subject);
+            connection.storeNode(pred);
+            connection.storeNode(object);
+            connection.storeNode(context);
+
+            KiWiTriple triple = new KiWiTriple(subject,pred,object,context);
+            connection.storeTriple(triple);
+            connection.commit();
+
+            connection.deleteTriple(triple);
+            connection.commit();
+
+            PreparedStatement stmt = connection.getJDBCConnection().prepareStatement("SELECT count(*) FROM triples WHERE id = ?");
+            stmt.setLong(1, triple.getId());
+
+            long maxDelay = persistence.getConfiguration().getMaxTripleCollectionDelay();
+            persistence.getConfiguration().setMaxTripleCollectionDelay(100);
+            persistence.suspendTripleCollection(this);
+            try {
+                // the hold is not released within the maximum delay, so the collection is skipped
+                persistence.garbageCollect();
+                Assert.assertEquals(1, countRows(stmt));
+
+                // the hold is released while the collection is waiting for it
+                persistence.getConfiguration().setMaxTripleCollectionDelay(60000);
+                final Object holder = this;
+                Thread release = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        persistence.resumeTripleCollection(holder);
+                    }
+                };
+                release.start();
+                persistence.garbageCollect();
+                release.join();
+                Assert.assertEquals(0, countRows(stmt));
+            } finally {
+                persistence.resumeTripleCollection(this);
+                persistence.getConfiguration().setMaxTripleCollectionDelay(maxDelay);
+            }
+
+            stmt.close();
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static long countRows(PreparedStatement stmt) throws SQLException {
+        ResultSet result = stmt.executeQuery();
+        try {
+            result.next();
+            return result.getLong(1);
+        } finally {
+            result.close();
+        }
+    }
+
+    @Test
+    public void testListTriplesPage() throws Exception {
+        KiWiConnection connection = persistence.getConnection();
+        try {
+            KiWiUriResource subject  = new KiWiUriResource("http://localhost/resource/"+RandomStringUtils.randomAlphanumeric(8));
+            KiWiUriResource pred     = new KiWiUriResource("http://localhost/predicate/P1");
+            KiWiUriResource context  = new KiWiUriResource("http://localhost/context/"+RandomStringUtils.randomAlphanumeric(8));
+            connection.storeNode(subject);
+            connection.storeNode(pred);
+            connection.storeNode(context);
+
+            List<KiWiTriple> triples = new ArrayList<>();
+            for(int i=0; i<10; i++) {
+                KiWiUriResource object = new KiWiUriResource("http://localhost/resource/"+RandomStringUtils.randomAlphanumeric(8));
+                connection.storeNode(object);
+
+                KiWiTriple triple = new KiWiTriple(subject,pred,object,context);
+                connection.storeTriple(triple);
+                triples.add(triple);
+            }
+            connection.commit();
+
+            // walk forward in pages of four triples
+            List<KiWiTriple> page1 = connection.listTriplesPage(subject, pred, null, context, false, 0, 4, false);
+            Assert.assertEquals(triples.subList(0, 4), page1);
+
+            List<KiWiTriple> page2 = connection.listTriplesPage(subject, pred, null, context, false, page1.get(3).getId(), 4, false);
+            Assert.assertEquals(triples.subList(4, 8), page2);
+
+            List<KiWiTriple> page3 = connection.listTriplesPage(subject, pred, null, context, false, page2.get(3).getId(), 4, false);
+            Assert.assertEquals(triples.subList(8, 10), page3);
+
+            // walk backwards from the end of the second page
+            List<KiWiTriple> reverse = connection.listTriplesPage(subject, pred, null, context, false, page2.get(3).getId(), 3, true);
+            Assert.assertEquals(Arrays.asList(triples.get(7), triples.get(6), triples.get(5)), reverse);
+
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
     // TODO: test namespaces
     @Test
     public void testStoreNamespaces() throws SQLException {
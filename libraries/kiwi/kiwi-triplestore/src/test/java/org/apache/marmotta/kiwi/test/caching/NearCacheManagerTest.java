@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.test.caching;
+
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+import org.apache.marmotta.kiwi.caching.CacheManager;
+import org.apache.marmotta.kiwi.caching.GuavaCacheManager;
+import org.apache.marmotta.kiwi.caching.NearCacheManager;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the near caches of two cluster members sharing the same clustered cache.
+ */
+public class NearCacheManagerTest {
+
+    private CacheManager shared;
+
+    private NearCacheManager member1, member2;
+
+    @Before
+    public void setup() {
+        KiWiConfiguration configuration = new KiWiConfiguration("test", "jdbc:h2:mem:test", "kiwi", "kiwi", new H2Dialect());
+        configuration.setNearCacheSize(CacheManager.URI_CACHE, 100);
+        configuration.setNearCacheSize(CacheManager.NS_PREFIX_CACHE, 100);
+
+        LoopbackChannel channel1 = new LoopbackChannel();
+        LoopbackChannel channel2 = new LoopbackChannel();
+        channel1.peer = channel2;
+        channel2.peer = channel1;
+
+        shared  = new GuavaCacheManager(configuration);
+        member1 = new NearCacheManager(shared, channel1, configuration);
+        member2 = new NearCacheManager(shared, channel2, configuration);
+    }
+
+    /**
+     * Entries are served from the near cache once they have been read, and removed from it when another member
+     * removes them.
+     */
+    @Test
+    public void testRemove() {
+        KiWiUriResource r = new KiWiUriResource("http://localhost/resource");
+
+        member1.getUriCache().put(r.stringValue(), r);
+        Assert.assertSame(r, member2.getUriCache().get(r.stringValue()));
+
+        // changes of the clustered cache that are not announced are not seen by the near cache
+        shared.getUriCache().remove(r.stringValue());
+        Assert.assertSame(r, member2.getUriCache().get(r.stringValue()));
+        Assert.assertEquals(1, member2.getNearCacheStats(CacheManager.URI_CACHE).hitCount());
+
+        member1.getUriCache().remove(r.stringValue());
+        Assert.assertNull(member2.getUriCache().get(r.stringValue()));
+    }
+
+    /**
+     * Caches with changing values announce puts to the other members.
+     */
+    @Test
+    public void testUpdate() {
+        KiWiNamespace ns1 = new KiWiNamespace("ex", "http://example.com/1/");
+        KiWiNamespace ns2 = new KiWiNamespace("ex", "http://example.com/2/");
+
+        member1.getNamespacePrefixCache().put("ex", ns1);
+        Assert.assertEquals(ns1, member2.getNamespacePrefixCache().get("ex"));
+
+        member1.getNamespacePrefixCache().put("ex", ns2);
+        Assert.assertEquals(ns2, member2.getNamespacePrefixCache().get("ex"));
+    }
+
+    @Test
+    public void testClear() {
+        KiWiUriResource r = new KiWiUriResource("http://localhost/resource");
+
+        member1.getUriCache().put(r.stringValue(), r);
+        Assert.assertSame(r, member2.getUriCache().get(r.stringValue()));
+
+        member1.clear();
+        Assert.assertNull(member2.getUriCache().get(r.stringValue()));
+    }
+
+    /**
+     * Caches without a configured size and the registry cache do not use a near cache.
+     */
+    @Test
+    public void testUnconfigured() {
+        Assert.assertNull(member1.getNearCacheStats(CacheManager.NODE_CACHE));
+
+        member1.getRegistryCache().put(1L, 2L);
+        Assert.assertNull(member1.getNearCacheStats(CacheManager.REGISTRY_CACHE));
+        Assert.assertEquals(Long.valueOf(2L), shared.getRegistryCache().get(1L));
+    }
+
+
+    /**
+     * An invalidation channel delivering its messages directly to the channel of another member.
+     */
+    private static class LoopbackChannel implements CacheInvalidationChannel {
+
+        private LoopbackChannel peer;
+
+        private Listener listener;
+
+        @Override
+        public void publish(String cacheName, Object key) {
+            if(peer.listener != null) {
+                peer.listener.invalidate(cacheName, key);
+            }
+        }
+
+        @Override
+        public void setListener(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.test.cluster;
+
+import org.apache.marmotta.kiwi.caching.CacheInvalidation;
+import org.apache.marmotta.kiwi.caching.CacheInvalidationChannel;
+import org.apache.marmotta.kiwi.caching.CacheManager;
+import org.apache.marmotta.kiwi.caching.ClusteredCacheManager;
+import org.apache.marmotta.kiwi.caching.NearCacheManager;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the cache invalidation channel of a clustered caching backend with two cluster members, both directly and
+ * through the near cache manager.
+ */
+public abstract class BaseInvalidationChannelTest {
+
+    private static int datacenterIds = 100;
+
+    private ClusteredCacheManager cacheManager1, cacheManager2;
+
+    private KiWiConfiguration configuration1, configuration2;
+
+    /**
+     * Create a clustered cache manager of the backend under test for the given configuration.
+     */
+    protected abstract ClusteredCacheManager createCacheManager(KiWiConfiguration configuration);
+
+    /**
+     * The multicast port used by the test cluster; should be different from the ports of other cluster tests.
+     */
+    protected abstract int getClusterPort();
+
+    @Before
+    public void setup() {
+        configuration1 = createConfiguration();
+        configuration2 = createConfiguration();
+
+        cacheManager1 = createCacheManager(configuration1);
+        cacheManager2 = createCacheManager(configuration2);
+    }
+
+    @After
+    public void teardown() {
+        cacheManager1.shutdown();
+        cacheManager2.shutdown();
+    }
+
+    private KiWiConfiguration createConfiguration() {
+        KiWiConfiguration config = new KiWiConfiguration(
+                "default-H2",
+                "jdbc:h2:mem:kiwitest;MVCC=true;DB_CLOSE_ON_EXIT=TRUE;DB_CLOSE_DELAY=-1",
+                "kiwi", "kiwi",
+                new H2Dialect());
+        config.setDatacenterId(datacenterIds++);
+        config.setClustered(true);
+        config.setClusterPort(getClusterPort());
+        config.setNearCacheSize(CacheManager.NS_PREFIX_CACHE, 100);
+        // an invalidation may overtake the asynchronous update of the shared cache, keep the test short
+        config.setNearCacheExpiry(2);
+        return config;
+    }
+
+    /**
+     * Messages are delivered to the other member, but not to the sending member.
+     */
+    @Test
+    public void testChannel() throws InterruptedException {
+        CacheInvalidationChannel channel1 = cacheManager1.getInvalidationChannel();
+        CacheInvalidationChannel channel2 = cacheManager2.getInvalidationChannel();
+
+        Assert.assertNotNull(channel1);
+        Assert.assertNotNull(channel2);
+
+        QueueListener listener1 = new QueueListener();
+        QueueListener listener2 = new QueueListener();
+        channel1.setListener(listener1);
+        channel2.setListener(listener2);
+
+        channel1.publish(CacheManager.TRIPLE_CACHE, 1L);
+        channel1.publish(CacheManager.URI_CACHE, null);
+
+        Assert.assertEquals(new CacheInvalidation(CacheManager.TRIPLE_CACHE, 1L), listener2.messages.poll(10, TimeUnit.SECONDS));
+        Assert.assertEquals(new CacheInvalidation(CacheManager.URI_CACHE, null), listener2.messages.poll(10, TimeUnit.SECONDS));
+
+        Assert.assertNull(listener1.messages.poll(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A change by one member removes the entry from the near cache of the other member.
+     */
+    @Test
+    public void testNearCache() throws InterruptedException {
+        NearCacheManager nearCache1 = new NearCacheManager(cacheManager1, cacheManager1.getInvalidationChannel(), configuration1);
+        NearCacheManager nearCache2 = new NearCacheManager(cacheManager2, cacheManager2.getInvalidationChannel(), configuration2);
+
+        KiWiNamespace ns1 = new KiWiNamespace("ex", "http://example.com/1/");
+        KiWiNamespace ns2 = new KiWiNamespace("ex", "http://example.com/2/");
+
+        nearCache1.getNamespacePrefixCache().put("ex", ns1);
+        waitFor(nearCache2, ns1);
+
+        nearCache1.getNamespacePrefixCache().put("ex", ns2);
+        waitFor(nearCache2, ns2);
+    }
+
+    /**
+     * Wait until the shared cache has been updated and the near cache has been invalidated
+     */
+    private static void waitFor(NearCacheManager nearCache, KiWiNamespace expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(!expected.equals(nearCache.getNamespacePrefixCache().get("ex")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(expected, nearCache.getNamespacePrefixCache().get("ex"));
+    }
+
+
+    private static class QueueListener implements CacheInvalidationChannel.Listener {
+
+        private final BlockingQueue<CacheInvalidation> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void invalidate(String cacheName, Object key) {
+            messages.add(new CacheInvalidation(cacheName, key));
+        }
+    }
+}
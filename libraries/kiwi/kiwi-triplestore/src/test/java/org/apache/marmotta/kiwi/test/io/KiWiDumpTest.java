@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.test.io;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.marmotta.kiwi.io.KiWiDumpHandler;
+import org.apache.marmotta.kiwi.io.KiWiDumpReader;
+import org.apache.marmotta.kiwi.io.KiWiDumpWriter;
+import org.apache.marmotta.kiwi.io.KiWiTripleBlock;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNamespace;
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiResource;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.test.TestValueFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test writing and reading back KiWi dumps with the KiWiDumpWriter and KiWiDumpReader, including the detection of
+ * damaged dumps.
+ */
+public class KiWiDumpTest {
+
+    private TestValueFactory valueFactory;
+
+    private List<KiWiNamespace> namespaces;
+    private List<KiWiNode>      nodes;
+    private List<KiWiTriple>    triples;
+
+    @Before
+    public void setup() {
+        valueFactory = new TestValueFactory();
+
+        namespaces = new ArrayList<>();
+        for(String prefix : new String[] {"foaf", "dc", "ex"}) {
+            KiWiNamespace ns = new KiWiNamespace(prefix, "http://" + prefix + ".example.com/ns#");
+            ns.setId(namespaces.size() + 1);
+            ns.setCreated(new Date());
+            namespaces.add(ns);
+        }
+
+        List<KiWiResource>    resources  = new ArrayList<>();
+        List<KiWiUriResource> predicates = new ArrayList<>();
+
+        nodes = new ArrayList<>();
+        for(int i=0; i<100; i++) {
+            KiWiUriResource r = (KiWiUriResource) valueFactory.createURI("http://localhost/resource/" + RandomStringUtils.randomAlphanumeric(8));
+            resources.add(r);
+            nodes.add(r);
+        }
+        for(int i=0; i<10; i++) {
+            KiWiUriResource p = (KiWiUriResource) valueFactory.createURI("http://localhost/property/" + RandomStringUtils.randomAlphabetic(8));
+            predicates.add(p);
+            nodes.add(p);
+        }
+        for(int i=0; i<10; i++) {
+            KiWiResource b = (KiWiResource) valueFactory.createBNode();
+            resources.add(b);
+            nodes.add(b);
+        }
+        nodes.add((KiWiNode) valueFactory.createLiteral("plain literal"));
+        nodes.add((KiWiNode) valueFactory.createLiteral("Hallo Welt", "de"));
+        nodes.add((KiWiNode) valueFactory.createLiteral("custom", valueFactory.createURI("http://localhost/types/custom")));
+        nodes.add((KiWiNode) valueFactory.createLiteral(RandomStringUtils.randomAlphanumeric(50).toLowerCase() + " " + RandomStringUtils.randomAlphanumeric(5000)));
+        nodes.add((KiWiNode) valueFactory.createLiteral(42));
+        nodes.add((KiWiNode) valueFactory.createLiteral(Math.PI));
+        nodes.add((KiWiNode) valueFactory.createLiteral(true));
+        nodes.add((KiWiNode) valueFactory.createLiteral(new Date()));
+        nodes.add((KiWiNode) valueFactory.createLiteral("2014-01-01", XMLSchema.DATE));
+
+        Random rnd = new Random();
+        triples = new ArrayList<>();
+        for(int i=0; i<25000; i++) {
+            KiWiTriple t = (KiWiTriple) valueFactory.createStatement(
+                    resources.get(rnd.nextInt(resources.size())),
+                    predicates.get(rnd.nextInt(predicates.size())),
+                    nodes.get(rnd.nextInt(nodes.size())),
+                    i % 3 == 0 ? null : resources.get(rnd.nextInt(10)));
+            t.setInferred(i % 7 == 0);
+            triples.add(t);
+        }
+    }
+
+    /**
+     * Write a dump spanning several chunks of each type and check that the reader returns exactly the same data
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        CollectingHandler handler = new CollectingHandler();
+        new KiWiDumpReader(new ByteArrayInputStream(writeDump(1000))).parse(handler);
+
+        Assert.assertTrue(handler.started);
+        Assert.assertTrue(handler.finished);
+        Assert.assertEquals(namespaces.size(), handler.namespaces.size());
+
+        for(int i=0; i<namespaces.size(); i++) {
+            Assert.assertEquals(namespaces.get(i).getId(), handler.namespaces.get(i).getId());
+            Assert.assertEquals(namespaces.get(i).getPrefix(), handler.namespaces.get(i).getPrefix());
+            Assert.assertEquals(namespaces.get(i).getUri(), handler.namespaces.get(i).getUri());
+        }
+
+        Assert.assertEquals(1, handler.nodeChunks);
+        Assert.assertEquals(nodes.size(), handler.nodes.size());
+        for(int i=0; i<nodes.size(); i++) {
+            Assert.assertEquals(nodes.get(i).getId(), handler.nodes.get(i).getId());
+            Assert.assertEquals(nodes.get(i), handler.nodes.get(i));
+        }
+
+        Assert.assertEquals(25, handler.tripleChunks);
+        Assert.assertEquals(triples.size(), handler.triples.size());
+        for(int i=0; i<triples.size(); i++) {
+            KiWiTriple t = triples.get(i);
+            long[] expected = new long[] {
+                    t.getId(), t.getSubject().getId(), t.getPredicate().getId(), t.getObject().getId(),
+                    t.getContext() != null ? t.getContext().getId() : 0, 0, t.isInferred() ? 1 : 0, t.getCreated().getTime()
+            };
+            Assert.assertArrayEquals("triple " + i + " differs", expected, handler.triples.get(i));
+        }
+    }
+
+    /**
+     * A dump that has not been closed properly (e.g. because the export failed) must be rejected
+     */
+    @Test(expected = IOException.class)
+    public void testUnterminatedDump() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        KiWiDumpWriter writer = new KiWiDumpWriter(out);
+        for(KiWiNode node : nodes) {
+            writer.writeNode(node);
+        }
+        writer.flushChunk();
+
+        new KiWiDumpReader(new ByteArrayInputStream(out.toByteArray())).parse(new CollectingHandler());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDump() throws Exception {
+        byte[] dump = writeDump(1000);
+
+        new KiWiDumpReader(new ByteArrayInputStream(Arrays.copyOf(dump, dump.length / 2))).parse(new CollectingHandler());
+    }
+
+    @Test
+    public void testCorruptedChunk() throws Exception {
+        byte[] dump = writeDump(1000);
+
+        // header (magic, version, timestamp) + chunk header (type, records, length, checksum) + some payload bytes
+        dump[16 + 17 + 3] ^= 0x55;
+
+        CollectingHandler handler = new CollectingHandler();
+        try {
+            new KiWiDumpReader(new ByteArrayInputStream(dump)).parse(handler);
+            Assert.fail("corrupted dump has been accepted");
+        } catch (IOException ex) {
+            Assert.assertTrue(ex.getMessage().contains("checksum"));
+        }
+        Assert.assertTrue(handler.namespaces.isEmpty());
+        Assert.assertFalse(handler.finished);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoDump() throws Exception {
+        new KiWiDumpReader(new ByteArrayInputStream("@prefix ex: <http://example.com/> .".getBytes("UTF-8"))).parse(new CollectingHandler());
+    }
+
+    private byte[] writeDump(int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        KiWiDumpWriter writer = new KiWiDumpWriter(out, chunkSize);
+        for(KiWiNamespace ns : namespaces) {
+            writer.writeNamespace(ns);
+        }
+        for(KiWiNode node : nodes) {
+            writer.writeNode(node);
+        }
+        for(KiWiTriple triple : triples) {
+            writer.writeTriple(triple);
+        }
+        writer.close();
+
+        Assert.assertEquals(namespaces.size(), writer.getNamespaces());
+        Assert.assertEquals(nodes.size(), writer.getNodes());
+        Assert.assertEquals(triples.size(), writer.getTriples());
+
+        return out.toByteArray();
+    }
+
+    private static class CollectingHandler implements KiWiDumpHandler {
+        private boolean started, finished;
+
+        private int nodeChunks, tripleChunks;
+
+        private List<KiWiNamespace> namespaces = new ArrayList<>();
+        private List<KiWiNode>      nodes      = new ArrayList<>();
+        private List<long[]>        triples    = new ArrayList<>();
+
+        @Override
+        public void startDump(long created) throws IOException {
+            started = true;
+        }
+
+        @Override
+        public void handleNamespaces(List<KiWiNamespace> list) throws IOException {
+            namespaces.addAll(list);
+        }
+
+        @Override
+        public void handleNodes(List<KiWiNode> list) throws IOException {
+            nodes.addAll(list);
+            nodeChunks++;
+        }
+
+        @Override
+        public void handleTriples(KiWiTripleBlock block) throws IOException {
+            for(int i=0; i<block.size(); i++) {
+                triples.add(new long[] {
+                        block.getId(i), block.getSubject(i), block.getPredicate(i), block.getObject(i),
+                        block.getContext(i), block.getCreator(i), block.isInferred(i) ? 1 : 0, block.getCreated(i)
+                });
+            }
+            tripleChunks++;
+        }
+
+        @Override
+        public void endDump() throws IOException {
+            finished = true;
+        }
+    }
+}
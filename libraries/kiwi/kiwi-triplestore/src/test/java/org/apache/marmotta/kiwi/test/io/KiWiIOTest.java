@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.test.io;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.kiwi.io.KiWiIO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+/**
+ * Test the content (de)compression of KiWiIO, in particular the handling of long literals that are written in
+ * compressed form.
+ */
+public class KiWiIOTest {
+
+    @Test
+    public void testShortContent() throws Exception {
+        String content = "Hello World! Grüße aus Salzburg";
+
+        byte[] data = write(content);
+        Assert.assertEquals(KiWiIO.MODE_DEFAULT, data[0]);
+        Assert.assertEquals(content, read(data));
+    }
+
+    @Test
+    public void testCompressedContent() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for(int i=0; i<200; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog. Zwölf Boxkämpfer jagen Viktor quer über den Sylter Deich. ");
+        }
+        String content = builder.toString();
+
+        byte[] data = write(content);
+        Assert.assertEquals(KiWiIO.MODE_COMPRESSED, data[0]);
+        Assert.assertTrue("compressed content should be smaller than the original", data.length < content.length());
+        Assert.assertEquals(content, read(data));
+    }
+
+    @Test
+    public void testRandomContent() throws Exception {
+        String content = RandomStringUtils.randomAlphanumeric(2000);
+
+        Assert.assertEquals(content, read(write(content)));
+    }
+
+    /**
+     * The uncompressed length stored in the header claims more bytes than the compressed data yields
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testTruncatedCompressedContent() throws Exception {
+        String content = StringUtils.repeat("abcdefghij", 100);
+
+        byte[] data = write(content);
+        Assert.assertEquals(KiWiIO.MODE_COMPRESSED, data[0]);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 1, 4));
+        int strlen = in.readInt();
+
+        ByteArrayOutputStream corrupted = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(corrupted);
+        out.writeByte(data[0]);
+        out.writeInt(strlen + 100);
+        out.write(data, 5, data.length - 5);
+        out.flush();
+
+        read(corrupted.toByteArray());
+    }
+
+    /**
+     * The stream ends in the middle of the compressed data
+     */
+    @Test(expected = EOFException.class)
+    public void testMissingCompressedContent() throws Exception {
+        String content = StringUtils.repeat("abcdefghij", 100);
+
+        byte[] data = write(content);
+        Assert.assertEquals(KiWiIO.MODE_COMPRESSED, data[0]);
+
+        byte[] truncated = new byte[data.length - 5];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+
+        read(truncated);
+    }
+
+    private static byte[] write(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        KiWiIO.writeContent(out, content);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String read(byte[] data) throws IOException {
+        return KiWiIO.readContent(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
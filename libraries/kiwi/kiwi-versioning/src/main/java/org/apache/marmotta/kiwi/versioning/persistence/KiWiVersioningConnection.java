@@ -42,7 +42,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Add file description here!
@@ -61,7 +64,7 @@ public class KiWiVersioningConnection extends KiWiConnection {
     /**
      * Store a new version in the database. Will query for a new sequence ID for versions, insert a new row in the
      * versions table, and then add join entries to the versions_added and versions_removed tables for each added
-     * and removed triple.
+     * and removed triple and to the versions_resources table for each subject of these triples.
      * <p/>
      * Note that this method assumes the transaction data to be already consistent, i.e. a triple is not added and
      * removed at the same time. No check for this situation is performed
@@ -127,6 +130,88 @@ public class KiWiVersioningConnection extends KiWiConnection {
             insertRemoved.executeBatch(); // if this is a performance issue, we could also run it every 1000 inserts or so
         }
 
+        // finally record the resources affected by the version for looking up the versions of a resource
+        PreparedStatement insertResources = getPreparedStatement("store.version_resources");
+        synchronized (insertResources) {
+            insertResources.clearParameters();
+            insertResources.setLong(1, data.getId());
+            insertResources.setLong(2, data.getId());
+            insertResources.executeUpdate();
+        }
+    }
+
+    /**
+     * Store the versions recorded in a versioning journal in the database, using a single batch for each of the
+     * versions, versions_added, versions_removed and versions_resources tables. In contrast to {@link #storeVersion(Version)}, the
+     * version IDs have already been assigned when the versions were journaled, and the triples are only given
+     * by their database IDs.
+     *
+     * @param entries the journal entries to store
+     * @throws SQLException
+     */
+    public void storeVersions(Collection<KiWiVersioningJournal.Entry> entries) throws SQLException {
+        requireJDBCConnection();
+
+        PreparedStatement insertVersion = getPreparedStatement("store.version");
+        synchronized (insertVersion) {
+            insertVersion.clearParameters();
+            for(KiWiVersioningJournal.Entry entry : entries) {
+                insertVersion.setLong(1, entry.getId());
+                if(entry.getCreator() >= 0) {
+                    insertVersion.setLong(2, entry.getCreator());
+                } else {
+                    insertVersion.setObject(2, null);
+                }
+                insertVersion.setTimestamp(3, new Timestamp(entry.getCommitTime().getTime()));
+                insertVersion.addBatch();
+            }
+            insertVersion.executeBatch();
+        }
+
+        PreparedStatement insertAdded = getPreparedStatement("store.version_added");
+        synchronized (insertAdded) {
+            insertAdded.clearParameters();
+            int count = 0;
+            for(KiWiVersioningJournal.Entry entry : entries) {
+                for(long tripleId : entry.getAddedTriples()) {
+                    insertAdded.setLong(1, entry.getId());
+                    insertAdded.setLong(2, tripleId);
+                    insertAdded.addBatch();
+                    if(++count % 10000 == 0) {
+                        insertAdded.executeBatch();
+                    }
+                }
+            }
+            insertAdded.executeBatch();
+        }
+
+        PreparedStatement insertRemoved = getPreparedStatement("store.version_removed");
+        synchronized (insertRemoved) {
+            insertRemoved.clearParameters();
+            int count = 0;
+            for(KiWiVersioningJournal.Entry entry : entries) {
+                for(long tripleId : entry.getRemovedTriples()) {
+                    insertRemoved.setLong(1, entry.getId());
+                    insertRemoved.setLong(2, tripleId);
+                    insertRemoved.addBatch();
+                    if(++count % 10000 == 0) {
+                        insertRemoved.executeBatch();
+                    }
+                }
+            }
+            insertRemoved.executeBatch();
+        }
+
+        PreparedStatement insertResources = getPreparedStatement("store.version_resources");
+        synchronized (insertResources) {
+            insertResources.clearParameters();
+            for(KiWiVersioningJournal.Entry entry : entries) {
+                insertResources.setLong(1, entry.getId());
+                insertResources.setLong(2, entry.getId());
+                insertResources.addBatch();
+            }
+            insertResources.executeBatch();
+        }
     }
 
     /**
@@ -151,6 +236,11 @@ public class KiWiVersioningConnection extends KiWiConnection {
         removeRemoved.setLong(1, id);
         removeRemoved.executeUpdate();
 
+        PreparedStatement removeResources = getPreparedStatement("delete.version_resources");
+        removeResources.clearParameters();
+        removeResources.setLong(1, id);
+        removeResources.executeUpdate();
+
         PreparedStatement removeVersion = getPreparedStatement("delete.version");
         removeVersion.clearParameters();
         removeVersion.setLong(1, id);
@@ -247,6 +337,103 @@ public class KiWiVersioningConnection extends KiWiConnection {
     }
 
 
+    /**
+     * Return the first (oldest) version affecting the given resource as subject, or null if there is no such version.
+     *
+     * @param resource the resource for which to find the version
+     * @throws SQLException
+     */
+    public Version getFirstVersion(KiWiResource resource) throws SQLException {
+        return firstOrNull(queryVersions("load.version_first_by_resource", resource, null, 1));
+    }
+
+    /**
+     * Return the last (most recent) version affecting the given resource as subject, or null if there is no such
+     * version.
+     *
+     * @param resource the resource for which to find the version
+     * @throws SQLException
+     */
+    public Version getLastVersion(KiWiResource resource) throws SQLException {
+        return firstOrNull(queryVersions("load.version_last_by_resource", resource, null, 1));
+    }
+
+    /**
+     * Return the version affecting the given resource as subject that directly precedes the given version, or null
+     * if the given version is the first one. Versions are ordered by their commit time and ID.
+     *
+     * @param resource the resource for which to find the version
+     * @param version  the reference version
+     * @throws SQLException
+     */
+    public Version getPreviousVersion(KiWiResource resource, Version version) throws SQLException {
+        return firstOrNull(queryVersions("load.version_prev_by_resource", resource, version, 1));
+    }
+
+    /**
+     * Return the version affecting the given resource as subject that directly follows the given version, or null
+     * if the given version is the last one. Versions are ordered by their commit time and ID.
+     *
+     * @param resource the resource for which to find the version
+     * @param version  the reference version
+     * @throws SQLException
+     */
+    public Version getNextVersion(KiWiResource resource, Version version) throws SQLException {
+        return firstOrNull(queryVersions("load.version_next_by_resource", resource, version, 1));
+    }
+
+    /**
+     * List a page of the versions affecting the given resource as subject in ascending order, starting after the
+     * given version (or with the first version in case it is null). The versions are ordered by their commit time and
+     * ID, so the last version of a page can be used to request the following page.
+     *
+     * @param resource the resource for which to list the versions
+     * @param after    the last version of the previous page, or null for the first page
+     * @param limit    the maximum number of versions to return
+     * @throws SQLException
+     */
+    public List<Version> listVersions(KiWiResource resource, Version after, int limit) throws SQLException {
+        if(after == null) {
+            return queryVersions("load.version_first_by_resource", resource, null, limit);
+        } else {
+            return queryVersions("load.version_next_by_resource", resource, after, limit);
+        }
+    }
+
+    private List<Version> queryVersions(String statement, KiWiResource resource, Version reference, int limit) throws SQLException {
+        requireJDBCConnection();
+
+        PreparedStatement queryVersions = getPreparedStatement(statement);
+        synchronized (queryVersions) {
+            queryVersions.clearParameters();
+
+            int index = 1;
+            queryVersions.setLong(index++, resource.getId());
+            if(reference != null) {
+                Timestamp commitTime = new Timestamp(reference.getCommitTime().getTime());
+                queryVersions.setTimestamp(index++, commitTime);
+                queryVersions.setTimestamp(index++, commitTime);
+                queryVersions.setLong(index++, reference.getId());
+            }
+            queryVersions.setInt(index, limit);
+
+            List<Version> result = new ArrayList<>(Math.min(limit, 100));
+            ResultSet r = queryVersions.executeQuery();
+            try {
+                while(r.next()) {
+                    result.add(constructVersionFromDatabase(r));
+                }
+            } finally {
+                r.close();
+            }
+            return result;
+        }
+    }
+
+    private static Version firstOrNull(List<Version> versions) {
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     /**
      * List all versions in the database; operates directly on the result set, i.e. the iteration is carried out
      * lazily and needs to be closed when iteration is completed.
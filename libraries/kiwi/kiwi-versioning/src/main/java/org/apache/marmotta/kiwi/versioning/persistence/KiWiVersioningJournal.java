@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.versioning.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A durable local journal of versions that have been committed in the triple store but not yet written to the
+ * versioning tables. Each version is written to its own file in the journal directory (named after the
+ * pre-assigned version ID) and synced to disk before the append returns; the file is removed once the version
+ * has been stored in the database. After a crash, the remaining files are replayed by {@link #recover()}.
+ * <p/>
+ * The journal only records the database IDs of the added and removed triples, so a version can be stored without
+ * loading any triple data.
+ */
+public class KiWiVersioningJournal {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiVersioningJournal.class);
+
+    private static final int MAGIC = 0x4b57564a; // "KWVJ"
+
+    private static final String SUFFIX = ".version";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String FAILED_DIRECTORY = "failed";
+
+    private final File directory;
+
+    // entries that cannot be read or stored are moved here for manual inspection
+    private final File failedDirectory;
+
+    public KiWiVersioningJournal(File directory) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("could not create versioning journal directory " + directory);
+        }
+        this.directory = directory;
+        this.failedDirectory = new File(directory, FAILED_DIRECTORY);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Durably append the entry to the journal. When this method returns, the entry will survive a crash of the
+     * process or the operating system.
+     */
+    public void append(Entry entry) throws IOException {
+        File tmp  = new File(directory, getFileName(entry) + TMP_SUFFIX);
+        File file = new File(directory, getFileName(entry));
+
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeLong(entry.getId());
+            out.writeLong(entry.getCreator());
+            out.writeLong(entry.getCommitTime().getTime());
+            writeIds(out, entry.getAddedTriples());
+            writeIds(out, entry.getRemovedTriples());
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+
+        // the rename makes the entry visible for recovery only once it has been written completely
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove the entry from the journal after it has been stored in the database.
+     */
+    public void remove(Entry entry) {
+        File file = new File(directory, getFileName(entry));
+        if(file.exists() && !file.delete()) {
+            log.warn("could not remove versioning journal file {}; the version will be skipped when recovering", file);
+        }
+    }
+
+    /**
+     * Move the entry out of the journal into the "failed" subdirectory, e.g. because it can never be stored in the
+     * database. The entry will not be replayed, but is kept for manual inspection.
+     */
+    public void quarantine(Entry entry) {
+        quarantine(new File(directory, getFileName(entry)));
+    }
+
+    /**
+     * Return the number of entries that have been moved to the "failed" subdirectory because they could not be read
+     * or stored, including those moved in previous runs.
+     */
+    public int countQuarantined() {
+        String[] files = failedDirectory.list(new SuffixFilter(SUFFIX));
+        return files != null ? files.length : 0;
+    }
+
+    private void quarantine(File file) {
+        if(!file.exists()) {
+            return;
+        }
+        try {
+            if(!failedDirectory.isDirectory() && !failedDirectory.mkdirs()) {
+                throw new IOException("could not create directory " + failedDirectory);
+            }
+            Files.move(file.toPath(), new File(failedDirectory, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.warn("moved versioning journal file {} to {}", file.getName(), failedDirectory);
+        } catch (IOException ex) {
+            log.error("could not move versioning journal file {} (error: {}), deleting it", file, ex.getMessage());
+            if(!file.delete()) {
+                log.error("could not delete versioning journal file {}", file);
+            }
+        }
+    }
+
+    /**
+     * Read all entries remaining in the journal, ordered by version ID. Incomplete (temporary) files left by a crash
+     * during an append have never been acknowledged and are deleted; unreadable files are moved to the "failed"
+     * subdirectory, so they are not read again on every start.
+     */
+    public List<Entry> recover() throws IOException {
+        File[] tmpFiles = directory.listFiles(new SuffixFilter(TMP_SUFFIX));
+        if(tmpFiles != null) {
+            for(File tmp : tmpFiles) {
+                log.warn("removing incomplete versioning journal file {}", tmp);
+                tmp.delete();
+            }
+        }
+
+        File[] files = directory.listFiles(new SuffixFilter(SUFFIX));
+        if(files == null) {
+            throw new IOException("could not list versioning journal directory " + directory);
+        }
+        Arrays.sort(files);
+
+        List<Entry> entries = new ArrayList<>(files.length);
+        for(File file : files) {
+            Entry entry = null;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if(in.readInt() == MAGIC) {
+                    long id        = in.readLong();
+                    long creator   = in.readLong();
+                    Date time      = new Date(in.readLong());
+                    long[] added   = readIds(in);
+                    long[] removed = readIds(in);
+                    entry = new Entry(id, creator, time, added, removed);
+                } else {
+                    log.error("versioning journal file {} has an invalid format", file);
+                }
+            } catch (IOException ex) {
+                log.error("could not read versioning journal file {} (error: {})", file, ex.getMessage());
+            } finally {
+                in.close();
+            }
+
+            if(entry != null) {
+                entries.add(entry);
+            } else {
+                quarantine(file);
+            }
+        }
+        return entries;
+    }
+
+    private static String getFileName(Entry entry) {
+        // zero-padded so that the lexicographic order of the files is the order of the IDs
+        return String.format("%020d%s", entry.getId(), SUFFIX);
+    }
+
+    private static void writeIds(DataOutputStream out, long[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for(long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static long[] readIds(DataInputStream in) throws IOException {
+        long[] ids = new long[in.readInt()];
+        for(int i=0; i<ids.length; i++) {
+            ids[i] = in.readLong();
+        }
+        return ids;
+    }
+
+    private static class SuffixFilter implements FilenameFilter {
+        private final String suffix;
+
+        private SuffixFilter(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(suffix);
+        }
+    }
+
+    /**
+     * A version as recorded in the journal: the pre-assigned version ID, the creator (-1 if none), the commit time
+     * and the database IDs of the added and removed triples.
+     */
+    public static class Entry {
+
+        private final long id;
+
+        private final long creator;
+
+        private final Date commitTime;
+
+        private final long[] addedTriples;
+
+        private final long[] removedTriples;
+
+        public Entry(long id, long creator, Date commitTime, long[] addedTriples, long[] removedTriples) {
+            this.id = id;
+            this.creator = creator;
+            this.commitTime = commitTime;
+            this.addedTriples = addedTriples;
+            this.removedTriples = removedTriples;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getCreator() {
+            return creator;
+        }
+
+        public Date getCommitTime() {
+            return commitTime;
+        }
+
+        public long[] getAddedTriples() {
+            return addedTriples;
+        }
+
+        public long[] getRemovedTriples() {
+            return removedTriples;
+        }
+
+        @Override
+        public String toString() {
+            return "Version{id=" + id + ", added=" + addedTriples.length + ", removed=" + removedTriples.length + "}";
+        }
+    }
+}
@@ -55,7 +55,11 @@ public class KiWiVersioningPersistence {
     public void initDatabase() throws SQLException {
         persistence.initDatabase("versioning", new String[] {"versions", "versions_added", "versions_removed"});
 
+        // the resources of the versions are kept since schema version 5
+        persistence.upgradeDatabase("versioning", 4, "versions_resources");
+
         persistence.addNodeTableDependency("versions", "creator");
+        persistence.addNodeTableDependency("versions_resources", "resource_id");
         persistence.addTripleTableDependency("versions_added","triple_id");
         persistence.addTripleTableDependency("versions_removed","triple_id");
     }
@@ -84,4 +88,19 @@ public class KiWiVersioningPersistence {
     public KiWiDialect getDialect() {
         return persistence.getDialect();
     }
+
+    /**
+     * Prevent the garbage collector from removing deleted triples while versions referencing them are pending in
+     * the versioning journal.
+     */
+    public void suspendTripleCollection(Object holder) {
+        persistence.suspendTripleCollection(holder);
+    }
+
+    /**
+     * Allow the garbage collector to remove deleted triples again.
+     */
+    public void resumeTripleCollection(Object holder) {
+        persistence.resumeTripleCollection(holder);
+    }
 }
@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.versioning.sail;
+
+import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningConnection;
+import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningJournal;
+import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer of the write-behind mode of the {@link KiWiVersioningSail}. Versions are first appended to the
+ * {@link KiWiVersioningJournal} and then drained into the versioning tables in batches, each batch in a single
+ * database transaction. A journal entry is only removed after its batch has been committed, so entries that are
+ * still in the journal on startup (after a crash) are replayed; versions that had already been committed before the
+ * crash are skipped.
+ * <p/>
+ * Each pending version holds the garbage collection of deleted triples until it has been stored, since the journal
+ * references triples that are not yet recorded in the versioning tables. A garbage collection only waits for the
+ * versions pending when it starts; versions appended in the meantime wait until it is finished. Versions that violate
+ * a database constraint (e.g. because a triple was collected before the version was journaled) are moved out of the
+ * journal instead of being retried forever; they are logged and counted by {@link #getQuarantinedVersions()}.
+ */
+class KiWiVersionWriter implements Runnable {
+
+    private static Logger log = LoggerFactory.getLogger(KiWiVersionWriter.class);
+
+    private static final long RETRY_DELAY = 5000L;
+
+    private final KiWiVersioningPersistence persistence;
+
+    private final KiWiVersioningJournal journal;
+
+    private final int batchSize;
+
+    private final BlockingQueue<KiWiVersioningJournal.Entry> queue;
+
+    // IDs of the versions replayed from the journal, they might already have been stored before a crash
+    private final Set<Long> recovered;
+
+    // versions that have been appended but not yet stored, guarded by the monitor of the writer; each of them
+    // suspends the garbage collection of deleted triples until it is stored
+    private final Set<KiWiVersioningJournal.Entry> pending;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    KiWiVersionWriter(KiWiVersioningPersistence persistence, KiWiVersioningJournal journal, int batchSize) {
+        this.persistence = persistence;
+        this.journal     = journal;
+        this.batchSize   = batchSize;
+        this.queue       = new LinkedBlockingQueue<>();
+        this.recovered   = new HashSet<>();
+        this.pending     = new HashSet<>();
+    }
+
+    /**
+     * Replay the versions remaining in the journal and start the background thread.
+     */
+    synchronized void start() throws IOException {
+        List<KiWiVersioningJournal.Entry> entries = journal.recover();
+        if(!entries.isEmpty()) {
+            log.info("recovering {} versions from versioning journal {}", entries.size(), journal.getDirectory());
+        }
+        if(journal.countQuarantined() > 0) {
+            log.warn("versioning journal {} contains {} versions that could not be stored", journal.getDirectory(), journal.countQuarantined());
+        }
+        for(KiWiVersioningJournal.Entry entry : entries) {
+            recovered.add(entry.getId());
+            enqueue(entry);
+        }
+
+        running = true;
+        thread = new Thread(this, "KiWi Versioning Writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Durably append the version to the journal and schedule it for writing to the database.
+     */
+    void append(KiWiVersioningJournal.Entry entry) throws IOException {
+        // suspend the garbage collection of the referenced triples before they are only recorded in the journal
+        addPending(entry);
+        try {
+            journal.append(entry);
+        } catch (IOException ex) {
+            removePending(Collections.singletonList(entry));
+            throw ex;
+        }
+        queue.add(entry);
+    }
+
+    private void enqueue(KiWiVersioningJournal.Entry entry) {
+        addPending(entry);
+        queue.add(entry);
+    }
+
+    private void addPending(KiWiVersioningJournal.Entry entry) {
+        // not holding the monitor, since this waits for a running garbage collection, which in turn waits for the
+        // pending versions to be stored
+        persistence.suspendTripleCollection(entry);
+        synchronized (this) {
+            pending.add(entry);
+        }
+    }
+
+    private synchronized void removePending(Collection<KiWiVersioningJournal.Entry> entries) {
+        for(KiWiVersioningJournal.Entry entry : entries) {
+            if(pending.remove(entry)) {
+                persistence.resumeTripleCollection(entry);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Release the holds of the versions that have not been stored; they remain in the journal.
+     */
+    private synchronized void releasePending() {
+        for(KiWiVersioningJournal.Entry entry : pending) {
+            persistence.resumeTripleCollection(entry);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Return the number of versions that could not be stored and have been moved out of the journal, including
+     * those moved in previous runs.
+     */
+    int getQuarantinedVersions() {
+        return journal.countQuarantined();
+    }
+
+    /**
+     * Wait until all versions appended so far have been stored in the database.
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @return true if all versions have been stored, false if the timeout elapsed before
+     */
+    synchronized boolean flush(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while(!pending.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Write the remaining versions (waiting at most the given timeout) and stop the background thread. Versions that
+     * could not be written stay in the journal and are replayed on the next start.
+     */
+    void shutdown(long timeout) {
+        try {
+            if(!flush(timeout)) {
+                log.warn("versioning writer did not finish in time, unwritten versions remain in the journal");
+            }
+            running = false;
+            if(thread != null) {
+                thread.join(timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            releasePending();
+        }
+    }
+
+    @Override
+    public void run() {
+        while(running) {
+            try {
+                KiWiVersioningJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                List<KiWiVersioningJournal.Entry> batch = new ArrayList<>();
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Write the batch, retrying after a delay in case of temporary errors (e.g. the database is not reachable). In
+     * case the batch violates a database constraint, it is divided to find the versions that can never be stored;
+     * these are moved out of the journal so that they do not block the versions following them.
+     */
+    private void writeBatch(List<KiWiVersioningJournal.Entry> batch) throws InterruptedException {
+        while(running) {
+            try {
+                write(batch);
+                return;
+            } catch (SQLException ex) {
+                if(isConstraintViolation(ex)) {
+                    if(batch.size() > 1) {
+                        log.warn("could not store batch of {} versions (error: {}), dividing batch", batch.size(), ex.getMessage());
+                        int half = batch.size() / 2;
+                        writeBatch(batch.subList(0, half));
+                        writeBatch(batch.subList(half, batch.size()));
+                    } else {
+                        KiWiVersioningJournal.Entry entry = batch.get(0);
+                        log.warn("version {} can not be stored (error: {}), moving it out of the journal", entry, ex.getMessage());
+                        recovered.remove(entry.getId());
+                        journal.quarantine(entry);
+                        removePending(batch);
+                    }
+                    return;
+                }
+                log.error("could not store versioning information (error: {}), retrying in {}ms", ex.getMessage(), RETRY_DELAY);
+                Thread.sleep(RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Check whether the exception (or one of the exceptions chained to it) is an integrity constraint violation
+     * (SQL state class 23), e.g. a version referencing a triple that no longer exists. Such errors do not go away by
+     * retrying.
+     */
+    private static boolean isConstraintViolation(SQLException ex) {
+        for(Throwable t = ex; t != null; t = t.getCause()) {
+            if(t instanceof SQLException) {
+                for(SQLException e = (SQLException) t; e != null; e = e.getNextException()) {
+                    if(e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void write(List<KiWiVersioningJournal.Entry> batch) throws SQLException {
+        KiWiVersioningConnection connection = persistence.getConnection();
+        try {
+            List<KiWiVersioningJournal.Entry> store = batch;
+            if(!recovered.isEmpty()) {
+                store = new ArrayList<>(batch.size());
+                for(KiWiVersioningJournal.Entry entry : batch) {
+                    if(recovered.contains(entry.getId()) && connection.getVersion(entry.getId()) != null) {
+                        log.debug("version {} from journal has already been stored, skipping", entry.getId());
+                    } else {
+                        store.add(entry);
+                    }
+                }
+            }
+            connection.storeVersions(store);
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.close();
+        }
+
+        for(KiWiVersioningJournal.Entry entry : batch) {
+            recovered.remove(entry.getId());
+            journal.remove(entry);
+        }
+        removePending(batch);
+    }
+}
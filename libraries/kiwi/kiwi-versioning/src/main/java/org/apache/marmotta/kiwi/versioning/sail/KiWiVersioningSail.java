@@ -24,10 +24,12 @@ import org.apache.marmotta.commons.sesame.transactions.api.TransactionalSail;
 import org.apache.marmotta.commons.sesame.transactions.model.TransactionData;
 import org.apache.marmotta.commons.sesame.transactions.wrapper.TransactionalSailWrapper;
 import org.apache.marmotta.kiwi.model.rdf.KiWiResource;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
 import org.apache.marmotta.kiwi.sail.KiWiStore;
 import org.apache.marmotta.kiwi.versioning.api.VersioningSail;
 import org.apache.marmotta.kiwi.versioning.model.Version;
 import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningConnection;
+import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningJournal;
 import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningPersistence;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
@@ -41,9 +43,13 @@ import org.openrdf.sail.StackableSail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -60,6 +66,12 @@ import java.util.Set;
  * Further functionalities like removing old versions or undoing certain versions are planned but currently not yet
  * implemented.
  * <p/>
+ * When created with a journal directory, the sail runs in write-behind mode: committed versions are durably appended
+ * to a {@link KiWiVersioningJournal} and written to the versioning tables in batches by a background thread, so
+ * commits do not wait for the versioning inserts. Versions left in the journal after a crash are written on the next
+ * initialisation. Methods reading versions first wait until all pending versions have been written; {@link #flush()}
+ * can be used to wait explicitly.
+ * <p/>
  * Author: Sebastian Schaffert
  */
 public class KiWiVersioningSail extends TransactionalSailWrapper implements TransactionListener, VersioningSail {
@@ -68,12 +80,22 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
 
     protected final static long DEFAULT_CONNECTION_TIMEOUT = 20000L;
 
+    /**
+     * Maximum number of versions written by the background writer in one database transaction.
+     */
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+
     private KiWiVersioningPersistence persistence;
 
     private Set<KiWiSnapshotConnection> activeSnapshots;
 
     private SesameFilter<Statement> filter;
 
+    private File journalDirectory;
+
+    // the background writer in write-behind mode, null if versions are stored synchronously
+    private KiWiVersionWriter writer;
+
     /**
      * Build a new {@link KiWiVersioningSail} based on the provided parent
      * {@link TransactionalSail}.
@@ -102,10 +124,30 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      * @see SesameFilter#accept(Object)
      */
     public KiWiVersioningSail(TransactionalSail parent, SesameFilter<Statement> filter) {
+        this(parent, filter, null);
+    }
+
+    /**
+     * Build a new selective {@link KiWiVersioningSail} based on the provided
+     * parent {@link TransactionalSail}, storing versions in write-behind mode
+     * in case a journal directory is given.
+     *
+     * @param parent
+     *            the {@link TransactionalSail} to base the
+     *            {@link KiWiVersioningSail} on.
+     * @param filter
+     *            a {@link SesameFilter} to filter out {@link Statement}s that
+     *            should not be versioned.
+     * @param journalDirectory
+     *            the directory of the {@link KiWiVersioningJournal}; if null,
+     *            versions are stored synchronously after each commit
+     */
+    public KiWiVersioningSail(TransactionalSail parent, SesameFilter<Statement> filter, File journalDirectory) {
         super(parent);
         this.persistence = new KiWiVersioningPersistence(getBaseStore().getPersistence());
         this.activeSnapshots = new HashSet<KiWiSnapshotConnection>();
         this.filter = filter;
+        this.journalDirectory = journalDirectory;
 
         parent.addTransactionListener(this);
     }
@@ -125,6 +167,50 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
         } catch (SQLException e) {
             throw new SailException("error while initialising versioning tables in database",e);
         }
+
+        if(journalDirectory != null) {
+            try {
+                writer = new KiWiVersionWriter(persistence, new KiWiVersioningJournal(journalDirectory), DEFAULT_BATCH_SIZE);
+                writer.start();
+            } catch (IOException e) {
+                throw new SailException("error while opening versioning journal",e);
+            }
+        }
+    }
+
+    /**
+     * Return true in case versions are written to the database by a background writer.
+     */
+    public boolean isWriteBehind() {
+        return writer != null;
+    }
+
+    /**
+     * Return the number of versions that could not be stored in write-behind mode (e.g. because they violate a
+     * database constraint) and have been moved to the "failed" subdirectory of the journal. Returns 0 in case the
+     * sail does not run in write-behind mode.
+     */
+    public int getQuarantinedVersions() {
+        return writer != null ? writer.getQuarantinedVersions() : 0;
+    }
+
+    /**
+     * Wait until all versions committed so far have been written to the versioning tables. Returns immediately in
+     * case the sail does not run in write-behind mode.
+     *
+     * @throws SailException in case the versions have not been written within the connection timeout
+     */
+    public void flush() throws SailException {
+        if(writer != null) {
+            try {
+                if(!writer.flush(DEFAULT_CONNECTION_TIMEOUT)) {
+                    throw new SailException("timeout while waiting for versions to be written");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SailException("interrupted while waiting for versions to be written",e);
+            }
+        }
     }
 
     /**
@@ -178,6 +264,15 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
 
             if(version.getAddedTriples().size() > 0 || version.getRemovedTriples().size() > 0) {
 
+                if(writer != null) {
+                    try {
+                        writer.append(createJournalEntry(version));
+                        return;
+                    } catch (IOException ex) {
+                        log.warn("could not append version to journal (error: {}); storing it directly", ex.getMessage());
+                    }
+                }
+
                 try {
                     final KiWiVersioningConnection connection = persistence.getConnection();
                     try {
@@ -196,6 +291,35 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
         }
     }
 
+    /**
+     * Convert a version into a journal entry with a newly assigned version ID, referencing the triples by their
+     * database IDs.
+     */
+    private KiWiVersioningJournal.Entry createJournalEntry(Version version) {
+        return new KiWiVersioningJournal.Entry(
+                getBaseStore().getPersistence().getIdGenerator().getId(),
+                version.getCreator() != null ? version.getCreator().getId() : -1L,
+                version.getCommitTime(),
+                getTripleIds(version.getAddedTriples()),
+                getTripleIds(version.getRemovedTriples()));
+    }
+
+    private static long[] getTripleIds(Iterable<Statement> triples) {
+        long[] ids = new long[0];
+        int size = 0;
+        for(Statement stmt : triples) {
+            if(stmt instanceof KiWiTriple) {
+                if(size == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+                }
+                ids[size++] = ((KiWiTriple) stmt).getId();
+            } else {
+                log.warn("cannot create version with statements that are not instances of KiWiTriple!");
+            }
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
     /**
      * Called before a transaction commits. The transaction data will contain all changes done in the transaction since
      * the last commit. This method should be used in case the transaction listener aims to perform additional activities
@@ -254,6 +378,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      */
     @Override
     public RepositoryResult<Version> listVersions()  throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             return new RepositoryResult<Version>(connection.listVersions()) {
@@ -281,6 +406,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      */
     @Override
     public RepositoryResult<Version> listVersions(Date from, Date to) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             return new RepositoryResult<Version>(connection.listVersions(from,to)) {
@@ -304,6 +430,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
 
 
     public Version getVersion(Long id) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             try {
@@ -326,6 +453,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      * @throws SailException
      */
     public void removeVersion(Long id) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             try {
@@ -348,6 +476,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      * @throws SailException
      */
     public void removeVersions(Date until) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             try {
@@ -372,6 +501,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      * @throws SailException
      */
     public void removeVersions(Date from, Date to) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
             try {
@@ -397,6 +527,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      * @throws SQLException
      */
     public Version getLatestVersion(Resource r, Date date) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
 
@@ -415,6 +546,84 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
     }
 
 
+    /**
+     * Return the first version affecting the given resource as subject, or null if the resource has no versions.
+     */
+    public Version getFirstVersion(Resource r) throws SailException {
+        return getNeighbourVersion(r, null, true);
+    }
+
+    /**
+     * Return the last version affecting the given resource as subject, or null if the resource has no versions.
+     */
+    public Version getLastVersion(Resource r) throws SailException {
+        return getNeighbourVersion(r, null, false);
+    }
+
+    /**
+     * Return the version of the given resource directly preceding the given version, or null if there is none.
+     */
+    public Version getPreviousVersion(Resource r, Version version) throws SailException {
+        return getNeighbourVersion(r, version, false);
+    }
+
+    /**
+     * Return the version of the given resource directly following the given version, or null if there is none.
+     */
+    public Version getNextVersion(Resource r, Version version) throws SailException {
+        return getNeighbourVersion(r, version, true);
+    }
+
+    private Version getNeighbourVersion(Resource r, Version version, boolean forward) throws SailException {
+        flush();
+        try {
+            final KiWiVersioningConnection connection = persistence.getConnection();
+
+            KiWiResource kr = (KiWiResource) ((r instanceof URI) ? getValueFactory().createURI(r.stringValue()) : getValueFactory().createBNode(r.stringValue()));
+
+            try {
+                if(version == null) {
+                    return forward ? connection.getFirstVersion(kr) : connection.getLastVersion(kr);
+                } else {
+                    return forward ? connection.getNextVersion(kr, version) : connection.getPreviousVersion(kr, version);
+                }
+            } finally {
+                connection.commit();
+                connection.close();
+            }
+
+        } catch(SQLException ex) {
+            throw new SailException("database error while listing versions",ex);
+        }
+    }
+
+    /**
+     * List a page of the versions affecting the given resource as subject, in ascending order and starting after the
+     * given version (or with the first version in case it is null).
+     *
+     * @param r      the resource for which to list the versions
+     * @param after  the last version of the previous page, or null for the first page
+     * @param limit  the maximum number of versions to return
+     */
+    public List<Version> listVersions(Resource r, Version after, int limit) throws SailException {
+        flush();
+        try {
+            final KiWiVersioningConnection connection = persistence.getConnection();
+
+            KiWiResource kr = (KiWiResource) ((r instanceof URI) ? getValueFactory().createURI(r.stringValue()) : getValueFactory().createBNode(r.stringValue()));
+
+            try {
+                return connection.listVersions(kr, after, limit);
+            } finally {
+                connection.commit();
+                connection.close();
+            }
+
+        } catch(SQLException ex) {
+            throw new SailException("database error while listing versions",ex);
+        }
+    }
+
     /**
      * List all versions of this repository affecting the given resource as subject.
      *
@@ -422,6 +631,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      */
     @Override
     public RepositoryResult<Version> listVersions(Resource r)  throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
 
@@ -452,6 +662,7 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
      */
     @Override
     public RepositoryResult<Version> listVersions(Resource r, Date from, Date to) throws SailException {
+        flush();
         try {
             final KiWiVersioningConnection connection = persistence.getConnection();
 
@@ -528,6 +739,11 @@ public class KiWiVersioningSail extends TransactionalSailWrapper implements Tran
             }
         }
 
+        if(writer != null) {
+            writer.shutdown(DEFAULT_CONNECTION_TIMEOUT);
+            writer = null;
+        }
+
         // call parent
         super.shutDown();
     }
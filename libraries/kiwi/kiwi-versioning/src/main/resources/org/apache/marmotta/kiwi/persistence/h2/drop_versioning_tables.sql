@@ -17,8 +17,11 @@ DROP INDEX IF EXISTS idx_versions_removed;
 DROP INDEX IF EXISTS idx_versions_added_tid;
 DROP INDEX IF EXISTS idx_versions_removed_tid;
 DROP INDEX IF EXISTS idx_versions_created;
+DROP INDEX IF EXISTS idx_versions_resources;
+DROP INDEX IF EXISTS idx_versions_resources_vid;
 
 
+DROP TABLE IF EXISTS versions_resources;
 DROP TABLE IF EXISTS versions_added;
 DROP TABLE IF EXISTS versions_removed;
 DROP TABLE IF EXISTS versions;
@@ -0,0 +1,35 @@
+-- Licensed to the Apache Software Foundation (ASF) under one or more
+-- contributor license agreements.  See the NOTICE file distributed with
+-- this work for additional information regarding copyright ownership.
+-- The ASF licenses this file to You under the Apache License, Version 2.0
+-- (the "License"); you may not use this file except in compliance with
+-- the License.  You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+-- versions ordered by creation time and id
+DROP INDEX idx_versions_created ON versions;
+CREATE INDEX idx_versions_created ON versions(createdAt,id);
+
+-- resources affected by each version, for the neighbour lookups of the versions of a resource
+CREATE TABLE versions_resources (
+  version_id  bigint     NOT NULL REFERENCES versions(id),
+  resource_id bigint     NOT NULL REFERENCES nodes(id),
+  createdAt   timestamp  NOT NULL DEFAULT now()
+);
+
+INSERT INTO versions_resources (version_id,resource_id,createdAt)
+  SELECT V.id, T.subject, V.createdAt FROM versions V, versions_added A, triples T
+    WHERE A.version_id = V.id AND T.id = A.triple_id
+  UNION
+  SELECT V.id, T.subject, V.createdAt FROM versions V, versions_removed R, triples T
+    WHERE R.version_id = V.id AND T.id = R.triple_id;
+
+CREATE INDEX idx_versions_resources ON versions_resources(resource_id,createdAt,version_id);
+CREATE INDEX idx_versions_resources_vid ON versions_resources(version_id);
@@ -31,9 +31,17 @@ CREATE TABLE versions_removed (
   triple_id   bigint REFERENCES triples(id)
 );
 
+CREATE TABLE versions_resources (
+  version_id  bigint     NOT NULL REFERENCES versions(id),
+  resource_id bigint     NOT NULL REFERENCES nodes(id),
+  createdAt   timestamp  NOT NULL DEFAULT now()
+);
+
 CREATE INDEX idx_versions_added ON versions_added(version_id);
 CREATE INDEX idx_versions_added_tid ON versions_added(triple_id);
 CREATE INDEX idx_versions_removed ON versions_removed(version_id);
 CREATE INDEX idx_versions_removed_tid ON versions_removed(triple_id);
-CREATE INDEX idx_versions_created ON versions(createdAt);
+CREATE INDEX idx_versions_created ON versions(createdAt,id);
+CREATE INDEX idx_versions_resources ON versions_resources(resource_id,createdAt,version_id);
+CREATE INDEX idx_versions_resources_vid ON versions_resources(version_id);
 
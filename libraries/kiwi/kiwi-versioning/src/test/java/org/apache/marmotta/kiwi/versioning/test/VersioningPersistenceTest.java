@@ -86,8 +86,8 @@ public class VersioningPersistenceTest {
         // test if database exists and has a version
         KiWiConnection connection = vpersistence.getConnection();
         try {
-            Assert.assertThat(connection.getDatabaseTables(), hasItems("versions", "versions_added", "versions_removed"));
-            Assert.assertEquals(3, connection.getDatabaseVersion());
+            Assert.assertThat(connection.getDatabaseTables(), hasItems("versions", "versions_added", "versions_removed", "versions_resources"));
+            Assert.assertEquals(5, connection.getDatabaseVersion());
 
             connection.commit();
         } finally {
@@ -250,6 +250,56 @@ public class VersioningRepositoryTest {
     }
 
 
+    /**
+     * This test imports three small RDF files in sequence and checks the neighbour lookups and paged listing of the
+     * versions of a resource against the full version list
+     * @throws Exception
+     */
+    @Test
+    public void testNeighbourVersions() throws Exception {
+        for(String file : new String[] {"version-base.rdf", "version-update1.rdf", "version-update2.rdf"}) {
+            InputStream data = this.getClass().getResourceAsStream(file);
+            assumeThat("Could not load test-data: " + file, data, notNullValue(InputStream.class));
+
+            RepositoryConnection connection = repository.getConnection();
+            try {
+                connection.add(data, "http://marmotta.apache.org/testing/ns1/", RDFFormat.RDFXML);
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+
+            mysqlSleep();
+        }
+
+        URI subject = repository.getValueFactory().createURI("http://marmotta.apache.org/testing/ns1/R1");
+
+        List<Version> versions = asList(vsail.listVersions(subject));
+        Assert.assertEquals("expected 2 versions of R1!", 2, versions.size());
+
+        Version first = vsail.getFirstVersion(subject);
+        Version last  = vsail.getLastVersion(subject);
+        Assert.assertEquals(versions.get(0).getId(), first.getId());
+        Assert.assertEquals(versions.get(versions.size() - 1).getId(), last.getId());
+
+        Assert.assertNull(vsail.getPreviousVersion(subject, first));
+        Assert.assertNull(vsail.getNextVersion(subject, last));
+        for(int i=1; i<versions.size(); i++) {
+            Assert.assertEquals(versions.get(i).getId(), vsail.getNextVersion(subject, versions.get(i-1)).getId());
+            Assert.assertEquals(versions.get(i-1).getId(), vsail.getPreviousVersion(subject, versions.get(i)).getId());
+        }
+
+        // list the versions in pages of one version each
+        List<Version> page = vsail.listVersions(subject, null, 1);
+        for(Version v : versions) {
+            Assert.assertEquals(1, page.size());
+            Assert.assertEquals(v.getId(), page.get(0).getId());
+            page = vsail.listVersions(subject, page.get(0), 1);
+        }
+        Assert.assertTrue(page.isEmpty());
+    }
+
+
     /**
      * MYSQL rounds timestamps to the second, so it is sometimes necessary to sleep before doing a test
      */
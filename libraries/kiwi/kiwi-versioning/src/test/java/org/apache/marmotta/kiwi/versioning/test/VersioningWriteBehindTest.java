@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.kiwi.versioning.test;
+
+import org.apache.marmotta.commons.sesame.filter.AlwaysTrueFilter;
+import org.apache.marmotta.commons.sesame.transactions.sail.KiWiTransactionalSail;
+import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.persistence.mysql.MySQLDialect;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
+import org.apache.marmotta.kiwi.test.junit.KiWiDatabaseRunner;
+import org.apache.marmotta.kiwi.versioning.model.Version;
+import org.apache.marmotta.kiwi.versioning.persistence.KiWiVersioningJournal;
+import org.apache.marmotta.kiwi.versioning.sail.KiWiVersioningSail;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openrdf.model.Statement;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeThat;
+
+/**
+ * This test checks the write-behind mode of the versioning sail, i.e. that versions are journaled, written in the
+ * background and visible after a flush.
+ */
+@RunWith(KiWiDatabaseRunner.class)
+public class VersioningWriteBehindTest {
+
+    private KiWiStore store;
+
+    private KiWiTransactionalSail tsail;
+
+    private KiWiVersioningSail    vsail;
+
+    private Repository repository;
+
+    private File journalDirectory;
+
+    private final KiWiConfiguration dbConfig;
+
+    public VersioningWriteBehindTest(KiWiConfiguration dbConfig) {
+        this.dbConfig = dbConfig;
+    }
+
+
+    @Before
+    public void initDatabase() throws RepositoryException, IOException {
+        journalDirectory = Files.createTempDirectory("kiwi-versioning-journal").toFile();
+
+        initRepository();
+    }
+
+    private void initRepository() throws RepositoryException {
+        store = new KiWiStore(dbConfig);
+        tsail = new KiWiTransactionalSail(store);
+        vsail = new KiWiVersioningSail(tsail, new AlwaysTrueFilter<Statement>(), journalDirectory);
+        repository = new SailRepository(vsail);
+        repository.initialize();
+    }
+
+    @After
+    public void dropDatabase() throws Exception {
+        vsail.flush();
+        vsail.getPersistence().dropDatabase();
+        store.getPersistence().dropDatabase();
+        repository.shutDown();
+
+        delete(journalDirectory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Import two files and check that both versions are available after flushing and the journal is empty.
+     */
+    @Test
+    public void testWriteBehind() throws Exception {
+        Assert.assertTrue(vsail.isWriteBehind());
+
+        importData("version-base.rdf");
+        importData("version-update1.rdf");
+
+        vsail.flush();
+
+        String[] pending = journalDirectory.list();
+        Assert.assertNotNull(pending);
+        Assert.assertEquals("journal should be empty after flushing", 0, pending.length);
+
+        List<Version> versions = VersioningRepositoryTest.asList(vsail.listVersions());
+        Assert.assertEquals("expected 2 versions!", 2, versions.size());
+        Assert.assertEquals(3, (long)versions.get(0).getAddedTriples().size());
+        Assert.assertEquals(3, (long)versions.get(1).getAddedTriples().size());
+    }
+
+    /**
+     * Check that journal entries are recovered in order of their version IDs and removed afterwards.
+     */
+    @Test
+    public void testJournalRecovery() throws Exception {
+        File directory = new File(journalDirectory, "recovery");
+        KiWiVersioningJournal journal = new KiWiVersioningJournal(directory);
+
+        Date now = new Date();
+        KiWiVersioningJournal.Entry e2 = new KiWiVersioningJournal.Entry(2000L, -1L, now, new long[] {1L, 2L}, new long[0]);
+        KiWiVersioningJournal.Entry e1 = new KiWiVersioningJournal.Entry(1000L, 5L, now, new long[0], new long[] {3L});
+        journal.append(e2);
+        journal.append(e1);
+
+        List<KiWiVersioningJournal.Entry> recovered = new KiWiVersioningJournal(directory).recover();
+        Assert.assertEquals(2, recovered.size());
+        Assert.assertEquals(1000L, recovered.get(0).getId());
+        Assert.assertEquals(5L, recovered.get(0).getCreator());
+        Assert.assertEquals(now, recovered.get(0).getCommitTime());
+        Assert.assertArrayEquals(new long[] {3L}, recovered.get(0).getRemovedTriples());
+        Assert.assertEquals(2000L, recovered.get(1).getId());
+        Assert.assertArrayEquals(new long[] {1L, 2L}, recovered.get(1).getAddedTriples());
+
+        journal.remove(e1);
+        journal.remove(e2);
+        Assert.assertTrue(journal.recover().isEmpty());
+        directory.delete();
+    }
+
+    /**
+     * Check that a version that can never be stored (here because it references a triple that does not exist) is
+     * moved out of the journal and does not block the versions following it.
+     */
+    @Test
+    public void testUnstorableVersion() throws Exception {
+        // MySQL ignores inline REFERENCES constraints
+        assumeFalse(dbConfig.getDialect() instanceof MySQLDialect);
+
+        repository.shutDown();
+
+        // a version left in the journal by a previous run, referencing a triple that has been removed in the meantime
+        KiWiVersioningJournal.Entry broken = new KiWiVersioningJournal.Entry(1000L, -1L, new Date(), new long[] {-1L}, new long[0]);
+        new KiWiVersioningJournal(journalDirectory).append(broken);
+
+        initRepository();
+
+        importData("version-base.rdf");
+        vsail.flush();
+
+        List<Version> versions = VersioningRepositoryTest.asList(vsail.listVersions());
+        Assert.assertEquals("expected 1 version!", 1, versions.size());
+        Assert.assertEquals(3, (long)versions.get(0).getAddedTriples().size());
+
+        Assert.assertTrue("version should have been moved out of the journal", new File(journalDirectory, "failed/00000000000000001000.version").exists());
+        Assert.assertEquals(1, journalDirectory.list().length);
+        Assert.assertEquals(1, vsail.getQuarantinedVersions());
+    }
+
+    /**
+     * Check that unreadable journal files are moved out of the journal when recovering.
+     */
+    @Test
+    public void testUnreadableJournalFile() throws Exception {
+        File directory = new File(journalDirectory, "recovery");
+        KiWiVersioningJournal journal = new KiWiVersioningJournal(directory);
+
+        KiWiVersioningJournal.Entry entry = new KiWiVersioningJournal.Entry(2000L, -1L, new Date(), new long[] {1L}, new long[0]);
+        journal.append(entry);
+
+        File corrupt = new File(directory, "00000000000000001000.version");
+        Files.write(corrupt.toPath(), new byte[] {1, 2, 3});
+
+        List<KiWiVersioningJournal.Entry> recovered = journal.recover();
+        Assert.assertEquals(1, recovered.size());
+        Assert.assertEquals(2000L, recovered.get(0).getId());
+
+        Assert.assertFalse(corrupt.exists());
+        Assert.assertTrue(new File(directory, "failed/00000000000000001000.version").exists());
+
+        // the file is not read again
+        Assert.assertEquals(1, journal.recover().size());
+    }
+
+    private void importData(String file) throws Exception {
+        InputStream data = this.getClass().getResourceAsStream(file);
+        assumeThat("Could not load test-data: " + file, data, notNullValue(InputStream.class));
+
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            connection.add(data, "http://marmotta.apache.org/testing/ns1/", RDFFormat.RDFXML);
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+}
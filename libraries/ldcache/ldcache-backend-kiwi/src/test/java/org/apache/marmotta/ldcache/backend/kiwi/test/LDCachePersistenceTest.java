@@ -167,7 +167,7 @@ public class LDCachePersistenceTest {
         LDCachingKiWiPersistenceConnection connection = vpersistence.getConnection();
         try {
             Assert.assertThat(connection.getDatabaseTables(), hasItems("ldcache_entries"));
-            Assert.assertEquals(3, connection.getDatabaseVersion());
+            Assert.assertEquals(5, connection.getDatabaseVersion());
 
             connection.commit();
         } finally {
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.api.backend;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An optional extension of the {@link RDFBackend} API for backends that are able to look up the neighbours of many
+ * nodes at once, e.g. using a single database query. Selectors evaluating a path step for a set of nodes check
+ * whether the backend implements this interface and otherwise fall back to the single node methods of
+ * {@link RDFBackend}.
+ *
+ * @param <Node> most generic type of a Node (e.g. Value in Sesame).
+ */
+public interface BatchRDFBackend<Node> extends RDFBackend<Node> {
+
+    /**
+     * List the objects of triples in the triple store underlying this backend that have one of the subjects and
+     * the property given as argument.
+     *
+     * @param subjects the subjects of the triples to look for
+     * @param property the property of the triples to look for, <code>null</code> is interpreted as wildcard
+     * @return a map from each subject to the objects of the triples with matching subject and property; subjects
+     *         without matching triples may be missing in the map
+     */
+    public Map<Node, Collection<Node>> listObjectsBatch(Collection<Node> subjects, Node property);
+
+
+    /**
+     * List the subjects of triples in the triple store underlying this backend that have one of the objects and
+     * the property given as argument.
+     *
+     * @param property the property of the triples to look for, <code>null</code> is interpreted as wildcard
+     * @param objects  the objects of the triples to look for
+     * @return a map from each object to the subjects of the triples with matching object and property; objects
+     *         without matching triples may be missing in the map
+     * @throws UnsupportedOperationException in case reverse selection is not supported (e.g. when querying Linked Data)
+     */
+    public Map<Node, Collection<Node>> listSubjectsBatch(Node property, Collection<Node> objects);
+
+}
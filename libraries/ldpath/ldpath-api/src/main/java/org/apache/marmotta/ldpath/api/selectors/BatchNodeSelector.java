@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.api.selectors;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.backend.BatchRDFBackend;
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+
+/**
+ * A node selector that can be applied to a set of context nodes at once. Together with a {@link BatchRDFBackend},
+ * this allows evaluating a path step for all nodes reached by the previous step with a few backend calls instead of
+ * one call per node. Batch selection does not support path tracking.
+ */
+public interface BatchNodeSelector<Node> extends NodeSelector<Node> {
+
+    /**
+     * Apply the selector to all context nodes passed as argument and return for each context node the collection
+     * of selected nodes.
+     *
+     * @param backend  the backend to use for the selection
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the nodes selected for it; context nodes without any selected nodes
+     *         may be missing in the map
+     */
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> backend, Collection<Node> contexts);
+
+}
@@ -104,13 +104,7 @@ public class LDPath<Node> {
      * @throws LDPathParseException when the path passed as argument is not valid
      */
     public Collection<Node> pathQuery(Node context, String path, Map<String, String> namespaces) throws LDPathParseException {
-        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,new StringReader(path));
-        for(SelectorFunction<Node> function : functions) {
-            parser.registerFunction(function);
-        }
-        for(String typeUri : transformers.keySet()) {
-            parser.registerTransformer(typeUri,transformers.get(typeUri));
-        }
+        LdPathParser<Node> parser = createParser(new StringReader(path));
 
         try {
             NodeSelector<Node> selector = parser.parseSelector(namespaces);
@@ -150,13 +144,7 @@ public class LDPath<Node> {
      * @throws LDPathParseException when the path passed as argument is not valid
      */
     public Collection<Node> pathQuery(Node context, String path, Map<String, String> namespaces, Map<Node,List<Node>> paths) throws LDPathParseException {
-        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,new StringReader(path));
-        for(SelectorFunction<Node> function : functions) {
-            parser.registerFunction(function);
-        }
-        for(String typeUri : transformers.keySet()) {
-            parser.registerTransformer(typeUri,transformers.get(typeUri));
-        }
+        LdPathParser<Node> parser = createParser(new StringReader(path));
 
         try {
             NodeSelector<Node> selector = parser.parseSelector(namespaces);
@@ -194,13 +182,7 @@ public class LDPath<Node> {
      * @throws LDPathParseException when the path passed as argument is not valid
      */
     public <T> Collection<T> pathTransform(Node context, String path, Map<String, String> namespaces) throws LDPathParseException {
-        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,new StringReader(path));
-        for(SelectorFunction<Node> function : functions) {
-            parser.registerFunction(function);
-        }
-        for(String typeUri : transformers.keySet()) {
-            parser.registerTransformer(typeUri,transformers.get(typeUri));
-        }
+        LdPathParser<Node> parser = createParser(new StringReader(path));
 
         try {
             FieldMapping<T,Node> mapping = parser.parseRule(namespaces);
@@ -223,13 +205,7 @@ public class LDPath<Node> {
      * @throws LDPathParseException
      */
     public Map<String,Collection<?>> programQuery(Node context, Reader program) throws LDPathParseException {
-        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,program);
-        for(SelectorFunction<Node> function : functions) {
-            parser.registerFunction(function);
-        }
-        for(String typeUri : transformers.keySet()) {
-            parser.registerTransformer(typeUri, transformers.get(typeUri));
-        }
+        LdPathParser<Node> parser = createParser(program);
 
         try {
             Program<Node> p = parser.parseProgram();
@@ -255,13 +231,7 @@ public class LDPath<Node> {
      * @throws LDPathParseException
      */
     public Program<Node> parseProgram(Reader program) throws LDPathParseException {
-        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,program);
-        for(SelectorFunction<Node> function : functions) {
-            parser.registerFunction(function);
-        }
-        for(String typeUri : transformers.keySet()) {
-            parser.registerTransformer(typeUri, transformers.get(typeUri));
-        }
+        LdPathParser<Node> parser = createParser(program);
 
         try {
             return parser.parseProgram();
@@ -270,6 +240,24 @@ public class LDPath<Node> {
         }
     }
 
+    /**
+     * Create a parser for the LDPath expression or program passed as argument, registering all functions and
+     * transformers of this LDPath instance.
+     *
+     * @param input a reader containing the LDPath expression or program
+     * @return a new parser
+     */
+    protected LdPathParser<Node> createParser(Reader input) {
+        LdPathParser<Node> parser = new LdPathParser<Node>(backend,config,input);
+        for(SelectorFunction<Node> function : functions) {
+            parser.registerFunction(function);
+        }
+        for(String typeUri : transformers.keySet()) {
+            parser.registerTransformer(typeUri, transformers.get(typeUri));
+        }
+        return parser;
+    }
+
     /**
      * Register a selector function to be used in LDPath. Use this method in your own
      * projects to register custom selector functions.
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.model.selectors;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+
+/**
+ * Helper for applying a selector to a set of context nodes, using batch selection if the selector supports it and
+ * selecting node by node otherwise.
+ */
+final class BatchSelection {
+
+    private BatchSelection() {
+    }
+
+    static <Node> Map<Node, Collection<Node>> select(NodeSelector<Node> selector, RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        if(selector instanceof BatchNodeSelector) {
+            return ((BatchNodeSelector<Node>) selector).select(rdfBackend, contexts);
+        } else {
+            Map<Node, Collection<Node>> result = new HashMap<Node, Collection<Node>>();
+            for(Node context : contexts) {
+                Collection<Node> selected = selector.select(rdfBackend, context, null, null);
+                if(!selected.isEmpty()) {
+                    result.put(context, selected);
+                }
+            }
+            return result;
+        }
+    }
+
+}
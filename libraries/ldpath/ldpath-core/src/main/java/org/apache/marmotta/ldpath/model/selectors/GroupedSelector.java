@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
 import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
 
 /**
@@ -32,7 +33,7 @@ import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
  * @param <Node> the node type used by the backend
  * @author Jakob Frank <jakob@apache.org>
  */
-public class GroupedSelector<Node> implements NodeSelector<Node> {
+public class GroupedSelector<Node> implements BatchNodeSelector<Node> {
 
     private final NodeSelector<Node> content;
 
@@ -40,6 +41,13 @@ public class GroupedSelector<Node> implements NodeSelector<Node> {
         this.content = content;
     }
 
+    /**
+     * Return the selector enclosed in brackets.
+     */
+    public NodeSelector<Node> getContent() {
+        return content;
+    }
+
 
     /**
      * Apply the selector to the context node passed as argument and return the collection
@@ -57,6 +65,17 @@ public class GroupedSelector<Node> implements NodeSelector<Node> {
         return content.select(rdfBackend, context, path, resultPaths);
     }
 
+    /**
+     * Apply the grouped selector to all context nodes passed as argument at once.
+     *
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the selected nodes
+     */
+    @Override
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        return BatchSelection.select(content, rdfBackend, contexts);
+    }
+
     /**
      * Return the name of the NodeSelector for registration in the selector registry
      *
@@ -43,6 +43,20 @@ public class IntersectionSelector<Node> implements NodeSelector<Node> {
 		this.right = right;
 	}
 
+    /**
+     * Return the left argument of the intersection.
+     */
+    public NodeSelector<Node> getLeft() {
+        return left;
+    }
+
+    /**
+     * Return the right argument of the intersection.
+     */
+    public NodeSelector<Node> getRight() {
+        return right;
+    }
+
 
     /**
      * Apply the selector to the context node passed as argument and return the collection
@@ -27,6 +27,7 @@ import java.util.Set;
 
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
 import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
 
 /**
@@ -34,7 +35,7 @@ import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
  * <p/>
  * Author: Sebastian Schaffert <sebastian.schaffert@salzburgresearch.at>
  */
-public class PathSelector<Node> implements NodeSelector<Node> {
+public class PathSelector<Node> implements BatchNodeSelector<Node> {
 
     private NodeSelector<Node> left;
     private NodeSelector<Node> right;
@@ -44,6 +45,20 @@ public class PathSelector<Node> implements NodeSelector<Node> {
         this.right = right;
     }
 
+    /**
+     * Return the left argument of the path, evaluated first.
+     */
+    public NodeSelector<Node> getLeft() {
+        return left;
+    }
+
+    /**
+     * Return the right argument of the path, evaluated on the nodes selected by the left argument.
+     */
+    public NodeSelector<Node> getRight() {
+        return right;
+    }
+
     /**
      * Apply the selector to the context node passed as argument and return the collection
      * of selected nodes in appropriate order.
@@ -66,8 +81,14 @@ public class PathSelector<Node> implements NodeSelector<Node> {
         Collection<Node> nodesLeft = left.select(rdfBackend,context,path,myResultPaths);
         final Set<Node> result = new HashSet<Node>();
 
-        
-        
+        if(myResultPaths == null) {
+            // without path tracking, the right selector can be applied to all nodes selected by the left selector at once
+            for(Collection<Node> nodesRight : BatchSelection.select(right, rdfBackend, new HashSet<Node>(nodesLeft)).values()) {
+                result.addAll(nodesRight);
+            }
+            return result;
+        }
+
         for(Node n : nodesLeft) {
             // new path is the path resulting from selecting the context node in the left selector
             if(myResultPaths != null && myResultPaths.get(n) != null) {
@@ -79,6 +100,39 @@ public class PathSelector<Node> implements NodeSelector<Node> {
         return result;
     }
 
+    /**
+     * Apply the selector to all context nodes passed as argument at once. Each of the two steps of the path is
+     * evaluated for all nodes together, so a path over a batch capable backend only needs one backend call per step.
+     *
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the selected nodes
+     */
+    @Override
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        Map<Node, Collection<Node>> nodesLeft = BatchSelection.select(left, rdfBackend, contexts);
+
+        Set<Node> intermediate = new HashSet<Node>();
+        for(Collection<Node> nodes : nodesLeft.values()) {
+            intermediate.addAll(nodes);
+        }
+        Map<Node, Collection<Node>> nodesRight = BatchSelection.select(right, rdfBackend, intermediate);
+
+        Map<Node, Collection<Node>> result = new HashMap<Node, Collection<Node>>();
+        for(Map.Entry<Node, Collection<Node>> entry : nodesLeft.entrySet()) {
+            Set<Node> selected = new HashSet<Node>();
+            for(Node n : entry.getValue()) {
+                Collection<Node> nodes = nodesRight.get(n);
+                if(nodes != null) {
+                    selected.addAll(nodes);
+                }
+            }
+            if(!selected.isEmpty()) {
+                result.put(entry.getKey(), selected);
+            }
+        }
+        return result;
+    }
+
 
     @Override
     public String getPathExpression(NodeBackend<Node> backend) {
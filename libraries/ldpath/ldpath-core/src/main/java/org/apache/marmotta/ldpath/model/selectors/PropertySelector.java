@@ -19,13 +19,17 @@ package org.apache.marmotta.ldpath.model.selectors;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.marmotta.ldpath.api.backend.BatchRDFBackend;
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
 import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
 
 /**
@@ -34,7 +38,7 @@ import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
  * <p/>
  * Author: Sebastian Schaffert <sebastian.schaffert@salzburgresearch.at>
  */
-public class PropertySelector<Node> implements NodeSelector<Node> {
+public class PropertySelector<Node> implements BatchNodeSelector<Node> {
 
 	private Node property;
 
@@ -43,6 +47,13 @@ public class PropertySelector<Node> implements NodeSelector<Node> {
 		this.property = property;
 	}
 
+    /**
+     * Return the property selected by this selector.
+     */
+    public Node getProperty() {
+        return property;
+    }
+
     /**
      * Apply the selector to the context node passed as argument and return the collection
      * of selected nodes in appropriate order.
@@ -71,6 +82,33 @@ public class PropertySelector<Node> implements NodeSelector<Node> {
 		}
 	}
 
+    /**
+     * Apply the selector to all context nodes passed as argument at once. In case the backend supports batch
+     * lookups, the objects of the property for all context nodes are retrieved with a single backend call.
+     *
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the selected nodes
+     */
+    @Override
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        List<Node> resources = new ArrayList<Node>(contexts.size());
+        for(Node context : contexts) {
+            if(rdfBackend.isURI(context) || rdfBackend.isBlank(context)) {
+                resources.add(context);
+            }
+        }
+
+        if(rdfBackend instanceof BatchRDFBackend) {
+            return ((BatchRDFBackend<Node>) rdfBackend).listObjectsBatch(resources, property);
+        } else {
+            Map<Node, Collection<Node>> result = new HashMap<Node, Collection<Node>>();
+            for(Node context : resources) {
+                result.put(context, rdfBackend.listObjects(context, property));
+            }
+            return result;
+        }
+    }
+
 	@Override
 	public String getPathExpression(NodeBackend<Node> backend) {
 		if (property != null) {
@@ -17,8 +17,6 @@
  */
 package org.apache.marmotta.ldpath.model.selectors;
 
-import com.google.common.collect.ImmutableList;
-
 import java.util.*;
 
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
@@ -40,6 +38,11 @@ public class RecursivePathSelector<Node> implements NodeSelector<Node> {
     /**
      * Apply the selector to the context node passed as argument and return the collection
      * of selected nodes in appropriate order.
+     * <p/>
+     * The recursion is evaluated breadth-first: all nodes reached in the same number of steps form the frontier
+     * of the next step, which is expanded at once (using batch selection if the delegate supports it). Nodes
+     * reached in at least minRecursions steps are only expanded the first time they are reached, so that each
+     * node is visited at most once per recursion depth below minRecursions and at most once afterwards.
      *
      * @param context     the node where to start the selection
      * @param path        the path leading to but not including the context node in the current evaluation of LDPath; may be null,
@@ -50,34 +53,76 @@ public class RecursivePathSelector<Node> implements NodeSelector<Node> {
      */
     @Override
     public Collection<Node> select(RDFBackend<Node> rdfBackend, Node context, List<Node> path, Map<Node, List<Node>> resultPaths) {
-		List<Node> result = new LinkedList<>();
-
-		if (minRecursions <= 0) {
-			result.add(context);
-		}
-		subSelect(context, 0, rdfBackend, result,path,resultPaths);
-
-		return result;
-	}
-
-	private void subSelect(Node currentContext, int depth, RDFBackend<Node> rdfBackend, List<Node> resultList, List<Node> path, Map<Node, List<Node>> resultPaths) {
-		Collection<Node> nextNodes = delegate.select(rdfBackend, currentContext,path,resultPaths);
-		depth++;
-		for (Node n : nextNodes) {
-			if (!resultList.contains(n)) {
-				if (depth >= minRecursions){
-					resultList.add(n);
-				}
-				if (depth < maxRecursions) {
-                    if(path != null && resultPaths != null) {
-					    subSelect(n, depth, rdfBackend, resultList, new ImmutableList.Builder<Node>().addAll(path).add(currentContext).build(),resultPaths);
-                    } else {
-                        subSelect(n, depth, rdfBackend, resultList, null,resultPaths);
+        final boolean tracking = path != null && resultPaths != null;
+
+        Set<Node> result  = new LinkedHashSet<>();
+        Set<Node> visited = new HashSet<>();
+
+        // the path leading to each node of the frontier, including the node itself
+        Map<Node, SharedPrefixPath<Node>> prefixes = tracking ? new HashMap<Node, SharedPrefixPath<Node>>() : null;
+        if(tracking) {
+            prefixes.put(context, SharedPrefixPath.of(path).append(Collections.singletonList(context)));
+        }
+
+        if (minRecursions <= 0) {
+            result.add(context);
+            visited.add(context);
+        }
+
+        Collection<Node> frontier = Collections.singletonList(context);
+        for(int depth = 1; depth <= maxRecursions && !frontier.isEmpty(); depth++) {
+            Map<Node, Collection<Node>> selected;
+            Map<Node, Map<Node, List<Node>>> selectedPaths = null;
+            if(tracking) {
+                selected      = new HashMap<>();
+                selectedPaths = new HashMap<>();
+                for(Node node : frontier) {
+                    Map<Node, List<Node>> relativePaths = new HashMap<>();
+                    selected.put(node, delegate.select(rdfBackend, node, Collections.<Node>emptyList(), relativePaths));
+                    selectedPaths.put(node, relativePaths);
+                }
+            } else {
+                selected = BatchSelection.select(delegate, rdfBackend, frontier);
+            }
+
+            Set<Node> next = new LinkedHashSet<>();
+            Map<Node, SharedPrefixPath<Node>> nextPrefixes = tracking ? new HashMap<Node, SharedPrefixPath<Node>>() : null;
+            for(Node node : frontier) {
+                Collection<Node> targets = selected.get(node);
+                if(targets == null) {
+                    continue;
+                }
+                for(Node n : targets) {
+                    // below the minimum depth, nodes may be reached again later and are not marked as visited
+                    if(depth < minRecursions ? !next.add(n) : !visited.add(n)) {
+                        continue;
                     }
-				}
-			}
-		}
-	}
+                    if(depth >= minRecursions) {
+                        next.add(n);
+                        result.add(n);
+                    }
+                    if(tracking) {
+                        List<Node> relative = selectedPaths.get(node).get(n);
+                        SharedPrefixPath<Node> prefix;
+                        if(relative != null && relative.size() > 1) {
+                            // the relative path starts with the frontier node, which is the end of its prefix
+                            prefix = prefixes.get(node).append(relative.subList(1, relative.size()));
+                        } else {
+                            prefix = prefixes.get(node).append(Collections.singletonList(n));
+                        }
+                        nextPrefixes.put(n, prefix);
+                        if(depth >= minRecursions) {
+                            resultPaths.put(n, prefix);
+                        }
+                    }
+                }
+            }
+            frontier = next;
+            prefixes = nextPrefixes;
+        }
+
+        return result;
+    }
 
     /**
      * Return the name of the NodeSelector for registration in the selector registry
@@ -114,6 +159,18 @@ public class RecursivePathSelector<Node> implements NodeSelector<Node> {
         return delegate.getName(nodeRDFBackend);
     }
 
+    public NodeSelector<Node> getDelegate() {
+        return delegate;
+    }
+
+    public int getMinRecursions() {
+        return minRecursions;
+    }
+
+    public int getMaxRecursions() {
+        return maxRecursions;
+    }
+
     /**
      * <code>(delegate)*</code>
      * @param delegate the delegate
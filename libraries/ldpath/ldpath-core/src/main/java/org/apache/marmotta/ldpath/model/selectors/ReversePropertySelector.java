@@ -19,13 +19,17 @@ package org.apache.marmotta.ldpath.model.selectors;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.marmotta.ldpath.api.backend.BatchRDFBackend;
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
 import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
 
 /**
@@ -33,7 +37,7 @@ import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
  *
  * @param <Node>
  */
-public class ReversePropertySelector<Node> implements NodeSelector<Node> {
+public class ReversePropertySelector<Node> implements BatchNodeSelector<Node> {
 
 	private final Node property;
 
@@ -41,6 +45,13 @@ public class ReversePropertySelector<Node> implements NodeSelector<Node> {
 		this.property = property;
 	}
 
+    /**
+     * Return the property selected in reverse direction by this selector.
+     */
+    public Node getProperty() {
+        return property;
+    }
+
     /**
      * Apply the selector to the context node passed as argument and return the collection
      * of selected nodes in appropriate order.
@@ -56,7 +67,7 @@ public class ReversePropertySelector<Node> implements NodeSelector<Node> {
     public Collection<Node> select(RDFBackend<Node> rdfBackend, Node context, List<Node> path, Map<Node, List<Node>> resultPaths) {
         if(rdfBackend.isURI(context) || rdfBackend.isBlank(context)) {
             if(path != null && resultPaths != null) {
-                Collection<Node> results = rdfBackend.listSubjects(context, property);
+                Collection<Node> results = rdfBackend.listSubjects(property, context);
                 for(Node n :results) {
                     resultPaths.put(n, new ImmutableList.Builder<Node>().addAll(path).add(context).add(n).build());
                 }
@@ -69,6 +80,33 @@ public class ReversePropertySelector<Node> implements NodeSelector<Node> {
 		}
 	}
 
+    /**
+     * Apply the selector to all context nodes passed as argument at once. In case the backend supports batch
+     * lookups, the subjects having the context nodes as value of the property are retrieved with a single backend call.
+     *
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the selected nodes
+     */
+    @Override
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        List<Node> resources = new ArrayList<Node>(contexts.size());
+        for(Node context : contexts) {
+            if(rdfBackend.isURI(context) || rdfBackend.isBlank(context)) {
+                resources.add(context);
+            }
+        }
+
+        if(rdfBackend instanceof BatchRDFBackend) {
+            return ((BatchRDFBackend<Node>) rdfBackend).listSubjectsBatch(property, resources);
+        } else {
+            Map<Node, Collection<Node>> result = new HashMap<Node, Collection<Node>>();
+            for(Node context : resources) {
+                result.put(context, rdfBackend.listSubjects(property, context));
+            }
+            return result;
+        }
+    }
+
 	@Override
 	public String getPathExpression(NodeBackend<Node> backend) {
 		if (property != null) {
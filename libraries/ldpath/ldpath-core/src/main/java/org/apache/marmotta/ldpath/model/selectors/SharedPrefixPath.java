@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.model.selectors;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable path of nodes that shares its prefix with the path it was created from. Appending to a path takes
+ * constant time and space independent of the length of the prefix, which makes it possible to record the paths to
+ * all nodes reached by a recursive path selector without copying the whole path at each step. The nodes of the path
+ * are collected in an array when the path is accessed for the first time.
+ */
+final class SharedPrefixPath<Node> extends AbstractList<Node> {
+
+    private final SharedPrefixPath<Node> prefix;
+
+    private final List<Node> segment;
+
+    private final int size;
+
+    private volatile Object[] elements;
+
+    private SharedPrefixPath(SharedPrefixPath<Node> prefix, List<Node> segment) {
+        this.prefix  = prefix;
+        this.segment = segment;
+        this.size    = (prefix != null ? prefix.size : 0) + segment.size();
+    }
+
+    /**
+     * Create a path consisting of the nodes passed as argument.
+     */
+    static <Node> SharedPrefixPath<Node> of(List<Node> nodes) {
+        return new SharedPrefixPath<Node>(null, Collections.unmodifiableList(new ArrayList<Node>(nodes)));
+    }
+
+    /**
+     * Create a new path consisting of this path followed by the nodes passed as argument.
+     */
+    SharedPrefixPath<Node> append(List<Node> nodes) {
+        return new SharedPrefixPath<Node>(this, Collections.unmodifiableList(new ArrayList<Node>(nodes)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Node get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        return (Node) getElements()[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Object[] getElements() {
+        Object[] result = elements;
+        if(result == null) {
+            result = new Object[size];
+            int end = size;
+            for(SharedPrefixPath<Node> p = this; p != null; p = p.prefix) {
+                if(p != this && p.elements != null) {
+                    // the prefix has already been collected
+                    System.arraycopy(p.elements, 0, result, 0, p.size);
+                    break;
+                }
+                end -= p.segment.size();
+                for(int i = 0; i < p.segment.size(); i++) {
+                    result[end + i] = p.segment.get(i);
+                }
+            }
+            elements = result;
+        }
+        return result;
+    }
+}
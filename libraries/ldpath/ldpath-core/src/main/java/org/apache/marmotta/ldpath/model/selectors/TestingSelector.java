@@ -46,6 +46,20 @@ public class TestingSelector<Node> implements NodeSelector<Node> {
         this.test = test;
     }
 
+    /**
+     * Return the selector whose results are filtered.
+     */
+    public NodeSelector<Node> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Return the test the selected nodes need to pass.
+     */
+    public NodeTest<Node> getTest() {
+        return test;
+    }
+
 
     /**
      * Apply the selector to the context node passed as argument and return the collection
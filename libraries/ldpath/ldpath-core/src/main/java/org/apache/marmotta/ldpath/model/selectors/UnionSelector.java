@@ -18,7 +18,10 @@
 package org.apache.marmotta.ldpath.model.selectors;
 
 
+import com.google.common.collect.ImmutableList;
+
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +29,7 @@ import java.util.Set;
 
 import org.apache.marmotta.ldpath.api.backend.NodeBackend;
 import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
 
 /**
@@ -35,7 +39,7 @@ import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
  * <p/>
  * Author: Sebastian Schaffert <sebastian.schaffert@salzburgresearch.at>
  */
-public class UnionSelector<Node> implements NodeSelector<Node> {
+public class UnionSelector<Node> implements BatchNodeSelector<Node> {
 
     private NodeSelector<Node> left;
     private NodeSelector<Node> right;
@@ -45,6 +49,20 @@ public class UnionSelector<Node> implements NodeSelector<Node> {
         this.right = right;
     }
 
+    /**
+     * Return the left argument of the union.
+     */
+    public NodeSelector<Node> getLeft() {
+        return left;
+    }
+
+    /**
+     * Return the right argument of the union.
+     */
+    public NodeSelector<Node> getRight() {
+        return right;
+    }
+
 
     /**
      * Apply the selector to the context node passed as argument and return the collection
@@ -66,6 +84,29 @@ public class UnionSelector<Node> implements NodeSelector<Node> {
         return result;
     }
 
+    /**
+     * Apply the selector to all context nodes passed as argument at once and return the union of the nodes selected
+     * by both selectors for each context node.
+     *
+     * @param contexts the nodes where to start the selection
+     * @return a map from each context node to the selected nodes
+     */
+    @Override
+    public Map<Node, Collection<Node>> select(RDFBackend<Node> rdfBackend, Collection<Node> contexts) {
+        Map<Node, Collection<Node>> result = new HashMap<Node, Collection<Node>>();
+        for(NodeSelector<Node> selector : ImmutableList.of(left, right)) {
+            for(Map.Entry<Node, Collection<Node>> entry : BatchSelection.select(selector, rdfBackend, contexts).entrySet()) {
+                Collection<Node> selected = result.get(entry.getKey());
+                if(selected == null) {
+                    selected = new HashSet<Node>();
+                    result.put(entry.getKey(), selected);
+                }
+                selected.addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
     /**
      * Return the name of the NodeSelector for registration in the selector registry
      *
@@ -39,6 +39,20 @@ public class AndTest<Node> extends ComplexTest<Node> {
         this.right = right;
     }
 
+    /**
+     * Return the left argument of the conjunction.
+     */
+    public NodeTest<Node> getLeft() {
+        return left;
+    }
+
+    /**
+     * Return the right argument of the conjunction.
+     */
+    public NodeTest<Node> getRight() {
+        return right;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
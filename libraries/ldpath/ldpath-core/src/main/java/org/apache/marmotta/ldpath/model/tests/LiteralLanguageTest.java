@@ -40,6 +40,13 @@ public class LiteralLanguageTest<Node> extends NodeTest<Node> {
         this.lang = lang;
     }
 
+    /**
+     * Return the language literals need to have to pass the test ("none" or null for literals without language).
+     */
+    public String getLang() {
+        return lang;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
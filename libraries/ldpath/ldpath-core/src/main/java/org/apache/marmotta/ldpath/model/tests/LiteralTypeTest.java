@@ -47,6 +47,13 @@ public class LiteralTypeTest<Node> extends NodeTest<Node> {
         this.typeUri = uri;
     }
 
+    /**
+     * Return the datatype literals need to have to pass the test.
+     */
+    public URI getTypeUri() {
+        return typeUri;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
@@ -29,6 +29,13 @@ public class NotTest<Node> extends NodeTest<Node> {
         this.delegate = delegate;
     }
 
+    /**
+     * Return the negated test.
+     */
+    public NodeTest<Node> getDelegate() {
+        return delegate;
+    }
+
     @Override
     public boolean accept(RDFBackend<Node> backend, Node context, Node args) throws IllegalArgumentException {
         return !delegate.accept(backend, context, args);
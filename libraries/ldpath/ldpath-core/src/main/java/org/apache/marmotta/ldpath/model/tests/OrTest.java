@@ -36,6 +36,20 @@ public class OrTest<Node> extends ComplexTest<Node> {
         this.right = right;
     }
 
+    /**
+     * Return the left argument of the disjunction.
+     */
+    public NodeTest<Node> getLeft() {
+        return left;
+    }
+
+    /**
+     * Return the right argument of the disjunction.
+     */
+    public NodeTest<Node> getRight() {
+        return right;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
@@ -45,6 +45,20 @@ public class PathEqualityTest<Node> extends NodeTest<Node> {
         this.path = path;
     }
 
+    /**
+     * Return the path selecting the nodes to compare.
+     */
+    public NodeSelector<Node> getPath() {
+        return path;
+    }
+
+    /**
+     * Return the node that needs to be selected by the path for the test to succeed.
+     */
+    public Node getNode() {
+        return node;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
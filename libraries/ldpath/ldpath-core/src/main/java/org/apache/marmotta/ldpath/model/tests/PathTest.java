@@ -39,6 +39,13 @@ public class PathTest<Node> extends NodeTest<Node> {
         this.path = path;
     }
 
+    /**
+     * Return the path that needs to select at least one node for the test to succeed.
+     */
+    public NodeSelector<Node> getPath() {
+        return path;
+    }
+
     /**
      * Apply the function to the list of nodes passed as arguments and return the result as type T.
      * Throws IllegalArgumentException if the function cannot be applied to the nodes passed as argument
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.model.selectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.backend.BatchRDFBackend;
+import org.apache.marmotta.ldpath.api.selectors.BatchNodeSelector;
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.backend.sesame.SesameRepositoryBackend;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.apache.marmotta.ldpath.test.AbstractTestBase;
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Value;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+/**
+ * Test the evaluation of selectors for several context nodes at once using a batch capable backend.
+ */
+public class BatchSelectorsTest extends AbstractTestBase {
+
+    private CountingBatchBackend batchBackend;
+
+    @Before
+    public void loadData() throws RepositoryException, RDFParseException, IOException {
+        loadData("/ldpath/test-data.n3", RDFFormat.N3);
+
+        batchBackend = new CountingBatchBackend(repository);
+        backend = batchBackend;
+    }
+
+    @Test
+    public void testPathUsesBatchForSecondStep() throws ParseException {
+        Collection<Value> result = evaluateSelector("ex:hasItem / foo:title", createURI("ex:start"));
+
+        assertEquals(2, result.size());
+        assertThat(result, CoreMatchers.<Value>hasItems(literal("One"), literal("Two")));
+
+        // one lookup for the context node, one batch lookup for both items
+        assertEquals(1, batchBackend.singleCalls);
+        assertEquals(1, batchBackend.batchCalls);
+    }
+
+    @Test
+    public void testBatchPath() throws ParseException {
+        Map<Value, Collection<Value>> result = selectBatch("ex:hasItem / foo:left", createURI("ex:start"), createURI("ex:Compare"));
+
+        assertFalse(result.containsKey(createURI("ex:start")));
+        assertEquals(3, result.get(createURI("ex:Compare")).size());
+        assertThat(result.get(createURI("ex:Compare")), CoreMatchers.<Value>hasItems(literal("1"), literal("5"), literal("9")));
+
+        assertEquals(0, batchBackend.singleCalls);
+        assertEquals(2, batchBackend.batchCalls);
+    }
+
+    @Test
+    public void testBatchReversePropertyAndUnion() throws ParseException {
+        Map<Value, Collection<Value>> result = selectBatch("^ex:hasItem | foo:title", createURI("ex:1"), createURI("ex:Eq"));
+
+        assertEquals(2, result.get(createURI("ex:1")).size());
+        assertThat(result.get(createURI("ex:1")), CoreMatchers.<Value>hasItems(createURI("ex:start"), literal("One")));
+        assertEquals(1, result.get(createURI("ex:Eq")).size());
+        assertThat(result.get(createURI("ex:Eq")), CoreMatchers.<Value>hasItems(createURI("ex:Compare")));
+
+        assertEquals(0, batchBackend.singleCalls);
+    }
+
+    private Map<Value, Collection<Value>> selectBatch(String ldPath, Value... contexts) throws ParseException {
+        final NodeSelector<Value> selector = createParserFromString(ldPath).parseSelector(NSS);
+        assertThat(selector, CoreMatchers.instanceOf(BatchNodeSelector.class));
+        return ((BatchNodeSelector<Value>) selector).select(backend, Arrays.asList(contexts));
+    }
+
+    private Literal literal(String label) {
+        return repository.getValueFactory().createLiteral(label);
+    }
+
+    /**
+     * A backend counting the single node and batch lookups; batch lookups are implemented node by node.
+     */
+    private static class CountingBatchBackend extends SesameRepositoryBackend implements BatchRDFBackend<Value> {
+
+        private int singleCalls = 0, batchCalls = 0;
+
+        private CountingBatchBackend(Repository repository) {
+            super(repository);
+        }
+
+        @Override
+        public Collection<Value> listObjects(Value subject, Value property) {
+            singleCalls++;
+            return super.listObjects(subject, property);
+        }
+
+        @Override
+        public Collection<Value> listSubjects(Value property, Value object) {
+            singleCalls++;
+            return super.listSubjects(property, object);
+        }
+
+        @Override
+        public Map<Value, Collection<Value>> listObjectsBatch(Collection<Value> subjects, Value property) {
+            batchCalls++;
+            Map<Value, Collection<Value>> result = new HashMap<Value, Collection<Value>>();
+            for(Value subject : subjects) {
+                Collection<Value> objects = super.listObjects(subject, property);
+                if(!objects.isEmpty()) {
+                    result.put(subject, objects);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Map<Value, Collection<Value>> listSubjectsBatch(Value property, Collection<Value> objects) {
+            batchCalls++;
+            Map<Value, Collection<Value>> result = new HashMap<Value, Collection<Value>>();
+            for(Value object : objects) {
+                Collection<Value> subjects = super.listSubjects(property, object);
+                if(!subjects.isEmpty()) {
+                    result.put(object, subjects);
+                }
+            }
+            return result;
+        }
+    }
+}
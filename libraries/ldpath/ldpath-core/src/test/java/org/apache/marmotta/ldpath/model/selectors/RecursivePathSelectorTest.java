@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.model.selectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.apache.marmotta.ldpath.test.AbstractTestBase;
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepositoryConnection;
+
+/**
+ * Test the breadth-first evaluation of recursive path selectors on a chain of nodes with a cycle
+ * (ex:n0 -> ex:n1 -> ... -> ex:n9 -> ex:n0) and a shortcut from ex:n0 to ex:n5.
+ */
+public class RecursivePathSelectorTest extends AbstractTestBase {
+
+    private static final int LENGTH = 10;
+
+    @Before
+    public void createChain() throws RepositoryException {
+        final SailRepositoryConnection con = repository.getConnection();
+        try {
+            URI next = createURI("ex:next");
+            for(int i = 0; i < LENGTH; i++) {
+                con.add(node(i), next, node((i + 1) % LENGTH));
+            }
+            con.add(node(0), createURI("ex:shortcut"), node(5));
+            con.commit();
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    public void testClosure() throws ParseException {
+        Collection<Value> plus = evaluateSelector("(ex:next)+", node(0));
+        assertEquals(LENGTH, plus.size());
+        assertEquals(new HashSet<Value>(nodes(0, LENGTH)), new HashSet<Value>(plus));
+
+        Collection<Value> star = evaluateSelector("(ex:next)*", node(3));
+        assertEquals(LENGTH, star.size());
+        assertThat(star, CoreMatchers.<Value>hasItem(node(3)));
+    }
+
+    @Test
+    public void testBreadthFirstOrder() throws ParseException {
+        List<Value> result = new ArrayList<Value>(evaluateSelector("(ex:next)*", node(0)));
+        assertEquals(nodes(0, LENGTH), result);
+    }
+
+    @Test
+    public void testBounds() throws ParseException {
+        assertEquals(new HashSet<Value>(nodes(0, 4)), new HashSet<Value>(evaluateSelector("(ex:next){,3}", node(0))));
+        assertEquals(new HashSet<Value>(nodes(3, 6)), new HashSet<Value>(evaluateSelector("(ex:next){3,5}", node(0))));
+
+        // nodes below the minimum depth are still reached again through the cycle
+        Collection<Value> minBound = evaluateSelector("(ex:next){12,}", node(0));
+        assertEquals(new HashSet<Value>(nodes(0, LENGTH)), new HashSet<Value>(minBound));
+    }
+
+    @Test
+    public void testShortestDepth() throws ParseException {
+        // ex:n6 is two steps away over the shortcut and six steps away over the chain
+        Collection<Value> result = evaluateSelector("(ex:shortcut | ex:next){,2}", node(0));
+        assertThat(result, CoreMatchers.<Value>hasItems(node(0), node(1), node(2), node(5), node(6)));
+        assertEquals(5, result.size());
+    }
+
+    @Test
+    public void testResultPaths() throws ParseException {
+        final NodeSelector<Value> selector = createParserFromString("(ex:next)+").parseSelector(NSS);
+        Map<Value, List<Value>> paths = new HashMap<Value, List<Value>>();
+        List<Value> prefix = Arrays.<Value>asList(createURI("ex:root"));
+
+        Collection<Value> result = selector.select(backend, node(0), prefix, paths);
+        assertEquals(LENGTH, result.size());
+
+        for(int i = 1; i < LENGTH; i++) {
+            List<Value> expected = new ArrayList<Value>(prefix);
+            expected.addAll(nodes(0, i + 1));
+            assertEquals(expected, paths.get(node(i)));
+        }
+    }
+
+    private URI node(int i) {
+        return createURI("ex:n" + i);
+    }
+
+    private List<Value> nodes(int from, int to) {
+        List<Value> result = new ArrayList<Value>();
+        for(int i = from; i < to; i++) {
+            result.add(node(i));
+        }
+        return result;
+    }
+}
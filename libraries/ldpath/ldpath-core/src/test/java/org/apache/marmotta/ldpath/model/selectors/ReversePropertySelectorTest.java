@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.ldpath.model.selectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.apache.marmotta.ldpath.test.AbstractTestBase;
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Value;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+/**
+ * Test the reverse property selector for a context node, with and without path tracking.
+ */
+public class ReversePropertySelectorTest extends AbstractTestBase {
+
+    @Before
+    public void loadData() throws RepositoryException, RDFParseException, IOException {
+        loadData("/ldpath/test-data.n3", RDFFormat.N3);
+    }
+
+    @Test
+    public void testReverseProperty() throws ParseException {
+        Collection<Value> result = evaluateSelector("^ex:hasItem", createURI("ex:1"));
+
+        assertEquals(1, result.size());
+        assertThat(result, CoreMatchers.<Value>hasItems(createURI("ex:start")));
+    }
+
+    /**
+     * The subjects having the context node as value of the property are selected when the path is tracked, too.
+     */
+    @Test
+    public void testReversePropertyWithPathTracking() throws ParseException {
+        final NodeSelector<Value> selector = createParserFromString("^ex:hasItem").parseSelector(NSS);
+
+        Map<Value, List<Value>> resultPaths = new HashMap<Value, List<Value>>();
+        Collection<Value> result = selector.select(backend, createURI("ex:1"), Collections.<Value>emptyList(), resultPaths);
+
+        assertEquals(1, result.size());
+        assertThat(result, CoreMatchers.<Value>hasItems(createURI("ex:start")));
+        assertEquals(Arrays.<Value>asList(createURI("ex:1"), createURI("ex:start")), resultPaths.get(createURI("ex:start")));
+    }
+}
@@ -17,17 +17,22 @@
 
 package org.apache.marmotta.platform.backend.kiwi;
 
+import org.apache.marmotta.kiwi.io.KiWiDumpExporter;
+import org.apache.marmotta.kiwi.sail.KiWiStore;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
 import org.apache.marmotta.platform.core.api.triplestore.SesameService;
 import org.apache.marmotta.platform.core.jaxrs.exceptionmappers.ErrorResponse;
+import org.openrdf.sail.Sail;
+import org.openrdf.sail.StackableSail;
 import org.slf4j.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.ws.rs.POST;
-import javax.ws.rs.Path;
-import javax.ws.rs.QueryParam;
+import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -104,6 +109,49 @@ public class DatabaseWebService {
         }
     }
 
+    /**
+     * Download a dump of the complete triple store in the native KiWi binary dump format. The dump can be restored
+     * into an empty database using the KiWiDumpTool of the kiwi-loader module.
+     *
+     * @return the binary dump as application/octet-stream
+     * @HTTP 200 dump is streamed to the client
+     * @HTTP 500 the triple store is not a KiWi store
+     */
+    @GET
+    @Path("/dump")
+    @Produces("application/octet-stream")
+    public Response dumpDatabase() {
+        final KiWiStore store = getKiWiStore();
+        if(store == null) {
+            return ErrorResponse.errorResponse(Response.Status.INTERNAL_SERVER_ERROR, "the triple store is not a KiWi store");
+        }
 
+        StreamingOutput entity = new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException, WebApplicationException {
+                log.info("Creating KiWi database dump after admin user request ...");
+                try {
+                    new KiWiDumpExporter(store.getPersistence()).export(output);
+                } catch (SQLException ex) {
+                    log.error("Error while creating database dump ...", ex);
+                    throw new WebApplicationException(ex);
+                }
+            }
+        };
+
+        return Response.ok(entity).header("Content-Disposition", "attachment; filename=\"marmotta.kiwidump\"").build();
+    }
+
+    private KiWiStore getKiWiStore() {
+        Sail sail = sesameService.getRepository().getSail();
+        while(sail instanceof StackableSail) {
+            sail = ((StackableSail) sail).getBaseSail();
+        }
+        if(sail instanceof KiWiStore) {
+            return (KiWiStore) sail;
+        } else {
+            return null;
+        }
+    }
 
 }
@@ -33,6 +33,12 @@ public class KiWiOptions {
     public static final String CACHING_BNODE_SIZE = "caching.bnode.size";
     public static final String CACHING_URI_SIZE = "caching.uri.size";
     public static final String CACHING_TRIPLE_SIZE = "caching.triple.size";
+    public static final String CACHING_NEAR_NODE_SIZE = "caching.near.node.size";
+    public static final String CACHING_NEAR_LITERAL_SIZE = "caching.near.literal.size";
+    public static final String CACHING_NEAR_BNODE_SIZE = "caching.near.bnode.size";
+    public static final String CACHING_NEAR_URI_SIZE = "caching.near.uri.size";
+    public static final String CACHING_NEAR_TRIPLE_SIZE = "caching.near.triple.size";
+    public static final String CACHING_NEAR_EXPIRY = "caching.near.expiry";
     public static final String CLUSTERING_NAME = "clustering.name";
     public static final String CACHING_QUERY_ENABLED = "caching.query.enabled";
     public static final String CONTEXTS_DEFAULT = "contexts.default";
@@ -46,6 +52,7 @@ public class KiWiOptions {
 
     public static final String TRIPLES_BATCHCOMMIT = "database.triples.batchcommit";
     public static final String TRIPLES_BATCHSIZE = "database.triples.batchsize";
+    public static final String TRIPLES_INDEXES = "database.triples.indexes";
     public static final String CLUSTERING_BACKEND = "clustering.backend";
     public static final String CLUSTERING_MODE = "clustering.mode";
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.backend.kiwi;
+
+import org.apache.marmotta.kiwi.model.rdf.KiWiNode;
+import org.apache.marmotta.kiwi.model.rdf.KiWiResource;
+import org.apache.marmotta.kiwi.model.rdf.KiWiTriple;
+import org.apache.marmotta.kiwi.model.rdf.KiWiUriResource;
+import org.apache.marmotta.kiwi.persistence.KiWiConnection;
+import org.apache.marmotta.kiwi.sail.KiWiSailConnection;
+import org.apache.marmotta.platform.core.api.triplestore.StatementPagingProvider;
+import org.openrdf.model.*;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
+import org.openrdf.repository.sail.SailRepositoryConnection;
+import org.openrdf.sail.SailConnection;
+import org.openrdf.sail.helpers.SailConnectionWrapper;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset pagination for the KiWi triple store: the key of a statement is the database id of the triple, so a page
+ * is retrieved with a range query on the triple ids instead of an offset scan.
+ */
+@ApplicationScoped
+public class KiWiStatementPagingProvider implements StatementPagingProvider {
+
+    @Override
+    public boolean isPagingSupported(RepositoryConnection connection) {
+        return getDatabaseConnection(connection) != null;
+    }
+
+    @Override
+    public List<Statement> listStatements(RepositoryConnection connection, Resource subject, URI predicate, Value object, Resource context, long boundary, int limit, boolean reverse) throws RepositoryException {
+        final KiWiConnection kiwi = getDatabaseConnection(connection);
+        if(kiwi == null) {
+            throw new IllegalArgumentException("the connection is not backed by a KiWi triple store");
+        }
+        try {
+            // values that are not in the database cannot match anything
+            final KiWiNode s = loadNode(kiwi, subject), p = loadNode(kiwi, predicate), o = loadNode(kiwi, object), c = loadNode(kiwi, context);
+            if((subject != null && s == null) || (predicate != null && p == null) || (object != null && o == null) || (context != null && c == null)) {
+                return Collections.emptyList();
+            }
+
+            return new ArrayList<Statement>(kiwi.listTriplesPage((KiWiResource) s, (KiWiUriResource) p, o, (KiWiResource) c, false, boundary, limit, reverse));
+        } catch (SQLException e) {
+            throw new RepositoryException("database error while listing a page of statements", e);
+        }
+    }
+
+    @Override
+    public long getPagingKey(Statement statement) {
+        return ((KiWiTriple) statement).getId();
+    }
+
+    private static KiWiNode loadNode(KiWiConnection kiwi, Value value) throws SQLException {
+        if(value == null) {
+            return null;
+        } else if(value instanceof KiWiNode && ((KiWiNode) value).getId() >= 0) {
+            return (KiWiNode) value;
+        } else if(value instanceof URI) {
+            return kiwi.loadUriResource(value.stringValue());
+        } else if(value instanceof BNode) {
+            return kiwi.loadAnonResource(value.stringValue());
+        } else {
+            return kiwi.loadLiterals(Collections.singleton((Literal) value)).get(value);
+        }
+    }
+
+    /**
+     * Return the KiWi database connection underlying the repository connection, or null if the repository is not
+     * backed by a KiWi triple store.
+     */
+    private static KiWiConnection getDatabaseConnection(RepositoryConnection connection) {
+        while (connection instanceof RepositoryConnectionWrapper) {
+            connection = ((RepositoryConnectionWrapper) connection).getDelegate();
+        }
+        if (connection instanceof SailRepositoryConnection) {
+            SailConnection sailConnection = ((SailRepositoryConnection) connection).getSailConnection();
+            while (sailConnection instanceof SailConnectionWrapper) {
+                sailConnection = ((SailConnectionWrapper) sailConnection).getWrappedConnection();
+            }
+            if (sailConnection instanceof KiWiSailConnection) {
+                return ((KiWiSailConnection) sailConnection).getDatabaseConnection();
+            }
+        }
+        return null;
+    }
+}
@@ -18,9 +18,11 @@
 package org.apache.marmotta.platform.backend.kiwi;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.marmotta.kiwi.caching.CacheManager;
 import org.apache.marmotta.kiwi.config.CacheMode;
 import org.apache.marmotta.kiwi.config.CachingBackends;
 import org.apache.marmotta.kiwi.config.KiWiConfiguration;
+import org.apache.marmotta.kiwi.config.TripleIndex;
 import org.apache.marmotta.kiwi.exception.DriverNotFoundException;
 import org.apache.marmotta.kiwi.persistence.KiWiDialect;
 import org.apache.marmotta.kiwi.persistence.h2.H2Dialect;
@@ -40,6 +42,8 @@ import org.slf4j.Logger;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * A store implementation providing an instance of a KiWi triple store as backend for the Marmotta platform. Uses the
@@ -105,6 +109,19 @@ public class KiWiStoreProvider implements StoreProvider {
         configuration.setTripleBatchCommit(configurationService.getBooleanConfiguration(KiWiOptions.TRIPLES_BATCHCOMMIT, true));
         configuration.setTripleBatchSize(configurationService.getIntConfiguration(KiWiOptions.TRIPLES_BATCHSIZE, 10000));
 
+        Set<TripleIndex> tripleIndexes = EnumSet.noneOf(TripleIndex.class);
+        for(String index : configurationService.getListConfiguration(KiWiOptions.TRIPLES_INDEXES)) {
+            if(index.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                tripleIndexes.add(TripleIndex.valueOf(index.trim().toUpperCase()));
+            } catch (IllegalArgumentException ex) {
+                log.warn("unknown triple index {}, ignoring", index);
+            }
+        }
+        configuration.setTripleIndexes(tripleIndexes);
+
         configuration.setDatacenterId(configurationService.getIntConfiguration(KiWiOptions.DATACENTER_ID,0));
         configuration.setFulltextEnabled(configurationService.getBooleanConfiguration(KiWiOptions.FULLTEXT_ENABLED, true));
         configuration.setFulltextLanguages(configurationService.getListConfiguration(KiWiOptions.FULLTEXT_LANGUAGES, ImmutableList.of("en")));
@@ -117,6 +134,13 @@ public class KiWiStoreProvider implements StoreProvider {
         configuration.setUriCacheSize(configurationService.getIntConfiguration(KiWiOptions.CACHING_URI_SIZE, 500000));
         configuration.setTripleCacheSize(configurationService.getIntConfiguration(KiWiOptions.CACHING_TRIPLE_SIZE, 100000));
 
+        configuration.setNearCacheSize(CacheManager.NODE_CACHE, configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_NODE_SIZE, 0));
+        configuration.setNearCacheSize(CacheManager.LITERAL_CACHE, configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_LITERAL_SIZE, 0));
+        configuration.setNearCacheSize(CacheManager.BNODE_CACHE, configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_BNODE_SIZE, 0));
+        configuration.setNearCacheSize(CacheManager.URI_CACHE, configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_URI_SIZE, 0));
+        configuration.setNearCacheSize(CacheManager.TRIPLE_CACHE, configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_TRIPLE_SIZE, 0));
+        configuration.setNearCacheExpiry(configurationService.getIntConfiguration(KiWiOptions.CACHING_NEAR_EXPIRY, 60));
+
         configuration.setClusterPort(configurationService.getIntConfiguration(KiWiOptions.CLUSTERING_PORT, 46655));
         configuration.setClusterAddress(configurationService.getStringConfiguration(KiWiOptions.CLUSTERING_ADDRESS, "228.6.7.8"));
 
@@ -175,11 +199,18 @@ public class KiWiStoreProvider implements StoreProvider {
                 e.containsChangedKey(KiWiOptions.FULLTEXT_ENABLED) ||
                 e.containsChangedKey(KiWiOptions.FULLTEXT_LANGUAGES) ||
                 e.containsChangedKey(KiWiOptions.DEBUG_SLOWQUERIES) ||
+                e.containsChangedKey(KiWiOptions.TRIPLES_INDEXES) ||
                 e.containsChangedKey(KiWiOptions.CLUSTERING_ENABLED) ||
                 e.containsChangedKey(KiWiOptions.CACHING_LITERAL_SIZE) ||
                 e.containsChangedKey(KiWiOptions.CACHING_TRIPLE_SIZE) ||
                 e.containsChangedKey(KiWiOptions.CACHING_URI_SIZE) ||
                 e.containsChangedKey(KiWiOptions.CACHING_BNODE_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_NODE_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_LITERAL_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_BNODE_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_URI_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_TRIPLE_SIZE) ||
+                e.containsChangedKey(KiWiOptions.CACHING_NEAR_EXPIRY) ||
                 e.containsChangedKey(KiWiOptions.CACHING_QUERY_ENABLED) ||
                 e.containsChangedKey(KiWiOptions.CLUSTERING_BACKEND) ||
                 e.containsChangedKey(KiWiOptions.CLUSTERING_ADDRESS) ||
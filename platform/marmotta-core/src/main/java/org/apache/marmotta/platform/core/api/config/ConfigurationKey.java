@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.core.api.config;
+
+import org.apache.commons.configuration.PropertyConverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A typed handle for a configuration key, to be used with {@link ConfigurationService#getConfiguration(ConfigurationKey)}.
+ * A handle is usually created once and kept in a static field:
+ * <pre>
+ * private static final ConfigurationKey&lt;Integer&gt; TIMEOUT = ConfigurationKey.intKey("sparql.timeout", 60);
+ * ...
+ * int timeout = configurationService.getConfiguration(TIMEOUT);
+ * </pre>
+ * The configuration service converts the value of the key at most once per configuration change, so repeated
+ * lookups with the same handle neither parse strings nor take locks.
+ */
+public abstract class ConfigurationKey<T> {
+
+    private final String key;
+
+    private final T defaultValue;
+
+    protected ConfigurationKey(String key, T defaultValue) {
+        if(key == null) {
+            throw new IllegalArgumentException("configuration key must not be null");
+        }
+        this.key = key;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * The name of the configuration key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The value returned in case the key is not configured
+     */
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Convert the configured value of the key into the type of this handle.
+     *
+     * @param value  the (first) value of the configuration key as string
+     * @param values all values of the configuration key in case it is a list
+     * @return the converted value
+     * @throws org.apache.commons.configuration.ConversionException in case the value cannot be converted
+     */
+    public abstract T convert(String value, String[] values);
+
+
+    public static ConfigurationKey<String> stringKey(String key, String defaultValue) {
+        return new ConfigurationKey<String>(key, defaultValue) {
+            @Override
+            public String convert(String value, String[] values) {
+                return value;
+            }
+        };
+    }
+
+    public static ConfigurationKey<Integer> intKey(String key, int defaultValue) {
+        return new ConfigurationKey<Integer>(key, defaultValue) {
+            @Override
+            public Integer convert(String value, String[] values) {
+                return PropertyConverter.toInteger(value);
+            }
+        };
+    }
+
+    public static ConfigurationKey<Long> longKey(String key, long defaultValue) {
+        return new ConfigurationKey<Long>(key, defaultValue) {
+            @Override
+            public Long convert(String value, String[] values) {
+                return PropertyConverter.toLong(value);
+            }
+        };
+    }
+
+    public static ConfigurationKey<Double> doubleKey(String key, double defaultValue) {
+        return new ConfigurationKey<Double>(key, defaultValue) {
+            @Override
+            public Double convert(String value, String[] values) {
+                return PropertyConverter.toDouble(value);
+            }
+        };
+    }
+
+    public static ConfigurationKey<Boolean> booleanKey(String key, boolean defaultValue) {
+        return new ConfigurationKey<Boolean>(key, defaultValue) {
+            @Override
+            public Boolean convert(String value, String[] values) {
+                return PropertyConverter.toBoolean(value);
+            }
+        };
+    }
+
+    /**
+     * A handle for a list-valued key; the returned list is unmodifiable.
+     */
+    public static ConfigurationKey<List<String>> listKey(String key, List<String> defaultValue) {
+        return new ConfigurationKey<List<String>>(key, defaultValue) {
+            @Override
+            public List<String> convert(String value, String[] values) {
+                List<String> result = new ArrayList<String>(values.length);
+                for(String v : values) {
+                    result.add(v);
+                }
+                if (result.size() == 1 && "".equals(result.get(0).trim())) {
+                    result.clear();
+                }
+                return Collections.unmodifiableList(result);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
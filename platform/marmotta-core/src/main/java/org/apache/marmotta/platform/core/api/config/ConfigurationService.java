@@ -188,6 +188,17 @@ public interface ConfigurationService {
 
     double getDoubleConfiguration(String key);
 
+    /**
+     * Get the value of the typed configuration key given as argument. If there is no such configuration, the
+     * default value of the key is returned. Lookups with the same handle are cheap, since the value is converted
+     * at most once after each configuration change.
+     *
+     * @param key typed handle of the configuration key
+     * @return the configured value or the default value of the handle
+     * @see ConfigurationKey
+     */
+    <T> T getConfiguration(ConfigurationKey<T> key);
+
     /**
      * Get the configuration for the given key. If there is no such configuration, a new one is
      * created using the provided defaultValue as double value.
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.marmotta.platform.core.api.triplestore;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.List;
+
+/**
+ * This interface can be implemented by services in the backend in case the underlying triple store can list the
+ * statements matching a pattern in pages ordered by a stable numeric key (keyset pagination), so that a page can be
+ * retrieved without counting or skipping the statements of the previous pages. Callers need to fall back to other
+ * means of paging if no provider supports the connection.
+ */
+public interface StatementPagingProvider {
+
+    /**
+     * Return true in case this provider can list pages for the given connection.
+     *
+     * @param connection the repository connection (possibly wrapped)
+     */
+    public boolean isPagingSupported(RepositoryConnection connection);
+
+    /**
+     * List a page of at most limit explicit statements matching the pattern given as argument, in the order of their
+     * keys. In forward direction, the page starts with the first statement with a key greater than the boundary; in
+     * reverse direction, the page contains the statements with a key less than or equal to the boundary in
+     * descending order. Null values are wildcards.
+     *
+     * @param connection the repository connection (possibly wrapped); must be supported by this provider
+     * @param boundary   the key where the page starts (exclusive in forward direction, inclusive in reverse direction)
+     * @param limit      the maximum number of statements in the page
+     * @param reverse    if true, list the statements before the boundary in descending order of their keys
+     * @return the statements of the page; the key of each statement is returned by {@link #getPagingKey(Statement)}
+     */
+    public List<Statement> listStatements(RepositoryConnection connection, Resource subject, URI predicate, Value object, Resource context,
+                                          long boundary, int limit, boolean reverse) throws RepositoryException;
+
+    /**
+     * Return the key of a statement listed by {@link #listStatements}; keys are greater than 0.
+     */
+    public long getPagingKey(Statement statement);
+}
@@ -18,10 +18,10 @@
 package org.apache.marmotta.platform.core.services.config;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import org.apache.commons.configuration.*;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.platform.core.api.config.ConfigurationKey;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
 import org.apache.marmotta.platform.core.events.ConfigurationChangedEvent;
 import org.apache.marmotta.platform.core.events.ConfigurationServiceInitEvent;
@@ -123,6 +123,12 @@ public class ConfigurationServiceImpl implements ConfigurationService {
      */
     private ReadWriteLock lock;
 
+    /**
+     * Immutable copy of the configuration used for answering getXXX() requests without locking; rebuilt and
+     * published whenever the configuration is changed, before any change event is fired.
+     */
+    private volatile ConfigurationSnapshot snapshot;
+
     /**
      * Backlog for delayed event collection; only fires a configuration changed event if there has not been a further
      * update in a specified amount of time (default 250ms);
@@ -501,9 +507,15 @@ public class ConfigurationServiceImpl implements ConfigurationService {
          */
     @Override
     public boolean isConfigurationSet(String key) {
+        final ConfigurationSnapshot current = snapshot;
+        if (current != null) {
+            return current.containsKey(key);
+        }
+
+        // not yet initialised, no snapshot available
         lock.readLock().lock();
         try {
-            return config.containsKey(key);
+            return config != null && config.containsKey(key);
         } finally {
             lock.readLock().unlock();
         }
@@ -645,19 +657,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            if (config instanceof AbstractConfiguration) {
-                ((AbstractConfiguration) config).setDelimiterParsingDisabled(true);
-            }
-            String result = config.getString(key);
-            if (config instanceof AbstractConfiguration) {
-                ((AbstractConfiguration) config).setDelimiterParsingDisabled(false);
-            }
-            return result;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getString(key, null);
     }
 
     @Override
@@ -665,19 +665,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            if (config instanceof AbstractConfiguration) {
-                ((AbstractConfiguration) config).setDelimiterParsingDisabled(true);
-            }
-            String result = config.getString(key, defaultValue);
-            if (config instanceof AbstractConfiguration) {
-                ((AbstractConfiguration) config).setDelimiterParsingDisabled(false);
-            }
-            return result;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getString(key, defaultValue);
     }
 
     @Override
@@ -685,12 +673,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getDouble(key, 0.0);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getDouble(key, 0.0);
     }
 
     @Override
@@ -698,12 +681,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getDouble(key, defaultValue);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getDouble(key, defaultValue);
     }
 
     /*
@@ -736,12 +714,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised, "ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getInt(key, 0);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getInt(key, 0);
     }
 
     @Override
@@ -749,12 +722,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getInt(key, defaultValue);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getInt(key, defaultValue);
     }
 
     /*
@@ -794,12 +762,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised, "ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getLong(key, 0);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getLong(key, 0);
     }
 
     /**
@@ -815,12 +778,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getLong(key, defaultValue);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getLong(key, defaultValue);
     }
 
     /**
@@ -854,12 +812,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getBoolean(key, false);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getBoolean(key, false);
 
     }
 
@@ -868,12 +821,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            return config.getBoolean(key, defaultValue);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getBoolean(key, defaultValue);
 
     }
 
@@ -904,6 +852,21 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
+    /**
+     * Get the value of the typed configuration key given as argument, or its default value if the key is not
+     * configured. The value is converted only once after each configuration change.
+     *
+     * @param key typed handle of the configuration key
+     * @return the configured value or the default value of the handle
+     */
+    @Override
+    public <T> T getConfiguration(ConfigurationKey<T> key) {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
+
+        return snapshot.get(key);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -933,16 +896,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            String[] result = config.getStringArray(key);
+        List<String> result = snapshot.getList(key);
 
-            if (result.length == 1 && "".equals(result[0].trim())) return Collections.emptyList();
+        if (result == null || result.size() == 1 && "".equals(result.get(0).trim())) return Collections.emptyList();
 
-            return Lists.newArrayList(result);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return result;
 
     }
 
@@ -957,18 +915,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Preconditions.checkNotNull(key);
         Preconditions.checkState(initialised,"ConfigurationService not yet initialised; call initialise() manually");
 
-        lock.readLock().lock();
-        try {
-            if (config.containsKey(key)) {
-                String[] values = config.getStringArray(key);
-                if (values.length > 0) return Lists.newArrayList(values);
-                else
-                    return Lists.newArrayList();
-            } else
-                return defaultValue;
-        } finally {
-            lock.readLock().unlock();
-        }
+        List<String> result = snapshot.getList(key);
+        if (result != null) {
+            return result;
+        } else
+            return defaultValue;
 
     }
 
@@ -1137,6 +1088,9 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     }
 
     protected void save() {
+        // publish the new state to readers first; callers hold the write lock, so the configuration is consistent
+        snapshot = new ConfigurationSnapshot(config);
+
         if(saveConfiguration instanceof PropertiesConfiguration) {
             try {
                 log.debug("Saving configuration values");
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.core.services.config;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertyConverter;
+import org.apache.marmotta.platform.core.api.config.ConfigurationKey;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable copy of the system configuration, used by the {@link ConfigurationServiceImpl} to answer read
+ * requests without locking. A new snapshot is built and published after every change of the configuration.
+ * Values are copied in the form the commons-configuration getters return them (i.e. interpolated), and typed
+ * values are converted at most once per snapshot.
+ */
+final class ConfigurationSnapshot {
+
+    private static final Object NULL = new Object();
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Converted values of typed configuration keys; only grows, but is discarded together with the snapshot
+     */
+    private final ConcurrentMap<ConfigurationKey<?>, Object> typedValues;
+
+    ConfigurationSnapshot(Configuration config) {
+        entries = new HashMap<String, Entry>();
+        typedValues = new ConcurrentHashMap<ConfigurationKey<?>, Object>();
+
+        for (Iterator<String> it = config.getKeys(); it.hasNext(); ) {
+            String key = it.next();
+            entries.put(key, new Entry(config.getString(key), config.getStringArray(key)));
+        }
+    }
+
+    boolean containsKey(String key) {
+        return entries.containsKey(key);
+    }
+
+    String getString(String key, String defaultValue) {
+        Entry e = entries.get(key);
+        return e != null && e.value != null ? e.value : defaultValue;
+    }
+
+    int getInt(String key, int defaultValue) {
+        Entry e = entries.get(key);
+        if (e == null || e.value == null) {
+            return defaultValue;
+        }
+        if (e.intValue == null) {
+            e.intValue = PropertyConverter.toInteger(e.value);
+        }
+        return e.intValue;
+    }
+
+    long getLong(String key, long defaultValue) {
+        Entry e = entries.get(key);
+        if (e == null || e.value == null) {
+            return defaultValue;
+        }
+        if (e.longValue == null) {
+            e.longValue = PropertyConverter.toLong(e.value);
+        }
+        return e.longValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        Entry e = entries.get(key);
+        if (e == null || e.value == null) {
+            return defaultValue;
+        }
+        if (e.doubleValue == null) {
+            e.doubleValue = PropertyConverter.toDouble(e.value);
+        }
+        return e.doubleValue;
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        Entry e = entries.get(key);
+        if (e == null || e.value == null) {
+            return defaultValue;
+        }
+        if (e.booleanValue == null) {
+            e.booleanValue = PropertyConverter.toBoolean(e.value);
+        }
+        return e.booleanValue;
+    }
+
+    /**
+     * Return a (modifiable) copy of the values of the key, or null if the key is not configured
+     */
+    List<String> getList(String key) {
+        Entry e = entries.get(key);
+        return e != null ? Lists.newArrayList(e.values) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(ConfigurationKey<T> key) {
+        Object result = typedValues.get(key);
+        if (result == null) {
+            Entry e = entries.get(key.getKey());
+            if (e == null || e.value == null) {
+                result = key.getDefaultValue();
+            } else {
+                result = key.convert(e.value, e.values);
+            }
+            typedValues.put(key, result != null ? result : NULL);
+        }
+        return result != NULL ? (T) result : null;
+    }
+
+    /**
+     * The values of a single key. The converted values are computed lazily; concurrent conversions are harmless
+     * because they produce equal immutable objects.
+     */
+    private static class Entry {
+        private final String   value;
+        private final String[] values;
+
+        private Integer intValue;
+        private Long    longValue;
+        private Double  doubleValue;
+        private Boolean booleanValue;
+
+        private Entry(String value, String[] values) {
+            this.value  = value;
+            this.values = values != null ? values : new String[0];
+        }
+    }
+}
@@ -24,12 +24,17 @@ import org.apache.marmotta.platform.core.api.task.TaskManagerService;
 import org.apache.marmotta.platform.core.api.triplestore.SesameService;
 import org.apache.marmotta.platform.core.exception.io.MarmottaImportException;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.util.RDFInserter;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
 import org.openrdf.rio.RDFParserRegistry;
+import org.openrdf.rio.Rio;
 import org.slf4j.Logger;
 
 import javax.annotation.PostConstruct;
@@ -173,26 +178,9 @@ public class RDFImporterImpl implements Importer {
 
                 long timer = System.currentTimeMillis();
 
-                RepositoryConnection c_import = sesameService.getConnection();
-                try {
-                    c_import.add(is, baseUri, f, context );
-                } catch (RepositoryException ex) {
-                    log.error("error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } catch (RDFParseException ex) {
-                    log.error("parse error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } catch (IOException ex) {
-                    log.error("I/O error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } finally {
-                    c_import.commit();
-                    c_import.close();
-                }
-                log.debug("imported data into Apache Marmotta repository ({} ms)", System.currentTimeMillis() - timer);
+                count = importData(createSource(is), f, context, baseUri, task);
+
+                log.debug("imported {} triples into Apache Marmotta repository ({} ms)", count, System.currentTimeMillis() - timer);
 
             } else {
                 log.error("could not load ontology; InputStream was null");
@@ -238,27 +226,9 @@ public class RDFImporterImpl implements Importer {
 
                 long timer = System.currentTimeMillis();
 
-                RepositoryConnection c_import = sesameService.getConnection();
-                try {
-                    c_import.add(reader, baseUri, f, context);
-                } catch (RepositoryException ex) {
-                    log.error("error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } catch (RDFParseException ex) {
-                    log.error("parse error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } catch (IOException ex) {
-                    log.error("I/O error while importing Sesame data:", ex);
-                    c_import.rollback();
-                    throw ex;
-                } finally {
-                    c_import.commit();
-                    c_import.close();
-                }
+                count = importData(createSource(reader), f, context, baseUri, task);
 
-                log.info("imported data into Apache Marmotta repository ({} ms)", System.currentTimeMillis() - timer);
+                log.info("imported {} triples into Apache Marmotta repository ({} ms)", count, System.currentTimeMillis() - timer);
 
             } else {
                 log.error("could not load ontology; InputStream was null");
@@ -273,6 +243,61 @@ public class RDFImporterImpl implements Importer {
     }
 
 
+    /**
+     * Parse the data from the source and add the triples to the repository. In case importer.commit_batchsize is greater
+     * than 0, the import transaction is committed every time this number of triples has been added, so large imports
+     * do not build up a single huge transaction (and the transaction listeners are notified once per chunk); a
+     * failing import then only rolls back the current chunk.
+     *
+     * @return the number of triples imported
+     */
+    private int importData(RDFSource source, RDFFormat format, URI context, String baseUri, Task task) throws RepositoryException, RDFParseException, IOException {
+        final int commitSize = configurationService.getIntConfiguration("importer.commit_batchsize", 0);
+
+        RepositoryConnection c_import = sesameService.getConnection();
+        try {
+            c_import.begin();
+
+            final ChunkedRDFInserter inserter = new ChunkedRDFInserter(c_import, commitSize, task);
+            if (context != null) {
+                inserter.enforceContext(context);
+            }
+
+            // configure the parser like RepositoryConnection.add() does
+            final RDFParser parser = Rio.createParser(format, c_import.getValueFactory());
+            parser.setParserConfig(c_import.getParserConfig());
+            parser.setRDFHandler(inserter);
+            source.parse(parser, baseUri);
+
+            c_import.commit();
+            task.updateProgress(inserter.getCount());
+            return (int) inserter.getCount();
+        } catch (RDFHandlerException ex) {
+            c_import.rollback();
+            if (ex.getCause() instanceof RepositoryException) {
+                log.error("error while importing Sesame data:", ex.getCause());
+                throw (RepositoryException) ex.getCause();
+            } else {
+                log.error("error while importing Sesame data:", ex);
+                throw new RepositoryException(ex);
+            }
+        } catch (RepositoryException ex) {
+            log.error("error while importing Sesame data:", ex);
+            c_import.rollback();
+            throw ex;
+        } catch (RDFParseException ex) {
+            log.error("parse error while importing Sesame data:", ex);
+            c_import.rollback();
+            throw ex;
+        } catch (IOException ex) {
+            log.error("I/O error while importing Sesame data:", ex);
+            c_import.rollback();
+            throw ex;
+        } finally {
+            c_import.close();
+        }
+    }
+
     @PostConstruct
     public void initialise() {
         log.info("registering RDF importer ...");
@@ -292,4 +317,75 @@ public class RDFImporterImpl implements Importer {
     private static RDFFormat getFormat(String format) {
         return RDFParserRegistry.getInstance().getFileFormatForMIMEType(format);
     }
+
+    private static RDFSource createSource(final InputStream is) {
+        return new RDFSource() {
+            @Override
+            public void parse(RDFParser parser, String baseUri) throws IOException, RDFParseException, RDFHandlerException {
+                parser.parse(is, baseUri);
+            }
+        };
+    }
+
+    private static RDFSource createSource(final Reader reader) {
+        return new RDFSource() {
+            @Override
+            public void parse(RDFParser parser, String baseUri) throws IOException, RDFParseException, RDFHandlerException {
+                parser.parse(reader, baseUri);
+            }
+        };
+    }
+
+    /**
+     * The data to import, either read from an input stream (leaving the character encoding to the parser) or from a
+     * reader.
+     */
+    private interface RDFSource {
+
+        void parse(RDFParser parser, String baseUri) throws IOException, RDFParseException, RDFHandlerException;
+    }
+
+    /**
+     * Adds the parsed triples to the repository connection and commits the transaction every commitSize triples,
+     * reporting the progress to the import task.
+     */
+    private class ChunkedRDFInserter extends RDFInserter {
+
+        private final RepositoryConnection connection;
+
+        private final int commitSize;
+
+        private final Task task;
+
+        private long count = 0;
+
+        private ChunkedRDFInserter(RepositoryConnection connection, int commitSize, Task task) {
+            super(connection);
+            this.connection = connection;
+            this.commitSize = commitSize;
+            this.task = task;
+        }
+
+        @Override
+        public void handleStatement(Statement st) throws RDFHandlerException {
+            super.handleStatement(st);
+
+            if (++count % 1000 == 0) {
+                task.updateProgress(count);
+            }
+            if (commitSize > 0 && count % commitSize == 0) {
+                try {
+                    connection.commit();
+                    connection.begin();
+                } catch (RepositoryException e) {
+                    throw new RDFHandlerException(e);
+                }
+                log.debug("committed {} imported triples", count);
+            }
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
 }
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import org.apache.marmotta.platform.core.api.config.ConfigurationKey;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
 import org.apache.marmotta.platform.core.test.base.EmbeddedMarmotta;
 import org.junit.AfterClass;
@@ -149,6 +150,28 @@ public class ConfigurationServiceTest {
 
     }
 
+    @Test
+    public void testTypedKey() {
+        ConfigurationKey<Integer> intKey = ConfigurationKey.intKey("foo.typedkey", 42);
+        ConfigurationKey<List<String>> listKey = ConfigurationKey.listKey("foo.typedkey", null);
+
+        // test default value
+        Assert.assertEquals(42, (int) configurationService.getConfiguration(intKey));
+        Assert.assertNull(configurationService.getConfiguration(listKey));
+
+        // set value and check the new value is visible through the handle immediately
+        configurationService.setIntConfiguration(intKey.getKey(), 17);
+        Assert.assertEquals(17, (int) configurationService.getConfiguration(intKey));
+        Assert.assertEquals(1, configurationService.getConfiguration(listKey).size());
+
+        configurationService.setIntConfiguration(intKey.getKey(), 18);
+        Assert.assertEquals(18, (int) configurationService.getConfiguration(intKey));
+
+        // remove value and check the default is returned again
+        configurationService.removeConfiguration(intKey.getKey());
+        Assert.assertEquals(42, (int) configurationService.getConfiguration(intKey));
+    }
+
 
     @AfterClass
     public static void tearDown() {
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.core.test.importer;
+
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.importer.ImportService;
+import org.apache.marmotta.platform.core.api.triplestore.SesameService;
+import org.apache.marmotta.platform.core.api.user.UserService;
+import org.apache.marmotta.platform.core.exception.io.MarmottaImportException;
+import org.apache.marmotta.platform.core.test.base.EmbeddedMarmotta;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.io.StringReader;
+
+/**
+ * Test the RDF importer, in particular committing large imports in chunks of importer.commit_batchsize triples.
+ */
+public class RDFImporterTest {
+
+    private static EmbeddedMarmotta marmotta;
+    private static ConfigurationService configurationService;
+    private static ImportService importService;
+    private static SesameService sesameService;
+    private static UserService userService;
+
+    @BeforeClass
+    public static void setUp() {
+        marmotta = new EmbeddedMarmotta();
+        configurationService = marmotta.getService(ConfigurationService.class);
+        importService = marmotta.getService(ImportService.class);
+        sesameService = marmotta.getService(SesameService.class);
+        userService = marmotta.getService(UserService.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        marmotta.shutdown();
+    }
+
+    @After
+    public void resetBatchSize() {
+        configurationService.setIntConfiguration("importer.commit_batchsize", 0);
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        configurationService.setIntConfiguration("importer.commit_batchsize", 10);
+
+        URI context = createContext();
+        int count = importService.importData(new StringReader(createData(25, false)), "text/turtle", userService.getAdminUser(), context);
+
+        Assert.assertEquals(25, count);
+        Assert.assertEquals(25, size(context));
+    }
+
+    /**
+     * A failing import only rolls back the triples added since the last chunk was committed
+     */
+    @Test
+    public void testChunkedCommit() throws Exception {
+        configurationService.setIntConfiguration("importer.commit_batchsize", 10);
+
+        URI context = createContext();
+        try {
+            importService.importData(new StringReader(createData(25, true)), "text/turtle", userService.getAdminUser(), context);
+            Assert.fail("the import of malformed data did not fail");
+        } catch (MarmottaImportException ex) {
+            // expected
+        }
+
+        Assert.assertEquals(20, size(context));
+    }
+
+    /**
+     * With a batch size of 0, all data is imported in a single transaction
+     */
+    @Test
+    public void testSingleTransaction() throws Exception {
+        configurationService.setIntConfiguration("importer.commit_batchsize", 0);
+
+        URI context = createContext();
+        try {
+            importService.importData(new StringReader(createData(25, true)), "text/turtle", userService.getAdminUser(), context);
+            Assert.fail("the import of malformed data did not fail");
+        } catch (MarmottaImportException ex) {
+            // expected
+        }
+
+        Assert.assertEquals(0, size(context));
+    }
+
+    private static URI createContext() throws RepositoryException {
+        return sesameService.getRepository().getValueFactory().createURI(configurationService.getBaseUri() + "context/" + RandomStringUtils.randomAlphabetic(8));
+    }
+
+    /**
+     * Create Turtle data with the given number of triples, optionally followed by a malformed line
+     */
+    private static String createData(int triples, boolean malformed) {
+        StringBuilder data = new StringBuilder();
+        for(int i = 0; i < triples; i++) {
+            data.append("<http://example.com/resource/").append(i).append("> <http://example.com/property> \"value ").append(i).append("\" .\n");
+        }
+        if(malformed) {
+            data.append("<http://example.com/resource/broken> <http://example.com/property> .\n");
+        }
+        return data.toString();
+    }
+
+    private static long size(URI context) throws RepositoryException {
+        RepositoryConnection connection = sesameService.getConnection();
+        try {
+            connection.begin();
+            long size = connection.size(context);
+            connection.commit();
+            return size;
+        } finally {
+            connection.close();
+        }
+    }
+}
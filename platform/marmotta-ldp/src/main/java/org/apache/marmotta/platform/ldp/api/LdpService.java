@@ -23,6 +23,8 @@ import org.apache.marmotta.platform.ldp.exceptions.InvalidInteractionModelExcept
 import org.apache.marmotta.platform.ldp.exceptions.InvalidModificationException;
 import org.apache.marmotta.platform.ldp.patch.InvalidPatchDocumentException;
 import org.apache.marmotta.platform.ldp.patch.parser.ParseException;
+import org.apache.marmotta.platform.ldp.util.ContainerPage;
+import org.apache.marmotta.platform.ldp.util.LdpPreference;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.repository.RepositoryConnection;
@@ -163,6 +165,48 @@ public interface LdpService {
 
     void exportResource(RepositoryConnection connection, URI resource, OutputStream output, RDFFormat format) throws RepositoryException, RDFHandlerException;
 
+    /**
+     * Export the resource, honoring the include/omit preferences of the client (e.g. omitting the containment
+     * triples of a container for PreferMinimalContainer).
+     *
+     * @param connection repository connection
+     * @param resource the resource to export
+     * @param output the stream to write the representation to
+     * @param format the RDF serialization format
+     * @param preference the client preferences
+     */
+    void exportResource(RepositoryConnection connection, String resource, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException;
+
+    void exportResource(RepositoryConnection connection, URI resource, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException;
+
+    /**
+     * Retrieve a page of the containment triples of a container.
+     *
+     * @param connection repository connection
+     * @param container the container
+     * @param cursor the cursor of the page, {@link ContainerPage#FIRST} for the first page
+     * @param size the maximum number of containment triples in the page
+     * @return the page
+     */
+    ContainerPage getContainerPage(RepositoryConnection connection, String container, long cursor, int size) throws RepositoryException;
+
+    ContainerPage getContainerPage(RepositoryConnection connection, URI container, long cursor, int size) throws RepositoryException;
+
+    /**
+     * Export a page of a container. The first page contains the triples describing the container itself, all
+     * pages contain the containment triples of the page (unless omitted by the client preferences).
+     *
+     * @param connection repository connection
+     * @param container the container
+     * @param page the page to export, as retrieved by {@link #getContainerPage(RepositoryConnection, URI, long, int)}
+     * @param output the stream to write the representation to
+     * @param format the RDF serialization format
+     * @param preference the client preferences
+     */
+    void exportContainerPage(RepositoryConnection connection, String container, ContainerPage page, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException;
+
+    void exportContainerPage(RepositoryConnection connection, URI container, ContainerPage page, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException;
+
     void exportBinaryResource(RepositoryConnection connection, String resource, OutputStream out) throws RepositoryException, IOException;
 
     void exportBinaryResource(RepositoryConnection connection, URI resource, OutputStream out) throws RepositoryException, IOException;
@@ -17,6 +17,8 @@
  */
 package org.apache.marmotta.platform.ldp.services;
 
+import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
 import info.aduna.iteration.FilterIteration;
 import info.aduna.iteration.Iterations;
 import info.aduna.iteration.UnionIteration;
@@ -24,6 +26,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.marmotta.commons.vocabulary.DCTERMS;
 import org.apache.marmotta.commons.vocabulary.LDP;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.triplestore.StatementPagingProvider;
 import org.apache.marmotta.platform.ldp.api.LdpBinaryStoreService;
 import org.apache.marmotta.platform.ldp.api.LdpService;
 import org.apache.marmotta.platform.ldp.exceptions.IncompatibleResourceTypeException;
@@ -33,31 +36,34 @@ import org.apache.marmotta.platform.ldp.patch.InvalidPatchDocumentException;
 import org.apache.marmotta.platform.ldp.patch.RdfPatchUtil;
 import org.apache.marmotta.platform.ldp.patch.model.PatchLine;
 import org.apache.marmotta.platform.ldp.patch.parser.ParseException;
+import org.apache.marmotta.platform.ldp.patch.parser.RdfPatchParser;
 import org.apache.marmotta.platform.ldp.patch.parser.RdfPatchParserImpl;
+import org.apache.marmotta.platform.ldp.util.ContainerPage;
+import org.apache.marmotta.platform.ldp.util.LdpPreference;
 import org.apache.marmotta.platform.ldp.util.LdpUtils;
 import org.openrdf.model.*;
+import org.openrdf.model.impl.LinkedHashModel;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.RepositoryResult;
-import org.openrdf.repository.event.base.InterceptingRepositoryConnectionWrapper;
-import org.openrdf.repository.event.base.RepositoryConnectionInterceptorAdapter;
 import org.openrdf.rio.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Link;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * LDP Service default implementation
@@ -76,11 +82,19 @@ public class LdpServiceImpl implements LdpService {
     @Inject
     private LdpBinaryStoreService binaryStore;
 
+    @Inject
+    private Instance<StatementPagingProvider> pagingProviders;
+
     private final URI ldpContext, ldpInteractionModelProperty;
 
+    // the properties of a container stored in the LDP context, except the containment triples
+    private final List<URI> containerProperties;
+
     public LdpServiceImpl() {
         ldpContext = ValueFactoryImpl.getInstance().createURI(LDP.NAMESPACE);
         ldpInteractionModelProperty = ValueFactoryImpl.getInstance().createURI(LDP.NAMESPACE, "interactionModel");
+        containerProperties = Arrays.asList(RDF.TYPE, ldpInteractionModelProperty, DCTERMS.created, DCTERMS.modified,
+                DCTERMS.format, DCTERMS.hasFormat, DCTERMS.isFormatOf);
     }
 
     private URI buildURI(String resource) {
@@ -198,11 +212,28 @@ public class LdpServiceImpl implements LdpService {
 
     @Override
     public void exportResource(RepositoryConnection connection, URI resource, OutputStream output, RDFFormat format) throws RepositoryException, RDFHandlerException {
-        // TODO: this should be a little more sophisticated...
-        // TODO: non-membership triples flag / Prefer-header
+        exportResource(connection, resource, output, format, LdpPreference.parse(null));
+    }
+
+    @Override
+    public void exportResource(RepositoryConnection connection, String resource, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException {
+        exportResource(connection, buildURI(resource), output, format, preference);
+    }
+
+    @Override
+    public void exportResource(RepositoryConnection connection, URI resource, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException {
         RDFWriter writer = Rio.createWriter(format, output);
+        CloseableIteration<Statement, RepositoryException> ldpStatements = connection.getStatements(resource, null, null, false, ldpContext);
+        if (!preference.isContainmentIncluded()) {
+            ldpStatements = new FilterIteration<Statement, RepositoryException>(ldpStatements) {
+                @Override
+                protected boolean accept(Statement statement) throws RepositoryException {
+                    return !LDP.contains.equals(statement.getPredicate());
+                }
+            };
+        }
         UnionIteration<Statement, RepositoryException> union = new UnionIteration<>(
-                connection.getStatements(resource, null, null, false, ldpContext),
+                ldpStatements,
                 connection.getStatements(null, null, null, false, resource)
         );
         try {
@@ -212,6 +243,97 @@ public class LdpServiceImpl implements LdpService {
         }
     }
 
+    @Override
+    public ContainerPage getContainerPage(RepositoryConnection connection, String container, long cursor, int size) throws RepositoryException {
+        return getContainerPage(connection, buildURI(container), cursor, size);
+    }
+
+    @Override
+    public ContainerPage getContainerPage(RepositoryConnection connection, URI container, long cursor, int size) throws RepositoryException {
+        final StatementPagingProvider pagingProvider = getPagingProvider(connection);
+        if (pagingProvider != null) {
+            // keyset pagination: the cursor is the key of the last containment triple of the previous page
+            List<Statement> members = pagingProvider.listStatements(connection, container, LDP.contains, null, ldpContext, cursor, size + 1, false);
+            long next = ContainerPage.NONE;
+            if (members.size() > size) {
+                members = members.subList(0, size);
+                next = pagingProvider.getPagingKey(members.get(size - 1));
+            }
+
+            long previous = ContainerPage.NONE;
+            if (cursor > ContainerPage.FIRST) {
+                final List<Statement> before = pagingProvider.listStatements(connection, container, LDP.contains, null, ldpContext, cursor, size + 1, true);
+                previous = before.size() > size ? pagingProvider.getPagingKey(before.get(size)) : ContainerPage.FIRST;
+            }
+
+            return new ContainerPage(cursor, new ArrayList<>(members), next, previous);
+        } else {
+            // offset pagination for other backends: the cursor is the number of members on the previous pages
+            final RepositoryResult<Statement> members = connection.getStatements(container, LDP.contains, null, false, ldpContext);
+            try {
+                final List<Statement> page = new ArrayList<>(size);
+                long position = 0;
+                boolean more = false;
+                while (members.hasNext()) {
+                    final Statement stmt = members.next();
+                    if (position++ < cursor) {
+                        continue;
+                    }
+                    if (page.size() < size) {
+                        page.add(stmt);
+                    } else {
+                        more = true;
+                        break;
+                    }
+                }
+                return new ContainerPage(cursor, page, more ? cursor + size : ContainerPage.NONE, cursor > ContainerPage.FIRST ? Math.max(ContainerPage.FIRST, cursor - size) : ContainerPage.NONE);
+            } finally {
+                members.close();
+            }
+        }
+    }
+
+    @Override
+    public void exportContainerPage(RepositoryConnection connection, String container, ContainerPage page, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException {
+        exportContainerPage(connection, buildURI(container), page, output, format, preference);
+    }
+
+    @Override
+    public void exportContainerPage(RepositoryConnection connection, URI container, ContainerPage page, OutputStream output, RDFFormat format, LdpPreference preference) throws RepositoryException, RDFHandlerException {
+        RDFWriter writer = Rio.createWriter(format, output);
+        final List<CloseableIteration<Statement, RepositoryException>> parts = new ArrayList<>();
+        if (page.isFirst()) {
+            // the server managed properties of the container are looked up one by one to avoid a scan over all
+            // containment triples
+            for (URI property : containerProperties) {
+                parts.add(connection.getStatements(container, property, null, false, ldpContext));
+            }
+            parts.add(connection.getStatements(null, null, null, false, container));
+        }
+        if (preference.isContainmentIncluded()) {
+            parts.add(new CloseableIteratorIteration<Statement, RepositoryException>(page.getMembers().iterator()));
+        }
+        UnionIteration<Statement, RepositoryException> union = new UnionIteration<>(parts);
+        try {
+            LdpUtils.exportIteration(writer, container, union);
+        } finally {
+            union.close();
+        }
+    }
+
+    /**
+     * Return a backend service that supports keyset pagination for the repository connection, or null if there is
+     * none.
+     */
+    private StatementPagingProvider getPagingProvider(RepositoryConnection connection) {
+        for (StatementPagingProvider provider : pagingProviders) {
+            if (provider.isPagingSupported(connection)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void exportBinaryResource(RepositoryConnection connection, String resource, OutputStream out) throws RepositoryException, IOException {
         //TODO: check (resource, dct:format, type)
@@ -362,28 +484,32 @@ public class LdpServiceImpl implements LdpService {
         } else if (rdfFormat != null && isRdfSourceResource(con, resource)) {
             log.debug("Updating <{}> as LDP-RS - {}", resource, rdfFormat.getDefaultMIMEType());
 
-            con.clear(resource);
-            final InterceptingRepositoryConnectionWrapper filtered = new InterceptingRepositoryConnectionWrapper(con.getRepository(), con);
-            final Set<URI> deniedProperties = new HashSet<>();
-            filtered.addRepositoryConnectionInterceptor(new RepositoryConnectionInterceptorAdapter() {
-                @Override
-                public boolean add(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
-                    if (resource.equals(subject) && SERVER_MANAGED_PROPERTIES.contains(predicate)) {
-                        deniedProperties.add(predicate);
-                        return true;
-                    }
-                    return false;
+            // parse the new representation first, so that invalid updates do not touch the stored graph
+            final Model updated = Rio.parse(stream, resource.stringValue(), rdfFormat, resource);
+            for (URI prop : SERVER_MANAGED_PROPERTIES) {
+                if (updated.contains(resource, prop, null)) {
+                    log.debug("Invalid property modification in update: <{}> is a server controlled property", prop);
+                    throw new InvalidModificationException(String.format("Must not update <%s> using PUT", prop));
                 }
-            });
-
-            filtered.add(stream, resource.stringValue(), rdfFormat, resource);
+            }
 
-            if (!deniedProperties.isEmpty()) {
-                final URI prop = deniedProperties.iterator().next();
-                log.debug("Invalid property modification in update: <{}> is a server controlled property", prop);
-                throw new InvalidModificationException(String.format("Must not update <%s> using PUT", prop));
+            // only apply the difference to the current graph, so unchanged triples are neither removed nor re-added
+            final Model current = Iterations.addAll(con.getStatements(null, null, null, false, resource), new LinkedHashModel());
+            final Model removed = new LinkedHashModel(), added = new LinkedHashModel();
+            for (Statement stmt : current) {
+                if (!updated.contains(stmt.getSubject(), stmt.getPredicate(), stmt.getObject())) {
+                    removed.add(stmt);
+                }
             }
-            log.trace("LDP-RS <{}> updated", resource);
+            for (Statement stmt : updated) {
+                if (!current.contains(stmt.getSubject(), stmt.getPredicate(), stmt.getObject())) {
+                    added.add(stmt);
+                }
+            }
+            con.remove(removed, resource);
+            con.add(added, resource);
+
+            log.trace("LDP-RS <{}> updated: {} triples removed, {} triples added", resource, removed.size(), added.size());
             return resource.stringValue();
         } else if (rdfFormat == null) {
             final String mimeType = getMimeType(con, resource);
@@ -468,20 +594,17 @@ public class LdpServiceImpl implements LdpService {
     public void patchResource(RepositoryConnection connection, URI uri, InputStream patchData, boolean strict) throws RepositoryException, ParseException, InvalidModificationException, InvalidPatchDocumentException {
         final Literal now = connection.getValueFactory().createLiteral(new Date());
 
-        log.trace("parsing patch");
-        List<PatchLine> patch = new RdfPatchParserImpl(patchData).parsePatch();
+        // the patch is parsed and applied incrementally, an invalid line stops it and the transaction is rolled back
+        final RestrictedPatchParser parser = new RestrictedPatchParser(new RdfPatchParserImpl(connection.getValueFactory(), patchData));
+
+        log.debug("patching <{}>", uri.stringValue());
+        final long changes = RdfPatchUtil.applyPatch(connection, parser, uri);
 
         // we are allowed to restrict the patch contents (Sec. ???)
-        log.trace("checking for invalid patch statements");
-        for (PatchLine patchLine : patch) {
-            if (LDP.contains.equals(patchLine.getStatement().getPredicate())) {
-                throw new InvalidModificationException("must not change <" + LDP.contains.stringValue() + "> via PATCH");
-            }
+        if (parser.isRestricted()) {
+            throw new InvalidModificationException("must not change <" + LDP.contains.stringValue() + "> via PATCH");
         }
-
-        log.debug("patching <{}> ({} changes)", uri.stringValue(), patch.size());
-
-        RdfPatchUtil.applyPatch(connection, patch, uri);
+        log.debug("patched <{}> ({} changes)", uri.stringValue(), changes);
 
         log.trace("update resource meta");
         connection.remove(uri, DCTERMS.modified, null, ldpContext);
@@ -583,4 +706,54 @@ public class LdpServiceImpl implements LdpService {
         // Default Interaction Model is LDPC
         return InteractionModel.LDPC;
     }
+
+    /**
+     * Stops parsing the patch at the first line changing a server-managed property (currently {@link LDP#contains}).
+     */
+    private static class RestrictedPatchParser implements RdfPatchParser {
+
+        private final RdfPatchParser delegate;
+
+        private boolean restricted = false;
+
+        private RestrictedPatchParser(RdfPatchParser delegate) {
+            this.delegate = delegate;
+        }
+
+        public boolean isRestricted() {
+            return restricted;
+        }
+
+        @Override
+        public void setValueFactory(ValueFactory vf) {
+            delegate.setValueFactory(vf);
+        }
+
+        @Override
+        public ValueFactory getValueFactory() {
+            return delegate.getValueFactory();
+        }
+
+        @Override
+        public List<PatchLine> parsePatch() throws ParseException {
+            final List<PatchLine> patch = new ArrayList<>();
+            for (PatchLine patchLine = parsePatchLine(); patchLine != null; patchLine = parsePatchLine()) {
+                patch.add(patchLine);
+            }
+            return patch;
+        }
+
+        @Override
+        public PatchLine parsePatchLine() throws ParseException {
+            if (restricted) {
+                return null;
+            }
+            final PatchLine patchLine = delegate.parsePatchLine();
+            if (patchLine != null && LDP.contains.equals(patchLine.getStatement().getPredicate())) {
+                restricted = true;
+                return null;
+            }
+            return patchLine;
+        }
+    }
 }
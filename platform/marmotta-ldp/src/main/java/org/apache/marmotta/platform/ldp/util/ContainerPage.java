@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldp.util;
+
+import org.openrdf.model.Statement;
+
+import java.util.List;
+
+/**
+ * A page of the containment triples of a LDP container (LDP Paging). Pages are identified by an opaque cursor that
+ * marks where the page starts in the sequence of containment triples; the first page has the cursor 0. Following
+ * a cursor does not require counting or skipping the triples of the preceding pages if the backend supports it.
+ *
+ * @see <a href="http://www.w3.org/TR/ldp-paging/">Linked Data Platform Paging 1.0</a>
+ */
+public class ContainerPage {
+
+    public static final long FIRST = 0;
+
+    public static final long NONE = -1;
+
+    private final long cursor;
+
+    private final List<Statement> members;
+
+    private final long next;
+
+    private final long previous;
+
+    public ContainerPage(long cursor, List<Statement> members, long next, long previous) {
+        this.cursor = cursor;
+        this.members = members;
+        this.next = next;
+        this.previous = previous;
+    }
+
+    /**
+     * The cursor identifying this page
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * The containment triples of this page
+     */
+    public List<Statement> getMembers() {
+        return members;
+    }
+
+    /**
+     * The cursor of the next page, or {@link #NONE} if this is the last page
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * The cursor of the previous page, or {@link #NONE} if this is the first page
+     */
+    public long getPrevious() {
+        return previous;
+    }
+
+    public boolean isFirst() {
+        return cursor == FIRST;
+    }
+
+    public boolean isLast() {
+        return next == NONE;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldp.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.commons.vocabulary.LDP;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The client preferences for the representation of a LDP resource as sent in the Prefer header
+ * (e.g. <code>Prefer: return=representation; include="http://www.w3.org/ns/ldp#PreferMinimalContainer"</code>).
+ *
+ * @see <a href="http://www.w3.org/TR/ldp/#prefer-parameters">LDP 7.2 Preferences on the Prefer Request Header</a>
+ * @see <a href="http://www.w3.org/TR/ldp-paging/#ldpr-cli-paging">LDP Paging 4.1 Client Preferences</a>
+ */
+public class LdpPreference {
+
+    public static final String HEADER = "Prefer";
+
+    public static final String APPLIED_HEADER = "Preference-Applied";
+
+    private static final Pattern PARAMETER = Pattern.compile("([\\w-]+)\\s*(?:=\\s*(\"[^\"]*\"|[^;,\\s]*))?");
+
+    private boolean representation = false;
+
+    private final Set<String> include = new HashSet<>();
+
+    private final Set<String> omit = new HashSet<>();
+
+    private int maxMemberCount = -1;
+
+    private LdpPreference() {
+    }
+
+    /**
+     * Parse the values of the Prefer headers of a request.
+     *
+     * @param headers the header values, may be null
+     * @return the preferences of the client; empty if there were no (supported) preferences
+     */
+    public static LdpPreference parse(List<String> headers) {
+        final LdpPreference preference = new LdpPreference();
+        if (headers == null) {
+            return preference;
+        }
+
+        for (String header : headers) {
+            final Matcher m = PARAMETER.matcher(header);
+            while (m.find()) {
+                final String name = m.group(1).toLowerCase();
+                final String value = StringUtils.strip(StringUtils.defaultString(m.group(2)), "\"");
+                switch (name) {
+                    case "return":
+                        preference.representation = "representation".equalsIgnoreCase(value);
+                        break;
+                    case "include":
+                        Collections.addAll(preference.include, StringUtils.split(value));
+                        break;
+                    case "omit":
+                        Collections.addAll(preference.omit, StringUtils.split(value));
+                        break;
+                    case "max-member-count":
+                        try {
+                            preference.maxMemberCount = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            // ignore invalid hints
+                        }
+                        break;
+                    default:
+                        // other preferences are not supported
+                }
+            }
+        }
+        return preference;
+    }
+
+    /**
+     * Whether the client asked for a (reduced) representation with include/omit hints.
+     */
+    public boolean isRepresentation() {
+        return representation && (!include.isEmpty() || !omit.isEmpty());
+    }
+
+    /**
+     * Whether the containment triples (ldp:contains) should be part of the representation.
+     */
+    public boolean isContainmentIncluded() {
+        if (!representation) {
+            return true;
+        } else if (omit.contains(LDP.PreferContainment.stringValue())) {
+            return false;
+        } else if (include.contains(LDP.PreferContainment.stringValue())) {
+            return true;
+        } else {
+            return !isMinimal();
+        }
+    }
+
+    /**
+     * Whether the client asked for the minimal container (the triples present in an empty container).
+     */
+    public boolean isMinimal() {
+        return representation && (include.contains(LDP.PreferMinimalContainer.stringValue()) || include.contains(LDP.PreferEmptyContainer.stringValue()));
+    }
+
+    /**
+     * The maximum number of members per page requested by the client, or -1 if the client did not ask for paging.
+     */
+    public int getMaxMemberCount() {
+        return maxMemberCount;
+    }
+
+    /**
+     * The value of the Preference-Applied header confirming the applied representation preferences, or null if
+     * no preference was applied.
+     */
+    public String getAppliedHeader() {
+        return isRepresentation() ? "return=representation" : null;
+    }
+}
@@ -28,7 +28,9 @@ import org.apache.marmotta.platform.ldp.exceptions.InvalidModificationException;
 import org.apache.marmotta.platform.ldp.patch.InvalidPatchDocumentException;
 import org.apache.marmotta.platform.ldp.patch.parser.ParseException;
 import org.apache.marmotta.platform.ldp.patch.parser.RdfPatchParser;
+import org.apache.marmotta.platform.ldp.util.ContainerPage;
 import org.apache.marmotta.platform.ldp.util.EntityTagUtils;
+import org.apache.marmotta.platform.ldp.util.LdpPreference;
 import org.apache.marmotta.platform.ldp.util.LdpUtils;
 import org.jboss.resteasy.spi.NoLogWebApplicationException;
 import org.openrdf.model.Statement;
@@ -65,6 +67,7 @@ public class LdpWebService {
 
     public static final String PATH = "/ldp"; //FIXME: imho this should be root '/' (jakob)
     public static final String LDP_SERVER_CONSTRAINTS = "https://wiki.apache.org/marmotta/LDPImplementationReport/2014-03-11";
+    public static final String PAGE_PARAM = "page";
 
     private Logger log = org.slf4j.LoggerFactory.getLogger(this.getClass());
 
@@ -84,20 +87,22 @@ public class LdpWebService {
     }
 
     @GET
-    public Response GET(@Context final UriInfo uriInfo, @Context Request r, @HeaderParam(HttpHeaders.ACCEPT) MediaType type) throws RepositoryException {
+    public Response GET(@Context final UriInfo uriInfo, @Context Request r, @HeaderParam(HttpHeaders.ACCEPT) MediaType type,
+                        @HeaderParam(LdpPreference.HEADER) List<String> prefer, @QueryParam(PAGE_PARAM) String page) throws RepositoryException {
         final String resource = getResourceUri(uriInfo);
         log.debug("GET to LDPR <{}>", resource);
-        return buildGetResponse(resource, r, type).build();
+        return buildGetResponse(resource, r, type, LdpPreference.parse(prefer), page).build();
     }
 
     @HEAD
-    public Response HEAD(@Context final UriInfo uriInfo, @Context Request r, @HeaderParam(HttpHeaders.ACCEPT) MediaType type)  throws RepositoryException {
+    public Response HEAD(@Context final UriInfo uriInfo, @Context Request r, @HeaderParam(HttpHeaders.ACCEPT) MediaType type,
+                         @HeaderParam(LdpPreference.HEADER) List<String> prefer, @QueryParam(PAGE_PARAM) String page)  throws RepositoryException {
         final String resource = getResourceUri(uriInfo);
         log.debug("HEAD to LDPR <{}>", resource);
-        return buildGetResponse(resource, r, type).entity(null).build();
+        return buildGetResponse(resource, r, type, LdpPreference.parse(prefer), page).entity(null).build();
     }
 
-    private Response.ResponseBuilder buildGetResponse(final String resource, Request r, MediaType type) throws RepositoryException {
+    private Response.ResponseBuilder buildGetResponse(final String resource, Request r, MediaType type, final LdpPreference preference, String pageCursor) throws RepositoryException {
         final RepositoryConnection conn = sesameService.getConnection();
         try {
             conn.begin();
@@ -152,6 +157,35 @@ public class LdpWebService {
                 conn.commit();
                 return resp;
             } else {
+                // LDP Paging: containers are delivered in pages on request of the client, or if they are too large
+                ContainerPage containerPage = null;
+                int pageSize = 0;
+                final boolean container = ldpService.getInteractionModel(conn, resource) == LdpService.InteractionModel.LDPC;
+                if (container) {
+                    pageSize = preference.getMaxMemberCount() > 0 ? preference.getMaxMemberCount() : configurationService.getIntConfiguration("ldp.paging.page_size", 500);
+                    final int threshold = configurationService.getIntConfiguration("ldp.paging.threshold", 0);
+                    if (pageCursor != null) {
+                        final long cursor;
+                        try {
+                            cursor = Long.parseLong(pageCursor);
+                        } catch (NumberFormatException e) {
+                            final Response.ResponseBuilder resp = createResponse(conn, Response.Status.BAD_REQUEST, resource).entity("invalid page: " + pageCursor + "\n");
+                            conn.rollback();
+                            return resp;
+                        }
+                        containerPage = ldpService.getContainerPage(conn, resource, cursor, pageSize);
+                    } else if (preference.getMaxMemberCount() > 0) {
+                        containerPage = ldpService.getContainerPage(conn, resource, ContainerPage.FIRST, pageSize);
+                    } else if (threshold > 0 && !ldpService.getContainerPage(conn, resource, ContainerPage.FIRST, threshold).isLast()) {
+                        // server-initiated paging (LDP Paging, Sec. 6.2.7)
+                        log.debug("<{}> has more than {} members, redirecting to the first page", resource, threshold);
+                        final Response.ResponseBuilder resp = createResponse(conn, Response.Status.SEE_OTHER, resource).location(getPageUri(resource, ContainerPage.FIRST));
+                        conn.commit();
+                        return resp;
+                    }
+                }
+                final ContainerPage page = containerPage;
+
                 // Deliver all triples from the <subject> context.
                 log.debug("GET to <{}> with RDF format {}, providing LPD-RR data", resource, format.getDefaultMIMEType());
                 final StreamingOutput entity = new StreamingOutput() {
@@ -161,7 +195,11 @@ public class LdpWebService {
                             final RepositoryConnection outputConn = sesameService.getConnection();
                             try {
                                 outputConn.begin();
-                                ldpService.exportResource(outputConn, resource, output, format);
+                                if (page != null) {
+                                    ldpService.exportContainerPage(outputConn, resource, page, output, format, preference);
+                                } else {
+                                    ldpService.exportResource(outputConn, resource, output, format, preference);
+                                }
                                 outputConn.commit();
                             } catch (RDFHandlerException e) {
                                 outputConn.rollback();
@@ -178,6 +216,29 @@ public class LdpWebService {
                     }
                 };
                 final Response.ResponseBuilder resp = createResponse(conn, Response.Status.OK, resource).entity(entity).type(format.getDefaultMIMEType());
+                if (page != null) {
+                    // LDP Paging, Sec. 6.2
+                    resp.link(LDP.Page.stringValue(), "type");
+                    resp.link(getPageUri(resource, ContainerPage.FIRST), "first");
+                    if (!page.isLast()) {
+                        resp.link(getPageUri(resource, page.getNext()), "next");
+                    }
+                    if (!page.isFirst()) {
+                        resp.link(getPageUri(resource, page.getPrevious()), "prev");
+                    }
+                }
+                if (container) {
+                    // the representation of a container depends on the Prefer header, so every page and the
+                    // representation without containment triples get their own entity tag
+                    resp.header(HttpHeaders.VARY, LdpPreference.HEADER);
+                    final EntityTag tag = ldpService.generateETag(conn, resource);
+                    if (tag != null && (page != null || !preference.isContainmentIncluded())) {
+                        resp.tag(getVariantETag(tag, page, pageSize, preference));
+                    }
+                }
+                if (preference.getAppliedHeader() != null) {
+                    resp.header(LdpPreference.APPLIED_HEADER, preference.getAppliedHeader());
+                }
                 conn.commit();
                 return resp;
             }
@@ -575,6 +636,38 @@ public class LdpWebService {
         return createResponse(connection, status.getStatusCode(), resource);
     }
 
+    /**
+     * Build the URI of a page of a paged container
+     *
+     * @param resource the uri/url of the container
+     * @param cursor the cursor of the page
+     * @return the URI of the page
+     */
+    protected java.net.URI getPageUri(String resource, long cursor) {
+        return UriBuilder.fromUri(resource).queryParam(PAGE_PARAM, cursor).build();
+    }
+
+    /**
+     * Build the entity tag of a variant of a container representation (a page, or the representation without
+     * containment triples) from the entity tag of the container.
+     *
+     * @param tag the entity tag of the container
+     * @param page the delivered page, or null if the container is not paged
+     * @param pageSize the maximum number of members of the page
+     * @param preference the client preferences applied to the representation
+     * @return the entity tag of the variant
+     */
+    protected EntityTag getVariantETag(EntityTag tag, ContainerPage page, int pageSize, LdpPreference preference) {
+        final StringBuilder value = new StringBuilder(tag.getValue());
+        if (page != null) {
+            value.append("-page-").append(page.getCursor()).append('-').append(pageSize);
+        }
+        if (!preference.isContainmentIncluded()) {
+            value.append("-omit-containment");
+        }
+        return new EntityTag(value.toString(), tag.isWeak());
+    }
+
     protected String getResourceUri(UriInfo uriInfo) {
         final UriBuilder uriBuilder;
         if (configurationService.getBooleanConfiguration("ldp.force_baseuri", false)) {
@@ -48,6 +48,10 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 
 /**
  * Testing LDP web services
@@ -314,6 +318,100 @@ public class LdpWebServiceTest {
             .post(container);
     }
 
+    @Test
+    public void testPaging() throws Exception {
+        final String container = baseUrl+LdpWebService.PATH + "/paging";
+        final String mimeType = RDFFormat.TURTLE.getDefaultMIMEType();
+
+        for (int i = 0; i < 3; i++) {
+            RestAssured
+                .given()
+                    .body(testResourceTTL.getBytes())
+                    .contentType(mimeType)
+                .expect()
+                    .statusCode(201)
+                .post(container);
+        }
+
+        // the minimal container does not list the members
+        RestAssured
+            .given()
+                .header("Accept", mimeType)
+                .header("Prefer", "return=representation; include=\"" + LDP.PreferMinimalContainer.stringValue() + "\"")
+            .expect()
+                .statusCode(200)
+                .header("Preference-Applied", "return=representation")
+                .body(SesameMatchers.rdfStringMatches(mimeType, container,
+                        SesameMatchers.hasStatement(new URIImpl(container), RDF.TYPE, LDP.BasicContainer),
+                        CoreMatchers.not(SesameMatchers.hasStatement(new URIImpl(container), LDP.contains, null))
+                ))
+            .get(container);
+
+        // client-initiated paging
+        final com.jayway.restassured.response.Response first = RestAssured
+            .given()
+                .header("Accept", mimeType)
+                .header("Prefer", "return=representation; max-member-count=\"2\"")
+            .expect()
+                .statusCode(200)
+                .body(SesameMatchers.rdfStringMatches(mimeType, container,
+                        SesameMatchers.hasStatement(new URIImpl(container), RDF.TYPE, LDP.BasicContainer),
+                        SesameMatchers.hasStatement(new URIImpl(container), LDP.contains, null)
+                ))
+            .get(container);
+        final String next = getLink(first, "next");
+        assertNotNull("first page should link to the next page", next);
+        assertNull("first page should not link to a previous page", getLink(first, "prev"));
+
+        final com.jayway.restassured.response.Response second = RestAssured
+            .given()
+                .header("Accept", mimeType)
+                .header("Prefer", "return=representation; max-member-count=\"2\"")
+            .expect()
+                .statusCode(200)
+                .body(SesameMatchers.rdfStringMatches(mimeType, container,
+                        SesameMatchers.hasStatement(new URIImpl(container), LDP.contains, null),
+                        CoreMatchers.not(SesameMatchers.hasStatement(new URIImpl(container), RDF.TYPE, LDP.BasicContainer))
+                ))
+            .get(next);
+        assertNull("last page should not link to a next page", getLink(second, "next"));
+        assertNotNull("second page should link to the previous page", getLink(second, "prev"));
+
+        // the pages and the complete container are different representations
+        final String fullTag = RestAssured
+            .given()
+                .header("Accept", mimeType)
+            .expect()
+                .statusCode(200)
+                .header("Vary", CoreMatchers.containsString("Prefer"))
+            .get(container).getHeader("ETag");
+        assertThat(first.getHeader("Vary"), CoreMatchers.containsString("Prefer"));
+        assertNotNull("pages should have an entity tag", first.getHeader("ETag"));
+        assertNotEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+        assertNotEquals(fullTag, first.getHeader("ETag"));
+
+        // invalid page cursor
+        RestAssured
+            .given()
+                .header("Accept", mimeType)
+                .queryParam(LdpWebService.PAGE_PARAM, "foo")
+            .expect()
+                .statusCode(400)
+            .get(container);
+    }
+
+    private static String getLink(com.jayway.restassured.response.Response response, String rel) {
+        for (String header : response.getHeaders().getValues("Link")) {
+            for (String value : header.split(",")) {
+                final Link link = Link.valueOf(value.trim());
+                if (rel.equals(link.getRel())) {
+                    return link.getUri().toString();
+                }
+            }
+        }
+        return null;
+    }
+
     @Test
     public void testPUT() throws Exception {
         final String container = baseUrl+LdpWebService.PATH + "/test";
@@ -416,6 +514,29 @@ public class LdpWebServiceTest {
                         CoreMatchers.not(SesameMatchers.hasStatement(uri, LDP.contains, uri))
                 ))
             .get(resource);
+
+        // Put the original representation again, which removes the label
+        RestAssured
+            .given()
+                .header("If-Match", etag.toString())
+                .contentType(RDFFormat.TURTLE.getDefaultMIMEType())
+                .body(testResourceTTL.getBytes())
+            .expect()
+                .statusCode(200)
+            .put(resource);
+
+        // Check the label is gone and the remaining data is unchanged
+        RestAssured
+            .given()
+                .header("Accept", RDFFormat.RDFXML.getDefaultMIMEType())
+            .expect()
+                .contentType(RDFFormat.RDFXML.getDefaultMIMEType())
+                .body(SesameMatchers.rdfStringMatches(RDFFormat.RDFXML, resource,
+                        SesameMatchers.hasStatement(uri, RDF.TYPE, new URIImpl("http://example.com/Example")),
+                        CoreMatchers.not(SesameMatchers.hasStatement(uri, RDFS.LABEL, null)),
+                        CoreMatchers.not(SesameMatchers.hasStatement(uri, LDP.contains, uri))
+                ))
+            .get(resource);
     }
 
     @AfterClass
@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldpath.api;
+
+import org.openrdf.model.Value;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Receives the results of an LDPath program evaluated over all resources in the triple store (see
+ * {@link LDPathService#programQuery(String, LDPathResultHandler)}) as soon as they are available. Results are
+ * delivered in no particular order; calls to the handler are serialized, so implementations need not be
+ * thread-safe.
+ */
+public interface LDPathResultHandler {
+
+    /**
+     * Handle the result of the program for a resource matching the program filter.
+     *
+     * @param context the resource
+     * @param result  a map mapping from field names to the resulting collection of nodes for the field
+     */
+    void handleResult(Value context, Map<String, Collection<?>> result);
+}
@@ -85,6 +85,19 @@ public interface LDPathService {
      */
     public Map<Value,Map<String,Collection<?>>> programQuery(String program) throws LDPathParseException;
 
+    /**
+     * Run a path program over all resources in the triplestore matching the program's filter and pass the result for
+     * each resource to the handler as soon as it is available. Simple program filters (property tests, path equality
+     * tests like "rdf:type is skos:Concept", and their conjunctions and disjunctions) are used to select the candidate
+     * resources directly in the triple store; all other filters require iterating over all resources. Candidates are
+     * evaluated in parallel (configuration option ldpath.program_query.threads).
+     *
+     * @param program the path program to evaluate
+     * @param handler the handler receiving the results
+     * @throws LDPathParseException when the program could not be parsed or evaluated
+     */
+    public void programQuery(String program, LDPathResultHandler handler) throws LDPathParseException;
+
     /**
      * Register a result transformer for a type URI. Use this method in your own projects
      * to register custom result transformers.
@@ -20,19 +20,36 @@ package org.apache.marmotta.platform.ldpath.services;
 import org.apache.marmotta.commons.sesame.repository.ResourceUtils;
 import org.apache.marmotta.ldpath.model.fields.FieldMapping;
 import org.apache.marmotta.ldpath.model.programs.Program;
+import org.apache.marmotta.ldpath.model.selectors.PropertySelector;
+import org.apache.marmotta.ldpath.model.selectors.ReversePropertySelector;
+import org.apache.marmotta.ldpath.model.tests.AndTest;
+import org.apache.marmotta.ldpath.model.tests.OrTest;
+import org.apache.marmotta.ldpath.model.tests.PathEqualityTest;
+import org.apache.marmotta.ldpath.model.tests.PathTest;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.ldpath.api.LDPathResultHandler;
 import org.apache.marmotta.platform.ldpath.api.LDPathService;
 import org.apache.marmotta.platform.ldpath.api.AutoRegisteredLDPathFunction;
 import org.apache.marmotta.platform.core.api.triplestore.SesameService;
 
 import org.apache.marmotta.ldpath.LDPath;
 import org.apache.marmotta.ldpath.api.functions.SelectorFunction;
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.api.tests.NodeTest;
 import org.apache.marmotta.ldpath.api.transformers.NodeTransformer;
 import org.apache.marmotta.ldpath.backend.sesame.SesameConnectionBackend;
 import org.apache.marmotta.ldpath.exception.LDPathParseException;
 import org.apache.marmotta.ldpath.model.Constants;
 import org.apache.marmotta.ldpath.parser.Configuration;
 import org.apache.marmotta.ldpath.parser.DefaultConfiguration;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
 import org.openrdf.model.Value;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.slf4j.Logger;
@@ -45,6 +62,9 @@ import javax.inject.Inject;
 
 import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Add file description here!
@@ -60,6 +80,9 @@ public class LDPathServiceImpl implements LDPathService {
     @Inject
     private SesameService               sesameService;
 
+    @Inject
+    private ConfigurationService        configurationService;
+
     private Configuration<Value>        config;
 
     @Inject @Any
@@ -202,7 +225,43 @@ public class LDPathServiceImpl implements LDPathService {
      */
     @Override
     public Map<Value, Map<String, Collection<?>>> programQuery(String program) throws LDPathParseException {
-        Map<Value,  Map<String, Collection<?>>> result = new HashMap<>();
+        final Map<Value,  Map<String, Collection<?>>> result = new HashMap<>();
+        programQuery(program, new LDPathResultHandler() {
+            @Override
+            public void handleResult(Value context, Map<String, Collection<?>> binding) {
+                result.put(context, binding);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run a path program over all resources in the triplestore matching the program's filter and pass the result for
+     * each resource to the handler. The candidate resources are selected in the triple store using the program filter
+     * where possible and evaluated in batches by a bounded pool of worker threads, each using its own repository
+     * connection.
+     *
+     * @param program the path program to evaluate
+     * @param handler the handler receiving the results
+     * @throws LDPathParseException when the program could not be parsed or evaluated
+     */
+    @Override
+    public void programQuery(String program, final LDPathResultHandler handler) throws LDPathParseException {
+        final int threads   = Math.max(1, configurationService.getIntConfiguration("ldpath.program_query.threads", 4));
+        final int batchSize = Math.max(1, configurationService.getIntConfiguration("ldpath.program_query.batch_size", 100));
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "LDPath Program Query Worker " + count.incrementAndGet());
+            }
+        });
+        // limit the number of batches waiting for evaluation so the candidate selection does not run ahead too far
+        final Semaphore pending = new Semaphore(threads * 2);
+        final AtomicReference<Exception> error = new AtomicReference<>();
+
         try {
             RepositoryConnection conn = sesameService.getConnection();
             try {
@@ -210,27 +269,217 @@ public class LDPathServiceImpl implements LDPathService {
                 SesameConnectionBackend backend = SesameConnectionBackend.withConnection(conn);
                 LDPath<Value> ldpath = new LDPath<Value>(backend, config);
 
-                Program<Value> p = ldpath.parseProgram(new StringReader(program));
-
-                // TODO: not very efficient, LDPath should support more efficient listing of resources based on filter
-                for(Value context : ResourceUtils.listResources(conn)) {
-                    if(p.getFilter().apply(backend, context, Collections.singleton(context))) {
+                final Program<Value> p = ldpath.parseProgram(new StringReader(program));
 
-                        Map<String,Collection<?>> binding = new HashMap<String, Collection<?>>();
-
-                        for(FieldMapping<?,Value> mapping : p.getFields()) {
-                            binding.put(mapping.getFieldName(),mapping.getValues(backend,context));
+                List<CandidatePattern> patterns = p.getFilter() != null ? compileFilter(p.getFilter()) : null;
+                CandidateBatcher batcher = new CandidateBatcher(workers, pending, error, p, batchSize, handler);
+                if(patterns != null) {
+                    log.debug("LDPath program query: selecting candidates matching {}", patterns);
+                    TupleQueryResult candidates = prepareCandidateQuery(conn, patterns).evaluate();
+                    try {
+                        while(candidates.hasNext() && error.get() == null) {
+                            batcher.add(candidates.next().getValue("candidate"));
+                        }
+                    } finally {
+                        candidates.close();
+                    }
+                } else {
+                    log.debug("LDPath program query: program filter cannot be used for selecting candidates, checking all resources");
+                    for(Value candidate : ResourceUtils.listResources(conn)) {
+                        if(error.get() != null) {
+                            break;
                         }
-                        result.put(context,binding);
+                        batcher.add(candidate);
                     }
                 }
+                batcher.flush();
             } finally {
                 conn.commit();
                 conn.close();
             }
-        } catch (RepositoryException e) {
+
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (RepositoryException | MalformedQueryException | QueryEvaluationException e) {
             throw new LDPathParseException("LDPath evaluation failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LDPathParseException("LDPath evaluation interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if(error.get() instanceof LDPathParseException) {
+            throw (LDPathParseException) error.get();
+        } else if(error.get() != null) {
+            throw new LDPathParseException("LDPath evaluation failed", error.get());
+        }
+    }
+
+    /**
+     * Collects candidates into batches of the configured size and hands each full batch to the worker pool.
+     */
+    private class CandidateBatcher {
+        private final ExecutorService workers;
+        private final Semaphore pending;
+        private final AtomicReference<Exception> error;
+        private final Program<Value> program;
+        private final int batchSize;
+        private final LDPathResultHandler handler;
+
+        private List<Value> batch;
+
+        private CandidateBatcher(ExecutorService workers, Semaphore pending, AtomicReference<Exception> error,
+                                 Program<Value> program, int batchSize, LDPathResultHandler handler) {
+            this.workers = workers;
+            this.pending = pending;
+            this.error = error;
+            this.program = program;
+            this.batchSize = batchSize;
+            this.handler = handler;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        private void add(Value candidate) throws InterruptedException {
+            batch.add(candidate);
+            if(batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            if(batch.isEmpty() || error.get() != null) {
+                return;
+            }
+            final List<Value> submitted = batch;
+            batch = new ArrayList<>(batchSize);
+
+            pending.acquire();
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        evaluateBatch(program, submitted, handler);
+                    } catch (Exception e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        pending.release();
+                    }
+                }
+            });
+        }
+    }
+
+    private void evaluateBatch(Program<Value> program, List<Value> batch, LDPathResultHandler handler) throws RepositoryException {
+        RepositoryConnection conn = sesameService.getConnection();
+        try {
+            conn.begin();
+            SesameConnectionBackend backend = SesameConnectionBackend.withConnection(conn);
+
+            for(Value context : batch) {
+                if(program.getFilter() == null || program.getFilter().apply(backend, context, Collections.singleton(context))) {
+
+                    Map<String,Collection<?>> binding = new HashMap<String, Collection<?>>();
+
+                    for(FieldMapping<?,Value> mapping : program.getFields()) {
+                        binding.put(mapping.getFieldName(),mapping.getValues(backend,context));
+                    }
+
+                    synchronized (handler) {
+                        handler.handleResult(context, binding);
+                    }
+                }
+            }
+        } finally {
+            conn.commit();
+            conn.close();
+        }
+    }
+
+    /**
+     * Translate a program filter into triple patterns selecting a superset of the resources accepted by the filter;
+     * returns null if the filter cannot be translated, in which case all resources need to be checked. The filter
+     * is still applied to each candidate, so the patterns need not be exact.
+     */
+    @SuppressWarnings("unchecked")
+    private List<CandidatePattern> compileFilter(NodeTest<Value> filter) {
+        if(filter instanceof PathEqualityTest) {
+            NodeSelector<Value> path = ((PathEqualityTest<Value>) filter).getPath();
+            Value node = ((PathEqualityTest<Value>) filter).getNode();
+            if(path instanceof PropertySelector && ((PropertySelector<Value>) path).getProperty() instanceof URI) {
+                return Collections.singletonList(new CandidatePattern((URI) ((PropertySelector<Value>) path).getProperty(), node, false));
+            } else if(path instanceof ReversePropertySelector && ((ReversePropertySelector<Value>) path).getProperty() instanceof URI && node instanceof Resource) {
+                return Collections.singletonList(new CandidatePattern((URI) ((ReversePropertySelector<Value>) path).getProperty(), node, true));
+            }
+        } else if(filter instanceof PathTest) {
+            NodeSelector<Value> path = ((PathTest<Value>) filter).getPath();
+            if(path instanceof PropertySelector && ((PropertySelector<Value>) path).getProperty() instanceof URI) {
+                return Collections.singletonList(new CandidatePattern((URI) ((PropertySelector<Value>) path).getProperty(), null, false));
+            } else if(path instanceof ReversePropertySelector && ((ReversePropertySelector<Value>) path).getProperty() instanceof URI) {
+                return Collections.singletonList(new CandidatePattern((URI) ((ReversePropertySelector<Value>) path).getProperty(), null, true));
+            }
+        } else if(filter instanceof AndTest) {
+            // any side of a conjunction selects a superset of the result
+            List<CandidatePattern> left = compileFilter(((AndTest<Value>) filter).getLeft());
+            return left != null ? left : compileFilter(((AndTest<Value>) filter).getRight());
+        } else if(filter instanceof OrTest) {
+            List<CandidatePattern> left  = compileFilter(((OrTest<Value>) filter).getLeft());
+            List<CandidatePattern> right = compileFilter(((OrTest<Value>) filter).getRight());
+            if(left != null && right != null) {
+                List<CandidatePattern> result = new ArrayList<>(left);
+                result.addAll(right);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build a query listing the resources matching any of the candidate patterns. The query uses SELECT DISTINCT
+     * so duplicates are removed by the triple store instead of being tracked while iterating over the result.
+     */
+    private TupleQuery prepareCandidateQuery(RepositoryConnection conn, List<CandidatePattern> patterns) throws RepositoryException, MalformedQueryException {
+        StringBuilder query = new StringBuilder("SELECT DISTINCT ?candidate WHERE { ");
+        for(int i = 0; i < patterns.size(); i++) {
+            if(i > 0) {
+                query.append(" UNION ");
+            }
+            if(patterns.get(i).reverse) {
+                query.append(String.format("{ ?v%d ?p%d ?candidate FILTER(!isLiteral(?candidate)) }", i, i));
+            } else {
+                query.append(String.format("{ ?candidate ?p%d ?v%d }", i, i));
+            }
+        }
+        query.append(" }");
+
+        TupleQuery result = conn.prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+        for(int i = 0; i < patterns.size(); i++) {
+            result.setBinding("p" + i, patterns.get(i).property);
+            if(patterns.get(i).value != null) {
+                result.setBinding("v" + i, patterns.get(i).value);
+            }
         }
         return result;
     }
+
+    /**
+     * A triple pattern selecting candidate resources for a program filter: the subjects (or, if reverse, the objects)
+     * of all triples with the given property and (optional) value.
+     */
+    private static class CandidatePattern {
+        private final URI property;
+        private final Value value;
+        private final boolean reverse;
+
+        private CandidatePattern(URI property, Value value, boolean reverse) {
+            this.property = property;
+            this.value = value;
+            this.reverse = reverse;
+        }
+
+        @Override
+        public String toString() {
+            return reverse ? String.format("(%s %s ?)", value != null ? value : "?", property) : String.format("(? %s %s)", property, value != null ? value : "?");
+        }
+    }
 }
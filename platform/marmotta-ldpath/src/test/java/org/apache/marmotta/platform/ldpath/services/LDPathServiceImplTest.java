@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.ldpath.services;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.importer.ImportService;
+import org.apache.marmotta.platform.core.api.triplestore.ContextService;
+import org.apache.marmotta.platform.core.api.user.UserService;
+import org.apache.marmotta.platform.core.test.base.EmbeddedMarmotta;
+import org.apache.marmotta.platform.ldpath.api.LDPathService;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openrdf.model.Value;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test the evaluation of LDPath programs over all resources, in particular the selection of candidates from the
+ * program filter and the parallel evaluation in batches.
+ */
+public class LDPathServiceImplTest {
+
+    private static final int PERSONS = 12;
+    private static final int ORGANIZATIONS = 4;
+
+    private static EmbeddedMarmotta marmotta;
+    private static ConfigurationService configurationService;
+    private static LDPathService ldpathService;
+
+    private static String ns;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        marmotta = new EmbeddedMarmotta();
+        configurationService = marmotta.getService(ConfigurationService.class);
+        ldpathService = marmotta.getService(LDPathService.class);
+
+        // small batches and several workers, so the candidates are spread over many batches
+        configurationService.setIntConfiguration("ldpath.program_query.threads", 3);
+        configurationService.setIntConfiguration("ldpath.program_query.batch_size", 2);
+
+        // persons with even numbers have a name, person i is member of organization i % (ORGANIZATIONS - 1), so the last
+        // organization has no members
+        ns = "http://localhost/ldpath/" + RandomStringUtils.randomAlphanumeric(8) + "/";
+        StringBuilder data = new StringBuilder();
+        data.append("@prefix ex: <").append(ns).append("> .\n");
+        for(int i = 0; i < PERSONS; i++) {
+            data.append("ex:person").append(i).append(" a ex:Person ; ex:member ex:organization").append(i % (ORGANIZATIONS - 1)).append(" .\n");
+            if(i % 2 == 0) {
+                data.append("ex:person").append(i).append(" ex:name \"Person ").append(i).append("\" .\n");
+            }
+        }
+        for(int i = 0; i < ORGANIZATIONS; i++) {
+            data.append("ex:organization").append(i).append(" a ex:Organization .\n");
+        }
+
+        ImportService importService = marmotta.getService(ImportService.class);
+        UserService userService = marmotta.getService(UserService.class);
+        ContextService contextService = marmotta.getService(ContextService.class);
+        importService.importData(new StringReader(data.toString()), "text/turtle", userService.getAdminUser(), contextService.getDefaultContext());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        configurationService.setIntConfiguration("ldpath.program_query.threads", 4);
+        configurationService.setIntConfiguration("ldpath.program_query.batch_size", 100);
+        marmotta.shutdown();
+    }
+
+    @Test
+    public void testPathEqualityFilter() throws Exception {
+        Map<Value, Map<String, Collection<?>>> result = programQuery("@filter rdf:type is ex:Person ; name = ex:name :: xsd:string ;");
+
+        Assert.assertEquals(resources("person", 0, PERSONS, 1), uris(result.keySet()));
+        for(Map.Entry<Value, Map<String, Collection<?>>> entry : result.entrySet()) {
+            int i = Integer.parseInt(entry.getKey().stringValue().substring((ns + "person").length()));
+            Collection<?> names = entry.getValue().get("name");
+            if(i % 2 == 0) {
+                Assert.assertEquals(1, names.size());
+                Assert.assertEquals("Person " + i, names.iterator().next());
+            } else {
+                Assert.assertTrue(names.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testIsAFilter() throws Exception {
+        Assert.assertEquals(resources("organization", 0, ORGANIZATIONS, 1), uris(programQuery("@filter is-a ex:Organization ; id = . :: xsd:string ;").keySet()));
+    }
+
+    @Test
+    public void testConjunction() throws Exception {
+        Assert.assertEquals(resources("person", 0, PERSONS, 2), uris(programQuery("@filter ex:name & is-a ex:Person ; id = . :: xsd:string ;").keySet()));
+    }
+
+    @Test
+    public void testDisjunction() throws Exception {
+        Set<String> expected = resources("person", 0, PERSONS, 1);
+        expected.addAll(resources("organization", 0, ORGANIZATIONS, 1));
+        Assert.assertEquals(expected, uris(programQuery("@filter is-a ex:Person | is-a ex:Organization ; id = . :: xsd:string ;").keySet()));
+    }
+
+    @Test
+    public void testReversePath() throws Exception {
+        Assert.assertEquals(resources("organization", 0, ORGANIZATIONS - 1, 1), uris(programQuery("@filter ^ex:member ; id = . :: xsd:string ;").keySet()));
+    }
+
+    @Test
+    public void testFallbackFilter() throws Exception {
+        // a filter on a path of length two cannot be used to select candidates, all resources are checked
+        Assert.assertEquals(resources("person", 0, PERSONS, 1), uris(programQuery("@filter ex:member / rdf:type is ex:Organization ; id = . :: xsd:string ;").keySet()));
+    }
+
+
+    private Map<Value, Map<String, Collection<?>>> programQuery(String program) throws Exception {
+        return ldpathService.programQuery("@prefix ex : <" + ns + "> ;\n" + program);
+    }
+
+    private static Set<String> resources(String name, int from, int to, int step) {
+        Set<String> result = new HashSet<>();
+        for(int i = from; i < to; i += step) {
+            result.add(ns + name + i);
+        }
+        return result;
+    }
+
+    private static Set<String> uris(Set<Value> values) {
+        Set<String> result = new HashSet<>();
+        for(Value value : values) {
+            result.add(value.stringValue());
+        }
+        return result;
+    }
+}
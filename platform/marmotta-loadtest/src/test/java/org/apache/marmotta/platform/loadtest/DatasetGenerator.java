@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URISyntaxException;
+import java.util.Random;
+
+/**
+ * Generates a synthetic, reproducible dataset of FOAF persons and uploads it through the import web service.
+ * Each person has a type, a name, an age, a short description, a location and links to a few other persons, so
+ * the dataset supports selective SPARQL queries, joins and multi-step LDPath expressions. The same seed always
+ * produces the same dataset, so runs against different releases are comparable.
+ */
+public class DatasetGenerator {
+
+    private static Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    public static final String FOAF    = "http://xmlns.com/foaf/0.1/";
+    public static final String DCTERMS = "http://purl.org/dc/terms/";
+
+    private static final String[] WORDS = {
+            "linked", "data", "platform", "semantic", "graph", "query", "resource", "container",
+            "triple", "store", "cache", "index", "version", "reasoner", "path", "program"
+    };
+
+    private static final int CHUNK_SIZE = 250;
+
+    private static final int CITIES = 20;
+
+    private final String baseUrl;
+
+    private final int resources;
+
+    private final long seed;
+
+    public DatasetGenerator(String baseUrl, int resources, long seed) {
+        this.baseUrl = baseUrl;
+        this.resources = resources;
+        this.seed = seed;
+    }
+
+    public int getResources() {
+        return resources;
+    }
+
+    public String getResourceUri(int index) {
+        return baseUrl + "resource/loadtest-person-" + index;
+    }
+
+    public String getCityUri(int index) {
+        return baseUrl + "resource/loadtest-city-" + index;
+    }
+
+    public String getContext() {
+        return baseUrl + "context/loadtest";
+    }
+
+    /**
+     * Pick a random resource from the dataset.
+     */
+    public String randomResource(Random random) {
+        return getResourceUri(random.nextInt(resources));
+    }
+
+    /**
+     * Generate the dataset and upload it in chunks using the client given as argument.
+     */
+    public void upload(LoadTestClient client) throws URISyntaxException {
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        StringBuilder turtle = new StringBuilder();
+        for(int i=0; i<resources; i++) {
+            appendPerson(turtle, i, random);
+
+            if((i+1) % CHUNK_SIZE == 0 || i == resources - 1) {
+                if(upload(client, "dataset", getContext(), turtle.toString()) == null) {
+                    throw new IllegalStateException("upload of the load test dataset failed");
+                }
+                turtle.setLength(0);
+                log.info("uploaded {} of {} resources", i + 1, resources);
+            }
+        }
+        log.info("dataset with {} resources uploaded in {} ms", resources, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Upload a Turtle document to the given context using the import web service.
+     */
+    public LoadTestClient.Result upload(LoadTestClient client, String step, String context, String turtle) throws URISyntaxException {
+        HttpPost post = new HttpPost(new URIBuilder(baseUrl + "import/upload").addParameter("context", context).build());
+        post.setEntity(new StringEntity(turtle, ContentType.create("text/turtle", "UTF-8")));
+        post.setHeader("Content-Type", "text/turtle");
+        return client.execute(step, post, 200);
+    }
+
+    /**
+     * Append the Turtle description of the person with the given index to the builder.
+     */
+    public void appendPerson(StringBuilder turtle, int index, Random random) {
+        turtle.append('<').append(getResourceUri(index)).append("> a <").append(FOAF).append("Person> ;\n");
+        turtle.append("    <").append(FOAF).append("name> \"Person ").append(index).append("\" ;\n");
+        turtle.append("    <").append(FOAF).append("age> ").append(18 + random.nextInt(70)).append(" ;\n");
+        turtle.append("    <").append(FOAF).append("based_near> <").append(getCityUri(random.nextInt(CITIES))).append("> ;\n");
+        for(int k=0; k<3; k++) {
+            turtle.append("    <").append(FOAF).append("knows> <").append(getResourceUri(random.nextInt(resources))).append("> ;\n");
+        }
+        turtle.append("    <").append(DCTERMS).append("description> \"").append(randomText(random, 12)).append("\" .\n");
+    }
+
+    public static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for(int i=0; i<words; i++) {
+            if(i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
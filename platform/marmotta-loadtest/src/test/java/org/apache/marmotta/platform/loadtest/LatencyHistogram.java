@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets. Each power of two is split into 16 linear sub-buckets,
+ * so the relative error of a reported percentile is below 1/16 over the whole range of values. Values are
+ * recorded in microseconds.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS    = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS     = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count  = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong sum    = new AtomicLong();
+    private final AtomicLong max    = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record a single request with the given latency in microseconds.
+     *
+     * @param micros  latency of the request
+     * @param success false if the request failed; failed requests are counted but not included in the latencies
+     */
+    public void record(long micros, boolean success) {
+        if(!success) {
+            errors.incrementAndGet();
+            return;
+        }
+        if(micros < 0) {
+            micros = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+
+        long m = max.get();
+        while(micros > m && !max.compareAndSet(m, micros)) {
+            m = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long c = count.get();
+        return c > 0 ? (double) sum.get() / c : 0.0;
+    }
+
+    /**
+     * Return the latency (in microseconds) below which the given fraction of successful requests completed.
+     *
+     * @param fraction a value between 0 and 1, e.g. 0.99 for the 99th percentile
+     */
+    public long getPercentile(double fraction) {
+        long c = count.get();
+        if(c == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * c));
+        long seen = 0;
+        for(int i=0; i<BUCKETS; i++) {
+            seen += buckets.get(i);
+            if(seen >= target) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Return the number of requests recorded in each bucket, indexed like {@link #bucketUpperBound(int)}.
+     */
+    public long[] getBuckets() {
+        long[] result = new long[BUCKETS];
+        for(int i=0; i<BUCKETS; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Merge the values of another histogram into this one, e.g. to compute the totals over all operations.
+     */
+    public void add(LatencyHistogram other) {
+        for(int i=0; i<BUCKETS; i++) {
+            buckets.addAndGet(i, other.buckets.get(i));
+        }
+        count.addAndGet(other.count.get());
+        errors.addAndGet(other.errors.get());
+        sum.addAndGet(other.sum.get());
+
+        long m = max.get();
+        while(other.max.get() > m && !max.compareAndSet(m, other.max.get())) {
+            m = max.get();
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Return the largest value that falls into the bucket with the given index.
+     */
+    public static long bucketUpperBound(int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long lower = ((long) (SUB_BUCKETS + sub)) << (magnitude - SUB_BITS);
+        return lower + (1L << (magnitude - SUB_BITS)) - 1;
+    }
+}
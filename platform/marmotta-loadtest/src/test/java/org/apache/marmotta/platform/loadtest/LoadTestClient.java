@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * HTTP client shared by all load test threads. Every request is timed and recorded in the latency histogram of
+ * the step it belongs to; a request counts as failed if the server answers with an unexpected status code or the
+ * request throws an exception. Recording can be switched off during the warmup phase.
+ */
+public class LoadTestClient {
+
+    private static Logger log = LoggerFactory.getLogger(LoadTestClient.class);
+
+    private final String baseUrl;
+
+    private final CloseableHttpClient client;
+
+    private final ConcurrentMap<String,LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private volatile boolean recording = false;
+
+    public LoadTestClient(String baseUrl, int threads) {
+        this.baseUrl = baseUrl;
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(threads * 2);
+        connectionManager.setDefaultMaxPerRoute(threads * 2);
+
+        this.client = HttpClients.custom().setConnectionManager(connectionManager).build();
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Execute the request, consume the response and record the latency under the given step name.
+     *
+     * @param step     name of the histogram the request is recorded in
+     * @param request  the request to execute
+     * @param expected status codes that count as success
+     * @return the response, or null in case the request failed with an exception
+     */
+    public Result execute(String step, HttpUriRequest request, int... expected) {
+        long start = System.nanoTime();
+        Result result = null;
+        boolean success = false;
+        try {
+            HttpResponse response = client.execute(request);
+            try {
+                result = new Result(response.getStatusLine().getStatusCode(),
+                        response.getAllHeaders(),
+                        response.getEntity() != null ? EntityUtils.toString(response.getEntity(), "UTF-8") : null);
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+            for(int status : expected) {
+                if(status == result.getStatus()) {
+                    success = true;
+                }
+            }
+            if(!success) {
+                log.debug("{}: unexpected status {} for {} {}", step, result.getStatus(), request.getMethod(), request.getURI());
+            }
+        } catch (IOException e) {
+            log.debug("{}: request {} {} failed: {}", step, request.getMethod(), request.getURI(), e.getMessage());
+        }
+
+        if(recording) {
+            getHistogram(step).record((System.nanoTime() - start) / 1000, success);
+        }
+        return success ? result : null;
+    }
+
+    public LatencyHistogram getHistogram(String step) {
+        LatencyHistogram histogram = histograms.get(step);
+        if(histogram == null) {
+            histograms.putIfAbsent(step, new LatencyHistogram(step));
+            histogram = histograms.get(step);
+        }
+        return histogram;
+    }
+
+    public ConcurrentMap<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    public void close() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("could not close HTTP client", e);
+        }
+    }
+
+    /**
+     * A fully consumed HTTP response.
+     */
+    public static class Result {
+        private final int status;
+        private final Header[] headers;
+        private final String body;
+
+        public Result(int status, Header[] headers, String body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getHeader(String name) {
+            for(Header header : headers) {
+                if(header.getName().equalsIgnoreCase(name)) {
+                    return header.getValue();
+                }
+            }
+            return null;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
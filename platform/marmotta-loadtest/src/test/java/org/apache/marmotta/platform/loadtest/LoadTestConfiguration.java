@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parameters of a load test run. All values are read from system properties so the harness can be configured
+ * from the Maven command line, e.g. <code>mvn test-compile exec:java -Dloadtest.threads=16 -Dloadtest.duration=300</code>:
+ * <ul>
+ *     <li>loadtest.url: base URL of a running Marmotta installation; if not given, an embedded instance on H2 is started</li>
+ *     <li>loadtest.threads: number of concurrent clients (default 8)</li>
+ *     <li>loadtest.warmup: warmup time in seconds, not included in the report (default 10)</li>
+ *     <li>loadtest.duration: measurement time in seconds (default 60)</li>
+ *     <li>loadtest.resources: number of resources in the generated dataset (default 1000)</li>
+ *     <li>loadtest.seed: seed for the dataset generator and the workload (default 42)</li>
+ *     <li>loadtest.mix: weights of the operations, e.g. "sparql-select:40,ldp:20" (default see {@link #DEFAULT_MIX})</li>
+ *     <li>loadtest.report: file to write the CSV report to (optional)</li>
+ * </ul>
+ */
+public class LoadTestConfiguration {
+
+    public static final String DEFAULT_MIX = "sparql-select:35,sparql-update:10,ldp:20,ldpath:20,resource:10,import:5";
+
+    private String url;
+
+    private int threads;
+
+    private int warmup;
+
+    private int duration;
+
+    private int resources;
+
+    private long seed;
+
+    private Map<String,Integer> mix;
+
+    private String report;
+
+    public static LoadTestConfiguration fromSystemProperties() {
+        LoadTestConfiguration cfg = new LoadTestConfiguration();
+        cfg.url       = StringUtils.trimToNull(System.getProperty("loadtest.url"));
+        cfg.threads   = Integer.getInteger("loadtest.threads", 8);
+        cfg.warmup    = Integer.getInteger("loadtest.warmup", 10);
+        cfg.duration  = Integer.getInteger("loadtest.duration", 60);
+        cfg.resources = Integer.getInteger("loadtest.resources", 1000);
+        cfg.seed      = Long.getLong("loadtest.seed", 42L);
+        cfg.mix       = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+        cfg.report    = StringUtils.trimToNull(System.getProperty("loadtest.report"));
+
+        if(cfg.url != null && !cfg.url.endsWith("/")) {
+            cfg.url = cfg.url + "/";
+        }
+        return cfg;
+    }
+
+    static Map<String,Integer> parseMix(String mix) {
+        Map<String,Integer> result = new LinkedHashMap<>();
+        for(String entry : StringUtils.split(mix, ',')) {
+            String[] kv = StringUtils.split(entry, ':');
+            if(kv.length != 2) {
+                throw new IllegalArgumentException("invalid workload mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if(weight < 0) {
+                throw new IllegalArgumentException("negative weight for operation " + kv[0]);
+            }
+            if(weight > 0) {
+                result.put(kv[0].trim(), weight);
+            }
+        }
+        if(result.isEmpty()) {
+            throw new IllegalArgumentException("workload mix does not contain any operation");
+        }
+        return result;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getResources() {
+        return resources;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("threads=%d, warmup=%ds, duration=%ds, resources=%d, seed=%d, mix=%s",
+                threads, warmup, duration, resources, seed, mix);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Summarises the latency histograms of a load test run. The summary is printed as a table on the console and can
+ * be written as CSV (one line per step plus a line with the totals), so results of different releases or
+ * configurations can be compared with a spreadsheet or a diff. The full bucket counts of each histogram are written
+ * to a second file with the suffix ".histogram.csv".
+ */
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private final LoadTestConfiguration configuration;
+
+    private final List<LatencyHistogram> histograms;
+
+    private final LatencyHistogram total;
+
+    private final long measuredMillis;
+
+    public LoadTestReport(LoadTestConfiguration configuration, LoadTestClient client, long measuredMillis) {
+        this.configuration = configuration;
+        this.measuredMillis = Math.max(1, measuredMillis);
+
+        List<String> steps = new ArrayList<>(client.getHistograms().keySet());
+        Collections.sort(steps);
+
+        this.histograms = new ArrayList<>();
+        this.total = new LatencyHistogram("TOTAL");
+        for(String step : steps) {
+            LatencyHistogram h = client.getHistogram(step);
+            histograms.add(h);
+            total.add(h);
+        }
+    }
+
+    public void print(PrintStream out) {
+        out.println();
+        out.println("Marmotta load test: " + configuration);
+        out.println(String.format(Locale.ENGLISH, "%-26s %9s %7s %9s %9s %9s %9s %9s %9s %9s",
+                "step", "count", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for(LatencyHistogram h : histograms) {
+            out.println(formatRow(h));
+        }
+        out.println(formatRow(total));
+        out.println();
+    }
+
+    private String formatRow(LatencyHistogram h) {
+        return String.format(Locale.ENGLISH, "%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                h.getName(), h.getCount(), h.getErrors(), throughput(h), h.getMean() / 1000.0,
+                millis(h.getPercentile(PERCENTILES[0])), millis(h.getPercentile(PERCENTILES[1])),
+                millis(h.getPercentile(PERCENTILES[2])), millis(h.getPercentile(PERCENTILES[3])),
+                millis(h.getMax()));
+    }
+
+    /**
+     * Write the summary and the histograms to CSV files.
+     *
+     * @param file destination of the summary; the histograms are written to the same path with suffix ".histogram.csv"
+     */
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("step,count,errors,throughput,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            for(LatencyHistogram h : histograms) {
+                out.println(formatCsv(h));
+            }
+            out.println(formatCsv(total));
+        }
+
+        try (PrintWriter out = new PrintWriter(new File(file.getPath() + ".histogram.csv"), "UTF-8")) {
+            out.println("step,upper_bound_us,count");
+            for(LatencyHistogram h : histograms) {
+                long[] buckets = h.getBuckets();
+                for(int i=0; i<buckets.length; i++) {
+                    if(buckets[i] > 0) {
+                        out.println(h.getName() + "," + LatencyHistogram.bucketUpperBound(i) + "," + buckets[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private String formatCsv(LatencyHistogram h) {
+        return String.format(Locale.ENGLISH, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                h.getName(), h.getCount(), h.getErrors(), throughput(h), h.getMean() / 1000.0,
+                millis(h.getPercentile(PERCENTILES[0])), millis(h.getPercentile(PERCENTILES[1])),
+                millis(h.getPercentile(PERCENTILES[2])), millis(h.getPercentile(PERCENTILES[3])),
+                millis(h.getMax()));
+    }
+
+    private double throughput(LatencyHistogram h) {
+        return h.getCount() * 1000.0 / measuredMillis;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import com.google.common.collect.Sets;
+import org.apache.marmotta.platform.core.test.base.JettyMarmotta;
+import org.apache.marmotta.platform.core.webservices.io.ImportWebService;
+import org.apache.marmotta.platform.core.webservices.resource.MetaWebService;
+import org.apache.marmotta.platform.core.webservices.resource.ResourceWebService;
+import org.apache.marmotta.platform.ldp.webservices.LdpWebService;
+import org.apache.marmotta.platform.ldpath.webservices.LDPathWebService;
+import org.apache.marmotta.platform.loadtest.operations.*;
+import org.apache.marmotta.platform.sparql.webservices.SparqlWebService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * End-to-end load test for the Marmotta web services. Starts Marmotta with the KiWi backend on H2 in an embedded
+ * Jetty (unless the URL of a running installation is given), uploads a generated dataset and replays a mixed
+ * workload of SPARQL queries and updates, LDP interactions, LDPath evaluations, resource retrievals and imports.
+ * See {@link LoadTestConfiguration} for the available parameters. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dloadtest.threads=8 -Dloadtest.duration=60 -Dloadtest.report=target/loadtest.csv
+ * </pre>
+ */
+public class MarmottaLoadTest {
+
+    private static Logger log = LoggerFactory.getLogger(MarmottaLoadTest.class);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfiguration configuration = LoadTestConfiguration.fromSystemProperties();
+
+        JettyMarmotta marmotta = null;
+        if(configuration.getUrl() == null) {
+            log.info("starting embedded Marmotta instance ...");
+            marmotta = new JettyMarmotta("/marmotta", Sets.<Class<?>>newHashSet(SparqlWebService.class, LdpWebService.class,
+                    LDPathWebService.class, ImportWebService.class, ResourceWebService.class, MetaWebService.class));
+            configuration.setUrl("http://localhost:" + marmotta.getPort() + marmotta.getContext() + "/");
+        }
+
+        log.info("running load test against {} ({})", configuration.getUrl(), configuration);
+
+        LoadTestClient client = new LoadTestClient(configuration.getUrl(), configuration.getThreads());
+        try {
+            DatasetGenerator dataset = new DatasetGenerator(configuration.getUrl(), configuration.getResources(), configuration.getSeed());
+            dataset.upload(client);
+
+            Map<String,Operation> operations = new LinkedHashMap<>();
+            for(Operation op : new Operation[] {
+                    new SparqlSelectOperation(dataset),
+                    new SparqlUpdateOperation(dataset),
+                    new LdpOperation(),
+                    new LdPathOperation(dataset),
+                    new ResourceOperation(dataset),
+                    new ImportOperation(dataset)
+            }) {
+                operations.put(op.getName(), op);
+            }
+
+            Workload workload = new Workload(configuration, operations);
+            workload.run(client);
+
+            LoadTestReport report = new LoadTestReport(configuration, client, workload.getMeasuredMillis());
+            report.print(System.out);
+            if(workload.getFailures() > 0) {
+                System.out.println(workload.getFailures() + " operations aborted with an exception (see debug log)");
+            }
+            if(configuration.getReport() != null) {
+                File file = new File(configuration.getReport());
+                report.writeCsv(file);
+                log.info("report written to {}", file.getAbsolutePath());
+            }
+        } finally {
+            client.close();
+            if(marmotta != null) {
+                marmotta.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest;
+
+import org.apache.marmotta.platform.loadtest.operations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a weighted mix of operations with a fixed number of worker threads. The workload runs for the configured
+ * warmup time without recording, then for the configured duration with recording enabled. Each worker uses its
+ * own random generator derived from the configured seed, so the sequence of operations per worker is reproducible.
+ */
+public class Workload {
+
+    private static Logger log = LoggerFactory.getLogger(Workload.class);
+
+    private final LoadTestConfiguration configuration;
+
+    private final Operation[] operations;
+    private final int[]       cumulativeWeights;
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private long measuredMillis;
+
+    public Workload(LoadTestConfiguration configuration, Map<String,Operation> available) {
+        this.configuration = configuration;
+
+        List<Operation> ops = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for(Map.Entry<String,Integer> entry : configuration.getMix().entrySet()) {
+            Operation op = available.get(entry.getKey());
+            if(op == null) {
+                throw new IllegalArgumentException("unknown operation in workload mix: " + entry.getKey() + " (available: " + available.keySet() + ")");
+            }
+            total += entry.getValue();
+            ops.add(op);
+            weights.add(total);
+        }
+
+        this.operations = ops.toArray(new Operation[ops.size()]);
+        this.cumulativeWeights = new int[weights.size()];
+        for(int i=0; i<cumulativeWeights.length; i++) {
+            cumulativeWeights[i] = weights.get(i);
+        }
+    }
+
+    /**
+     * Run the workload against the client given as argument and block until it has finished.
+     */
+    public void run(final LoadTestClient client) throws InterruptedException {
+        final long warmupEnd  = System.currentTimeMillis() + configuration.getWarmup() * 1000L;
+        final long measureEnd = warmupEnd + configuration.getDuration() * 1000L;
+
+        ExecutorService workers = Executors.newFixedThreadPool(configuration.getThreads());
+        for(int t=0; t<configuration.getThreads(); t++) {
+            final Random random = new Random(configuration.getSeed() + t);
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    while(System.currentTimeMillis() < measureEnd) {
+                        Operation op = select(random);
+                        try {
+                            op.execute(client, random);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            log.debug("operation {} failed: {}", op.getName(), e.getMessage());
+                        }
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+
+        log.info("warming up for {} seconds ...", configuration.getWarmup());
+        Thread.sleep(Math.max(0, warmupEnd - System.currentTimeMillis()));
+
+        log.info("measuring for {} seconds ...", configuration.getDuration());
+        long start = System.currentTimeMillis();
+        client.setRecording(true);
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        client.setRecording(false);
+        measuredMillis = System.currentTimeMillis() - start;
+    }
+
+    private Operation select(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for(int i=0; i<cumulativeWeights.length; i++) {
+            if(r < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Wall clock time of the measurement phase in milliseconds.
+     */
+    public long getMeasuredMillis() {
+        return measuredMillis;
+    }
+
+    /**
+     * Number of operations that were aborted by an exception (e.g. an invalid URI), in addition to the failed
+     * requests counted in the histograms.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.marmotta.platform.loadtest.DatasetGenerator;
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Upload a small Turtle document with a few new persons through the import web service, into a separate context
+ * so the generated dataset itself is not modified.
+ */
+public class ImportOperation implements Operation {
+
+    private static final int PERSONS = 10;
+
+    private final DatasetGenerator dataset;
+
+    private final AtomicInteger counter;
+
+    public ImportOperation(DatasetGenerator dataset) {
+        this.dataset = dataset;
+        this.counter = new AtomicInteger(dataset.getResources());
+    }
+
+    @Override
+    public String getName() {
+        return "import";
+    }
+
+    @Override
+    public void execute(LoadTestClient client, Random random) throws Exception {
+        StringBuilder turtle = new StringBuilder();
+        for(int i=0; i<PERSONS; i++) {
+            dataset.appendPerson(turtle, counter.getAndIncrement(), random);
+        }
+        dataset.upload(client, "import-upload", dataset.getContext() + "-import", turtle.toString());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.marmotta.platform.loadtest.DatasetGenerator;
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.marmotta.platform.loadtest.DatasetGenerator.DCTERMS;
+import static org.apache.marmotta.platform.loadtest.DatasetGenerator.FOAF;
+
+/**
+ * Run a complete LDP create-read-update-delete cycle on a new RDF source in the root container: POST with a Slug,
+ * GET to obtain the ETag, a conditional PUT with If-Match, a second GET to obtain the new ETag and a conditional
+ * DELETE. Each request is recorded as its own step; the cycle is aborted at the first failed request.
+ */
+public class LdpOperation implements Operation {
+
+    private static final ContentType TURTLE = ContentType.create("text/turtle", "UTF-8");
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public String getName() {
+        return "ldp";
+    }
+
+    @Override
+    public void execute(LoadTestClient client, Random random) throws Exception {
+        String slug = "loadtest-" + counter.incrementAndGet();
+
+        HttpPost post = new HttpPost(client.getBaseUrl() + "ldp");
+        post.setHeader("Slug", slug);
+        post.setEntity(new StringEntity(describe(random), TURTLE));
+        LoadTestClient.Result created = client.execute("ldp-post", post, 201);
+        if(created == null || created.getHeader("Location") == null) {
+            return;
+        }
+        String location = created.getHeader("Location");
+
+        String etag = getETag(client, location);
+        if(etag == null) {
+            return;
+        }
+
+        HttpPut put = new HttpPut(location);
+        put.setHeader("If-Match", etag);
+        put.setEntity(new StringEntity(describe(random), TURTLE));
+        if(client.execute("ldp-put", put, 200, 204) == null) {
+            return;
+        }
+
+        etag = getETag(client, location);
+        if(etag == null) {
+            return;
+        }
+
+        HttpDelete delete = new HttpDelete(location);
+        delete.setHeader("If-Match", etag);
+        client.execute("ldp-delete", delete, 200, 204);
+    }
+
+    private String getETag(LoadTestClient client, String location) {
+        HttpGet get = new HttpGet(location);
+        get.setHeader("Accept", "text/turtle");
+        LoadTestClient.Result result = client.execute("ldp-get", get, 200);
+        return result != null ? result.getHeader("ETag") : null;
+    }
+
+    private static String describe(Random random) {
+        return "<> a <" + FOAF + "Document> ;\n" +
+                "   <" + DCTERMS + "title> \"" + DatasetGenerator.randomText(random, 3) + "\" ;\n" +
+                "   <" + DCTERMS + "description> \"" + DatasetGenerator.randomText(random, 20) + "\" .\n";
+    }
+}
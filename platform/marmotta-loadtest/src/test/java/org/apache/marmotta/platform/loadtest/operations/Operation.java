@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+
+/**
+ * A single unit of work in the load test mix. An operation may issue several HTTP requests (e.g. the LDP
+ * create-read-update-delete cycle); each request is recorded by the {@link LoadTestClient} under its own step name.
+ * Operations are shared between all worker threads and must be thread-safe.
+ */
+public interface Operation {
+
+    /**
+     * The name of the operation as used in the workload mix (system property loadtest.mix)
+     */
+    String getName();
+
+    /**
+     * Execute the operation once.
+     *
+     * @param client the client to send the requests with
+     * @param random random generator of the calling worker thread
+     */
+    void execute(LoadTestClient client, Random random) throws Exception;
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.marmotta.platform.loadtest.DatasetGenerator;
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+
+/**
+ * Retrieve the Turtle description of a random resource through the linked data resource web service, including
+ * the redirect to the metadata representation.
+ */
+public class ResourceOperation implements Operation {
+
+    private final DatasetGenerator dataset;
+
+    public ResourceOperation(DatasetGenerator dataset) {
+        this.dataset = dataset;
+    }
+
+    @Override
+    public String getName() {
+        return "resource";
+    }
+
+    @Override
+    public void execute(LoadTestClient client, Random random) throws Exception {
+        HttpGet get = new HttpGet(new URIBuilder(client.getBaseUrl() + "resource")
+                .addParameter("uri", dataset.randomResource(random))
+                .build());
+        get.setHeader("Accept", "text/turtle");
+        client.execute("resource-get", get, 200);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.marmotta.platform.loadtest.DatasetGenerator;
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+
+import static org.apache.marmotta.platform.loadtest.DatasetGenerator.FOAF;
+
+/**
+ * Run one of a fixed set of SPARQL SELECT queries against the SPARQL endpoint: a selective lookup of a single
+ * resource, a two-hop join over foaf:knows, and an aggregation with a numeric filter over the whole dataset.
+ * Each query shape is recorded as its own step.
+ */
+public class SparqlSelectOperation implements Operation {
+
+    private final DatasetGenerator dataset;
+
+    public SparqlSelectOperation(DatasetGenerator dataset) {
+        this.dataset = dataset;
+    }
+
+    @Override
+    public String getName() {
+        return "sparql-select";
+    }
+
+    @Override
+    public void execute(LoadTestClient client, Random random) throws Exception {
+        String step, query;
+        switch (random.nextInt(3)) {
+            case 0:
+                step  = "sparql-select-lookup";
+                query = "SELECT ?name ?age WHERE { <" + dataset.randomResource(random) + "> <" + FOAF + "name> ?name ; <" + FOAF + "age> ?age }";
+                break;
+            case 1:
+                step  = "sparql-select-join";
+                query = "SELECT ?friend ?name WHERE { <" + dataset.randomResource(random) + "> <" + FOAF + "knows> ?friend . ?friend <" + FOAF + "name> ?name }";
+                break;
+            default:
+                step  = "sparql-select-aggregate";
+                query = "SELECT (COUNT(?p) AS ?count) WHERE { ?p a <" + FOAF + "Person> ; <" + FOAF + "age> ?age . FILTER(?age > " + (18 + random.nextInt(70)) + ") }";
+        }
+
+        HttpGet get = new HttpGet(new URIBuilder(client.getBaseUrl() + "sparql/select").addParameter("query", query).build());
+        get.setHeader("Accept", "application/sparql-results+json");
+        client.execute(step, get, 200);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.loadtest.operations;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.marmotta.platform.loadtest.DatasetGenerator;
+import org.apache.marmotta.platform.loadtest.LoadTestClient;
+
+import java.util.Random;
+
+import static org.apache.marmotta.platform.loadtest.DatasetGenerator.DCTERMS;
+
+/**
+ * Modify the description of a random resource with a SPARQL 1.1 Update (DELETE/INSERT WHERE), sent directly in
+ * the body of the POST request.
+ */
+public class SparqlUpdateOperation implements Operation {
+
+    private final DatasetGenerator dataset;
+
+    public SparqlUpdateOperation(DatasetGenerator dataset) {
+        this.dataset = dataset;
+    }
+
+    @Override
+    public String getName() {
+        return "sparql-update";
+    }
+
+    @Override
+    public void execute(LoadTestClient client, Random random) throws Exception {
+        String resource = dataset.randomResource(random);
+        String update = "DELETE { GRAPH <" + dataset.getContext() + "> { <" + resource + "> <" + DCTERMS + "description> ?d } } " +
+                "INSERT { GRAPH <" + dataset.getContext() + "> { <" + resource + "> <" + DCTERMS + "description> \"" + DatasetGenerator.randomText(random, 12) + "\" } } " +
+                "WHERE { OPTIONAL { <" + resource + "> <" + DCTERMS + "description> ?d } }";
+
+        HttpPost post = new HttpPost(client.getBaseUrl() + "sparql/update");
+        post.setEntity(new StringEntity(update, ContentType.create("application/sparql-update", "UTF-8")));
+        post.setHeader("Content-Type", "application/sparql-update");
+        client.execute("sparql-update", post, 200);
+    }
+}
@@ -23,10 +23,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Add file description here!
@@ -51,6 +50,11 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
      */
     private String urlPattern;
 
+    /**
+     * The URL pattern compiled once when it is set, so requests do not have to compile the regular expression again
+     */
+    private Pattern compiledUrlPattern;
+
     /**
      * The host patterns as a list of strings in CIDR notation (e.g. 127.0.0.1/24, 192.168.100.2/32)
      */
@@ -81,6 +85,7 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
         this.name = name;
         this.enabled = enabled;
         this.urlPattern = urlPattern;
+        this.compiledUrlPattern = urlPattern != null ? Pattern.compile(urlPattern) : null;
 
         roles   = new HashSet<String>();
         methods = new HashSet<HTTPMethods>();
@@ -100,18 +105,48 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
      * @return
      */
     public boolean matches(HttpServletRequest request) {
-        return enabled && matchesMethod(request) && matchesAddress(request) && matchesUrl(request) && matchesRoles(request);
+        String path = getRequestPath(request);
+        if(path == null) {
+            return false;
+        }
+        return matches(HTTPMethods.parse(request.getMethod()), path, request.getRemoteAddr(), (Set<String>)request.getAttribute("user.roles"));
     }
 
+    /**
+     * Check whether the security constraint matches the given request properties. Applies method, remote address,
+     * URL and role matching.
+     *
+     * @param method    the request method, or null if the method is not supported
+     * @param path      the request path relative to the application root
+     * @param address   the remote address of the client
+     * @param userRoles the roles of the current user, may be null
+     * @return
+     */
+    public boolean matches(HTTPMethods method, String path, String address, Set<String> userRoles) {
+        return enabled && matchesMethod(method) && matchesAddress(address) && matchesUrl(path) && matchesRoles(userRoles);
+    }
 
-    private boolean matchesMethod(HttpServletRequest request) {
+    /**
+     * Return the path of the request relative to the application root, or null if the request URI is not
+     * below the context path.
+     */
+    public static String getRequestPath(HttpServletRequest request) {
+        String uri    = request.getRequestURI();
+        String prefix = request.getContextPath();
+        if(uri != null && uri.startsWith(prefix)) {
+            return uri.substring(prefix.length());
+        } else {
+            return null;
+        }
+    }
+
+
+    private boolean matchesMethod(HTTPMethods method) {
         // match any method
         if(methods.size() == 0) {
             return true;
         }
 
-        HTTPMethods method = HTTPMethods.parse(request.getMethod());
-
         if(method != null) {
             return methods.contains(method);
         } else {
@@ -121,43 +156,23 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
         }
     }
 
-    private boolean matchesUrl(HttpServletRequest request) {
-        try {
-            URL url = new URL(request.getRequestURL().toString());
-            String prefix = request.getContextPath();
-            String path = null;
-            if(url.getPath().startsWith(prefix)) {
-                path = url.getPath().substring(prefix.length());
-
-                return path.matches(urlPattern);
-
-            } else {
-                return false;
-            }
-
-
-
-        } catch(MalformedURLException ex) {
-            log.error("the request URL {} was invalid",request.getRequestURL().toString());
-            return false;
-        }
-
-
+    private boolean matchesUrl(String path) {
+        return compiledUrlPattern != null && compiledUrlPattern.matcher(path).matches();
     }
 
     /**
      * Check whether the remote address of the request matches one of the host patterns (CIDR)
-     * @param request
+     * @param address
      * @return true if there are no host patterns configured or one of the host patterns matches the remote address
      */
-    private boolean matchesAddress(HttpServletRequest request) {
+    private boolean matchesAddress(String address) {
         if(hostPatterns.size() == 0) {
             return true;
         }
 
 
         for(SubnetInfo hostPattern : hostPatterns) {
-            if(hostPattern.getHostAddress().equals(request.getRemoteAddr()) || hostPattern.isInRange(request.getRemoteAddr())) {
+            if(hostPattern.getHostAddress().equals(address) || hostPattern.isInRange(address)) {
                 return true;
             }
         }
@@ -166,14 +181,13 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
 
     /**
      * Check whether the request user is in one of the specified roles.
-     * @param request
+     * @param userRoles
      * @return true if no roles are set or the user is in one of the configured roles
      */
-    private boolean matchesRoles(HttpServletRequest request) {
+    private boolean matchesRoles(Set<String> userRoles) {
         if(roles.size() == 0) {
             return true;
         } else {
-            Set<String> userRoles = (Set<String>)request.getAttribute("user.roles");
             if(userRoles != null) {
                 for(String role : roles) {
                     if(userRoles.contains(role)) {
@@ -221,6 +235,31 @@ public class SecurityConstraint implements Comparable<SecurityConstraint> {
 
     public void setUrlPattern(String urlPattern) {
         this.urlPattern = urlPattern;
+        this.compiledUrlPattern = urlPattern != null ? Pattern.compile(urlPattern) : null;
+    }
+
+    /**
+     * Return the literal prefix every path matched by the URL pattern starts with, e.g. "/config/" for the pattern
+     * "/config/.*". Returns the empty string if no such prefix can be determined (e.g. for alternatives).
+     */
+    public String getUrlPrefix() {
+        if(urlPattern == null || urlPattern.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = urlPattern.startsWith("^") ? 1 : 0;
+        for(; i < urlPattern.length(); i++) {
+            char c = urlPattern.charAt(i);
+            if("\\.[]{}()*+?^$".indexOf(c) >= 0) {
+                // a quantifier makes the preceding character optional
+                if((c == '*' || c == '?' || c == '{') && prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
     }
 
     public Set<SubnetInfo> getHostPatterns() {
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.security.model;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable decision structure built from a list of security constraints ordered by priority. For each HTTP
+ * method, the enabled constraints applying to that method are organised in a trie over the literal prefix of their
+ * URL pattern, so only constraints whose prefix matches the request path are evaluated at all. The result of a
+ * check is remembered in a bounded cache keyed by method, path, remote address and user roles.
+ * <p/>
+ * A new index has to be built whenever the security constraints change; the decision cache is discarded together
+ * with the old index.
+ */
+public class SecurityConstraintIndex {
+
+    private final List<SecurityConstraint> constraints;
+
+    /**
+     * One trie per supported HTTP method
+     */
+    private final Map<HTTPMethods, PrefixNode> methodIndex;
+
+    /**
+     * Trie for requests with an unsupported HTTP method (only constraints without method restriction apply)
+     */
+    private final PrefixNode anyMethodIndex;
+
+    private final Cache<String, Decision> decisionCache;
+
+    /**
+     * Build a new index for the given constraints, which must be ordered by priority.
+     *
+     * @param constraints the security constraints, ordered by priority (highest first)
+     * @param cacheSize   the maximum number of decisions to remember
+     */
+    public SecurityConstraintIndex(List<SecurityConstraint> constraints, int cacheSize) {
+        this.constraints    = new ArrayList<SecurityConstraint>(constraints);
+        this.methodIndex    = new EnumMap<HTTPMethods, PrefixNode>(HTTPMethods.class);
+        this.anyMethodIndex = new PrefixNode();
+        this.decisionCache  = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+
+        for(HTTPMethods method : HTTPMethods.values()) {
+            methodIndex.put(method, new PrefixNode());
+        }
+
+        for(int i = 0; i < this.constraints.size(); i++) {
+            SecurityConstraint constraint = this.constraints.get(i);
+            if(!constraint.isEnabled() || constraint.getUrlPattern() == null) {
+                continue;
+            }
+
+            String prefix = constraint.getUrlPrefix();
+            if(constraint.getMethods().isEmpty()) {
+                anyMethodIndex.add(prefix, i);
+                for(PrefixNode node : methodIndex.values()) {
+                    node.add(prefix, i);
+                }
+            } else {
+                for(HTTPMethods method : constraint.getMethods()) {
+                    methodIndex.get(method).add(prefix, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine the constraint deciding about a request with the given properties.
+     *
+     * @param method    the request method, or null if the method is not supported
+     * @param path      the request path relative to the application root
+     * @param address   the remote address of the client
+     * @param userRoles the roles of the current user, may be null
+     * @return the decision; its constraint is null if no constraint matched
+     */
+    public Decision decide(HTTPMethods method, String path, String address, Set<String> userRoles) {
+        String key = createKey(method, path, address, userRoles);
+
+        Decision decision = decisionCache.getIfPresent(key);
+        if(decision == null) {
+            decision = evaluate(method, path, address, userRoles);
+            decisionCache.put(key, decision);
+        }
+        return decision;
+    }
+
+    private Decision evaluate(HTTPMethods method, String path, String address, Set<String> userRoles) {
+        PrefixNode root = method != null ? methodIndex.get(method) : anyMethodIndex;
+
+        // collect candidates from all trie nodes along the path; the bit set keeps them in priority order
+        BitSet candidates = new BitSet(constraints.size());
+        PrefixNode node = root;
+        candidates.or(node.constraints);
+        for(int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+            if(node != null) {
+                candidates.or(node.constraints);
+            }
+        }
+
+        for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i+1)) {
+            SecurityConstraint constraint = constraints.get(i);
+            if(constraint.matches(method, path, address, userRoles)) {
+                return new Decision(constraint);
+            }
+        }
+        return new Decision(null);
+    }
+
+    private static String createKey(HTTPMethods method, String path, String address, Set<String> userRoles) {
+        StringBuilder key = new StringBuilder();
+        key.append(method).append(' ').append(address).append(' ');
+        if(userRoles != null) {
+            for(String role : new TreeSet<String>(userRoles)) {
+                key.append(role).append(',');
+            }
+        }
+        key.append(' ').append(path);
+        return key.toString();
+    }
+
+    /**
+     * Remove all cached decisions.
+     */
+    public void invalidateCache() {
+        decisionCache.invalidateAll();
+    }
+
+    public List<SecurityConstraint> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * The outcome of a security check; the constraint is null in case no constraint matched the request.
+     */
+    public static class Decision {
+
+        private final SecurityConstraint constraint;
+
+        private Decision(SecurityConstraint constraint) {
+            this.constraint = constraint;
+        }
+
+        public SecurityConstraint getConstraint() {
+            return constraint;
+        }
+
+        public boolean isGranted() {
+            return constraint != null && constraint.getType() == SecurityConstraint.Type.PERMISSION;
+        }
+    }
+
+    private static class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new HashMap<Character, PrefixNode>();
+
+        private final BitSet constraints = new BitSet();
+
+        private void add(String prefix, int constraint) {
+            PrefixNode node = this;
+            for(int i = 0; i < prefix.length(); i++) {
+                PrefixNode child = node.children.get(prefix.charAt(i));
+                if(child == null) {
+                    child = new PrefixNode();
+                    node.children.put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            node.constraints.set(constraint);
+        }
+    }
+}
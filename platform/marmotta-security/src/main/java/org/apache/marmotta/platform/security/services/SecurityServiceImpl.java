@@ -18,7 +18,9 @@
 package org.apache.marmotta.platform.security.services;
 
 import org.apache.marmotta.platform.security.api.SecurityService;
+import org.apache.marmotta.platform.security.model.HTTPMethods;
 import org.apache.marmotta.platform.security.model.SecurityConstraint;
+import org.apache.marmotta.platform.security.model.SecurityConstraintIndex;
 import org.apache.marmotta.platform.security.util.SubnetInfo;
 import com.google.common.collect.Lists;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
@@ -68,6 +70,15 @@ public class SecurityServiceImpl implements SecurityService {
 
     private List<SecurityConstraint> constraints;
 
+    /**
+     * Compiled decision structure for the current constraints; replaced as a whole when the constraints change
+     */
+    private volatile SecurityConstraintIndex constraintIndex;
+
+    // cached values of security.enabled and security.configured, updated on configuration changes
+    private volatile boolean securityEnabled = true;
+    private volatile boolean securityConfigured = false;
+
     @PostConstruct
     public void initialise() {
         log.info("Initialising Security Service;  Access control is {}.",configurationService.getBooleanConfiguration("security.enabled",true)?"enabled":"disabled");
@@ -79,9 +90,12 @@ public class SecurityServiceImpl implements SecurityService {
      * by priority. This list will be evaluated for each request to the system.
      */
     private void initSecurityConstraints() {
-        constraints = new ArrayList<SecurityConstraint>();
+        List<SecurityConstraint> constraints = new ArrayList<SecurityConstraint>();
+
+        securityEnabled    = configurationService.getBooleanConfiguration("security.enabled",true);
+        securityConfigured = configurationService.getBooleanConfiguration("security.configured",false);
 
-        if(configurationService.getBooleanConfiguration("security.enabled",true)) {
+        if(securityEnabled) {
 
             for(String type : Lists.newArrayList("permission","restriction")) {
                 // determine the names of constraints that are configured
@@ -131,6 +145,9 @@ public class SecurityServiceImpl implements SecurityService {
 
             }
         }
+
+        this.constraints     = constraints;
+        this.constraintIndex = new SecurityConstraintIndex(constraints, configurationService.getIntConfiguration("security.cache.size", 10000));
     }
 
     /**
@@ -245,27 +262,28 @@ public class SecurityServiceImpl implements SecurityService {
      * @return true in case the active security constraints grant access, false otherwise
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean grantAccess(HttpServletRequest request) {
-        if(configurationService.getBooleanConfiguration("security.enabled",true)) {
-            if(!configurationService.getBooleanConfiguration("security.configured")) {
+        if(securityEnabled) {
+            if(!securityConfigured) {
                 loadSecurityProfile(configurationService.getStringConfiguration("security.profile"));
             }
 
-
-            for(SecurityConstraint constraint : constraints) {
-                if(constraint.matches(request)) {
-                    if(constraint.getType() == SecurityConstraint.Type.PERMISSION) {
-                        log.debug("access to {} granted; {}", request.getRequestURL(), constraint);
-                        return true;
-                    } else {
-                        log.debug("access to {} denied; {}", request.getRequestURL(), constraint);
-                        return false;
-                    }
-                }
+            String path = SecurityConstraint.getRequestPath(request);
+            if(path == null) {
+                log.debug("access to {} denied; request is outside of the application",request.getRequestURL());
+                return false;
             }
 
-            log.debug("access to {} denied; no rule matched",request.getRequestURL());
-            return false;
+            SecurityConstraintIndex.Decision decision = constraintIndex.decide(HTTPMethods.parse(request.getMethod()), path,
+                    request.getRemoteAddr(), (Set<String>) request.getAttribute("user.roles"));
+
+            if(decision.getConstraint() == null) {
+                log.debug("access to {} denied; no rule matched",request.getRequestURL());
+            } else if(log.isDebugEnabled()) {
+                log.debug("access to {} {}; {}", request.getRequestURL(), decision.isGranted() ? "granted" : "denied", decision.getConstraint());
+            }
+            return decision.isGranted();
         } else
             return true;
     }
@@ -300,6 +318,7 @@ public class SecurityServiceImpl implements SecurityService {
         	}
 
         	configurationService.setConfigurationWithoutEvent("security.configured", true);
+        	securityConfigured = true;
         }
 
         profileLoading = false;
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.security.model;
+
+import org.apache.marmotta.platform.security.util.SubnetInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test the literal URL prefixes of security constraints and the decisions of the constraint index, which must be the
+ * same as a linear scan over the constraints ordered by priority.
+ */
+public class SecurityConstraintIndexTest {
+
+    private static final HTTPMethods[] METHODS = { HTTPMethods.GET, HTTPMethods.POST, HTTPMethods.DELETE, null };
+
+    private static final String[] PATHS = {
+            "", "/", "/config", "/config/", "/config/list", "/config/data/security.enabled", "/configure",
+            "/user/me", "/user/login", "/users/me", "/sparql/select", "/sparql/update", "/ldp/container",
+            "/resource", "/resource/1", "/core/admin/about.html", "/storage-kiwi/dump", "/x.y", "/xzy"
+    };
+
+    private static final String[] ADDRESSES = { "127.0.0.1", "192.168.1.12", "10.0.0.1" };
+
+    private List<Set<String>> roleSets;
+
+    private List<SecurityConstraint> constraints;
+
+    @Before
+    public void setupConstraints() throws UnknownHostException {
+        roleSets = new ArrayList<Set<String>>();
+        roleSets.add(null);
+        roleSets.add(Collections.<String>emptySet());
+        roleSets.add(new HashSet<String>(Arrays.asList("user")));
+        roleSets.add(new HashSet<String>(Arrays.asList("user", "manager")));
+
+        constraints = new ArrayList<SecurityConstraint>();
+
+        // a setup similar to the restricted security profile, including constraints with the same priority
+        SecurityConstraint localhost = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "localhost", ".*", true, 10);
+        localhost.getHostPatterns().add(SubnetInfo.getSubnetInfo("127.0.0.1/32"));
+        constraints.add(localhost);
+
+        SecurityConstraint config = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "config", "/config/.*", true, 5);
+        config.getRoles().add("manager");
+        constraints.add(config);
+
+        SecurityConstraint configRestriction = new SecurityConstraint(SecurityConstraint.Type.RESTRICTION, "config", "/config/.*", true, 4);
+        constraints.add(configRestriction);
+
+        SecurityConstraint me = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "me", "^/user/me", true, 5);
+        me.getMethods().add(HTTPMethods.GET);
+        me.getRoles().add("user");
+        constraints.add(me);
+
+        SecurityConstraint sparql = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "sparql", "/(sparql|ldp)/.*", true, 3);
+        sparql.getMethods().add(HTTPMethods.GET);
+        sparql.getMethods().add(HTTPMethods.POST);
+        constraints.add(sparql);
+
+        SecurityConstraint sparqlUpdate = new SecurityConstraint(SecurityConstraint.Type.RESTRICTION, "sparql_update", "/sparql/update", true, 4);
+        sparqlUpdate.getMethods().add(HTTPMethods.POST);
+        constraints.add(sparqlUpdate);
+
+        SecurityConstraint subnet = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "subnet", "/resource.*", true, 2);
+        subnet.getHostPatterns().add(SubnetInfo.getSubnetInfo("192.168.1.0/24"));
+        constraints.add(subnet);
+
+        SecurityConstraint optional = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "optional", "/x\\.y|/xz?y", true, 2);
+        constraints.add(optional);
+
+        SecurityConstraint disabled = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "disabled", ".*", false, 100);
+        constraints.add(disabled);
+
+        SecurityConstraint read = new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "read", "/.*", true, 1);
+        read.getMethods().add(HTTPMethods.GET);
+        constraints.add(read);
+
+        SecurityConstraint deny = new SecurityConstraint(SecurityConstraint.Type.RESTRICTION, "deny", ".*", true, 0);
+        constraints.add(deny);
+
+        // same order as in the security service (stable sort by priority)
+        Collections.sort(constraints);
+    }
+
+    @Test
+    public void testUrlPrefix() {
+        Assert.assertEquals("/config/", prefix("/config/.*"));
+        Assert.assertEquals("/user/me", prefix("^/user/me"));
+        Assert.assertEquals("/resource", prefix("/resource.*"));
+        Assert.assertEquals("/", prefix("/.*"));
+        Assert.assertEquals("", prefix(".*"));
+        Assert.assertEquals("", prefix("/(sparql|ldp)/.*"));
+        Assert.assertEquals("", prefix("/x\\.y|/xz?y"));
+        Assert.assertEquals("/x", prefix("/x\\.y"));
+
+        // quantifiers make the preceding character optional, but not the characters before it
+        Assert.assertEquals("/ab", prefix("/abc?"));
+        Assert.assertEquals("/ab", prefix("/abc*"));
+        Assert.assertEquals("/ab", prefix("/abc{0,1}"));
+        Assert.assertEquals("/abc", prefix("/abc+"));
+        Assert.assertEquals("/ab", prefix("/ab(c)"));
+        Assert.assertEquals("/ab", prefix("/ab[c]"));
+        Assert.assertEquals("", prefix(null));
+    }
+
+    /**
+     * Every path matched by the URL pattern of a constraint must start with its prefix, otherwise the index would miss
+     * the constraint
+     */
+    @Test
+    public void testUrlPrefixOfMatchingPaths() {
+        for(SecurityConstraint constraint : constraints) {
+            for(String path : PATHS) {
+                if(constraint.getUrlPattern() != null && path.matches(constraint.getUrlPattern())) {
+                    Assert.assertTrue(constraint.getName() + " does not match " + path, path.startsWith(constraint.getUrlPrefix()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPriorityOrdering() {
+        SecurityConstraintIndex index = new SecurityConstraintIndex(constraints, 100);
+        Set<String> manager = new HashSet<String>(Arrays.asList("manager"));
+
+        // the higher priority permission wins over the restriction of the same prefix
+        Assert.assertTrue(index.decide(HTTPMethods.GET, "/config/list", "10.0.0.1", manager).isGranted());
+        Assert.assertEquals("config", index.decide(HTTPMethods.GET, "/config/list", "10.0.0.1", null).getConstraint().getName());
+        Assert.assertFalse(index.decide(HTTPMethods.GET, "/config/list", "10.0.0.1", null).isGranted());
+
+        // the restriction of a single path wins over the broader permission with lower priority
+        Assert.assertFalse(index.decide(HTTPMethods.POST, "/sparql/update", "10.0.0.1", null).isGranted());
+        Assert.assertTrue(index.decide(HTTPMethods.POST, "/sparql/select", "10.0.0.1", null).isGranted());
+
+        // the local host permission has the highest priority of all enabled constraints
+        Assert.assertEquals("localhost", index.decide(HTTPMethods.DELETE, "/config/list", "127.0.0.1", null).getConstraint().getName());
+
+        // disabled constraints are never considered
+        Assert.assertEquals("deny", index.decide(HTTPMethods.DELETE, "/core/admin/about.html", "10.0.0.1", manager).getConstraint().getName());
+    }
+
+    @Test
+    public void testWildcards() {
+        SecurityConstraintIndex index = new SecurityConstraintIndex(constraints, 100);
+
+        // alternatives and leading wildcards are indexed with an empty prefix and apply to all paths
+        Assert.assertEquals("sparql", index.decide(HTTPMethods.GET, "/ldp/container", "10.0.0.1", null).getConstraint().getName());
+        Assert.assertEquals("optional", index.decide(HTTPMethods.DELETE, "/xy", "10.0.0.1", null).getConstraint().getName());
+        Assert.assertEquals("optional", index.decide(HTTPMethods.DELETE, "/x.y", "10.0.0.1", null).getConstraint().getName());
+        Assert.assertEquals("deny", index.decide(HTTPMethods.DELETE, "/anything", "10.0.0.1", null).getConstraint().getName());
+
+        // requests with unsupported methods are only matched by constraints without method restriction
+        Assert.assertEquals("deny", index.decide(null, "/sparql/select", "10.0.0.1", null).getConstraint().getName());
+    }
+
+    /**
+     * Compare the decisions of the index (with and without cached decisions) with a linear scan over all constraints
+     */
+    @Test
+    public void testIndexAgainstLinearScan() {
+        SecurityConstraintIndex index = new SecurityConstraintIndex(constraints, 1000);
+
+        for(int round = 0; round < 2; round++) {
+            for(HTTPMethods method : METHODS) {
+                for(String path : PATHS) {
+                    for(String address : ADDRESSES) {
+                        for(Set<String> roles : roleSets) {
+                            SecurityConstraint expected = linearScan(method, path, address, roles);
+                            SecurityConstraintIndex.Decision decision = index.decide(method, path, address, roles);
+
+                            String request = method + " " + path + " from " + address + " with roles " + roles;
+                            Assert.assertSame(request, expected, decision.getConstraint());
+                            Assert.assertEquals(request, expected != null && expected.getType() == SecurityConstraint.Type.PERMISSION, decision.isGranted());
+                        }
+                    }
+                }
+            }
+            index.invalidateCache();
+        }
+    }
+
+    @Test
+    public void testNoConstraints() {
+        SecurityConstraintIndex index = new SecurityConstraintIndex(Collections.<SecurityConstraint>emptyList(), 10);
+
+        SecurityConstraintIndex.Decision decision = index.decide(HTTPMethods.GET, "/config/list", "127.0.0.1", null);
+        Assert.assertNull(decision.getConstraint());
+        Assert.assertFalse(decision.isGranted());
+    }
+
+    /**
+     * The evaluation of the security service before the constraint index was introduced
+     */
+    private SecurityConstraint linearScan(HTTPMethods method, String path, String address, Set<String> roles) {
+        for(SecurityConstraint constraint : constraints) {
+            if(constraint.matches(method, path, address, roles)) {
+                return constraint;
+            }
+        }
+        return null;
+    }
+
+    private static String prefix(String pattern) {
+        return new SecurityConstraint(SecurityConstraint.Type.PERMISSION, "test", pattern, true).getUrlPrefix();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.api.sparql;
+
+import org.openrdf.query.Query;
+import org.openrdf.query.QueryLanguage;
+
+/**
+ * An optional cache for serialized SPARQL query results, keyed by the normalized query string, the query language
+ * and the result format. Cached results are invalidated selectively when a transaction commits changes to triples
+ * with a predicate and context the query depends on.
+ * <p/>
+ * The cache is disabled by default and can be enabled with the configuration option "sparql.cache.enabled".
+ */
+public interface SparqlCacheService {
+
+    /**
+     * Return true if the result cache is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Return the maximum size in bytes of a single cached result; larger results are not cached.
+     */
+    int getMaxEntrySize();
+
+    /**
+     * Return the current generation of the cache; the generation is increased with every committed transaction that
+     * changed the triple store. Callers take the generation before evaluating a query and pass it to
+     * {@link #store(QueryLanguage, String, String, Query, String, byte[], long)}, so results computed while data was
+     * changing are not cached.
+     */
+    long getGeneration();
+
+    /**
+     * Look up the result of the given query in the given format.
+     *
+     * @return the cached result, or null if the result is not in the cache
+     */
+    SparqlCachedResult lookup(QueryLanguage language, String query, String format);
+
+    /**
+     * Store the serialized result of a query in the cache. Queries whose result cannot be cached (e.g. because they
+     * use the current time or random numbers, or query remote services) are ignored.
+     *
+     * @param language    the query language
+     * @param query       the query string
+     * @param format      the result format
+     * @param parsedQuery the prepared query, used to determine the predicates and contexts the query depends on
+     * @param type        the query type (TUPLE, BOOL or GRAPH)
+     * @param result      the serialized result
+     * @param generation  the generation of the cache before evaluating the query
+     * @return true if the result has been stored
+     */
+    boolean store(QueryLanguage language, String query, String format, Query parsedQuery, String type, byte[] result, long generation);
+
+    /**
+     * Remove all results from the cache.
+     */
+    void clear();
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.api.sparql;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A serialized SPARQL query result stored in the {@link SparqlCacheService}, together with the predicates and
+ * contexts the query depends on.
+ */
+public class SparqlCachedResult {
+
+    private final String type;
+
+    private final byte[] data;
+
+    private final Set<String> predicates;
+
+    private final Set<String> contexts;
+
+    /**
+     * @param type       the query type (TUPLE, BOOL or GRAPH)
+     * @param data       the serialized result
+     * @param predicates the predicates of the patterns in the query, or null if the query has a pattern with a
+     *                   variable predicate
+     * @param contexts   the contexts the patterns of the query are restricted to, or null if the query has a pattern
+     *                   that is not restricted to certain contexts
+     */
+    public SparqlCachedResult(String type, byte[] data, Set<String> predicates, Set<String> contexts) {
+        this.type = type;
+        this.data = data;
+        this.predicates = predicates != null ? Collections.unmodifiableSet(predicates) : null;
+        this.contexts = contexts != null ? Collections.unmodifiableSet(contexts) : null;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getSize() {
+        return data.length;
+    }
+
+    /**
+     * Write the stored result to the given output stream.
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        output.write(data);
+        output.flush();
+    }
+
+    /**
+     * Check whether a change of a triple with the given predicate and context might affect the result. A null
+     * context stands for an unknown context.
+     */
+    public boolean dependsOn(String predicate, String context) {
+        return (predicates == null || predicates.contains(predicate)) && (contexts == null || context == null || contexts.contains(context));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.api.sparql;
+
+import java.util.List;
+
+/**
+ * Keeps track of the SPARQL queries executed by the {@link SparqlService}: a bounded history of recent queries,
+ * a bounded history of slow queries (which are also written to the slow query log), and aggregate counters
+ * published in the statistics service.
+ */
+public interface SparqlMonitoringService {
+
+    /**
+     * Create a new profile for a query that is about to be executed.
+     *
+     * @param query the query string
+     * @param type  the query type (TUPLE, BOOL, GRAPH or UPDATE)
+     */
+    SparqlQueryProfile startQuery(String query, String type);
+
+    /**
+     * Finish the profile with the given status and record it in the query history, the slow query log and the
+     * aggregate counters. Profiles that have already been finished are ignored.
+     *
+     * @param profile the profile returned by {@link #startQuery(String, String)}
+     * @param status  the final status of the query
+     * @param error   an error message in case the query failed, or null
+     */
+    void finishQuery(SparqlQueryProfile profile, SparqlQueryProfile.Status status, String error);
+
+    /**
+     * Return the most recent queries, newest first.
+     */
+    List<SparqlQueryProfile> getRecentQueries();
+
+    /**
+     * Return the most recent queries exceeding the slow query threshold, newest first.
+     */
+    List<SparqlQueryProfile> getSlowQueries();
+
+    /**
+     * Return the queries that are currently running.
+     */
+    List<SparqlQueryProfile> getRunningQueries();
+
+    /**
+     * Clear the query histories (the aggregate counters are not reset).
+     */
+    void clear();
+}
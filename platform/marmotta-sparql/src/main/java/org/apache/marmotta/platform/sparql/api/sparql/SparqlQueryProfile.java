@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.api.sparql;
+
+import org.apache.marmotta.kiwi.sparql.evaluation.KiWiQueryProfile;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution profile of a single SPARQL query or update: timings of the individual phases (parsing, SQL execution,
+ * node materialization, in-memory evaluation and result serialization), the number of result rows, and - when
+ * running on the KiWi backend - whether the query was pushed down to the database, the generated SQL and the
+ * number of SQL result rows.
+ * <p/>
+ * Profiles are created by the {@link SparqlMonitoringService} and filled in by the SPARQL service while the query
+ * is running. Once finished, a profile is not modified anymore.
+ */
+public class SparqlQueryProfile {
+
+    public enum Status { RUNNING, OK, ERROR, TIMEOUT }
+
+    public enum Pushdown { NONE, PARTIAL, FULL }
+
+    private final long id;
+
+    private final String query;
+
+    private volatile String type;
+
+    private final Date started;
+
+    private final long startNanos;
+
+    private volatile long parseNanos;
+
+    private volatile long serializationNanos;
+
+    private volatile long totalNanos;
+
+    private volatile long rows;
+
+    private volatile Status status = Status.RUNNING;
+
+    private volatile String error;
+
+    private volatile KiWiQueryProfile kiwiProfile;
+
+    public SparqlQueryProfile(long id, String query, String type) {
+        this.id = id;
+        this.query = query;
+        this.type = type;
+        this.started = new Date();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of the parsing phase; called once the query has been prepared.
+     */
+    public void parsed() {
+        parseNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Add time spent in the result writer. Only called from the thread evaluating the query.
+     */
+    public void addSerializationNanos(long nanos) {
+        serializationNanos += nanos;
+    }
+
+    /**
+     * Count a result row (solution or statement) written to the client. Only called from the thread evaluating
+     * the query.
+     */
+    public void addRow() {
+        rows++;
+    }
+
+    /**
+     * Attach the KiWi profile collected while evaluating the query in the database (if any).
+     */
+    public void attach(KiWiQueryProfile kiwiProfile) {
+        this.kiwiProfile = kiwiProfile;
+    }
+
+    /**
+     * Finish the profile with the given status. Only the first call has an effect, so a query that ran into a
+     * timeout keeps its status even if the evaluation thread finishes later.
+     *
+     * @return true if the profile was finished by this call
+     */
+    public synchronized boolean finish(Status status, String error) {
+        if(this.status != Status.RUNNING) {
+            return false;
+        }
+        this.totalNanos = System.nanoTime() - startNanos;
+        this.error  = error;
+        this.status = status;
+        return true;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * The type of the query (TUPLE, BOOL, GRAPH or UPDATE); null if the query has not been parsed yet
+     */
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getParseMillis() {
+        return millis(parseNanos);
+    }
+
+    public double getSqlMillis() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? millis(p.getSqlNanos()) : 0;
+    }
+
+    public double getMaterializationMillis() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? millis(p.getMaterializationNanos()) : 0;
+    }
+
+    public double getSerializationMillis() {
+        return millis(serializationNanos);
+    }
+
+    /**
+     * Time spent in the in-memory evaluation, i.e. the total time minus the time of all other phases.
+     */
+    public double getEvaluationMillis() {
+        return Math.max(0, getTotalMillis() - getParseMillis() - getSqlMillis() - getMaterializationMillis() - getSerializationMillis());
+    }
+
+    /**
+     * Total wall clock time of the query; for running queries the time elapsed so far.
+     */
+    public double getTotalMillis() {
+        return millis(status == Status.RUNNING ? System.nanoTime() - startNanos : totalNanos);
+    }
+
+    public Pushdown getPushdown() {
+        KiWiQueryProfile p = kiwiProfile;
+        if(p == null || p.getPushdowns() == 0) {
+            return Pushdown.NONE;
+        } else if(p.isFullyPushedDown()) {
+            return Pushdown.FULL;
+        } else {
+            return Pushdown.PARTIAL;
+        }
+    }
+
+    public long getSqlRows() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? p.getSqlRows() : 0;
+    }
+
+    public int getSqlQueries() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? p.getPushdowns() : 0;
+    }
+
+    public List<String> getSql() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? p.getSqlStatements() : Collections.<String>emptyList();
+    }
+
+    /**
+     * Names of the query constructs that could not be translated into SQL and were evaluated in memory.
+     */
+    public Set<String> getFallbacks() {
+        KiWiQueryProfile p = kiwiProfile;
+        return p != null ? p.getFallbacks() : Collections.<String>emptySet();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SPARQL %s query %d: %s after %.1fms (parse %.1fms, sql %.1fms, materialization %.1fms, evaluation %.1fms, serialization %.1fms), %d rows, %d SQL rows, pushdown %s",
+                type, id, status, getTotalMillis(), getParseMillis(), getSqlMillis(), getMaterializationMillis(), getEvaluationMillis(), getSerializationMillis(), rows, getSqlRows(), getPushdown());
+    }
+}
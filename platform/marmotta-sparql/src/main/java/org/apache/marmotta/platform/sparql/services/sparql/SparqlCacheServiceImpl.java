@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.services.sparql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.marmotta.commons.sesame.transactions.model.TransactionData;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsModule;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsService;
+import org.apache.marmotta.platform.core.events.ConfigurationChangedEvent;
+import org.apache.marmotta.platform.core.qualifiers.event.transaction.AfterCommit;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCacheService;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCachedResult;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.Query;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.algebra.BNodeGenerator;
+import org.openrdf.query.algebra.FunctionCall;
+import org.openrdf.query.algebra.Service;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
+import org.openrdf.query.parser.ParsedQuery;
+import org.openrdf.repository.sail.SailQuery;
+import org.slf4j.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of the SPARQL result cache. Results are kept in memory, bounded by the total size of the
+ * serialized results (sparql.cache.max_size, in KB) and optionally expired after a fixed time (sparql.cache.expiry,
+ * in seconds). After each commit, the results depending on a predicate and context changed by the transaction are
+ * removed from the cache.
+ */
+@ApplicationScoped
+public class SparqlCacheServiceImpl implements SparqlCacheService {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private ConfigurationService configurationService;
+
+    @Inject
+    private StatisticsService statisticsService;
+
+    private volatile Cache<String,SparqlCachedResult> cache;
+
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private final AtomicLong hits          = new AtomicLong();
+    private final AtomicLong misses        = new AtomicLong();
+    private final AtomicLong stored        = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile boolean statistics = true;
+
+    @PostConstruct
+    public void initialize() {
+        createCache();
+        statisticsService.registerModule(SparqlCacheService.class.getSimpleName(), new SparqlCacheStatistics());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        statisticsService.unregisterModule(SparqlCacheService.class.getSimpleName());
+    }
+
+    /**
+     * Rebuild the cache when its size or expiry changed. The configuration events are delivered with a delay, so
+     * sparql.cache.enabled and sparql.cache.max_entry_size are read on every call instead and switching the cache on
+     * or off keeps its content; results are invalidated after each commit even while the cache is disabled, so the
+     * content is never stale.
+     */
+    public void configurationChanged(@Observes ConfigurationChangedEvent event) {
+        if(event.containsChangedKey("sparql.cache.max_size") || event.containsChangedKey("sparql.cache.expiry")) {
+            createCache();
+        }
+    }
+
+    private void createCache() {
+        long maxSize = Math.max(0, configurationService.getIntConfiguration("sparql.cache.max_size", 65536)) * 1024L;
+        int  expiry  = configurationService.getIntConfiguration("sparql.cache.expiry", 3600);
+
+        CacheBuilder<String,SparqlCachedResult> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher(new Weigher<String, SparqlCachedResult>() {
+                    @Override
+                    public int weigh(String key, SparqlCachedResult value) {
+                        return key.length() + value.getSize();
+                    }
+                });
+        if(expiry > 0) {
+            builder.expireAfterWrite(expiry, TimeUnit.SECONDS);
+        }
+        cache = builder.build();
+
+        log.info("SPARQL result cache {} (max. {} KB)", isEnabled() ? "enabled" : "disabled", maxSize / 1024);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return configurationService.getBooleanConfiguration("sparql.cache.enabled", false);
+    }
+
+    @Override
+    public int getMaxEntrySize() {
+        return Math.max(0, configurationService.getIntConfiguration("sparql.cache.max_entry_size", 1024)) * 1024;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @Override
+    public SparqlCachedResult lookup(QueryLanguage language, String query, String format) {
+        if(!isEnabled()) {
+            return null;
+        }
+        SparqlCachedResult result = cache.getIfPresent(getKey(language, query, format));
+        if(statistics) {
+            if(result != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean store(QueryLanguage language, String query, String format, Query parsedQuery, String type, byte[] result, long generation) {
+        if(!isEnabled() || result.length > getMaxEntrySize() || !(parsedQuery instanceof SailQuery)) {
+            return false;
+        }
+
+        ParsedQuery parsed = ((SailQuery) parsedQuery).getParsedQuery();
+        DependencyCollector dependencies = new DependencyCollector(parsed.getDataset());
+        parsed.getTupleExpr().visit(dependencies);
+        if(!dependencies.cacheable) {
+            log.debug("SPARQL query result is not cacheable:\n{}", query);
+            return false;
+        }
+
+        // comparing the generation and storing the entry is atomic with respect to the invalidation after a commit,
+        // so a result computed while a transaction committed is never added to the cache
+        String key = getKey(language, query, format);
+        SparqlCachedResult entry = new SparqlCachedResult(type, result, dependencies.predicates, dependencies.contexts);
+        synchronized (this.generation) {
+            if(this.generation.get() != generation) {
+                return false;
+            }
+            cache.put(key, entry);
+        }
+        if(statistics) {
+            stored.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Remove all results from the cache that depend on a predicate and context changed by the transaction.
+     */
+    public void afterCommit(@Observes @AfterCommit TransactionData data) {
+        if(data.getAddedTriples().isEmpty() && data.getRemovedTriples().isEmpty()) {
+            return;
+        }
+
+        Set<String> predicates = new HashSet<>();
+        Set<String> contexts   = new HashSet<>();
+        boolean unknownContext = false;
+        for(Set<? extends Statement> triples : Arrays.<Set<? extends Statement>>asList(data.getAddedTriples(), data.getRemovedTriples())) {
+            for(Statement triple : triples) {
+                predicates.add(triple.getPredicate().stringValue());
+                if(triple.getContext() != null) {
+                    contexts.add(triple.getContext().stringValue());
+                } else {
+                    unknownContext = true;
+                }
+            }
+        }
+
+        synchronized (generation) {
+            generation.incrementAndGet();
+
+            for(Map.Entry<String,SparqlCachedResult> entry : cache.asMap().entrySet()) {
+                if(dependsOn(entry.getValue(), predicates, contexts, unknownContext)) {
+                    cache.invalidate(entry.getKey());
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static boolean dependsOn(SparqlCachedResult result, Set<String> predicates, Set<String> contexts, boolean unknownContext) {
+        for(String predicate : predicates) {
+            if(unknownContext && result.dependsOn(predicate, null)) {
+                return true;
+            }
+            for(String context : contexts) {
+                if(result.dependsOn(predicate, context)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String getKey(QueryLanguage language, String query, String format) {
+        return language.getName() + "\n" + format + "\n" + normalizeQuery(query);
+    }
+
+    /**
+     * Normalize a query string for use as cache key by collapsing whitespace outside of string literals.
+     */
+    static String normalizeQuery(String query) {
+        StringBuilder result = new StringBuilder(query.length());
+        char quote = 0;
+        boolean space = false;
+        for(int i=0; i<query.length(); i++) {
+            char c = query.charAt(i);
+            if(quote != 0) {
+                result.append(c);
+                if(c == '\\' && i+1 < query.length()) {
+                    result.append(query.charAt(++i));
+                } else if(c == quote) {
+                    quote = 0;
+                }
+            } else if(Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if(space && result.length() > 0) {
+                    result.append(' ');
+                }
+                space = false;
+                if(c == '"' || c == '\'') {
+                    quote = c;
+                }
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Collect the predicates and contexts of the statement patterns of a query and check whether the query result
+     * can be cached at all.
+     */
+    private static class DependencyCollector extends QueryModelVisitorBase<RuntimeException> {
+
+        private final Set<String> datasetContexts;
+
+        private Set<String> predicates = new HashSet<>();
+
+        private Set<String> contexts = new HashSet<>();
+
+        private boolean cacheable = true;
+
+        private DependencyCollector(Dataset dataset) {
+            if(dataset != null && !(dataset.getDefaultGraphs().isEmpty() && dataset.getNamedGraphs().isEmpty())) {
+                datasetContexts = new HashSet<>();
+                for(URI graph : dataset.getDefaultGraphs()) {
+                    datasetContexts.add(graph.stringValue());
+                }
+                for(URI graph : dataset.getNamedGraphs()) {
+                    datasetContexts.add(graph.stringValue());
+                }
+            } else {
+                datasetContexts = null;
+            }
+        }
+
+        @Override
+        public void meet(StatementPattern node) throws RuntimeException {
+            if(node.getPredicateVar().hasValue()) {
+                if(predicates != null) {
+                    predicates.add(node.getPredicateVar().getValue().stringValue());
+                }
+            } else {
+                predicates = null;
+            }
+
+            if(node.getContextVar() != null && node.getContextVar().hasValue() && node.getContextVar().getValue() instanceof Resource) {
+                if(contexts != null) {
+                    contexts.add(node.getContextVar().getValue().stringValue());
+                }
+            } else if(datasetContexts != null) {
+                if(contexts != null) {
+                    contexts.addAll(datasetContexts);
+                }
+            } else {
+                contexts = null;
+            }
+        }
+
+        @Override
+        public void meet(Service node) throws RuntimeException {
+            // results of remote services are not affected by local transactions
+            cacheable = false;
+        }
+
+        @Override
+        public void meet(BNodeGenerator node) throws RuntimeException {
+            cacheable = false;
+        }
+
+        @Override
+        public void meet(FunctionCall node) throws RuntimeException {
+            String uri = node.getURI().toLowerCase();
+            if(uri.endsWith("now") || uri.endsWith("rand") || uri.endsWith("random") || uri.endsWith("uuid")) {
+                cacheable = false;
+            }
+            super.meet(node);
+        }
+    }
+
+    private class SparqlCacheStatistics implements StatisticsModule {
+
+        private final String[] KEYS = {
+                "cached results", "cache hits", "cache misses", "stored results", "invalidated results"
+        };
+
+        @Override
+        public void enable() {
+            statistics = true;
+        }
+
+        @Override
+        public void disable() {
+            statistics = false;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return statistics;
+        }
+
+        @Override
+        public List<String> getPropertyNames() {
+            return Collections.unmodifiableList(Arrays.asList(KEYS));
+        }
+
+        @Override
+        public Map<String, String> getStatistics() {
+            final Map<String, String> data = new LinkedHashMap<String, String>();
+            int i = 0;
+            data.put(KEYS[i++], String.valueOf(cache.size()));
+            data.put(KEYS[i++], String.valueOf(hits.get()));
+            data.put(KEYS[i++], String.valueOf(misses.get()));
+            data.put(KEYS[i++], String.valueOf(stored.get()));
+            data.put(KEYS[i++], String.valueOf(invalidations.get()));
+            return data;
+        }
+
+        @Override
+        public String getName() {
+            return SparqlCacheService.class.getSimpleName();
+        }
+    }
+}
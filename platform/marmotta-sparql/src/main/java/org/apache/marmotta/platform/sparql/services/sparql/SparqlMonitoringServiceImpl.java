@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.services.sparql;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsModule;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsService;
+import org.apache.marmotta.platform.core.events.ConfigurationChangedEvent;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlMonitoringService;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlQueryProfile;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlQueryProfile.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of the SPARQL monitoring service. Queries exceeding the configured threshold are written
+ * to the slow query log (logger "org.apache.marmotta.platform.sparql.slowlog", configurable as a separate logging
+ * module) together with the generated SQL.
+ */
+@ApplicationScoped
+public class SparqlMonitoringServiceImpl implements SparqlMonitoringService {
+
+    public static final String SLOW_QUERY_LOGGER = "org.apache.marmotta.platform.sparql.slowlog";
+
+    private static Logger slowLog = LoggerFactory.getLogger(SLOW_QUERY_LOGGER);
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private ConfigurationService configurationService;
+
+    @Inject
+    private StatisticsService statisticsService;
+
+    private final AtomicLong queryIds = new AtomicLong(0);
+
+    private final ConcurrentMap<Long,SparqlQueryProfile> running = new ConcurrentHashMap<>();
+
+    private final LinkedList<SparqlQueryProfile> recent = new LinkedList<>();
+    private final LinkedList<SparqlQueryProfile> slow   = new LinkedList<>();
+
+    private volatile boolean enabled;
+    private volatile int     historySize;
+    private volatile long    slowThreshold;
+
+    // aggregate counters are maintained independently of the query profiling, see SparqlStatistics
+    private volatile boolean statisticsEnabled = true;
+
+    // aggregate counters
+    private final AtomicLong queries       = new AtomicLong();
+    private final AtomicLong updates       = new AtomicLong();
+    private final AtomicLong errors        = new AtomicLong();
+    private final AtomicLong timeouts      = new AtomicLong();
+    private final AtomicLong slowQueries   = new AtomicLong();
+    private final AtomicLong pushdownFull    = new AtomicLong();
+    private final AtomicLong pushdownPartial = new AtomicLong();
+    private final AtomicLong rows          = new AtomicLong();
+    private final AtomicLong totalMicros   = new AtomicLong();
+    private final AtomicLong sqlMicros     = new AtomicLong();
+    private final AtomicLong materializationMicros = new AtomicLong();
+    private final AtomicLong serializationMicros   = new AtomicLong();
+
+    @PostConstruct
+    public void initialize() {
+        readConfiguration();
+        statisticsService.registerModule(SparqlMonitoringService.class.getSimpleName(), new SparqlStatistics());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        statisticsService.unregisterModule(SparqlMonitoringService.class.getSimpleName());
+    }
+
+    public void configurationChanged(@Observes ConfigurationChangedEvent event) {
+        for(String key : event.getKeys()) {
+            if(key.startsWith("sparql.monitoring.")) {
+                readConfiguration();
+                return;
+            }
+        }
+    }
+
+    private void readConfiguration() {
+        enabled       = configurationService.getBooleanConfiguration("sparql.monitoring.enabled", true);
+        historySize   = Math.max(0, configurationService.getIntConfiguration("sparql.monitoring.history", 100));
+        slowThreshold = configurationService.getLongConfiguration("sparql.monitoring.slow_threshold", 1000L);
+
+        synchronized (recent) {
+            truncate(recent);
+            truncate(slow);
+        }
+    }
+
+    @Override
+    public SparqlQueryProfile startQuery(String query, String type) {
+        SparqlQueryProfile profile = new SparqlQueryProfile(queryIds.incrementAndGet(), query, type);
+        if(enabled) {
+            running.put(profile.getId(), profile);
+        }
+        return profile;
+    }
+
+    @Override
+    public void finishQuery(SparqlQueryProfile profile, Status status, String error) {
+        if(!profile.finish(status, error)) {
+            return;
+        }
+        running.remove(profile.getId());
+
+        boolean isSlow = slowThreshold > 0 && profile.getTotalMillis() >= slowThreshold;
+        if(statisticsEnabled) {
+            if("UPDATE".equals(profile.getType())) {
+                updates.incrementAndGet();
+            } else {
+                queries.incrementAndGet();
+            }
+            if(status == Status.ERROR) {
+                errors.incrementAndGet();
+            } else if(status == Status.TIMEOUT) {
+                timeouts.incrementAndGet();
+            }
+            if(isSlow) {
+                slowQueries.incrementAndGet();
+            }
+            switch (profile.getPushdown()) {
+                case FULL:    pushdownFull.incrementAndGet(); break;
+                case PARTIAL: pushdownPartial.incrementAndGet(); break;
+                default:
+            }
+            rows.addAndGet(profile.getRows());
+            totalMicros.addAndGet((long) (profile.getTotalMillis() * 1000));
+            sqlMicros.addAndGet((long) (profile.getSqlMillis() * 1000));
+            materializationMicros.addAndGet((long) (profile.getMaterializationMillis() * 1000));
+            serializationMicros.addAndGet((long) (profile.getSerializationMillis() * 1000));
+        }
+
+        if(!enabled) {
+            return;
+        }
+
+        synchronized (recent) {
+            recent.addFirst(profile);
+            truncate(recent);
+            if(isSlow) {
+                slow.addFirst(profile);
+                truncate(slow);
+            }
+        }
+
+        if(isSlow) {
+            if(slowLog.isWarnEnabled()) {
+                StringBuilder msg = new StringBuilder();
+                msg.append(profile).append("\n").append(profile.getQuery());
+                if(!profile.getFallbacks().isEmpty()) {
+                    msg.append("\nevaluated in memory: ").append(StringUtils.join(profile.getFallbacks(), ", "));
+                }
+                for(String sql : profile.getSql()) {
+                    msg.append("\ngenerated SQL:\n").append(sql);
+                }
+                slowLog.warn(msg.toString());
+            }
+        } else if(log.isDebugEnabled()) {
+            log.debug("{}", profile);
+        }
+    }
+
+    private void truncate(LinkedList<SparqlQueryProfile> list) {
+        while(list.size() > historySize) {
+            list.removeLast();
+        }
+    }
+
+    @Override
+    public List<SparqlQueryProfile> getRecentQueries() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    @Override
+    public List<SparqlQueryProfile> getSlowQueries() {
+        synchronized (recent) {
+            return new ArrayList<>(slow);
+        }
+    }
+
+    @Override
+    public List<SparqlQueryProfile> getRunningQueries() {
+        return new ArrayList<>(running.values());
+    }
+
+    @Override
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+            slow.clear();
+        }
+    }
+
+    private class SparqlStatistics implements StatisticsModule {
+
+        private final String[] KEYS = {
+                "queries", "updates", "errors", "timeouts", "slow queries", "running queries",
+                "fully pushed down to SQL", "partially pushed down to SQL", "result rows",
+                "avg. total time", "avg. SQL time", "avg. materialization time", "avg. serialization time"
+        };
+
+        @Override
+        public void enable() {
+            statisticsEnabled = true;
+        }
+
+        @Override
+        public void disable() {
+            statisticsEnabled = false;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return statisticsEnabled;
+        }
+
+        @Override
+        public List<String> getPropertyNames() {
+            return Collections.unmodifiableList(Arrays.asList(KEYS));
+        }
+
+        @Override
+        public Map<String, String> getStatistics() {
+            final long count = Math.max(1, queries.get() + updates.get());
+
+            final Map<String, String> data = new LinkedHashMap<String, String>();
+            int i = 0;
+            data.put(KEYS[i++], String.valueOf(queries.get()));
+            data.put(KEYS[i++], String.valueOf(updates.get()));
+            data.put(KEYS[i++], String.valueOf(errors.get()));
+            data.put(KEYS[i++], String.valueOf(timeouts.get()));
+            data.put(KEYS[i++], String.valueOf(slowQueries.get()));
+            data.put(KEYS[i++], String.valueOf(running.size()));
+            data.put(KEYS[i++], String.valueOf(pushdownFull.get()));
+            data.put(KEYS[i++], String.valueOf(pushdownPartial.get()));
+            data.put(KEYS[i++], String.valueOf(rows.get()));
+            data.put(KEYS[i++], String.format("%.1f ms", totalMicros.get() / 1000.0 / count));
+            data.put(KEYS[i++], String.format("%.1f ms", sqlMicros.get() / 1000.0 / count));
+            data.put(KEYS[i++], String.format("%.1f ms", materializationMicros.get() / 1000.0 / count));
+            data.put(KEYS[i++], String.format("%.1f ms", serializationMicros.get() / 1000.0 / count));
+            return data;
+        }
+
+        @Override
+        public String getName() {
+            return SparqlMonitoringService.class.getSimpleName();
+        }
+    }
+}
@@ -19,6 +19,8 @@ package org.apache.marmotta.platform.sparql.services.sparql;
 
 import info.aduna.lang.FileFormat;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.HashMap;
@@ -42,18 +44,24 @@ import javax.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.marmotta.commons.vocabulary.SPARQL_SD;
+import org.apache.marmotta.kiwi.sparql.evaluation.KiWiQueryProfile;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
 import org.apache.marmotta.platform.core.api.templating.TemplatingService;
 import org.apache.marmotta.platform.core.api.triplestore.SesameService;
 import org.apache.marmotta.platform.core.exception.InvalidArgumentException;
 import org.apache.marmotta.platform.core.exception.MarmottaException;
 import org.apache.marmotta.platform.sparql.api.sparql.QueryType;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCacheService;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCachedResult;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlMonitoringService;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlQueryProfile;
 import org.apache.marmotta.platform.sparql.api.sparql.SparqlService;
 import org.apache.marmotta.platform.sparql.services.sparqlio.rdf.SPARQLGraphResultWriter;
 import org.apache.marmotta.platform.sparql.services.sparqlio.sparqlhtml.SPARQLHTMLSettings;
 import org.apache.marmotta.platform.sparql.webservices.SparqlWebService;
 import org.openrdf.model.BNode;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.ValueFactory;
@@ -70,6 +78,7 @@ import org.openrdf.query.QueryLanguage;
 import org.openrdf.query.QueryResultHandlerException;
 import org.openrdf.query.TupleQuery;
 import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.TupleQueryResultHandler;
 import org.openrdf.query.TupleQueryResultHandlerException;
 import org.openrdf.query.Update;
 import org.openrdf.query.UpdateExecutionException;
@@ -90,11 +99,13 @@ import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.RepositoryResult;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandler;
 import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.RDFWriterRegistry;
 import org.openrdf.rio.Rio;
 import org.openrdf.rio.UnsupportedRDFormatException;
+import org.openrdf.rio.helpers.RDFHandlerWrapper;
 import org.slf4j.Logger;
 
 /**
@@ -145,6 +156,12 @@ public class SparqlServiceImpl implements SparqlService {
     @Inject
     private SesameService sesameService;
 
+    @Inject
+    private SparqlMonitoringService monitoringService;
+
+    @Inject
+    private SparqlCacheService cacheService;
+
     private ExecutorService executorService;
 
     private long queryId = 0;
@@ -193,23 +210,26 @@ public class SparqlServiceImpl implements SparqlService {
     public void query(final QueryLanguage queryLanguage, final String query, final TupleQueryResultWriter tupleWriter, final BooleanQueryResultWriter booleanWriter, final SPARQLGraphResultWriter graphWriter, int timeoutInSeconds) throws MarmottaException, MalformedQueryException, QueryEvaluationException, TimeoutException {
 
         log.debug("executing SPARQL query:\n{}", query);
+        final SparqlQueryProfile profile = monitoringService.startQuery(query, null);
 
         Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
                 long start = System.currentTimeMillis();
+                profile.attach(KiWiQueryProfile.start());
                 try {
                     RepositoryConnection connection = sesameService.getConnection();
                     try {
                         connection.begin();
                         Query sparqlQuery = connection.prepareQuery(queryLanguage, query);
+                        profile.parsed();
 
                         if (sparqlQuery instanceof TupleQuery) {
-                            query((TupleQuery) sparqlQuery, tupleWriter);
+                            query((TupleQuery) sparqlQuery, tupleWriter, profile);
                         } else if (sparqlQuery instanceof BooleanQuery) {
-                            query((BooleanQuery) sparqlQuery, booleanWriter);
+                            query((BooleanQuery) sparqlQuery, booleanWriter, profile);
                         } else if (sparqlQuery instanceof GraphQuery) {
-                            query((GraphQuery) sparqlQuery, graphWriter.getOutputStream(), graphWriter.getFormat());
+                            query((GraphQuery) sparqlQuery, graphWriter.getOutputStream(), graphWriter.getFormat(), profile);
                         } else {
                             connection.rollback();
                             throw new InvalidArgumentException("SPARQL query type " + sparqlQuery.getClass() + " not supported!");
@@ -228,6 +248,8 @@ public class SparqlServiceImpl implements SparqlService {
                 } catch (QueryEvaluationException e) {
                     log.error("error while evaluating query: {}", e.getMessage());
                     throw new MarmottaException("error while writing query result in format ", e);
+                } finally {
+                    KiWiQueryProfile.stop();
                 }
 
                 log.debug("SPARQL execution took {}ms", System.currentTimeMillis()-start);
@@ -238,12 +260,15 @@ public class SparqlServiceImpl implements SparqlService {
 
         try {
             future.get(timeoutInSeconds, TimeUnit.SECONDS);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.OK, null);
         } catch (InterruptedException | TimeoutException e) {
             log.info("SPARQL query execution aborted due to timeout");
             future.cancel(true);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.TIMEOUT, null);
             throw new TimeoutException("SPARQL query execution aborted due to timeout (" + configurationService.getIntConfiguration("sparql.timeout",60)+"s)");
         } catch (ExecutionException e) {
             log.info("SPARQL query execution aborted due to exception");
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.ERROR, String.valueOf(e.getCause()));
             if(e.getCause() instanceof MarmottaException) {
                 throw (MarmottaException)e.getCause();
             } else if(e.getCause() instanceof MalformedQueryException) {
@@ -258,22 +283,25 @@ public class SparqlServiceImpl implements SparqlService {
     @Deprecated
     public void query(final QueryLanguage queryLanguage, final String query, final QueryResultWriter writer, final int timeoutInSeconds) throws MarmottaException, MalformedQueryException, QueryEvaluationException, TimeoutException {
         log.debug("executing SPARQL query:\n{}", query);
+        final SparqlQueryProfile profile = monitoringService.startQuery(query, null);
         Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
                 long start = System.currentTimeMillis();
+                profile.attach(KiWiQueryProfile.start());
                 try {
                     RepositoryConnection connection = sesameService.getConnection();
                     try {
                         connection.begin();
                         Query sparqlQuery = connection.prepareQuery(queryLanguage, query);
+                        profile.parsed();
 
                         if (sparqlQuery instanceof TupleQuery) {
-                            query((TupleQuery) sparqlQuery, (TupleQueryResultWriter)writer);
+                            query((TupleQuery) sparqlQuery, (TupleQueryResultWriter)writer, profile);
                         } else if (sparqlQuery instanceof BooleanQuery) {
-                            query((BooleanQuery) sparqlQuery, (BooleanQueryResultWriter)writer);
+                            query((BooleanQuery) sparqlQuery, (BooleanQueryResultWriter)writer, profile);
                         } else if (sparqlQuery instanceof GraphQuery) {
-                            query((GraphQuery) sparqlQuery, ((SPARQLGraphResultWriter)writer).getOutputStream(), ((SPARQLGraphResultWriter)writer).getFormat());
+                            query((GraphQuery) sparqlQuery, ((SPARQLGraphResultWriter)writer).getOutputStream(), ((SPARQLGraphResultWriter)writer).getFormat(), profile);
                         } else {
                             connection.rollback();
                             throw new InvalidArgumentException("SPARQL query type " + sparqlQuery.getClass() + " not supported!");
@@ -292,6 +320,8 @@ public class SparqlServiceImpl implements SparqlService {
                 } catch (QueryEvaluationException e) {
                     log.error("error while evaluating query: {}", e.getMessage());
                     throw new MarmottaException("error while writing query result in format ", e);
+                } finally {
+                    KiWiQueryProfile.stop();
                 }
 
                 log.debug("SPARQL execution took {}ms", System.currentTimeMillis()-start);
@@ -302,12 +332,15 @@ public class SparqlServiceImpl implements SparqlService {
 
         try {
             future.get(timeoutInSeconds, TimeUnit.SECONDS);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.OK, null);
         } catch (InterruptedException | TimeoutException e) {
             log.info("SPARQL query execution aborted due to timeout");
             future.cancel(true);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.TIMEOUT, null);
             throw new TimeoutException("SPARQL query execution aborted due to timeout (" + timeoutInSeconds+"s)");
         } catch (ExecutionException e) {
             log.info("SPARQL query execution aborted due to exception");
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.ERROR, String.valueOf(e.getCause()));
             if(e.getCause() instanceof MarmottaException) {
                 throw (MarmottaException)e.getCause();
             } else if(e.getCause() instanceof MalformedQueryException) {
@@ -321,27 +354,53 @@ public class SparqlServiceImpl implements SparqlService {
     @Override
     public void query(final QueryLanguage language, final String query, final OutputStream output, final String format, int timeoutInSeconds) throws MarmottaException, TimeoutException, MalformedQueryException {
         log.debug("executing SPARQL query:\n{}", query);
+
+        final SparqlCachedResult cached = cacheService.lookup(language, query, format);
+        if(cached != null) {
+            log.debug("SPARQL query result found in cache");
+            final SparqlQueryProfile profile = monitoringService.startQuery(query, cached.getType());
+            try {
+                cached.writeTo(output);
+                monitoringService.finishQuery(profile, SparqlQueryProfile.Status.OK, null);
+            } catch (IOException e) {
+                monitoringService.finishQuery(profile, SparqlQueryProfile.Status.ERROR, String.valueOf(e));
+                throw new MarmottaException("error while writing cached query result", e);
+            }
+            return;
+        }
+
+        final SparqlQueryProfile profile = monitoringService.startQuery(query, null);
+        final long cacheGeneration = cacheService.getGeneration();
         Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
                 long start = System.currentTimeMillis();
+                profile.attach(KiWiQueryProfile.start());
                 try {
                     RepositoryConnection connection = sesameService.getConnection();
                     try {
                         connection.begin();
                         Query sparqlQuery = connection.prepareQuery(language, query);
+                        profile.parsed();
+
+                        // keep a copy of the serialized result for the result cache
+                        CachingOutputStream out = cacheService.isEnabled() ? new CachingOutputStream(output, cacheService.getMaxEntrySize()) : null;
 
                         if (sparqlQuery instanceof TupleQuery) {
-                            query((TupleQuery)sparqlQuery, output, format);
+                            query((TupleQuery)sparqlQuery, out != null ? out : output, format, profile);
                         } else if (sparqlQuery instanceof BooleanQuery) {
-                            query((BooleanQuery)sparqlQuery, output, format);
+                            query((BooleanQuery)sparqlQuery, out != null ? out : output, format, profile);
                         } else if (sparqlQuery instanceof GraphQuery) {
-                            query((GraphQuery)sparqlQuery, output, format);
+                            query((GraphQuery)sparqlQuery, out != null ? out : output, format, profile);
                         } else {
                             throw new InvalidArgumentException("SPARQL query type " + sparqlQuery.getClass() + " not supported!");
                         }
 
                         connection.commit();
+
+                        if(out != null && out.getData() != null) {
+                            cacheService.store(language, query, format, sparqlQuery, profile.getType(), out.getData(), cacheGeneration);
+                        }
                     } catch (Exception ex) {
                         connection.rollback();
                         throw ex;
@@ -357,6 +416,8 @@ public class SparqlServiceImpl implements SparqlService {
                 } catch (MalformedQueryException e) {
                     log.error("error because malformed query: {}", e);
                     throw new MarmottaException("error because malformed query", e);
+                } finally {
+                    KiWiQueryProfile.stop();
                 }
 
                 log.debug("SPARQL execution took {}ms", System.currentTimeMillis()-start);
@@ -366,12 +427,15 @@ public class SparqlServiceImpl implements SparqlService {
 
         try {
             future.get(timeoutInSeconds, TimeUnit.SECONDS);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.OK, null);
         } catch (InterruptedException | TimeoutException e) {
             log.info("SPARQL query execution aborted due to timeout");
             future.cancel(true);
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.TIMEOUT, null);
             throw new TimeoutException("SPARQL query execution aborted due to timeout (" + configurationService.getIntConfiguration("sparql.timeout",60)+"s)");
         } catch (ExecutionException e) {
             log.info("SPARQL query execution aborted due to exception");
+            monitoringService.finishQuery(profile, SparqlQueryProfile.Status.ERROR, String.valueOf(e.getCause()));
             if(e.getCause() instanceof MarmottaException) {
                 throw (MarmottaException)e.getCause();
             } else if(e.getCause() instanceof MalformedQueryException) {
@@ -383,39 +447,45 @@ public class SparqlServiceImpl implements SparqlService {
 
     }
 
-    private void query(TupleQuery query, TupleQueryResultWriter writer) throws QueryEvaluationException {
+    private void query(TupleQuery query, TupleQueryResultWriter writer, SparqlQueryProfile profile) throws QueryEvaluationException {
+        profile.setType(QueryType.TUPLE.name());
         try {
-            query.evaluate(writer);
+            query.evaluate(new ProfilingTupleQueryResultHandler(writer, profile));
         } catch (TupleQueryResultHandlerException e) {
             throw new QueryEvaluationException("error while writing query tuple result: ",e);
         }
     }
 
-    private void query(TupleQuery query, OutputStream output, String format) throws QueryEvaluationException {
-        query(query, getTupleResultWriter(format, output));
+    private void query(TupleQuery query, OutputStream output, String format, SparqlQueryProfile profile) throws QueryEvaluationException {
+        query(query, getTupleResultWriter(format, output), profile);
     }
 
-    private void query(BooleanQuery query, BooleanQueryResultWriter writer) throws QueryEvaluationException {
+    private void query(BooleanQuery query, BooleanQueryResultWriter writer, SparqlQueryProfile profile) throws QueryEvaluationException {
+        profile.setType(QueryType.BOOL.name());
         try {
-            writer.handleBoolean(query.evaluate());
+            boolean result = query.evaluate();
+
+            long start = System.nanoTime();
+            writer.handleBoolean(result);
+            profile.addSerializationNanos(System.nanoTime() - start);
+            profile.addRow();
         } catch (QueryResultHandlerException e) {
             throw new QueryEvaluationException("error while writing query boolean result: ",e);
         }
     }
 
-    private void query(BooleanQuery query, OutputStream output, String format) throws QueryEvaluationException {
-        query(query, getBooleanResultWriter(format, output));
+    private void query(BooleanQuery query, OutputStream output, String format, SparqlQueryProfile profile) throws QueryEvaluationException {
+        query(query, getBooleanResultWriter(format, output), profile);
     }
 
-    private void query(GraphQuery query, OutputStream output, String format) throws QueryEvaluationException {
-        query(query, output, Rio.getWriterFormatForMIMEType(format, RDFFormat.RDFXML));
+    private void query(GraphQuery query, OutputStream output, String format, SparqlQueryProfile profile) throws QueryEvaluationException {
+        query(query, output, Rio.getWriterFormatForMIMEType(format, RDFFormat.RDFXML), profile);
     }
 
-    private void query(GraphQuery query, OutputStream output, RDFFormat format) throws QueryEvaluationException {
+    private void query(GraphQuery query, OutputStream output, RDFFormat format, SparqlQueryProfile profile) throws QueryEvaluationException {
+        profile.setType(QueryType.GRAPH.name());
         try {
-            QueryResultIO.write(query.evaluate(), format, output);
-        } catch (IOException e) {
-            throw new QueryEvaluationException("error while writing query graph result: ",e);
+            query.evaluate(new ProfilingRDFHandler(Rio.createWriter(format, output), profile));
         }
         catch(RDFHandlerException e) {
             throw new QueryEvaluationException("error while writing query graph result: ",e);
@@ -442,11 +512,15 @@ public class SparqlServiceImpl implements SparqlService {
 
         List<Map<String,Value>> result = new LinkedList<Map<String, Value>>();
 
+        SparqlQueryProfile profile = monitoringService.startQuery(query, QueryType.TUPLE.name());
+        profile.attach(KiWiQueryProfile.start());
+        SparqlQueryProfile.Status status = SparqlQueryProfile.Status.ERROR;
         try {
             RepositoryConnection connection = sesameService.getConnection();
             try {
                 connection.begin();
                 TupleQuery tupleQuery = connection.prepareTupleQuery(queryLanguage, query);
+                profile.parsed();
                 TupleQueryResult r = tupleQuery.evaluate();
                 try {
                     while (r.hasNext()) {
@@ -456,12 +530,14 @@ public class SparqlServiceImpl implements SparqlService {
                             map.put(binding.getName(), binding.getValue());
                         }
                         result.add(map);
+                        profile.addRow();
                     }
                 } finally {
                     r.close();
                 }
                 //
                 connection.commit();
+                status = SparqlQueryProfile.Status.OK;
             } finally {
                 connection.close();
             }
@@ -472,6 +548,9 @@ public class SparqlServiceImpl implements SparqlService {
             throw new MarmottaException("error while evaluating SPARQL query "+query,e);
         } catch (MalformedQueryException e) {
             throw new InvalidArgumentException("malformed SPARQL query ("+query+") for language "+queryLanguage,e);
+        } finally {
+            KiWiQueryProfile.stop();
+            monitoringService.finishQuery(profile, status, null);
         }
 
         log.debug("SPARQL execution took {}ms",System.currentTimeMillis()-start);
@@ -493,13 +572,18 @@ public class SparqlServiceImpl implements SparqlService {
 
         log.debug("executing SPARQL update:\n{}", query);
 
+        SparqlQueryProfile profile = monitoringService.startQuery(query, "UPDATE");
+        profile.attach(KiWiQueryProfile.start());
+        SparqlQueryProfile.Status status = SparqlQueryProfile.Status.ERROR;
         try {
             RepositoryConnection connection = sesameService.getConnection();
             try {
                 connection.begin();
                 Update update = connection.prepareUpdate(queryLanguage,query,configurationService.getBaseUri());
+                profile.parsed();
                 update.execute();
                 connection.commit();
+                status = SparqlQueryProfile.Status.OK;
             } catch (UpdateExecutionException e) {
                 connection.rollback();
                 throw new MarmottaException("error while executing update",e);
@@ -512,6 +596,9 @@ public class SparqlServiceImpl implements SparqlService {
         } catch(RepositoryException ex) {
             log.error("error while getting repository connection", ex);
             throw new MarmottaException("error while getting repository connection",ex);
+        } finally {
+            KiWiQueryProfile.stop();
+            monitoringService.finishQuery(profile, status, null);
         }
         log.debug("SPARQL update execution took {}ms",System.currentTimeMillis()-start);
 
@@ -525,13 +612,18 @@ public class SparqlServiceImpl implements SparqlService {
         log.debug("executing SPARQL ask:\n{}", query);
 
         boolean result = false;
+        SparqlQueryProfile profile = monitoringService.startQuery(query, QueryType.BOOL.name());
+        profile.attach(KiWiQueryProfile.start());
+        SparqlQueryProfile.Status status = SparqlQueryProfile.Status.ERROR;
         try {
             RepositoryConnection connection = sesameService.getConnection();
             try {
                 connection.begin();
                 BooleanQuery ask = connection.prepareBooleanQuery(queryLanguage, query);
+                profile.parsed();
                 result = ask.evaluate();
                 connection.commit();
+                status = SparqlQueryProfile.Status.OK;
             } catch (MalformedQueryException e) {
                 throw new MarmottaException("malformed query, update failed",e);
             } catch (QueryEvaluationException e) {
@@ -542,6 +634,9 @@ public class SparqlServiceImpl implements SparqlService {
         } catch(RepositoryException ex) {
             log.error("error while getting repository connection", ex);
             throw new MarmottaException("error while getting repository connection",ex);
+        } finally {
+            KiWiQueryProfile.stop();
+            monitoringService.finishQuery(profile, status, null);
         }
         log.debug("SPARQL update execution took {}ms",System.currentTimeMillis()-start);
         return result;
@@ -659,4 +754,132 @@ public class SparqlServiceImpl implements SparqlService {
         } 
         return QueryResultIO.createWriter(resultFormat, os);
     }
+
+    /**
+     * Tuple result handler counting the solutions written to the client and the time spent in the result writer.
+     */
+    private static class ProfilingTupleQueryResultHandler implements TupleQueryResultHandler {
+
+        private final TupleQueryResultHandler delegate;
+        private final SparqlQueryProfile profile;
+
+        private ProfilingTupleQueryResultHandler(TupleQueryResultHandler delegate, SparqlQueryProfile profile) {
+            this.delegate = delegate;
+            this.profile = profile;
+        }
+
+        @Override
+        public void startQueryResult(List<String> bindingNames) throws TupleQueryResultHandlerException {
+            long start = System.nanoTime();
+            delegate.startQueryResult(bindingNames);
+            profile.addSerializationNanos(System.nanoTime() - start);
+        }
+
+        @Override
+        public void endQueryResult() throws TupleQueryResultHandlerException {
+            long start = System.nanoTime();
+            delegate.endQueryResult();
+            profile.addSerializationNanos(System.nanoTime() - start);
+        }
+
+        @Override
+        public void handleSolution(BindingSet bindingSet) throws TupleQueryResultHandlerException {
+            long start = System.nanoTime();
+            delegate.handleSolution(bindingSet);
+            profile.addSerializationNanos(System.nanoTime() - start);
+            profile.addRow();
+        }
+
+        @Override
+        public void handleBoolean(boolean value) throws QueryResultHandlerException {
+            delegate.handleBoolean(value);
+        }
+
+        @Override
+        public void handleLinks(List<String> linkUrls) throws QueryResultHandlerException {
+            delegate.handleLinks(linkUrls);
+        }
+    }
+
+    /**
+     * RDF handler counting the statements written to the client and the time spent in the RDF writer.
+     */
+    private static class ProfilingRDFHandler extends RDFHandlerWrapper {
+
+        private final SparqlQueryProfile profile;
+
+        private ProfilingRDFHandler(RDFHandler delegate, SparqlQueryProfile profile) {
+            super(delegate);
+            this.profile = profile;
+        }
+
+        @Override
+        public void startRDF() throws RDFHandlerException {
+            long start = System.nanoTime();
+            super.startRDF();
+            profile.addSerializationNanos(System.nanoTime() - start);
+        }
+
+        @Override
+        public void endRDF() throws RDFHandlerException {
+            long start = System.nanoTime();
+            super.endRDF();
+            profile.addSerializationNanos(System.nanoTime() - start);
+        }
+
+        @Override
+        public void handleStatement(Statement st) throws RDFHandlerException {
+            long start = System.nanoTime();
+            super.handleStatement(st);
+            profile.addSerializationNanos(System.nanoTime() - start);
+            profile.addRow();
+        }
+    }
+
+    /**
+     * An output stream keeping a copy of the data written to the wrapped stream, up to a maximum size; used for
+     * storing serialized results in the result cache.
+     */
+    private static class CachingOutputStream extends FilterOutputStream {
+
+        private final int maxSize;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private CachingOutputStream(OutputStream out, int maxSize) {
+            super(out);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if(buffer != null) {
+                buffer.write(b);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if(buffer != null) {
+                buffer.write(b, off, len);
+                checkSize();
+            }
+        }
+
+        private void checkSize() {
+            if(buffer.size() > maxSize) {
+                buffer = null;
+            }
+        }
+
+        /**
+         * The data written to the stream, or null if it exceeded the maximum size
+         */
+        private byte[] getData() {
+            return buffer != null ? buffer.toByteArray() : null;
+        }
+    }
 }
@@ -29,6 +29,8 @@ import org.apache.marmotta.platform.core.exception.InvalidArgumentException;
 import org.apache.marmotta.platform.core.exception.MarmottaException;
 import org.apache.marmotta.platform.core.util.WebServiceUtil;
 import org.apache.marmotta.platform.sparql.api.sparql.QueryType;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlMonitoringService;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlQueryProfile;
 import org.apache.marmotta.platform.sparql.api.sparql.SparqlService;
 import org.jboss.resteasy.spi.NoLogWebApplicationException;
 import org.openrdf.query.MalformedQueryException;
@@ -81,6 +83,7 @@ public class SparqlWebService {
     public static final String PATH = "sparql";
     public static final String SELECT = "/select";
     public static final String UPDATE = "/update";
+    public static final String MONITORING = "/monitoring";
 
     private static final Map<String,String> outputMapper = new HashMap<String,String>(){
         private static final long serialVersionUID = 1L;
@@ -98,6 +101,9 @@ public class SparqlWebService {
     @Inject
     private SparqlService sparqlService;
 
+    @Inject
+    private SparqlMonitoringService monitoringService;
+
     @Inject
     private ConfigurationService configurationService;
     
@@ -403,6 +409,46 @@ public class SparqlWebService {
         }
 	}
 
+    /**
+     * Return the execution profiles of recent SPARQL queries and updates as JSON: timings of the individual phases
+     * (parse, SQL, materialization, evaluation, serialization), row counts, whether the query was pushed down to the
+     * database, and the generated SQL.
+     *
+     * @param list which queries to return: "recent" (default), "slow" (queries above the slow query threshold) or
+     *             "running" (queries currently being executed)
+     * @HTTP 200 in case the list was returned successfully
+     * @HTTP 400 in case the list name is unknown
+     * @return a JSON list of query profiles, newest first
+     */
+    @GET
+    @Path(MONITORING)
+    @Produces("application/json")
+    public Response getQueryProfiles(@QueryParam("list") @DefaultValue("recent") String list) {
+        final List<SparqlQueryProfile> profiles;
+        if ("recent".equals(list)) {
+            profiles = monitoringService.getRecentQueries();
+        } else if ("slow".equals(list)) {
+            profiles = monitoringService.getSlowQueries();
+        } else if ("running".equals(list)) {
+            profiles = monitoringService.getRunningQueries();
+        } else {
+            return Response.status(Status.BAD_REQUEST).entity("unknown query list " + list + " (use recent, slow or running)").build();
+        }
+        return Response.ok(profiles).build();
+    }
+
+    /**
+     * Clear the history of recent and slow queries.
+     *
+     * @HTTP 200 in case the history was cleared
+     */
+    @DELETE
+    @Path(MONITORING)
+    public Response clearQueryProfiles() {
+        monitoringService.clear();
+        return Response.ok().build();
+    }
+
     /**
      * Get right update query from both possible parameters, for keeping
      * backward compatibility with the old parameter
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.services.sparql;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.triplestore.SesameService;
+import org.apache.marmotta.platform.core.test.base.EmbeddedMarmotta;
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCacheService;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.query.Query;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.repository.RepositoryConnection;
+
+/**
+ * Test the invalidation of the SPARQL result cache when transactions commit changes to the triple store.
+ */
+public class SparqlCacheInvalidationTest {
+
+    private static final String FOAF = "http://xmlns.com/foaf/0.1/";
+
+    private static final String FORMAT = "application/sparql-results+json";
+
+    private static EmbeddedMarmotta marmotta;
+    private static ConfigurationService configurationService;
+    private static SesameService sesameService;
+    private static SparqlCacheService cacheService;
+
+    @BeforeClass
+    public static void setUp() {
+        marmotta = new EmbeddedMarmotta();
+        configurationService = marmotta.getService(ConfigurationService.class);
+        sesameService = marmotta.getService(SesameService.class);
+        cacheService = marmotta.getService(SparqlCacheService.class);
+
+        configurationService.setBooleanConfiguration("sparql.cache.enabled", true);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        configurationService.setBooleanConfiguration("sparql.cache.enabled", false);
+        marmotta.shutdown();
+    }
+
+    @Before
+    public void clearCache() {
+        cacheService.clear();
+    }
+
+    @Test
+    public void testSelectiveInvalidation() throws Exception {
+        URI context1 = createURI(), context2 = createURI();
+
+        String names1 = "SELECT ?s ?o FROM <" + context1 + "> WHERE { ?s <" + FOAF + "name> ?o }";
+        String knows1 = "SELECT ?s ?o FROM <" + context1 + "> WHERE { ?s <" + FOAF + "knows> ?o }";
+        String names2 = "SELECT ?s ?o FROM <" + context2 + "> WHERE { ?s <" + FOAF + "name> ?o }";
+        String any    = "SELECT ?s ?p ?o WHERE { ?s ?p ?o }";
+        for(String query : new String[] { names1, knows1, names2, any }) {
+            Assert.assertTrue(store(query, cacheService.getGeneration()));
+            Assert.assertNotNull(cacheService.lookup(QueryLanguage.SPARQL, query, FORMAT));
+        }
+
+        addName(context1);
+
+        Assert.assertNull(cacheService.lookup(QueryLanguage.SPARQL, names1, FORMAT));
+        Assert.assertNull(cacheService.lookup(QueryLanguage.SPARQL, any, FORMAT));
+        Assert.assertNotNull(cacheService.lookup(QueryLanguage.SPARQL, knows1, FORMAT));
+        Assert.assertNotNull(cacheService.lookup(QueryLanguage.SPARQL, names2, FORMAT));
+    }
+
+    @Test
+    public void testStaleGeneration() throws Exception {
+        URI context = createURI();
+        String query = "SELECT ?s ?o FROM <" + context + "> WHERE { ?s <" + FOAF + "name> ?o }";
+
+        long generation = cacheService.getGeneration();
+        addName(context);
+
+        // the result was computed before the commit and must not be cached
+        Assert.assertFalse(store(query, generation));
+        Assert.assertNull(cacheService.lookup(QueryLanguage.SPARQL, query, FORMAT));
+
+        Assert.assertTrue(store(query, cacheService.getGeneration()));
+        Assert.assertNotNull(cacheService.lookup(QueryLanguage.SPARQL, query, FORMAT));
+    }
+
+    @Test
+    public void testUncacheable() throws Exception {
+        String query = "SELECT ?s (BNODE() AS ?b) WHERE { ?s <" + FOAF + "name> ?o }";
+
+        Assert.assertFalse(store(query, cacheService.getGeneration()));
+        Assert.assertNull(cacheService.lookup(QueryLanguage.SPARQL, query, FORMAT));
+    }
+
+
+    private boolean store(String query, long generation) throws Exception {
+        RepositoryConnection connection = sesameService.getConnection();
+        try {
+            Query parsed = connection.prepareTupleQuery(QueryLanguage.SPARQL, query);
+            return cacheService.store(QueryLanguage.SPARQL, query, FORMAT, parsed, "TUPLE", new byte[16], generation);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void addName(URI context) throws Exception {
+        RepositoryConnection connection = sesameService.getConnection();
+        try {
+            connection.begin();
+            connection.add(createURI(), connection.getValueFactory().createURI(FOAF + "name"), connection.getValueFactory().createLiteral("Name"), context);
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private URI createURI() {
+        return sesameService.getValueFactory().createURI("http://localhost/test/" + RandomStringUtils.randomAlphanumeric(8));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.sparql.services.sparql;
+
+import org.apache.marmotta.platform.sparql.api.sparql.SparqlCachedResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * Tests for the query normalization and the dependency check of the SPARQL result cache
+ */
+public class SparqlCacheServiceImplTest {
+
+    @Test
+    public void testNormalizeQuery() {
+        Assert.assertEquals(
+                SparqlCacheServiceImpl.normalizeQuery("SELECT ?s WHERE { ?s ?p ?o }"),
+                SparqlCacheServiceImpl.normalizeQuery("  SELECT ?s\n  WHERE {\n\t?s ?p ?o\n}\n"));
+    }
+
+    @Test
+    public void testNormalizeQueryLiterals() {
+        Assert.assertEquals("SELECT ?s WHERE { ?s ?p \"a  b\" }", SparqlCacheServiceImpl.normalizeQuery("SELECT ?s WHERE { ?s ?p \"a  b\" }"));
+        Assert.assertEquals("SELECT ?s WHERE { ?s ?p 'a \\'  b' }", SparqlCacheServiceImpl.normalizeQuery("SELECT ?s WHERE {  ?s ?p 'a \\'  b' }"));
+        Assert.assertNotEquals(
+                SparqlCacheServiceImpl.normalizeQuery("SELECT ?s WHERE { ?s ?p \"a b\" }"),
+                SparqlCacheServiceImpl.normalizeQuery("SELECT ?s WHERE { ?s ?p \"a  b\" }"));
+    }
+
+    @Test
+    public void testDependencies() {
+        SparqlCachedResult restricted = new SparqlCachedResult("TUPLE", new byte[0], Collections.singleton("http://xmlns.com/foaf/0.1/name"), Collections.singleton("http://localhost/context/default"));
+        Assert.assertTrue(restricted.dependsOn("http://xmlns.com/foaf/0.1/name", "http://localhost/context/default"));
+        Assert.assertTrue(restricted.dependsOn("http://xmlns.com/foaf/0.1/name", null));
+        Assert.assertFalse(restricted.dependsOn("http://xmlns.com/foaf/0.1/name", "http://localhost/context/other"));
+        Assert.assertFalse(restricted.dependsOn("http://xmlns.com/foaf/0.1/knows", "http://localhost/context/default"));
+
+        SparqlCachedResult unrestricted = new SparqlCachedResult("TUPLE", new byte[0], null, null);
+        Assert.assertTrue(unrestricted.dependsOn("http://xmlns.com/foaf/0.1/knows", "http://localhost/context/other"));
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.marmotta.platform.sparql.webservices;
 
 import static com.jayway.restassured.RestAssured.expect;
+import static org.hamcrest.Matchers.hasItem;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -192,4 +193,26 @@ public class SparqlWebServiceTest {
     		get("/sparql/select");
     }
 
+    @Test
+    public void testMonitoring() throws IOException, InterruptedException {
+        String query = "SELECT ?p WHERE { <http://www.wikier.org/foaf#wikier> ?p ?o }";
+        expect().
+            log().ifError().
+            statusCode(200).
+        given().
+            param("query", query).
+        when().
+            get("/sparql/select");
+
+        expect().
+            log().ifError().
+            statusCode(200).
+            contentType("application/json").
+            body("query", hasItem(query)).
+        given().
+            param("list", "recent").
+        when().
+            get("/sparql/monitoring");
+    }
+
 }
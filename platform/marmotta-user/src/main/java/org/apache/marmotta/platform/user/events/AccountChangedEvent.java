@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.user.events;
+
+/**
+ * Fired by the account service whenever the password or other properties of a user account are changed or the
+ * account is deleted, so that services caching account information can invalidate it.
+ */
+public class AccountChangedEvent {
+
+    private String login;
+
+    public AccountChangedEvent(String login) {
+        this.login = login;
+    }
+
+    /**
+     * The login of the account that has been changed
+     */
+    public String getLogin() {
+        return login;
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.marmotta.platform.core.exception.UserExistsException;
 import org.apache.marmotta.platform.core.model.user.MarmottaUser;
 import org.apache.marmotta.platform.core.qualifiers.cache.MarmottaCache;
 import org.apache.marmotta.platform.user.api.AccountService;
+import org.apache.marmotta.platform.user.events.AccountChangedEvent;
 import org.apache.marmotta.platform.user.model.UserAccount;
 import org.apache.marmotta.platform.user.model.UserAccount.PasswordHash;
 import org.openrdf.model.Resource;
@@ -36,6 +37,7 @@ import org.slf4j.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import java.util.ArrayList;
@@ -60,6 +62,9 @@ public class AccountServiceImpl implements AccountService {
     @MarmottaCache("user-cache")
     private ConcurrentMap userCache;
 
+    @Inject
+    private Event<AccountChangedEvent> accountChangedEvent;
+
     private PasswordHash         hashAlgo;
 
 
@@ -168,6 +173,8 @@ public class AccountServiceImpl implements AccountService {
         configurationService.setConfiguration("user."+account.getLogin()+".pwhash", account.getPasswdHash());
         configurationService.setConfiguration("user."+account.getLogin()+".webid", account.getWebId());
         configurationService.setListConfiguration("user." + account.getLogin() + ".roles", new ArrayList<String>(account.getRoles()));
+
+        accountChangedEvent.fire(new AccountChangedEvent(account.getLogin()));
     }
 
     @Override
@@ -177,6 +184,8 @@ public class AccountServiceImpl implements AccountService {
         }
         userCache.remove(account.getLogin());
         userCache.remove(account.getWebId());
+
+        accountChangedEvent.fire(new AccountChangedEvent(account.getLogin()));
     }
 
     @Override
@@ -17,24 +17,43 @@
  */
 package org.apache.marmotta.platform.user.services;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsModule;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsService;
 import org.apache.marmotta.platform.core.util.CDIUtils;
 import org.apache.marmotta.platform.user.api.AccountService;
 import org.apache.marmotta.platform.user.api.AuthenticationProvider;
 import org.apache.marmotta.platform.user.api.AuthenticationService;
+import org.apache.marmotta.platform.user.events.AccountChangedEvent;
 import org.apache.marmotta.platform.user.model.UserAccount;
 import org.apache.marmotta.platform.core.api.config.ConfigurationService;
 import org.apache.marmotta.platform.core.events.ConfigurationChangedEvent;
 import org.slf4j.Logger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Any;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A simple implementation of an authentication that stores plain-text passwords in the system configuration.
@@ -58,9 +77,39 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     @Inject @Any
     private Instance<AuthenticationProvider> providers;
 
+    @Inject
+    private StatisticsService statisticsService;
+
     private AuthenticationProvider authenticationProvider;
 
+    /**
+     * Cache of successful authentications, mapping the salted digest of login and password to the login
+     */
+    private volatile Cache<String, String> authenticationCache;
+
+    /**
+     * Random salt for the credential digests, generated on startup so the digests are never valid outside this process
+     */
+    private final byte[] credentialSalt;
+
+    public AuthenticationServiceImpl() {
+        credentialSalt = new byte[16];
+        new SecureRandom().nextBytes(credentialSalt);
+    }
+
     @PostConstruct
+    protected void startup() {
+        initialize();
+        initAuthenticationCache();
+
+        statisticsService.registerModule(AuthenticationService.class.getSimpleName(), new AuthenticationStatistics());
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        statisticsService.unregisterModule(AuthenticationService.class.getSimpleName());
+    }
+
     protected void initialize() {
         log.debug("initializing AuthenticationService");
 
@@ -78,9 +127,45 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         }
     }
 
+    /**
+     * Create a new (empty) authentication cache according to the configuration. Successful authentications are
+     * remembered for user.auth.cache.ttl seconds; a TTL of 0 disables the cache.
+     */
+    private void initAuthenticationCache() {
+        int ttl  = configurationService.getIntConfiguration("user.auth.cache.ttl", 60);
+        int size = configurationService.getIntConfiguration("user.auth.cache.size", 1000);
+
+        if(ttl > 0 && size > 0) {
+            authenticationCache = CacheBuilder.newBuilder()
+                    .maximumSize(size)
+                    .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+        } else {
+            authenticationCache = null;
+        }
+    }
+
     protected void onConfigurationChange(@Observes ConfigurationChangedEvent event) {
         if (event.containsChangedKey("user.auth.provider")) {
             initialize();
+            initAuthenticationCache();
+        } else if (event.containsChangedKey("user.auth.cache.ttl") || event.containsChangedKey("user.auth.cache.size")) {
+            initAuthenticationCache();
+        }
+    }
+
+    /**
+     * Remove all cached authentications of the account that has been changed or deleted.
+     */
+    protected void onAccountChange(@Observes AccountChangedEvent event) {
+        Cache<String, String> cache = authenticationCache;
+        if (cache != null) {
+            for (Iterator<String> it = cache.asMap().values().iterator(); it.hasNext(); ) {
+                if (it.next().equals(event.getLogin())) {
+                    it.remove();
+                }
+            }
         }
     }
 
@@ -107,8 +192,42 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      */
     @Override
     public boolean authenticateUser(String login, String password) {
+        final Cache<String, String> cache = authenticationCache;
+        if (cache == null || login == null || password == null) {
+            log.debug("AUTH {} with {}", login, authenticationProvider != null ? authenticationProvider.getClass().getSimpleName() : null);
+            return authenticationProvider.checkPassword(accountService.getAccount(login), password);
+        }
+
+        final String key = getCredentialDigest(login, password);
+        if (login.equals(cache.getIfPresent(key))) {
+            log.debug("AUTH {} from cache", login);
+            return true;
+        }
+
         log.debug("AUTH {} with {}", login, authenticationProvider != null ? authenticationProvider.getClass().getSimpleName() : null);
-        return authenticationProvider.checkPassword(accountService.getAccount(login), password);
+        if (authenticationProvider.checkPassword(accountService.getAccount(login), password)) {
+            cache.put(key, login);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Compute the salted SHA-256 digest of the credentials, used as key of the authentication cache so that no
+     * plain-text passwords are kept in memory.
+     */
+    private String getCredentialDigest(String login, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(credentialSalt);
+            digest.update(login.getBytes(Charset.forName("UTF-8")));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(Charset.forName("UTF-8")));
+            return Hex.encodeHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported by the Java runtime", e);
+        }
     }
 
 
@@ -163,5 +282,51 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         accountService.removeRole(a, role);
     }
 
+    private class AuthenticationStatistics implements StatisticsModule {
+
+        private final String[] KEYS = { "cached authentications", "cache hits", "cache misses", "cache hit rate", "cache evictions" };
+
+        private boolean enabled = true;
 
+        @Override
+        public void enable() {
+            enabled = true;
+        }
+
+        @Override
+        public void disable() {
+            enabled = false;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public List<String> getPropertyNames() {
+            return Collections.unmodifiableList(Arrays.asList(KEYS));
+        }
+
+        @Override
+        public Map<String, String> getStatistics() {
+            final Map<String, String> data = new LinkedHashMap<String, String>();
+            final Cache<String, String> cache = authenticationCache;
+            if (cache != null) {
+                final CacheStats stats = cache.stats();
+                int i = 0;
+                data.put(KEYS[i++], String.valueOf(cache.size()));
+                data.put(KEYS[i++], String.valueOf(stats.hitCount()));
+                data.put(KEYS[i++], String.valueOf(stats.missCount()));
+                data.put(KEYS[i++], String.format("%.2f%%", stats.hitRate() * 100));
+                data.put(KEYS[i++], String.valueOf(stats.evictionCount()));
+            }
+            return data;
+        }
+
+        @Override
+        public String getName() {
+            return AuthenticationService.class.getSimpleName();
+        }
+    }
 }
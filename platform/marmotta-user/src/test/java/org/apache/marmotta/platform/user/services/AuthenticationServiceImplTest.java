@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.marmotta.platform.user.services;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.marmotta.platform.core.api.config.ConfigurationService;
+import org.apache.marmotta.platform.core.api.statistics.StatisticsService;
+import org.apache.marmotta.platform.core.test.base.EmbeddedMarmotta;
+import org.apache.marmotta.platform.user.api.AccountService;
+import org.apache.marmotta.platform.user.api.AuthenticationService;
+import org.apache.marmotta.platform.user.model.UserAccount;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Test the cache of successful authentications in the authentication service, in particular that failed logins are
+ * not cached and that changing or deleting an account invalidates its cached authentications.
+ */
+public class AuthenticationServiceImplTest {
+
+    private static EmbeddedMarmotta marmotta;
+    private static ConfigurationService configurationService;
+    private static AccountService accountService;
+    private static AuthenticationService authenticationService;
+    private static StatisticsService statisticsService;
+
+    @BeforeClass
+    public static void setUp() {
+        marmotta = new EmbeddedMarmotta();
+        configurationService = marmotta.getService(ConfigurationService.class);
+        accountService = marmotta.getService(AccountService.class);
+        authenticationService = marmotta.getService(AuthenticationService.class);
+        statisticsService = marmotta.getService(StatisticsService.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        marmotta.shutdown();
+    }
+
+    @After
+    public void resetCache() {
+        configurationService.setIntConfiguration("user.auth.cache.ttl", 60);
+    }
+
+    @Test
+    public void testCachedAuthentication() {
+        UserAccount account = createAccount("secret");
+
+        long hits = getStatistic("cache hits");
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertEquals(hits, getStatistic("cache hits"));
+
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertEquals(hits + 1, getStatistic("cache hits"));
+    }
+
+    @Test
+    public void testFailedAuthenticationNotCached() {
+        UserAccount account = createAccount("secret");
+
+        long size = getStatistic("cached authentications");
+        Assert.assertFalse(authenticationService.authenticateUser(account.getLogin(), "wrong"));
+        Assert.assertFalse(authenticationService.authenticateUser(account.getLogin(), "wrong"));
+        Assert.assertEquals(size, getStatistic("cached authentications"));
+
+        // a cached successful login must not make other passwords valid
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertFalse(authenticationService.authenticateUser(account.getLogin(), "wrong"));
+    }
+
+    @Test
+    public void testPasswordChange() {
+        UserAccount account = createAccount("secret");
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+
+        accountService.setPassword(accountService.getAccount(account.getLogin()), "changed");
+
+        Assert.assertFalse(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "changed"));
+    }
+
+    @Test
+    public void testDeleteAccount() {
+        UserAccount account = createAccount("secret");
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+
+        accountService.deleteAccount(accountService.getAccount(account.getLogin()));
+
+        Assert.assertFalse(authenticationService.authenticateUser(account.getLogin(), "secret"));
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        configurationService.setIntConfiguration("user.auth.cache.ttl", 0);
+
+        UserAccount account = createAccount("secret");
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertTrue(authenticationService.authenticateUser(account.getLogin(), "secret"));
+        Assert.assertTrue(getStatistics().isEmpty());
+    }
+
+
+    private UserAccount createAccount(String password) {
+        UserAccount account = accountService.createAccount("auth-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+        return accountService.setPassword(account, password);
+    }
+
+    private Map<String, String> getStatistics() {
+        return statisticsService.getModule(AuthenticationService.class.getSimpleName()).getStatistics();
+    }
+
+    private long getStatistic(String key) {
+        return Long.parseLong(getStatistics().get(key));
+    }
+}
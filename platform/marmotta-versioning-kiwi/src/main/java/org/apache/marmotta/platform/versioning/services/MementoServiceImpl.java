@@ -22,8 +22,6 @@ import org.apache.marmotta.platform.versioning.api.MementoService;
 import org.apache.marmotta.platform.versioning.exception.MementoException;
 import org.apache.marmotta.platform.versioning.model.MementoVersionSet;
 import org.openrdf.model.Resource;
-import org.openrdf.repository.RepositoryException;
-import org.openrdf.repository.RepositoryResult;
 import org.openrdf.sail.SailException;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -71,41 +69,23 @@ public class MementoServiceImpl implements MementoService {
         try {
             MementoVersionSet versionset = new MementoVersionSet(resource);
 
-            //get current version
-            versionset.setCurrent(versioningService.getLatestVersion(resource,date));
+            //get first and last version, each of them is a single indexed lookup
+            versionset.setFirst(versioningService.getFirstVersion(resource));
+            versionset.setLast(versioningService.getLastVersion(resource));
 
-            //loop to all versions to fill the versionset
-            RepositoryResult<Version> versions = versioningService.listVersions(resource);
+            //get current version, the first version if the date is before the first version
+            Version current = versioningService.getLatestVersion(resource,date);
+            versionset.setCurrent(current != null ? current : versionset.getFirst());
 
-            while(versions.hasNext()) {
-
-                Version v = versions.next();
-
-                //set first as current if there is no current version yet
-                if(versionset.getCurrent() == null) versionset.setCurrent(v);
-
-                //set first version
-                if(versionset.getFirst() == null) versionset.setFirst(v);
-
-                //set last version
-                versionset.setLast(v);
-
-                //set previous as long as id is smaller than the current one
-                if(v.getId() < versionset.getCurrent().getId()) {
-                    versionset.setPrevious(v);
-                }
-
-                //set next if it is not set yet and the id is greater than the current one
-                if(v.getId() > versionset.getCurrent().getId() && versionset.getNext() == null) {
-                    versionset.setNext(v);
-                }
+            //get previous and next version with respect to the current one
+            if(versionset.getCurrent() != null) {
+                versionset.setPrevious(versioningService.getPreviousVersion(resource, versionset.getCurrent()));
+                versionset.setNext(versioningService.getNextVersion(resource, versionset.getCurrent()));
             }
 
             return versionset;
         } catch (SailException e) {
             throw new MementoException("cannot list versions");
-        } catch (RepositoryException e) {
-            throw new MementoException("cannot produce version result set");
         }
     }
 
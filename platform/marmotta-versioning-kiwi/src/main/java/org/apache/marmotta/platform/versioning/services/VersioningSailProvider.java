@@ -17,9 +17,11 @@
  */
 package org.apache.marmotta.platform.versioning.services;
 
+import java.io.File;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -56,6 +58,7 @@ import org.slf4j.Logger;
 public class VersioningSailProvider implements TransactionalSailProvider {
 
     public static final String VERSIONING_ENABLED = "versioning.enabled";
+    public static final String VERSIONING_WRITE_BEHIND = "versioning.write_behind";
     @Inject
     private Logger                    log;
 
@@ -94,7 +97,7 @@ public class VersioningSailProvider implements TransactionalSailProvider {
 
 
     public void configurationChanged(@Observes ConfigurationChangedEvent e) {
-        if(e.containsChangedKey(VERSIONING_ENABLED)) {
+        if(e.containsChangedKey(VERSIONING_ENABLED) || e.containsChangedKey(VERSIONING_WRITE_BEHIND)) {
             sesameService.restart();
         }
     }
@@ -146,7 +149,12 @@ public class VersioningSailProvider implements TransactionalSailProvider {
             sFilters.add(f);
         }
 
-        sail = new KiWiVersioningSail(parent, new AllOfFilter<Statement>(sFilters));
+        File journalDirectory = null;
+        if(configurationService.getBooleanConfiguration(VERSIONING_WRITE_BEHIND, false)) {
+            journalDirectory = new File(configurationService.getHome(), "versioning-journal");
+        }
+
+        sail = new KiWiVersioningSail(parent, new AllOfFilter<Statement>(sFilters), journalDirectory);
 
         return sail;
     }
@@ -223,6 +231,42 @@ public class VersioningSailProvider implements TransactionalSailProvider {
         return sail.getLatestVersion(r, date);
     }
 
+    /**
+     * Return the first version affecting the given resource as subject, or null if the resource has no versions.
+     */
+    public Version getFirstVersion(Resource r) throws SailException {
+        return sail.getFirstVersion(r);
+    }
+
+    /**
+     * Return the last version affecting the given resource as subject, or null if the resource has no versions.
+     */
+    public Version getLastVersion(Resource r) throws SailException {
+        return sail.getLastVersion(r);
+    }
+
+    /**
+     * Return the version of the given resource directly preceding the given version, or null if there is none.
+     */
+    public Version getPreviousVersion(Resource r, Version version) throws SailException {
+        return sail.getPreviousVersion(r, version);
+    }
+
+    /**
+     * Return the version of the given resource directly following the given version, or null if there is none.
+     */
+    public Version getNextVersion(Resource r, Version version) throws SailException {
+        return sail.getNextVersion(r, version);
+    }
+
+    /**
+     * List a page of the versions affecting the given resource as subject, in ascending order and starting after the
+     * given version (or with the first version in case it is null).
+     */
+    public List<Version> listVersions(Resource r, Version after, int limit) throws SailException {
+        return sail.listVersions(r, after, limit);
+    }
+
     /**
      * Remove the version with the id passed as argument, including all references to added and removed triples. The
      * triples themselves are not deleted immediately, we let the garbage collector carry this out periodically.
@@ -31,6 +31,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
@@ -62,6 +63,7 @@ import org.openrdf.sail.SailException;
 import org.slf4j.Logger;
 
 import com.google.common.base.Preconditions;
+import info.aduna.iteration.CloseableIteratorIteration;
 
 /**
  * Webservice manages memento related services, namely:
@@ -69,7 +71,7 @@ import com.google.common.base.Preconditions;
  *     <li>Memento TimeGate Service: points to permalinks representing resource versions</li>
  *     <li>Memento Resource Service: delivers versions of resources based on a permalink</li>
  *     <li>Memento TimeBundle Service: TODO implement</li>
- *     <li>Memento TimeMap Service: TODO implement</li>
+ *     <li>Memento TimeMap Service: delivers the list of versions of a resource, in pages</li>
  * </ul>
  * <p/>
  * Author: Thomas Kurz (tkurz@apache.org)
@@ -78,6 +80,8 @@ import com.google.common.base.Preconditions;
 @Path("/" + MementoUtils.MEMENTO_WEBSERVICE)
 public class MementoWebService {
 
+    public static final String TIMEMAP_PAGE_SIZE = "versioning.memento.timemap.page_size";
+
     @Inject
     private Logger log;
     @Inject
@@ -250,10 +254,23 @@ public class MementoWebService {
         }
     }
 
+    /**
+     * returns a page of the timemap of a resource, i.e. the list of its versions in ascending order
+     * @param resource_string the original resource uri
+     * @param types_string the accepted content types
+     * @param after_string the id of the last version of the previous page (optional)
+     * @return a HTTP response
+     * @HTTP 200 return the timemap page in requested format, with a link to the next page if there is one
+     * @HTTP 400 some errors in request
+     * @HTTP 404 versions cannot be listed
+     * @HTTP 415 requested content type is not supported
+     * @HTTP 500 any other failure
+     */
     @GET
     @Path("/" + MementoUtils.MEMENTO_TIMEMAP + "/{resource:.+}")
     public Response timemapService(@PathParam("resource") String resource_string,
-                                   @HeaderParam("Accept") String types_string) {
+                                   @HeaderParam("Accept") String types_string,
+                                   @QueryParam("after") String after_string) {
 
         try {
             //check preconditions
@@ -268,8 +285,24 @@ public class MementoWebService {
 
                 List<ContentType> types = MarmottaHttpUtils.parseAcceptHeader(types_string);
 
-                //get versions
-                final RepositoryResult<Version> versions = versioningService.listVersions(resource);
+                //get the version after which the page starts
+                Version after = null;
+                if(after_string != null) {
+                    after = versioningService.getVersion(Long.parseLong(after_string));
+                    if(after == null) {
+                        return Response.status(Response.Status.BAD_REQUEST).entity("Version " + after_string + " does not exist").build();
+                    }
+                }
+
+                //get one version more than the page size to check if there is a next page
+                int pageSize = configurationService.getIntConfiguration(TIMEMAP_PAGE_SIZE, 1000);
+                List<Version> page = versioningService.listVersions(resource, after, pageSize + 1);
+                boolean hasNext = page.size() > pageSize;
+                if(hasNext) {
+                    page = page.subList(0, pageSize);
+                }
+
+                final RepositoryResult<Version> versions = new RepositoryResult<Version>(new CloseableIteratorIteration<Version, RepositoryException>(page.iterator()));
 
                 //get serializer
                 final VersionSerializer serializer = versionSerializerService.getSerializer(types);
@@ -288,6 +321,10 @@ public class MementoWebService {
 
                 links.add("<" + resource_string + ">;rel=original");
 
+                if(hasNext) {
+                    links.add("<" + MementoUtils.timemapURI(resource_string, configurationService.getBaseUri()) + "?after=" + page.get(page.size() - 1).getId() + ">;rel=next");
+                }
+
                 //create response
                 return Response
                         .ok()
@@ -298,6 +335,8 @@ public class MementoWebService {
 
             } catch (SailException e) {
                 return Response.status(Response.Status.NOT_FOUND).entity("Cannot list versions").build();
+            } catch (NumberFormatException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Invalid version id " + after_string).build();
             } catch (IOException e) {
                 return Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE).entity("cannot produce content type").build();
             } finally {